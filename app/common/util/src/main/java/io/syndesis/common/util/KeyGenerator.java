@@ -50,6 +50,9 @@ public final class KeyGenerator {
         'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '_', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
         'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'));
 
+    // the alphabet of Base64.ORDERED
+    private static final String ORDERED_ALPHABET = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
     static {
         final SecureRandom random = new SecureRandom();
         randomnessByte = (byte) random.nextInt();
@@ -74,6 +77,45 @@ public final class KeyGenerator {
         return encodeKey(buffer.array());
     }
 
+    /**
+     * Creates keys that share the same random part, only the time encoded in
+     * the keys changes. For ids that need to carry their time but need not be
+     * unique, keys created within the same millisecond are equal. Creating
+     * such a key is much cheaper than {@link #createKey()}.
+     */
+    public static TimedKeys timedKeys() {
+        return new TimedKeys(createKey());
+    }
+
+    /**
+     * Keys with a fixed random part, see {@link #timedKeys()}.
+     */
+    public static final class TimedKeys {
+        // the first 6 bytes of the key are the time, encoded as the first 8
+        // characters after the prefix, the rest of the key stays the same
+        private static final int TIME_CHARS = 8;
+
+        private final char[] template;
+
+        TimedKeys(String key) {
+            template = key.toCharArray();
+        }
+
+        /**
+         * Generates a key carrying the current time.
+         */
+        public String createKey() {
+            final long now = clock.getAsLong();
+
+            final char[] key = template.clone();
+            for (int i = 0; i < TIME_CHARS; i++) {
+                key[1 + i] = ORDERED_ALPHABET.charAt((int) (now >>> (6 * (TIME_CHARS - 1 - i))) & 0x3f);
+            }
+
+            return new String(key);
+        }
+    }
+
     static long getRandomPart(final long timeStamp) {
         return RANDOMNESS_LONG.updateAndGet(randomVal -> {
             long current;
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.common.util.cache;
+
+import java.lang.ref.SoftReference;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A cache backed by a {@code ConcurrentHashMap} that is bounded by the number
+ * of entries and, optionally, by the total weight of the entries. Lookups do
+ * not take any locks, they only mark the entry as referenced. Entries are
+ * evicted using the CLOCK algorithm, an approximation of LRU: the eviction
+ * sweeps over the entries in insertion order, giving referenced entries a
+ * second chance and evicting the first entry that was not referenced since
+ * the last sweep. Only writers that push the cache over its bounds contend
+ * on the eviction lock.
+ * <p>
+ * When created as soft, values are held using soft references so that the
+ * garbage collector can reclaim them if the application is running low on
+ * memory.
+ */
+@SuppressWarnings("PMD.GodClass")
+public class ConcurrentCache<K, V> implements Cache<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+
+    /**
+     * Nodes in insertion order, may contain nodes that are no longer
+     * mapped, those are skipped by the eviction and purged once they
+     * outnumber the mapped ones.
+     */
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger clockLength = new AtomicInteger();
+
+    private final AtomicLong weight = new AtomicLong();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final CacheStats stats = new CacheStats();
+
+    private final int maxElements;
+
+    private final long maxWeight;
+
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final boolean soft;
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final Object value;
+        private final int weight;
+        private volatile boolean referenced;
+
+        Node(K key, V value, int weight, boolean soft) {
+            this.key = key;
+            this.value = soft ? new SoftReference<>(value) : value;
+            this.weight = weight;
+        }
+
+        @SuppressWarnings("unchecked")
+        V value() {
+            if (value instanceof SoftReference) {
+                return ((SoftReference<V>) value).get();
+            }
+            return (V) value;
+        }
+    }
+
+    public ConcurrentCache(int maxElements) {
+        this(maxElements, 0, Weigher.singleton(), false);
+    }
+
+    /**
+     * @param maxElements maximum number of entries
+     * @param maxWeight maximum total weight of the entries, 0 or less for no
+     *        limit on the weight
+     * @param weigher calculates the weight of each entry
+     * @param soft hold values using soft references
+     */
+    public ConcurrentCache(int maxElements, long maxWeight, Weigher<? super K, ? super V> weigher, boolean soft) {
+        this.maxElements = maxElements;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.soft = soft;
+    }
+
+    @Override
+    public V get(K key) {
+        final Node<K, V> node = map.get(key);
+        if (node == null) {
+            stats.recordMiss();
+            return null;
+        }
+
+        final V value = node.value();
+        if (value == null) {
+            // reclaimed by the garbage collector
+            unmap(node);
+            stats.recordMiss();
+            return null;
+        }
+
+        // avoid the volatile write if already marked
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        stats.recordHit();
+
+        return value;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        if (!soft) {
+            return Collections.unmodifiableSet(map.keySet());
+        }
+
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return live(n -> n.key);
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentCache.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return live(Node::value);
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentCache.this.size();
+            }
+        };
+    }
+
+    @Override
+    public void put(K key, V value) {
+        final Node<K, V> node = new Node<>(key, value, weigher.weigh(key, value), soft);
+
+        final Node<K, V> previous = map.put(key, node);
+        weight.addAndGet(previous == null ? node.weight : node.weight - previous.weight);
+
+        clock.add(node);
+        clockLength.incrementAndGet();
+
+        evict();
+    }
+
+    @Override
+    public V remove(K key) {
+        final Node<K, V> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+
+        weight.addAndGet(-node.weight);
+        return node.value();
+    }
+
+    @Override
+    public void clear() {
+        // removing one by one keeps the weight accounting exact with
+        // concurrent writers
+        for (K key : map.keySet()) {
+            remove(key);
+        }
+
+        evictionLock.lock();
+        try {
+            purge();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        if (!soft) {
+            return map.size();
+        }
+
+        int size = 0;
+        for (Node<K, V> node : map.values()) {
+            if (node.value() != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    public boolean isSoft() {
+        return soft;
+    }
+
+    public CacheStats stats() {
+        return stats;
+    }
+
+    private boolean unmap(Node<K, V> node) {
+        if (map.remove(node.key, node)) {
+            weight.addAndGet(-node.weight);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean overBounds() {
+        return map.size() > maxElements || (maxWeight > 0 && weight.get() > maxWeight);
+    }
+
+    private boolean tooManyUnmapped() {
+        return clockLength.get() > 2 * map.size() + 16;
+    }
+
+    private void evict() {
+        if (!overBounds() && !tooManyUnmapped()) {
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            if (tooManyUnmapped()) {
+                purge();
+            }
+
+            // each node is looked at twice at most: once to clear the
+            // referenced mark and once to evict it
+            int budget = 2 * clockLength.get() + 1;
+            while (overBounds() && budget-- > 0) {
+                final Node<K, V> node = clock.poll();
+                if (node == null) {
+                    break;
+                }
+
+                if (map.get(node.key) != node) {
+                    // replaced or removed
+                    clockLength.decrementAndGet();
+                    continue;
+                }
+
+                if (node.referenced && node.value() != null) {
+                    node.referenced = false;
+                    clock.add(node);
+                    continue;
+                }
+
+                clockLength.decrementAndGet();
+                if (unmap(node)) {
+                    stats.recordEviction();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // needs to hold the eviction lock
+    private void purge() {
+        final Iterator<Node<K, V>> nodes = clock.iterator();
+        while (nodes.hasNext()) {
+            final Node<K, V> node = nodes.next();
+            if (map.get(node.key) != node) {
+                nodes.remove();
+                clockLength.decrementAndGet();
+            }
+        }
+    }
+
+    private <T> Iterator<T> live(Function<Node<K, V>, T> mapper) {
+        final Iterator<Node<K, V>> nodes = map.values().iterator();
+
+        return new Iterator<T>() {
+            T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && nodes.hasNext()) {
+                    final Node<K, V> node = nodes.next();
+                    if (node.value() != null) {
+                        next = mapper.apply(node);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final T ret = next;
+                next = null;
+                return ret;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentCache{" +
+            "size=" + map.size() +
+            ", weight=" + weight.get() +
+            ", stats=" + stats +
+            '}';
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.common.util.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages {@link ConcurrentCache}s, lookups do not contend on locks and the
+ * caches can be bounded by the total weight of the entries besides the
+ * number of entries.
+ */
+public class ConcurrentCacheManager implements CacheManager {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheManager.class);
+
+    private final ConcurrentMap<String, ConcurrentCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final int maxElements;
+    private final long maxWeight;
+    private final Weigher<Object, Object> weigher;
+
+    public ConcurrentCacheManager(final int maxElements) {
+        this(maxElements, 0, Weigher.singleton());
+    }
+
+    /**
+     * @param maxElements maximum number of entries per cache
+     * @param maxWeight maximum total weight of entries per cache, 0 or less
+     *        for no limit on the weight
+     * @param weigher calculates the weight of each entry
+     */
+    public ConcurrentCacheManager(final int maxElements, final long maxWeight, final Weigher<Object, Object> weigher) {
+        this.maxElements = maxElements;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    @Override
+    public void evictAll() {
+        caches.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <K, V> Cache<K, V> getCache(final String name, boolean soft) {
+        ConcurrentCache<K, V> cache = (ConcurrentCache<K, V>) caches.computeIfAbsent(name, n -> new ConcurrentCache<>(maxElements, maxWeight, weigher, soft));
+        if (cache.isSoft() != soft) {
+            LOG.warn("Cache {} is being used in mixed 'soft' and 'hard' mode", name);
+        }
+        return cache;
+    }
+
+    /**
+     * Statistics of the named cache, or {@code null} if there is no such cache.
+     */
+    public CacheStats stats(final String name) {
+        final ConcurrentCache<?, ?> cache = caches.get(name);
+        return cache == null ? null : cache.stats();
+    }
+}
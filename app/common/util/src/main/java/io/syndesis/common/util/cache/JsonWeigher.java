@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.common.util.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.syndesis.common.util.json.JsonUtils;
+
+/**
+ * Approximates the size of cached values by the number of bytes of their JSON
+ * representation. Values that cannot be serialized weigh 1.
+ */
+public final class JsonWeigher implements Weigher<Object, Object> {
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        final CountingOutputStream counter = new CountingOutputStream();
+        try {
+            JsonUtils.writer().writeValue(counter, value);
+        } catch (IOException | RuntimeException ignored) {
+            return 1;
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, counter.count));
+    }
+}
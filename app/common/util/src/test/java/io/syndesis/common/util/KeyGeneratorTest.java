@@ -111,4 +111,23 @@ public class KeyGeneratorTest {
             assertThat(newer.compareTo(older)).isGreaterThan(0);
         }
     }
+
+    @Test
+    public void shouldCreateTimedKeysCarryingTheirTime() throws IOException {
+        final KeyGenerator.TimedKeys keys = KeyGenerator.timedKeys();
+
+        // 2018-08-14 11:22:06
+        KeyGenerator.clock = () -> 1534245726000L;
+        final String older = keys.createKey();
+        assertThat(KeyGenerator.resemblesAKey(older)).isTrue();
+        assertThat(KeyGenerator.getKeyTimeMillis(older)).isEqualTo(1534245726000L);
+        assertThat(older.substring(0, 9)).isEqualTo(KeyGenerator.createKey().substring(0, 9));
+
+        // 2018-08-17 12:38:48
+        KeyGenerator.clock = () -> 1534509528000L;
+        final String newer = keys.createKey();
+        assertThat(KeyGenerator.getKeyTimeMillis(newer)).isEqualTo(1534509528000L);
+        assertThat(newer.substring(9)).isEqualTo(older.substring(9));
+        assertThat(newer.compareTo(older)).isGreaterThan(0);
+    }
 }
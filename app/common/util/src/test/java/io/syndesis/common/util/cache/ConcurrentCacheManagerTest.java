@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.common.util.cache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentCacheManagerTest {
+
+    @ParameterizedTest(name = "ConcurrentCacheManagerTest(soft={0})")
+    @ValueSource(booleans = {true, false})
+    public void testEviction(final boolean soft) {
+        CacheManager manager = new ConcurrentCacheManager(2);
+        Cache<String, Object> cache = manager.getCache("cache", soft);
+
+        cache.put("1", "1");
+        cache.put("2", "2");
+        cache.put("3", "3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("1")).isNull();
+        assertThat(cache.get("2")).isNotNull();
+        assertThat(cache.get("3")).isNotNull();
+        assertThat(cache.keySet()).containsOnly("2", "3");
+        assertThat(cache.values()).containsOnly("2", "3");
+    }
+
+    @ParameterizedTest(name = "ConcurrentCacheManagerTest(soft={0})")
+    @ValueSource(booleans = {true, false})
+    public void testIdentity(final boolean soft) {
+        CacheManager manager = new ConcurrentCacheManager(2);
+        Cache<String, String> cache1 = manager.getCache("cache", soft);
+        Cache<String, String> cache2 = manager.getCache("cache", soft);
+        // same cache, but warning printed
+        Cache<String, String> cache3 = manager.getCache("cache", !soft);
+
+        assertThat(cache1).isEqualTo(cache2);
+        assertThat(cache1).isEqualTo(cache3);
+    }
+
+    @Test
+    public void shouldGiveReferencedEntriesASecondChance() {
+        ConcurrentCacheManager manager = new ConcurrentCacheManager(2);
+        Cache<String, String> cache = manager.getCache("cache", false);
+
+        cache.put("1", "1");
+        cache.put("2", "2");
+        assertThat(cache.get("1")).isEqualTo("1");
+        cache.put("3", "3");
+
+        assertThat(cache.keySet()).containsOnly("1", "3");
+
+        CacheStats stats = manager.stats("cache");
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(stats.evictionCount()).isEqualTo(1);
+        assertThat(cache.get("2")).isNull();
+        assertThat(stats.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictByWeight() {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(100, 10, (k, v) -> v.length(), false);
+
+        cache.put("a", "1234");
+        cache.put("b", "1234");
+        assertThat(cache.weight()).isEqualTo(8);
+
+        cache.put("c", "1234");
+        assertThat(cache.keySet()).containsOnly("b", "c");
+        assertThat(cache.weight()).isEqualTo(8);
+
+        cache.put("b", "12");
+        assertThat(cache.weight()).isEqualTo(6);
+
+        cache.remove("c");
+        assertThat(cache.weight()).isEqualTo(2);
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weight()).isZero();
+    }
+
+    @Test
+    public void shouldStayBoundedUnderConcurrentUse() throws InterruptedException {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(50);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    final int key = (i * 4 + offset) % 200;
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(50);
+        assertThat(cache.weight()).isEqualTo(cache.size());
+        for (Integer key : cache.keySet()) {
+            assertThat(cache.get(key)).isEqualTo(key);
+        }
+    }
+}
@@ -23,22 +23,51 @@ import org.apache.camel.Message;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.syndesis.common.util.ErrorCategory;
 import io.syndesis.common.util.SyndesisConnectorException;
 import io.syndesis.common.util.json.JsonUtils;
+import io.syndesis.connector.support.util.ConnectorOptions;
 import io.syndesis.integration.component.proxy.ComponentProxyComponent;
 import io.syndesis.integration.component.proxy.ComponentProxyCustomizer;
 
 public class FtpConnectorCustomizer implements ComponentProxyCustomizer {
 
+    /**
+     * Option selecting how the file content is passed along, {@code json}
+     * (default) wraps the content in a {@link FtpPayload} document,
+     * {@code stream} leaves the body as the remote file and carries the file
+     * name and metadata in the {@code CamelFile*} headers.
+     */
+    static final String TRANSFER_MODE = "transferMode";
+
+    static final String TRANSFER_MODE_STREAM = "stream";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectReader PAYLOAD_READER = MAPPER.readerFor(FtpPayload.class);
+
+    private static final ObjectWriter PAYLOAD_WRITER = MAPPER.writerFor(FtpPayload.class);
+
     @Override
     public void customize(ComponentProxyComponent component, Map<String, Object> options) {
+        final boolean stream = TRANSFER_MODE_STREAM.equals(ConnectorOptions.popOption(options, TRANSFER_MODE));
 
-        component.setBeforeProducer(FtpConnectorCustomizer::doBeforeProducer);
+        if (stream) {
+            // let the remote file be read while it is processed instead of
+            // downloading it in memory first
+            options.put("streamDownload", "true");
 
-        component.setBeforeConsumer(FtpConnectorCustomizer::doBeforeConsumer);
-        component.setAfterConsumer(FtpConnectorCustomizer::doAfterConsumer);
+            component.setBeforeConsumer(FtpConnectorCustomizer::doBeforeConsumer);
+            component.setAfterConsumer(FtpConnectorCustomizer::doAfterStreamingConsumer);
+        } else {
+            component.setBeforeProducer(FtpConnectorCustomizer::doBeforeProducer);
+
+            component.setBeforeConsumer(FtpConnectorCustomizer::doBeforeConsumer);
+            component.setAfterConsumer(FtpConnectorCustomizer::doAfterConsumer);
+        }
     }
 
     // Before Uploading or Updating a named file (pattern: to)
@@ -46,7 +75,7 @@ public class FtpConnectorCustomizer implements ComponentProxyCustomizer {
         final Message in = exchange.getIn();
         final String body = in.getBody(String.class);
         if (body != null && JsonUtils.isJson(body)) {
-            final FtpPayload payLoad = new ObjectMapper().readValue(body, FtpPayload.class);
+            final FtpPayload payLoad = PAYLOAD_READER.readValue(body);
             if (payLoad.getFileName()==null || payLoad.getFileName().equals("error")) {
                 throw new SyndesisConnectorException(ErrorCategory.DATA_ACCESS_ERROR, "FileName '"
                        + payLoad.getFileName()  + "' could not be parsed correctly");
@@ -62,7 +91,7 @@ public class FtpConnectorCustomizer implements ComponentProxyCustomizer {
         final Message in = exchange.getIn();
         final String body = in.getBody(String.class);
         if (body != null && JsonUtils.isJson(body)) {
-            FtpPayload payLoad = new ObjectMapper().readValue(in.getBody(String.class), FtpPayload.class);
+            FtpPayload payLoad = PAYLOAD_READER.readValue(body);
             if (payLoad.getFileName()==null || payLoad.getFileName().equals("error")) {
                 throw new SyndesisConnectorException(ErrorCategory.DATA_ACCESS_ERROR, "FileName"
                         + " could not be parsed correctly");
@@ -84,7 +113,7 @@ public class FtpConnectorCustomizer implements ComponentProxyCustomizer {
         if (body!=null) {
             final FtpPayload payLoad = new FtpPayload(body);
             payLoad.setFileName(fileName);
-            final String jsonPayload = new ObjectMapper().writeValueAsString(payLoad);
+            final String jsonPayload = PAYLOAD_WRITER.writeValueAsString(payLoad);
             in.setBody(jsonPayload);
         } else {
             final String detailedMsg = "File '" + fileName + "' was not found on the FTP server";
@@ -92,4 +121,20 @@ public class FtpConnectorCustomizer implements ComponentProxyCustomizer {
         }
     }
 
+    // After Downloading a named file in streaming mode (pattern: pollEnrich),
+    // the body is kept as the remote file so that it is read only by the steps
+    // that consume it
+    private static void doAfterStreamingConsumer(Exchange exchange) {
+        if (exchange.getException()!=null) {
+            throw SyndesisConnectorException.wrap(
+                    ErrorCategory.CONNECTOR_ERROR, exchange.getException());
+        }
+        final Message in = exchange.getIn();
+        if (in.getBody() == null) {
+            final String fileName = in.getHeader(Exchange.FILE_NAME, String.class);
+            final String detailedMsg = "File '" + fileName + "' was not found on the FTP server";
+            throw new SyndesisConnectorException(ErrorCategory.ENTITY_NOT_FOUND_ERROR, detailedMsg);
+        }
+    }
+
 }
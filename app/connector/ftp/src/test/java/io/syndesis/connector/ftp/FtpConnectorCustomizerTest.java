@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.connector.ftp;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.syndesis.common.util.SyndesisConnectorException;
+import io.syndesis.integration.component.proxy.ComponentProxyComponent;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FtpConnectorCustomizerTest {
+
+    private final ComponentProxyComponent component = new ComponentProxyComponent("ftp-test", "ftp");
+
+    @Test
+    public void shouldWrapDownloadedFileInJsonByDefault() throws Exception {
+        final Map<String, Object> options = new HashMap<>();
+        new FtpConnectorCustomizer().customize(component, options);
+
+        final Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setHeader(Exchange.FILE_NAME, "file.txt");
+        exchange.getIn().setBody("content");
+        component.getAfterConsumer().process(exchange);
+
+        assertThat(options).doesNotContainKey("streamDownload");
+        assertThat(exchange.getIn().getBody(String.class)).isEqualTo("{\"fileName\":\"file.txt\",\"fileContent\":\"content\"}");
+    }
+
+    @Test
+    public void shouldKeepDownloadedFileAsStreamInStreamingMode() throws Exception {
+        final Map<String, Object> options = new HashMap<>();
+        options.put(FtpConnectorCustomizer.TRANSFER_MODE, FtpConnectorCustomizer.TRANSFER_MODE_STREAM);
+        new FtpConnectorCustomizer().customize(component, options);
+
+        assertThat(options).doesNotContainKey(FtpConnectorCustomizer.TRANSFER_MODE);
+        assertThat(options).containsEntry("streamDownload", "true");
+        assertThat(component.getBeforeProducer()).isNull();
+
+        final Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setBody("{\"fileName\":\"file.txt\"}");
+        component.getBeforeConsumer().process(exchange);
+        assertThat(exchange.getIn().getHeader(Exchange.FILE_NAME)).isEqualTo("file.txt");
+
+        final InputStream content = new ByteArrayInputStream(new byte[] {1, 2, 3});
+        exchange.getIn().setBody(content);
+        component.getAfterConsumer().process(exchange);
+
+        assertThat(exchange.getIn().getBody()).isSameAs(content);
+        assertThat(exchange.getIn().getHeader(Exchange.FILE_NAME)).isEqualTo("file.txt");
+    }
+
+    @Test
+    public void shouldFailIfStreamedFileIsNotFound() {
+        final Map<String, Object> options = new HashMap<>();
+        options.put(FtpConnectorCustomizer.TRANSFER_MODE, FtpConnectorCustomizer.TRANSFER_MODE_STREAM);
+        new FtpConnectorCustomizer().customize(component, options);
+
+        final Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setHeader(Exchange.FILE_NAME, "missing.txt");
+
+        assertThatThrownBy(() -> component.getAfterConsumer().process(exchange))
+            .isInstanceOf(SyndesisConnectorException.class)
+            .hasMessageContaining("missing.txt");
+    }
+}
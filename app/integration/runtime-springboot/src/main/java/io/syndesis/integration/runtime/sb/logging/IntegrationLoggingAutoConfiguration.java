@@ -19,6 +19,7 @@ import io.syndesis.integration.runtime.ActivityTrackingPolicyFactory;
 import io.syndesis.integration.runtime.logging.ActivityTracker;
 import io.syndesis.integration.runtime.logging.ActivityTrackingInterceptStrategy;
 import io.syndesis.integration.runtime.logging.BodyLogger;
+import io.syndesis.integration.runtime.logging.BufferedActivityTracker;
 import io.syndesis.integration.runtime.logging.IntegrationActivityTrackingPolicyFactory;
 import io.syndesis.integration.runtime.logging.FlowActivityTrackingPolicyFactory;
 import org.apache.camel.spi.InterceptStrategy;
@@ -40,7 +41,15 @@ import org.springframework.context.annotation.Configuration;
 public class IntegrationLoggingAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(ActivityTracker.class)
-    public ActivityTracker activityTracker() {
+    public ActivityTracker activityTracker(IntegrationLoggingConfiguration configuration) {
+        if (configuration.isAsync()) {
+            return new BufferedActivityTracker(System.out, configuration.getSamplingRate(), configuration.getQueueCapacity(), configuration.getBatchSize());
+        }
+
+        if (configuration.getSamplingRate() < 1.0) {
+            return new BufferedActivityTracker(System.out, configuration.getSamplingRate());
+        }
+
         return new ActivityTracker.SysOut();
     }
 
@@ -24,6 +24,27 @@ public class IntegrationLoggingConfiguration {
      */
     private boolean enabled = true;
 
+    /**
+     * Fraction of the exchanges, between 0 and 1, whose activity is tracked.
+     */
+    private double samplingRate = 1.0;
+
+    /**
+     * Write activity tracking events in batches from a background thread.
+     */
+    private boolean async;
+
+    /**
+     * Number of events queued for the background thread before tracking
+     * blocks.
+     */
+    private int queueCapacity = 8192;
+
+    /**
+     * Maximum number of events written at once by the background thread.
+     */
+    private int batchSize = 256;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -31,4 +52,36 @@ public class IntegrationLoggingConfiguration {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(double samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
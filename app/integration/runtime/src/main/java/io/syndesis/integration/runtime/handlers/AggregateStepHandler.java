@@ -21,7 +21,6 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,13 +29,16 @@ import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.errorprone.annotations.Immutable;
 
 import io.syndesis.common.model.integration.Step;
 import io.syndesis.common.model.integration.StepKind;
-import io.syndesis.common.util.json.JsonUtils;
 import io.syndesis.integration.runtime.IntegrationRouteBuilder;
 import io.syndesis.integration.runtime.IntegrationStepHandler;
+import io.syndesis.integration.runtime.util.ParsedJson;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
@@ -60,7 +62,7 @@ public class AggregateStepHandler implements IntegrationStepHandler {
     @Override
     public Optional<ProcessorDefinition<?>> handle(Step step, ProcessorDefinition<?> route, IntegrationRouteBuilder builder, String flowIndex, String stepIndex) {
         if (step.hasUnifiedJsonSchemaOutputShape()) {
-            route.process(new UnifiedJsonAggregationPostProcessor());
+            route.process(new UnifiedJsonAggregationPostProcessor(ParsedJson.mapper(builder.getContext())));
         }
 
         return Optional.of(route);
@@ -161,28 +163,38 @@ public class AggregateStepHandler implements IntegrationStepHandler {
 
     /**
      * Special unified json aggregation post processor takes care of multiple unified json body elements and aggregates
-     * those to a single unified body element.
+     * those to a single unified body element. Elements are parsed through {@link ParsedJson} and their bodies are
+     * serialized in a single pass.
      */
     private static class UnifiedJsonAggregationPostProcessor implements Processor {
+        private final ObjectMapper mapper;
+
+        UnifiedJsonAggregationPostProcessor(ObjectMapper mapper) {
+            this.mapper = mapper;
+        }
+
         @Override
         public void process(Exchange exchange) throws Exception {
             final Message message = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
 
             if (message != null && message.getBody() instanceof List) {
                 try {
-                    List<String> unifiedBodies = new ArrayList<>();
+                    final ArrayNode unifiedBodies = mapper.createArrayNode();
                     List<?> jsonBeans = message.getBody(List.class);
                     for (Object unifiedJsonBean : jsonBeans) {
-                        JsonNode unifiedJson = JsonUtils.reader().readTree(String.valueOf(unifiedJsonBean));
-                        if (unifiedJson.isObject()) {
+                        JsonNode unifiedJson = ParsedJson.readTree(exchange, String.valueOf(unifiedJsonBean), mapper);
+                        if (unifiedJson != null && unifiedJson.isObject()) {
                             JsonNode body = unifiedJson.get("body");
                             if (body != null) {
-                                unifiedBodies.add(JsonUtils.writer().writeValueAsString(body));
+                                // the parsed trees are shared, the array only references them
+                                unifiedBodies.add(body);
                             }
                         }
                     }
 
-                    message.setBody("{\"body\":" + JsonUtils.jsonBeansToArray(unifiedBodies) + "}");
+                    final ObjectNode unified = mapper.createObjectNode();
+                    unified.set("body", unifiedBodies);
+                    message.setBody(mapper.writeValueAsString(unified));
                 } catch (JsonParseException e) {
                     LOG.warn("Unable to aggregate unified json array type", e);
                 }
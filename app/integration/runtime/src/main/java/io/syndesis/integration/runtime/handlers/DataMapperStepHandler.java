@@ -26,12 +26,14 @@ import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.syndesis.common.model.integration.Step;
 import io.syndesis.common.model.integration.StepKind;
 import io.syndesis.common.util.json.JsonUtils;
 import io.syndesis.integration.runtime.IntegrationRouteBuilder;
 import io.syndesis.integration.runtime.IntegrationStepHandler;
 import io.syndesis.integration.runtime.capture.OutMessageCaptureProcessor;
+import io.syndesis.integration.runtime.util.ParsedJson;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
@@ -63,7 +65,7 @@ public class DataMapperStepHandler implements IntegrationStepHandler {
 
         addJsonTypeSourceProcessor(route, dataSources);
         route.toF("atlas:mapping-flow-%s-step-%s.json?encoding=UTF-8&sourceMapName=%s", flowIndex, stepIndex, OutMessageCaptureProcessor.CAPTURED_OUT_MESSAGES_MAP);
-        addJsonTypeTargetProcessor(route, dataSources);
+        addJsonTypeTargetProcessor(route, dataSources, ParsedJson.mapper(builder.getContext()));
 
         return Optional.of(route);
     }
@@ -92,12 +94,12 @@ public class DataMapperStepHandler implements IntegrationStepHandler {
      * In case mapping definition has Json typed target document we need to make sure to convert the output. This is because mapper provides Json target collection as Json array String representation.
      * We prefer to use list objects where each element is a Json Object String.
      */
-    private static void addJsonTypeTargetProcessor(ProcessorDefinition<?> route, List<Map<String, Object>> dataSources) {
+    private static void addJsonTypeTargetProcessor(ProcessorDefinition<?> route, List<Map<String, Object>> dataSources, ObjectMapper mapper) {
         boolean isJsonTypeTarget = dataSources.stream()
                 .anyMatch(s -> ATLASMAP_JSON_DATA_SOURCE.equals(s.get("jsonType")) && "TARGET".equals(s.get("dataSourceType")));
 
         if (isJsonTypeTarget) {
-            route.process(new JsonTypeTargetProcessor());
+            route.process(new JsonTypeTargetProcessor(mapper));
         }
     }
 
@@ -169,14 +171,21 @@ public class DataMapperStepHandler implements IntegrationStepHandler {
      * Processor converts Atlasmap target Json array String representation to list of Json bean strings.
      */
     static class JsonTypeTargetProcessor implements Processor {
+        private final ObjectMapper mapper;
+
+        JsonTypeTargetProcessor(ObjectMapper mapper) {
+            this.mapper = mapper;
+        }
+
         @Override
         public void process(Exchange exchange) throws Exception {
             if (exchange.removeProperty(DATA_MAPPER_AUTO_CONVERSION) != null) {
                 final Message message = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
 
-                if (message != null && message.getBody(String.class) != null) {
+                final String body = message == null ? null : message.getBody(String.class);
+                if (body != null) {
                     try {
-                        JsonNode json = JsonUtils.reader().readTree(message.getBody(String.class));
+                        JsonNode json = ParsedJson.readTree(exchange, body, mapper);
                         if (json.isArray()) {
                             message.setBody(JsonUtils.arrayToJsonBeans(json));
                         }
@@ -15,23 +15,35 @@
  */
 package io.syndesis.integration.runtime.handlers;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.syndesis.common.model.integration.Step;
 import io.syndesis.common.model.integration.StepKind;
 import io.syndesis.common.util.SyndesisServerException;
 import io.syndesis.common.util.json.JsonUtils;
 import io.syndesis.integration.runtime.IntegrationRouteBuilder;
 import io.syndesis.integration.runtime.IntegrationStepHandler;
+import io.syndesis.integration.runtime.util.JsonArrayIterator;
+import io.syndesis.integration.runtime.util.ParsedJson;
 import org.apache.camel.Exchange;
 import org.apache.camel.Expression;
 import org.apache.camel.TypeConverter;
 import org.apache.camel.builder.Builder;
 import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.SplitDefinition;
 import org.apache.camel.spi.Language;
 import org.apache.camel.support.ExpressionAdapter;
 import org.apache.camel.util.ObjectHelper;
@@ -76,13 +88,15 @@ public class SplitStepHandler implements IntegrationStepHandler {
     public Optional<ProcessorDefinition<?>> handle(Step step, ProcessorDefinition<?> route, IntegrationRouteBuilder builder, String flowIndex, String stepIndex) {
         ObjectHelper.notNull(route, "route");
 
-        SplitExpression splitExpression;
+        final boolean streaming = Boolean.parseBoolean(step.getConfiguredProperties().get("streaming"));
+        final boolean unified = step.hasUnifiedJsonSchemaOutputShape();
+        Expression delegate;
         String languageName = step.getConfiguredProperties().get("language");
         String expressionDefinition = step.getConfiguredProperties().get("expression");
 
-        if (step.hasUnifiedJsonSchemaOutputShape()) {
+        if (unified) {
             // we have to split the nested unified body property by default.
-            splitExpression = new SplitExpression(new UnifiedJsonBodyExpression(Builder.body()));
+            delegate = Builder.body();
         } else if (ObjectHelper.isNotEmpty(expressionDefinition)) {
             if (ObjectHelper.isEmpty(languageName)) {
                 languageName = "simple";
@@ -96,16 +110,31 @@ public class SplitStepHandler implements IntegrationStepHandler {
             }
 
             final Language language = builder.getContext().resolveLanguage(languageName);
-            splitExpression = new SplitExpression(language.createExpression(expressionDefinition));
+            delegate = language.createExpression(expressionDefinition);
         } else {
-            splitExpression = new SplitExpression(Builder.body());
+            delegate = Builder.body();
+        }
+
+        final ObjectMapper mapper = ParsedJson.mapper(builder.getContext());
+        final Expression splitExpression;
+        if (streaming) {
+            splitExpression = new StreamingSplitExpression(delegate, unified, mapper);
+        } else if (unified) {
+            splitExpression = new SplitExpression(new UnifiedJsonBodyExpression(delegate, mapper), mapper);
+        } else {
+            splitExpression = new SplitExpression(delegate, mapper);
         }
 
         AggregateStepHandler.AggregationOption aggregation = Optional.ofNullable(step.getConfiguredProperties().get("aggregationStrategy"))
                 .map(AggregateStepHandler.AggregationOption::valueOf)
                 .orElse(AggregateStepHandler.AggregationOption.body);
 
-        route = route.split(splitExpression).aggregationStrategy(aggregation.getStrategy(step.getConfiguredProperties()));
+        SplitDefinition split = route.split(splitExpression).aggregationStrategy(aggregation.getStrategy(step.getConfiguredProperties()));
+        if (streaming) {
+            // do not collect all parts upfront
+            split = split.streaming();
+        }
+        route = split;
 
         return Optional.of(route);
     }
@@ -120,41 +149,191 @@ public class SplitStepHandler implements IntegrationStepHandler {
      */
     private static class SplitExpression extends ExpressionAdapter {
         private final Expression delegate;
+        private final ObjectMapper mapper;
 
-        SplitExpression(Expression delegate) {
+        SplitExpression(Expression delegate, ObjectMapper mapper) {
             this.delegate = delegate;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Object evaluate(Exchange exchange) {
+            return splitValue(delegate.evaluate(exchange, Object.class), exchange, mapper);
+        }
+    }
+
+    /**
+     * Converts the value to split, Json arrays are converted to a list of Json beans.
+     */
+    private static Object splitValue(Object delegateValue, Exchange exchange, ObjectMapper mapper) {
+        try {
+            Object value = convert(delegateValue, exchange);
+
+            if (value instanceof String && JsonUtils.isJson(value.toString())) {
+                JsonNode json = ParsedJson.readTree(exchange, value.toString(), mapper);
+                if (json.isArray()) {
+                    return JsonUtils.arrayToJsonBeans(json);
+                }
+            }
+
+            return value;
+        } catch (IOException e) {
+            throw SyndesisServerException.launderThrowable(e);
+        }
+    }
+
+    /**
+     * Split expression used when the split step is configured with {@code streaming=true}. Json arrays given as String,
+     * byte array, input stream or remote file are not read into memory as a whole, instead the elements are read one by
+     * one from a streaming parser as the splitter iterates. For unified Json the elements of the nested body property
+     * are iterated, split the same way as with {@link UnifiedJsonBodyExpression}.
+     * When the content is not a Json array (or a unified Json object) the split is performed as with {@link SplitExpression}.
+     */
+    private static class StreamingSplitExpression extends ExpressionAdapter {
+        private static final JsonFactory FACTORY = JsonUtils.reader().getFactory();
+
+        // enough to skip leading whitespace of any reasonable document
+        private static final int SNIFF_LIMIT = 8 * 1024;
+
+        private final Expression delegate;
+        private final boolean unified;
+        private final ObjectMapper mapper;
+
+        StreamingSplitExpression(Expression delegate, boolean unified, ObjectMapper mapper) {
+            this.delegate = delegate;
+            this.unified = unified;
+            this.mapper = mapper;
         }
 
         @Override
         public Object evaluate(Exchange exchange) {
             try {
-                Object value = convert(delegate.evaluate(exchange, Object.class), exchange);
+                final Object value = delegate.evaluate(exchange, Object.class);
+
+                final char first;
+                final JsonParser parser;
+                if (value instanceof String) {
+                    first = firstCharacter((String) value);
+                    parser = expected(first) ? FACTORY.createParser((String) value) : null;
+                } else if (value instanceof byte[]) {
+                    first = firstCharacter(new ByteArrayInputStream((byte[]) value));
+                    parser = expected(first) ? FACTORY.createParser((byte[]) value) : null;
+                } else if (Arrays.stream(AutoConvertTypes.values()).anyMatch(type -> type.isInstance(value))) {
+                    final InputStream stream = value instanceof InputStream ? (InputStream) value : exchange.getContext().getTypeConverter().convertTo(InputStream.class, exchange, value);
+                    if (stream == null) {
+                        return splitValue(value, exchange, mapper);
+                    }
 
-                if (value instanceof String && JsonUtils.isJson(value.toString())) {
-                    JsonNode json = JsonUtils.reader().readTree(value.toString());
-                    if (json.isArray()) {
-                        return JsonUtils.arrayToJsonBeans(json);
+                    final InputStream buffered = stream.markSupported() ? stream : new BufferedInputStream(stream);
+                    buffered.mark(SNIFF_LIMIT);
+                    first = firstCharacter(buffered);
+                    buffered.reset();
+
+                    if (!expected(first)) {
+                        // not something to stream, split the content like the non streaming split does
+                        return splitValue(buffered, exchange, mapper);
                     }
+                    parser = FACTORY.createParser(buffered);
+                } else {
+                    return value;
                 }
 
-                return value;
+                if (parser == null) {
+                    return splitValue(value, exchange, mapper);
+                }
+
+                parser.nextToken();
+                if (first == '[') {
+                    return new JsonArrayIterator(parser);
+                }
+
+                return unifiedBody(parser);
             } catch (IOException e) {
                 throw SyndesisServerException.launderThrowable(e);
             }
         }
+
+        private boolean expected(char first) {
+            return first == '[' || unified && first == '{';
+        }
+
+        /**
+         * Positions the parser on the body property of the unified Json object and iterates over its elements. A body
+         * that is not an array is the only element, a missing body has no elements.
+         */
+        private static Object unifiedBody(JsonParser parser) throws IOException {
+            try {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = parser.getCurrentName();
+                    final JsonToken token = parser.nextToken();
+
+                    if ("body".equals(name)) {
+                        if (token == JsonToken.START_ARRAY) {
+                            return new JsonArrayIterator(parser);
+                        }
+
+                        final StringWriter element = new StringWriter();
+                        try (JsonGenerator generator = FACTORY.createGenerator(element)) {
+                            generator.copyCurrentStructure(parser);
+                        }
+                        parser.close();
+                        return Collections.singletonList(element.toString());
+                    }
+
+                    parser.skipChildren();
+                }
+            } catch (IOException | RuntimeException e) {
+                parser.close();
+                throw e;
+            }
+
+            parser.close();
+            return Collections.emptyList();
+        }
+
+        private static char firstCharacter(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                final char ch = value.charAt(i);
+                if (!Character.isWhitespace(ch) && ch != '\uFEFF') {
+                    return ch;
+                }
+            }
+
+            return 0;
+        }
+
+        private static char firstCharacter(InputStream stream) throws IOException {
+            for (int i = 0; i < SNIFF_LIMIT; i++) {
+                final int b = stream.read();
+                if (b == -1) {
+                    return 0;
+                }
+
+                // skip whitespace and an UTF-8 byte order mark
+                if (!Character.isWhitespace(b) && b != 0xEF && b != 0xBB && b != 0xBF) {
+                    return (char) b;
+                }
+            }
+
+            return 0;
+        }
     }
 
     /**
      * Expression extracts body property from unified Json schema typed input. The unified Json holds the actual body in
      * a nested property. This property is extracted and set as expression result so follow up expressions can operate on the body.
+     * As with {@link StreamingSplitExpression} a body that is not an array is the only element and a missing body has no
+     * elements.
      * Expression receives a delegate expression that usually evaluates the part of the body or header that should be
      * treated as unified Json. By default this is a simple body expression.
      */
     private static class UnifiedJsonBodyExpression extends ExpressionAdapter {
         private final Expression delegate;
+        private final ObjectMapper mapper;
 
-        UnifiedJsonBodyExpression(Expression delegate) {
+        UnifiedJsonBodyExpression(Expression delegate, ObjectMapper mapper) {
             this.delegate = delegate;
+            this.mapper = mapper;
         }
 
         @Override
@@ -163,10 +342,19 @@ public class SplitStepHandler implements IntegrationStepHandler {
                 Object value = convert(delegate.evaluate(exchange, Object.class), exchange);
 
                 if (value instanceof String && JsonUtils.isJson(value.toString())) {
-                    JsonNode json = JsonUtils.reader().readTree(value.toString());
-                    JsonNode body = json.get("body");
-                    if (body != null) {
-                        return JsonUtils.writer().writeValueAsString(body);
+                    JsonNode json = ParsedJson.readTree(exchange, value.toString(), mapper);
+                    if (json.isObject()) {
+                        JsonNode body = json.get("body");
+                        if (body == null) {
+                            return Collections.emptyList();
+                        }
+
+                        String element = JsonUtils.writer().writeValueAsString(body);
+                        if (body.isArray()) {
+                            return element;
+                        }
+
+                        return Collections.singletonList(element);
                     }
                 }
 
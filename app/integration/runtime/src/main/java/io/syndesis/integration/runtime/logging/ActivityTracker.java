@@ -17,7 +17,6 @@ package io.syndesis.integration.runtime.logging;
 
 import java.util.Objects;
 
-import io.syndesis.integration.runtime.util.JsonSupport;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.util.ObjectHelper;
@@ -26,14 +25,26 @@ import org.apache.camel.util.ObjectHelper;
 public interface ActivityTracker {
     void track(Object... items);
 
+    /**
+     * Tracks an event of a step of an exchange, implementations can encode
+     * the event without collecting the fields into an array first.
+     */
+    default void trackStep(String activityId, String stepId, String id, long duration, String failure) {
+        track(
+            "exchange", activityId,
+            "step", stepId,
+            "id", id,
+            "duration", duration,
+            "failure", failure
+        );
+    }
+
     /**
      * Default implementation that log activity on STOUT.
      */
-    class SysOut implements ActivityTracker {
-        @SuppressWarnings("PMD.SystemPrintln")
-        @Override
-        public void track(Object... fields) {
-            System.out.println(JsonSupport.toJsonObject(fields));
+    class SysOut extends BufferedActivityTracker {
+        public SysOut() {
+            super(System.out, 1.0);
         }
     }
 
@@ -74,6 +74,7 @@ public class ActivityTrackingInterceptStrategy implements InterceptStrategy {
      */
     private class TrackStartEventProcessor extends DelegateAsyncProcessor {
         private final String stepId;
+        private final KeyGenerator.TimedKeys keys = KeyGenerator.timedKeys();
 
         TrackStartEventProcessor(Processor processor, String stepId) {
             super(processor);
@@ -84,13 +85,7 @@ public class ActivityTrackingInterceptStrategy implements InterceptStrategy {
         public boolean process(Exchange exchange, final AsyncCallback callback) {
             final String activityId =  ActivityTracker.getActivityId(exchange);
             if (activityId != null) {
-                tracker.track(
-                    "exchange", activityId,
-                    "step", stepId,
-                    "id", KeyGenerator.createKey(),
-                    "duration", 0L,
-                    "failure", null
-                );
+                tracker.trackStep(activityId, stepId, keys.createKey(), 0L, null);
             }
 
             return super.process(exchange, callback);
@@ -102,6 +97,7 @@ public class ActivityTrackingInterceptStrategy implements InterceptStrategy {
      */
     private class TrackDoneEventProcessor extends DelegateAsyncProcessor {
         private final String stepId;
+        private final KeyGenerator.TimedKeys keys = KeyGenerator.timedKeys();
 
         TrackDoneEventProcessor(Processor processor, String stepId) {
             super(processor);
@@ -110,7 +106,7 @@ public class ActivityTrackingInterceptStrategy implements InterceptStrategy {
 
         @Override
         public boolean process(final Exchange exchange, final AsyncCallback callback) {
-            final String trackerId = KeyGenerator.createKey();
+            final String trackerId = keys.createKey();
             final long createdAt = System.nanoTime();
             final Message in = exchange.getIn();
             in.setHeader(IntegrationLoggingConstants.STEP_TRACKER_ID, trackerId);
@@ -119,13 +115,7 @@ public class ActivityTrackingInterceptStrategy implements InterceptStrategy {
                 final String activityId =  ActivityTracker.getActivityId(exchange);
 
                 if (activityId != null) {
-                    tracker.track(
-                        "exchange", activityId,
-                        "step", stepId,
-                        "id", trackerId,
-                        "duration", System.nanoTime() - createdAt,
-                        "failure", failure(exchange)
-                    );
+                    tracker.trackStep(activityId, stepId, trackerId, System.nanoTime() - createdAt, failure(exchange));
                 }
 
                 callback.done(doneSync);
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.syndesis.common.util.SyndesisServerException;
+
+/**
+ * High throughput activity tracker, events are encoded as JSON by a
+ * generator reused per thread over a reusable buffer and written to the given
+ * stream, one event per line.
+ * <p>
+ * When asynchronous, events are queued and written in batches by a
+ * background thread, callers are blocked when the queue is full so that no
+ * events are lost or reordered. Exchanges can be sampled: only the events of
+ * the given fraction of the exchanges are tracked, the decision is based on
+ * the activity id so either all or none of the events of an exchange are
+ * tracked.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class BufferedActivityTracker implements ActivityTracker, Closeable {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final int SAMPLING_SCALE = 10_000;
+
+    private final ThreadLocal<EventWriter> writers = ThreadLocal.withInitial(EventWriter::new);
+
+    private final PrintStream out;
+
+    private final int samplingThreshold;
+
+    private final BlockingQueue<String> queue;
+
+    private final int batchSize;
+
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a tracker writing each event directly.
+     */
+    public BufferedActivityTracker(PrintStream out, double samplingRate) {
+        this(out, samplingRate, 0, 0);
+    }
+
+    /**
+     * Creates a tracker, if the queue capacity is positive events are queued
+     * and written in batches of at most the given size by a background thread.
+     */
+    public BufferedActivityTracker(PrintStream out, double samplingRate, int queueCapacity, int batchSize) {
+        if (samplingRate < 0 || samplingRate > 1) {
+            throw new IllegalArgumentException("Sampling rate needs to be between 0 and 1, given: " + samplingRate);
+        }
+
+        this.out = out;
+        this.samplingThreshold = (int) Math.round(samplingRate * SAMPLING_SCALE);
+        this.batchSize = Math.max(1, batchSize);
+
+        if (queueCapacity > 0) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            flusher = new Thread(this::flush, "activity-tracker-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            queue = null;
+            flusher = null;
+        }
+    }
+
+    @Override
+    public void track(Object... fields) {
+        if (!isSampled(fields)) {
+            return;
+        }
+
+        enqueue(writers.get().encode(fields));
+    }
+
+    /**
+     * Encodes the event of the step directly, without the array of fields and
+     * the boxing of the duration of {@link #track(Object...)}.
+     */
+    @Override
+    public void trackStep(String activityId, String stepId, String id, long duration, String failure) {
+        if (!isSampledActivity(activityId)) {
+            return;
+        }
+
+        enqueue(writers.get().encodeStep(activityId, stepId, id, duration, failure));
+    }
+
+    private void enqueue(String event) {
+        if (queue == null) {
+            write(event);
+            return;
+        }
+
+        if (closed) {
+            writeAfterQueued(event);
+            return;
+        }
+
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write(event);
+        }
+    }
+
+    /**
+     * Stops the background thread after it has written all queued events.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        if (flusher != null) {
+            awaitFlusher();
+
+            synchronized (out) {
+                // queued while the background thread was stopping
+                writeQueued();
+            }
+        }
+    }
+
+    boolean isSampled(Object... fields) {
+        if (samplingThreshold >= SAMPLING_SCALE) {
+            return true;
+        }
+
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            if ("exchange".equals(fields[i])) {
+                return isSampledActivity(fields[i + 1]);
+            }
+        }
+
+        // not related to an exchange
+        return true;
+    }
+
+    private boolean isSampledActivity(Object activityId) {
+        if (samplingThreshold >= SAMPLING_SCALE) {
+            return true;
+        }
+
+        return activityId != null && Math.floorMod(mix(activityId.hashCode()), SAMPLING_SCALE) < samplingThreshold;
+    }
+
+    /**
+     * Spreads the hash code, ids of consecutive exchanges are similar and so
+     * are their hash codes.
+     */
+    private static int mix(int hashCode) {
+        int h = hashCode;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private void write(String event) {
+        synchronized (out) {
+            out.println(event);
+        }
+    }
+
+    /**
+     * Writes an event tracked after closing, once the events queued before
+     * it are written.
+     */
+    private void writeAfterQueued(String event) {
+        awaitFlusher();
+
+        synchronized (out) {
+            writeQueued();
+            out.println(event);
+        }
+    }
+
+    // guarded by out
+    private void writeQueued() {
+        String event;
+        while ((event = queue.poll()) != null) {
+            out.println(event);
+        }
+    }
+
+    private void awaitFlusher() {
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        final List<String> batch = new ArrayList<>(batchSize);
+        final StringBuilder lines = new StringBuilder();
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                final String first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                for (String event : batch) {
+                    lines.append(event).append(System.lineSeparator());
+                }
+
+                synchronized (out) {
+                    out.print(lines);
+                    out.flush();
+                }
+
+                batch.clear();
+                lines.setLength(0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Encodes events using a generator and buffer reused for all events of a
+     * thread.
+     */
+    private static final class EventWriter extends Writer {
+        private final StringBuilder buffer = new StringBuilder(256);
+
+        private JsonGenerator generator;
+
+        String encode(Object... fields) {
+            final JsonGenerator generator = start();
+
+            try {
+                generator.writeStartObject();
+                for (int i = 0; i + 1 < fields.length; i += 2) {
+                    final Object key = fields[i];
+                    final Object value = fields[i + 1];
+                    if (key != null && value != null) {
+                        generator.writeFieldName(key.toString());
+                        if (value instanceof Boolean) {
+                            generator.writeBoolean((Boolean) value);
+                        } else if (value instanceof Number) {
+                            generator.writeNumber(((Number) value).longValue());
+                        } else {
+                            generator.writeString(value.toString());
+                        }
+                    }
+                }
+                generator.writeEndObject();
+                generator.flush();
+            } catch (IOException | RuntimeException e) {
+                throw failed(e);
+            }
+
+            return buffer.toString();
+        }
+
+        String encodeStep(String activityId, String stepId, String id, long duration, String failure) {
+            final JsonGenerator generator = start();
+
+            try {
+                generator.writeStartObject();
+                writeStringField(generator, "exchange", activityId);
+                writeStringField(generator, "step", stepId);
+                writeStringField(generator, "id", id);
+                generator.writeNumberField("duration", duration);
+                writeStringField(generator, "failure", failure);
+                generator.writeEndObject();
+                generator.flush();
+            } catch (IOException | RuntimeException e) {
+                throw failed(e);
+            }
+
+            return buffer.toString();
+        }
+
+        private JsonGenerator start() {
+            buffer.setLength(0);
+
+            if (generator == null) {
+                try {
+                    generator = FACTORY.createGenerator(this);
+                } catch (IOException e) {
+                    throw SyndesisServerException.launderThrowable(e);
+                }
+                generator.setRootValueSeparator(null);
+            }
+
+            return generator;
+        }
+
+        private RuntimeException failed(Exception e) {
+            // the generator is in an unknown state, start over with the next event
+            generator = null;
+            return SyndesisServerException.launderThrowable(e);
+        }
+
+        private static void writeStringField(JsonGenerator generator, String name, String value) throws IOException {
+            if (value != null) {
+                generator.writeStringField(name, value);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            buffer.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void flush() {
+            // written to the buffer directly
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
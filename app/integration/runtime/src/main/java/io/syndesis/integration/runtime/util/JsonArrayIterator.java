@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.syndesis.common.util.SyndesisServerException;
+import io.syndesis.common.util.json.JsonUtils;
+
+/**
+ * Iterates over the elements of a JSON array read by a streaming parser,
+ * each element is returned as JSON String. Only the element being returned is
+ * held in memory, the parser, and with it the underlying stream, is closed once
+ * the end of the array is reached or the iterator is closed.
+ */
+public final class JsonArrayIterator implements Iterator<String>, Closeable {
+
+    private static final JsonFactory FACTORY = JsonUtils.reader().getFactory();
+
+    private final JsonParser parser;
+
+    private boolean closed;
+
+    /**
+     * @param parser parser positioned on the start of the array
+     */
+    public JsonArrayIterator(final JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Parser needs to be positioned at the start of an array, found: " + parser.currentToken());
+        }
+
+        this.parser = parser;
+        advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !closed;
+    }
+
+    @Override
+    public String next() {
+        if (closed) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            final StringWriter element = new StringWriter();
+            try (JsonGenerator generator = FACTORY.createGenerator(element)) {
+                generator.copyCurrentStructure(parser);
+            }
+
+            advance();
+
+            return element.toString();
+        } catch (final IOException e) {
+            closeQuietly();
+            throw SyndesisServerException.launderThrowable(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            parser.close();
+        }
+    }
+
+    private void advance() throws IOException {
+        final JsonToken next = parser.nextToken();
+        if (next == JsonToken.END_ARRAY || next == null) {
+            close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (final IOException ignored) {
+            // already failing
+        }
+    }
+}
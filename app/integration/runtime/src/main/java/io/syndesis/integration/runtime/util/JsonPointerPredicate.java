@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.camel.TypeConverter;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Compiled form of the simple expressions generated by filter and choice
+ * steps, like {@code ${body.a.b[0]} == 'x' && ${body.c} > '2'}. The body
+ * paths are compiled into a tree of JSON pointers evaluated in a single pass
+ * over a streaming JSON parser, only the values that the expression refers
+ * to are read, everything else is skipped and parsing stops once all values
+ * have been read.
+ * <p>
+ * The values are compared with the literals the way the simple language
+ * compares them, using the same type coercion. Comparisons the simple
+ * language resolves through conversions that are not mirrored here are left
+ * to it, see {@link #matches(JsonParser)}.
+ */
+final class JsonPointerPredicate {
+
+    private static final Pattern CLAUSE = Pattern.compile(
+        "\\$\\{body((?:\\.[^.\\[\\]{}()\\s]+|\\[[^\\[\\]{}()]+\\])+)\\}\\s+"
+            + "(==|!=|=~|>=|<=|>|<|~~|not contains|contains|not regex|regex|not in|in)\\s+'([^']*)'");
+
+    private static final Pattern CONNECTIVE = Pattern.compile("\\s+(&&|\\|\\|)\\s+");
+
+    private static final Pattern SEGMENT = Pattern.compile("\\.([^.\\[]+)|\\[([^\\]]+)\\]");
+
+    private final PathNode root;
+
+    private final List<Clause> clauses;
+
+    private final TypeConverter converter;
+
+    private final boolean any;
+
+    private final int valueCount;
+
+    private JsonPointerPredicate(final PathNode root, final List<Clause> clauses, final TypeConverter converter, final boolean any,
+        final int valueCount) {
+        this.root = root;
+        this.clauses = clauses;
+        this.converter = converter;
+        this.any = any;
+        this.valueCount = valueCount;
+    }
+
+    /**
+     * Compiles the given simple expression, returns {@code null} if the
+     * expression is not a conjunction or disjunction of comparisons between
+     * body paths and quoted literal values. The values are coerced to the
+     * type of the literal using the given converter.
+     */
+    static JsonPointerPredicate compile(final String expression, final TypeConverter converter) {
+        final String trimmed = expression.trim();
+        final Matcher clause = CLAUSE.matcher(trimmed);
+        final Matcher connective = CONNECTIVE.matcher(trimmed);
+
+        final List<String[]> parsed = new ArrayList<>();
+        String operator = null;
+        int position = 0;
+        while (true) {
+            clause.region(position, trimmed.length());
+            if (!clause.lookingAt()) {
+                return null;
+            }
+            final String literal = clause.group(3);
+            if (literal.contains("${") || clause.group(2).endsWith("in") && !isPlainList(literal)) {
+                return null;
+            }
+            parsed.add(new String[] {clause.group(1), clause.group(2), literal});
+            position = clause.end();
+
+            if (position == trimmed.length()) {
+                break;
+            }
+
+            connective.region(position, trimmed.length());
+            if (!connective.lookingAt() || operator != null && !operator.equals(connective.group(1))) {
+                // mixing && and || is left to the simple language
+                return null;
+            }
+            operator = connective.group(1);
+            position = connective.end();
+        }
+
+        final PathNode root = new PathNode();
+        final Map<String, Integer> valueIndexes = new HashMap<>();
+        final List<Clause> clauses = new ArrayList<>(parsed.size());
+        for (final String[] c : parsed) {
+            Integer index = valueIndexes.get(c[0]);
+            if (index == null) {
+                index = valueIndexes.size();
+                valueIndexes.put(c[0], index);
+                root.add(segments(c[0]), 0, index);
+            }
+            clauses.add(new Clause(index, c[1], c[2]));
+        }
+
+        return new JsonPointerPredicate(root, clauses, converter, "||".equals(operator), valueIndexes.size());
+    }
+
+    /**
+     * Evaluates the expression over the JSON document read by the given
+     * parser. Returns {@code null} if the expression is left to the simple
+     * language: if the document is not a JSON object or array, a path refers
+     * to an object or array within the document or passes through a value
+     * that is missing or not an object or array, or a text operator is
+     * applied to a value that is not a string. A clause whose path has an
+     * array index out of bounds makes the expression {@code false} whatever
+     * its operator, as evaluating the expression with the simple language
+     * fails at that clause.
+     */
+    Boolean matches(final JsonParser parser) throws IOException {
+        final JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+            return null;
+        }
+
+        final Values values = new Values(valueCount);
+        if (!root.read(parser, values)) {
+            return null;
+        }
+
+        for (final Clause clause : clauses) {
+            if (values.outOfBounds[clause.index]) {
+                return false;
+            }
+            if (!values.reached[clause.index]) {
+                return null;
+            }
+
+            final Boolean result = clause.test(values.values[clause.index], converter);
+            if (result == null) {
+                return null;
+            }
+            if (result == any) {
+                return any;
+            }
+        }
+        return !any;
+    }
+
+    /**
+     * The simple language splits the literal of {@code in} on commas without
+     * trimming, only lists that split the same way whatever the details of
+     * the split are compiled.
+     */
+    private static boolean isPlainList(final String literal) {
+        if (literal.indexOf('(') >= 0 || literal.indexOf(')') >= 0) {
+            return false;
+        }
+
+        for (final String option : literal.split(",", -1)) {
+            if (option.isEmpty() || !option.trim().equals(option)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> segments(final String path) {
+        final List<String> segments = new ArrayList<>();
+        final Matcher matcher = SEGMENT.matcher(path);
+        while (matcher.find()) {
+            segments.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        }
+        return segments;
+    }
+
+    /**
+     * Values of the referenced paths read from the document.
+     */
+    private static final class Values {
+        final Object[] values;
+        // paths read or missing from an object that was read
+        final boolean[] reached;
+        // paths with an array index past the end of the array
+        final boolean[] outOfBounds;
+        int remaining;
+
+        Values(final int count) {
+            values = new Object[count];
+            reached = new boolean[count];
+            outOfBounds = new boolean[count];
+            remaining = count;
+        }
+    }
+
+    /**
+     * A node in the tree of compiled paths, a segment is matched against a
+     * field name within objects and against the index within arrays.
+     */
+    private static final class PathNode {
+        final Map<String, PathNode> children = new HashMap<>();
+        int valueIndex = -1;
+
+        void add(final List<String> segments, final int position, final int index) {
+            if (position == segments.size()) {
+                valueIndex = index;
+                return;
+            }
+            children.computeIfAbsent(segments.get(position), s -> new PathNode()).add(segments, position + 1, index);
+        }
+
+        /**
+         * Reads the values referenced from this node, the parser is positioned
+         * on the value of this node. Returns {@code false} if a referenced
+         * value is an object or an array.
+         */
+        boolean read(final JsonParser parser, final Values values) throws IOException {
+            final JsonToken token = parser.currentToken();
+            final boolean container = token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY;
+
+            if (valueIndex >= 0) {
+                if (container) {
+                    return false;
+                }
+                values.values[valueIndex] = scalar(parser, token);
+                values.reached[valueIndex] = true;
+                values.remaining--;
+            }
+
+            if (!container) {
+                return true;
+            }
+
+            if (children.isEmpty()) {
+                parser.skipChildren();
+                return true;
+            }
+
+            final boolean object = token == JsonToken.START_OBJECT;
+            final JsonToken end = object ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+            int index = 0;
+            JsonToken next;
+            while ((next = parser.nextToken()) != end && next != null) {
+                final String key;
+                if (object) {
+                    key = parser.getCurrentName();
+                    parser.nextToken();
+                } else {
+                    key = Integer.toString(index++);
+                }
+
+                final PathNode child = children.get(key);
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (!child.read(parser, values)) {
+                    return false;
+                }
+
+                if (values.remaining == 0) {
+                    // everything needed has been read
+                    return true;
+                }
+            }
+
+            if (object) {
+                // fields that are not in the object are null
+                for (final PathNode child : children.values()) {
+                    if (child.valueIndex >= 0) {
+                        values.reached[child.valueIndex] = true;
+                    }
+                }
+            } else {
+                for (final Map.Entry<String, PathNode> child : children.entrySet()) {
+                    if (!isIndexBelow(child.getKey(), index)) {
+                        child.getValue().outOfBounds(values);
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        private void outOfBounds(final Values values) {
+            if (valueIndex >= 0) {
+                values.outOfBounds[valueIndex] = true;
+            }
+            for (final PathNode child : children.values()) {
+                child.outOfBounds(values);
+            }
+        }
+
+        private static boolean isIndexBelow(final String key, final int length) {
+            try {
+                final int index = Integer.parseInt(key.trim());
+                return index >= 0 && index < length;
+            } catch (final NumberFormatException ignored) {
+                return false;
+            }
+        }
+
+        private static Object scalar(final JsonParser parser, final JsonToken token) throws IOException {
+            switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Comparison of a value read from the document with a literal, following
+     * the simple language: equality and ordering use the type coercion of
+     * {@link ObjectHelper}, the text operators are only evaluated on strings.
+     */
+    private static final class Clause {
+        final int index;
+        final String operator;
+        final String literal;
+        final String lowerCaseLiteral;
+        final Pattern pattern;
+        final String[] options;
+
+        Clause(final int index, final String operator, final String literal) {
+            this.index = index;
+            this.operator = operator;
+            this.literal = literal;
+            this.lowerCaseLiteral = literal.toLowerCase(Locale.ENGLISH);
+            this.pattern = operator.endsWith("regex") ? Pattern.compile(literal) : null;
+            this.options = operator.endsWith("in") ? literal.split(",", -1) : null;
+        }
+
+        /**
+         * Returns the outcome of the comparison, {@code null} if it is left to
+         * the simple language.
+         */
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        Boolean test(final Object value, final TypeConverter converter) {
+            switch (operator) {
+            case "==":
+                return ObjectHelper.typeCoerceEquals(converter, value, literal);
+            case "!=":
+                return ObjectHelper.typeCoerceNotEquals(converter, value, literal);
+            case "=~":
+                return ObjectHelper.typeCoerceEquals(converter, value, literal, true);
+            case ">":
+                return value != null && ObjectHelper.typeCoerceCompare(converter, value, literal) > 0;
+            case ">=":
+                return value != null && ObjectHelper.typeCoerceCompare(converter, value, literal) >= 0;
+            case "<":
+                return value != null && ObjectHelper.typeCoerceCompare(converter, value, literal) < 0;
+            case "<=":
+                return value != null && ObjectHelper.typeCoerceCompare(converter, value, literal) <= 0;
+            case "in":
+                return isIn(value, converter);
+            case "not in":
+                return !isIn(value, converter);
+            case "contains":
+            case "~~":
+            case "regex":
+                return matchesText(value);
+            case "not contains":
+            case "not regex":
+                final Boolean matches = matchesText(value);
+                return matches == null ? null : !matches;
+            default:
+                throw new IllegalStateException("Unsupported operator: " + operator);
+            }
+        }
+
+        private boolean isIn(final Object value, final TypeConverter converter) {
+            for (final String option : options) {
+                if (ObjectHelper.typeCoerceEquals(converter, value, option)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Boolean matchesText(final Object value) {
+            if (value == null) {
+                return Boolean.FALSE;
+            }
+            if (!(value instanceof String)) {
+                // numbers and booleans are converted by the simple language
+                return null;
+            }
+
+            final String text = (String) value;
+            switch (operator) {
+            case "~~":
+                return text.toLowerCase(Locale.ENGLISH).contains(lowerCaseLiteral);
+            case "regex":
+            case "not regex":
+                return pattern.matcher(text).matches();
+            default:
+                return text.contains(literal);
+            }
+        }
+    }
+}
@@ -21,16 +21,16 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import io.syndesis.common.util.IOStreams;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
@@ -38,7 +38,6 @@ import org.apache.camel.Message;
 import org.apache.camel.Predicate;
 import org.apache.camel.language.bean.RuntimeBeanExpressionException;
 import org.apache.camel.spi.Language;
-import org.apache.camel.spi.Registry;
 import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.ObjectHelper;
 import org.slf4j.Logger;
@@ -46,40 +45,50 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Predicate which tries to convert a JSON message to a map first before
- * applying
+ * applying. Expressions comparing body paths with literal values, as generated
+ * by the filter and choice steps, are compiled and evaluated directly over the
+ * JSON body instead, see {@link JsonPointerPredicate}.
  */
 public final class JsonSimplePredicate implements Predicate {
     private static final Pattern SIMPLE_EXPRESSION = Pattern.compile("\\$\\{([^}]+)\\}");
 
     private static final Logger LOG = LoggerFactory.getLogger(JsonSimplePredicate.class);
 
-    private static final ObjectMapper MAPPER = new ObjectMapper().registerModules(new Jdk8Module());
-
     private final ObjectMapper mapper;
 
     private final Predicate ognlPredicate;
 
     private final Predicate predicate;
 
+    private final JsonPointerPredicate compiled;
+
     public JsonSimplePredicate(final String expression, final CamelContext context) {
         final Language language = ObjectHelper.notNull(context.resolveLanguage("simple"), "simple language");
         final String ognlExpression = convertSimpleToOGNLForMaps(expression);
 
         predicate = language.createPredicate(expression);
         ognlPredicate = language.createPredicate(ognlExpression);
-
-        final Registry registry = context.getRegistry();
-        final Set<ObjectMapper> mappers = registry.findByType(ObjectMapper.class);
-
-        if (mappers.size() != 1) {
-            mapper = MAPPER;
-        } else {
-            mapper = mappers.iterator().next();
-        }
+        mapper = ParsedJson.mapper(context);
+        compiled = readsDefaultNumberTypes(mapper) ? JsonPointerPredicate.compile(expression, context.getTypeConverter()) : null;
     }
 
     @Override
     public boolean matches(final Exchange exchange) {
+        if (compiled != null) {
+            final Boolean matches = matchesCompiled(exchange);
+            if (matches != null) {
+                return matches;
+            }
+        }
+
+        return matchesSimple(exchange);
+    }
+
+    /**
+     * Evaluates the expression with the simple language, over the JSON
+     * message converted to maps and lists.
+     */
+    boolean matchesSimple(final Exchange exchange) {
         // Clone the exchange and set the JSON message converted to a Map /
         // List as in message.
         // The intention is that only this predicate acts on the converted
@@ -95,42 +104,35 @@ public final class JsonSimplePredicate implements Predicate {
             payload.setBody("[" + jsonBeans.stream().map(Object::toString).collect(Collectors.joining(",")) + "]");
         }
 
-        try (InputStream stream = payload.getBody(InputStream.class)) {
-            if (stream == null) {
-                return predicate.matches(exchange);
-            }
+        final Object body = exchange.getIn().getBody();
+        try (InputStream stream = body instanceof String ? null : payload.getBody(InputStream.class)) {
+            final JsonNode json;
+            if (body instanceof String) {
+                // parsed once per String payload, shared with other steps
+                json = ParsedJson.readTree(exchange, (String) body, mapper);
+            } else {
+                if (stream == null) {
+                    return predicate.matches(exchange);
+                }
 
-            ResetAfterCloseInputStream resetAfterCloseInputStream = new ResetAfterCloseInputStream(stream);
-            if (exchange.getIn().getBody() instanceof InputStream) {
-                exchange.getIn().setBody(resetAfterCloseInputStream);
-            }
+                ResetAfterCloseInputStream resetAfterCloseInputStream = new ResetAfterCloseInputStream(stream);
+                if (body instanceof InputStream) {
+                    exchange.getIn().setBody(resetAfterCloseInputStream);
+                }
 
-            // If it is a JSON document, suppose that this is a document which
-            // needs to be parsed as JSON, therefore we set a map instead of the
-            // string
-            final JsonNode json = mapper.readTree(resetAfterCloseInputStream);
+                // If it is a JSON document, suppose that this is a document which
+                // needs to be parsed as JSON, therefore we set a map instead of the
+                // string
+                json = mapper.readTree(resetAfterCloseInputStream);
+            }
 
             if (json != null) {
                 if (json.isArray()) {
                     payload.setBody(mapper.convertValue(json, List.class));
-                    try {
-                        return ognlPredicate.matches(exchangeForProcessing);
-                    } catch (RuntimeBeanExpressionException e) {
-                        if (Optional.ofNullable(e.getCause())
-                                    .map(Object::getClass)
-                                    .map(IndexOutOfBoundsException.class::equals)
-                                    .orElse(false)) {
-                            LOG.debug("Try to match array item out of bounds");
-                            // we do not need to dump on the logs so log it at trace level.
-                            LOG.trace("Try to match array item out of bounds ", e);
-                            return false;
-                        }
-
-                        throw e;
-                    }
+                    return matchesOgnl(exchangeForProcessing);
                 } else if (json.isObject()) {
                     payload.setBody(mapper.convertValue(json, Map.class));
-                    return ognlPredicate.matches(exchangeForProcessing);
+                    return matchesOgnl(exchangeForProcessing);
                 }
             }
         } catch (final JsonParseException e) {
@@ -148,6 +150,82 @@ public final class JsonSimplePredicate implements Predicate {
         return predicate.matches(exchange);
     }
 
+    /**
+     * Evaluates the compiled expression directly over the JSON body of the
+     * message, without copying the exchange or converting the body. Returns
+     * {@code null} if the body is not JSON the compiled expression can be
+     * evaluated on.
+     */
+    private Boolean matchesCompiled(final Exchange exchange) {
+        final Message message = exchange.getIn();
+        final Object body = message.getBody();
+
+        try {
+            final JsonNode parsed = ParsedJson.peek(exchange, body);
+            final JsonParser parser;
+            if (parsed != null) {
+                // already parsed by a previous step, traverse the tree
+                parser = parsed.traverse();
+            } else if (body instanceof String) {
+                parser = mapper.getFactory().createParser((String) body);
+            } else if (body instanceof byte[]) {
+                parser = mapper.getFactory().createParser((byte[]) body);
+            } else if (body instanceof InputStream) {
+                final ResetAfterCloseInputStream resetAfterCloseInputStream;
+                try (InputStream stream = (InputStream) body) {
+                    resetAfterCloseInputStream = new ResetAfterCloseInputStream(stream);
+                }
+                message.setBody(resetAfterCloseInputStream);
+                parser = mapper.getFactory().createParser(resetAfterCloseInputStream.sourceBytes);
+            } else if (body instanceof List) {
+                final List<?> jsonBeans = (List<?>) body;
+                parser = mapper.getFactory().createParser("[" + jsonBeans.stream().map(Object::toString).collect(Collectors.joining(",")) + "]");
+            } else {
+                return null;
+            }
+
+            try (JsonParser toClose = parser) {
+                return compiled.matches(toClose);
+            }
+        } catch (final JsonParseException e) {
+            LOG.debug("Incoming message is not a json, try to match using simple language");
+            LOG.trace("Unable to parse incoming message body as JSON ", e);
+        } catch (final IOException e) {
+            LOG.warn("Unable to apply simple filter to the given payload");
+            LOG.debug("Unable to parse incoming message body as JSON needed for simple filtering", e);
+        }
+
+        return predicate.matches(exchange);
+    }
+
+    private boolean matchesOgnl(final Exchange exchangeForProcessing) {
+        try {
+            return ognlPredicate.matches(exchangeForProcessing);
+        } catch (RuntimeBeanExpressionException e) {
+            if (Optional.ofNullable(e.getCause())
+                        .map(Object::getClass)
+                        .map(IndexOutOfBoundsException.class::equals)
+                        .orElse(false)) {
+                LOG.debug("Try to match array item out of bounds");
+                // we do not need to dump on the logs so log it at trace level.
+                LOG.trace("Try to match array item out of bounds ", e);
+                return false;
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * The compiled expression reads numbers with the types the default
+     * mapper converts them to.
+     */
+    private static boolean readsDefaultNumberTypes(final ObjectMapper mapper) {
+        return !mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            && !mapper.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)
+            && !mapper.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+    }
+
     static String convertSimpleToOGNLForMaps(final String simple) {
         final Matcher matcher = SIMPLE_EXPRESSION.matcher(simple);
 
@@ -26,13 +26,15 @@ import java.io.StringWriter;
  */
 public final class JsonSupport {
 
+    private static final JsonFactory FACTORY = new JsonFactory();
+
     private JsonSupport(){
     }
 
     public static String toJsonObject(Object... fields) {
         try {
             StringWriter w = new StringWriter();
-            JsonGenerator jg = new JsonFactory().createGenerator(w);
+            JsonGenerator jg = FACTORY.createGenerator(w);
 
             jg.writeStartObject();
             for (int i = 0; i + 1 < fields.length; i += 2) {
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.util;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+
+/**
+ * Parsed JSON view of a String payload kept on the exchange, so that the step
+ * handlers of an integration parse a payload once rather than once per step.
+ * The view is tied to the identity of the parsed String, once the body is
+ * replaced the view no longer matches and is replaced on the next parse.
+ * <p>
+ * Only String payloads are cached: streams, byte arrays and other bodies have
+ * no stable identity to key the view on and are parsed by each step that
+ * needs them.
+ * <p>
+ * The returned trees are shared and must not be modified.
+ */
+public final class ParsedJson {
+
+    public static final String PARSED_JSON = "Syndesis.PARSED_JSON";
+
+    private static final LongAdder HITS = new LongAdder();
+
+    private static final LongAdder MISSES = new LongAdder();
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModules(new Jdk8Module());
+
+    private final String source;
+
+    private final JsonNode tree;
+
+    private ParsedJson(final String source, final JsonNode tree) {
+        this.source = source;
+        this.tree = tree;
+    }
+
+    /**
+     * Returns the parsed tree of the given JSON String, parsing it with the
+     * given mapper only if it is not the String last parsed for the exchange.
+     */
+    public static JsonNode readTree(final Exchange exchange, final String json, final ObjectMapper mapper) throws IOException {
+        final JsonNode cached = peek(exchange, json);
+        if (cached != null) {
+            HITS.increment();
+            return cached;
+        }
+
+        MISSES.increment();
+        final JsonNode tree = mapper.readTree(json);
+        if (tree != null) {
+            exchange.setProperty(PARSED_JSON, new ParsedJson(json, tree));
+        }
+
+        return tree;
+    }
+
+    /**
+     * Returns the parsed tree of the given value if it is the String last
+     * parsed for the exchange, {@code null} otherwise.
+     */
+    public static JsonNode peek(final Exchange exchange, final Object value) {
+        final ParsedJson parsed = exchange.getProperty(PARSED_JSON, ParsedJson.class);
+        if (parsed != null && parsed.source == value) {
+            return parsed.tree;
+        }
+
+        return null;
+    }
+
+    /**
+     * Number of times a parsed tree was reused.
+     */
+    public static long getHits() {
+        return HITS.sum();
+    }
+
+    /**
+     * Number of times a payload had to be parsed.
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+
+    /**
+     * The mapper used to parse payloads: the {@link ObjectMapper} of the
+     * context's registry if there is exactly one, a default one otherwise.
+     * Looking up the registry is not free so callers resolve the mapper once
+     * when they are created.
+     */
+    public static ObjectMapper mapper(final CamelContext context) {
+        final Set<ObjectMapper> mappers = context.getRegistry().findByType(ObjectMapper.class);
+
+        if (mappers.size() != 1) {
+            return MAPPER;
+        }
+
+        return mappers.iterator().next();
+    }
+}
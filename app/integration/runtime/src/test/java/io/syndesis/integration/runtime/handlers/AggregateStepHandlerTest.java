@@ -33,6 +33,7 @@ import io.syndesis.integration.runtime.logging.ActivityTrackingInterceptStrategy
 import io.syndesis.integration.runtime.logging.BodyLogger;
 import io.syndesis.integration.runtime.logging.IntegrationLoggingListener;
 import io.syndesis.integration.runtime.util.JsonSupport;
+import io.syndesis.integration.runtime.util.ParsedJson;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.ProducerTemplate;
@@ -49,6 +50,7 @@ import org.slf4j.LoggerFactory;
 import static io.syndesis.integration.runtime.IntegrationTestSupport.dumpRoutes;
 import static io.syndesis.integration.runtime.IntegrationTestSupport.newIntegrationRouteBuilder;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -182,10 +184,15 @@ public class AggregateStepHandlerTest {
                         "]" +
                     "}");
 
+            final long parsed = ParsedJson.getHits() + ParsedJson.getMisses();
+
             template.sendBody("direct:expression", body);
 
             result.assertIsSatisfied();
 
+            // the aggregated elements are parsed through the shared view
+            assertThat(ParsedJson.getHits() + ParsedJson.getMisses() - parsed).isGreaterThanOrEqualTo(body.size());
+
             verify(activityTracker).startTracking(any(Exchange.class));
             verifyActivityStepTracking(SPLIT_STEP, 0);
             verifyActivityStepTracking(LOG_STEP, body.size());
@@ -198,6 +205,6 @@ public class AggregateStepHandlerTest {
     }
 
     private void verifyActivityStepTracking(String stepId, int times) {
-        verify(activityTracker, times(times)).track(eq("exchange"), anyString(), eq("step"), eq(stepId), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+        verify(activityTracker, times(times)).trackStep(anyString(), eq(stepId), anyString(), anyLong(), isNull());
     }
 }
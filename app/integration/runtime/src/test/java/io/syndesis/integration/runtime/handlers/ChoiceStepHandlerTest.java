@@ -400,6 +400,6 @@ public class ChoiceStepHandlerTest {
     }
 
     private void verifyActivityStepTracking(String stepId, int times) {
-        verify(activityTracker, times(times)).track(eq("exchange"), anyString(), eq("step"), eq(stepId), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+        verify(activityTracker, times(times)).trackStep(anyString(), eq(stepId), anyString(), anyLong(), isNull());
     }
 }
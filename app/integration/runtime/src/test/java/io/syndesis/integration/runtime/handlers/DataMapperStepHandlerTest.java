@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.syndesis.common.model.action.ConnectorAction;
 import io.syndesis.common.model.action.ConnectorDescriptor;
 import io.syndesis.common.model.integration.Step;
@@ -326,13 +327,13 @@ public class DataMapperStepHandlerTest {
         Exchange exchange = new DefaultExchange(camelContext);
         exchange.getIn().setBody("[{\"name\": \"Bernadette\", \"age\": 27},{\"name\": \"Penny\", \"age\": 29}]");
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
         assertThat(exchange.getIn().getBody(String.class)).isEqualTo("[{\"name\": \"Bernadette\", \"age\": 27},{\"name\": \"Penny\", \"age\": 29}]");
 
         exchange.setProperty(DataMapperStepHandler.DATA_MAPPER_AUTO_CONVERSION, true);
         exchange.getIn().setBody("[{\"name\": \"Bernadette\", \"age\": 27},{\"name\": \"Penny\", \"age\": 29}]");
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         List<String> jsonBeans = exchange.getIn().getBody(List.class);
         assertThat(jsonBeans).isEqualTo(Arrays.asList("{\"name\":\"Bernadette\",\"age\":27}", "{\"name\":\"Penny\",\"age\":29}"));
@@ -343,13 +344,13 @@ public class DataMapperStepHandlerTest {
         Exchange exchange = new DefaultExchange(camelContext);
         exchange.getIn().setBody("[]");
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
         assertThat(exchange.getIn().getBody(String.class)).isEqualTo("[]");
 
         exchange.setProperty(DataMapperStepHandler.DATA_MAPPER_AUTO_CONVERSION, true);
         exchange.getIn().setBody("[]");
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         List<?> processedBody = exchange.getIn().getBody(List.class);
         assertThat(processedBody).hasSize(0);
@@ -360,12 +361,12 @@ public class DataMapperStepHandlerTest {
         Exchange exchange = new DefaultExchange(camelContext);
         exchange.getIn().setBody("{\"name\": \"Leonard\", \"age\": 30}");
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         assertThat(exchange.getIn().getBody(String.class)).isEqualTo("{\"name\": \"Leonard\", \"age\": 30}");
 
         exchange.setProperty(DataMapperStepHandler.DATA_MAPPER_AUTO_CONVERSION, true);
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         assertThat(exchange.getIn().getBody(String.class)).isEqualTo("{\"name\": \"Leonard\", \"age\": 30}");
     }
@@ -375,12 +376,12 @@ public class DataMapperStepHandlerTest {
         Exchange exchange = new DefaultExchange(camelContext);
         exchange.getIn().setBody("something completely different");
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         assertThat(exchange.getIn().getBody(String.class)).isEqualTo("something completely different");
 
         exchange.setProperty(DataMapperStepHandler.DATA_MAPPER_AUTO_CONVERSION, true);
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         assertThat(exchange.getIn().getBody(String.class)).isEqualTo("something completely different");
     }
@@ -390,12 +391,12 @@ public class DataMapperStepHandlerTest {
         Exchange exchange = new DefaultExchange(camelContext);
         exchange.getIn().setBody(100L);
 
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         assertThat(exchange.getIn().getBody(Long.class)).isEqualTo(Long.valueOf(100L));
 
         exchange.setProperty(DataMapperStepHandler.DATA_MAPPER_AUTO_CONVERSION, true);
-        new DataMapperStepHandler.JsonTypeTargetProcessor().process(exchange);
+        new DataMapperStepHandler.JsonTypeTargetProcessor(new ObjectMapper()).process(exchange);
 
         assertThat(exchange.getIn().getBody(Long.class)).isEqualTo(Long.valueOf(100L));
     }
@@ -197,12 +197,12 @@ public class LogStepHandlerTest {
             result.assertIsSatisfied();
 
             verify(activityTracker, times(messages.size())).startTracking(any(Exchange.class));
-            verify(activityTracker, times(messages.size())).track(eq("exchange"), anyString(), eq("step"), eq(START_STEP), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(messages.size())).trackStep(anyString(), eq(START_STEP), anyString(), anyLong(), isNull());
             verify(activityTracker).track(eq("exchange"), anyString(), eq("step"), eq(LOG_STEP), eq("id"), anyString(), eq("message"), eq("Body: [Hi] Log me baby one more time"));
             verify(activityTracker).track(eq("exchange"), anyString(), eq("step"), eq(LOG_STEP), eq("id"), anyString(), eq("message"), eq("Body: [Hello] Log me baby one more time"));
-            verify(activityTracker, times(messages.size())).track(eq("exchange"), anyString(), eq("step"), eq(LOG_STEP), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
-            verify(activityTracker, times(messages.size())).track(eq("exchange"), anyString(), eq("step"), eq(MOCK_STEP), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
-            verify(activityTracker, times(6)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(messages.size())).trackStep(anyString(), eq(LOG_STEP), anyString(), anyLong(), isNull());
+            verify(activityTracker, times(messages.size())).trackStep(anyString(), eq(MOCK_STEP), anyString(), anyLong(), isNull());
+            verify(activityTracker, times(6)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker, times(messages.size())).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -126,7 +126,7 @@ public class SimpleEndpointStepHandlerTest {
             result.assertIsSatisfied();
 
             verify(activityTracker).startTracking(any(Exchange.class));
-            verify(activityTracker, times(3)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(3)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -199,7 +199,7 @@ public class SimpleEndpointStepHandlerTest {
             result.assertIsSatisfied();
 
             verify(activityTracker).startTracking(any(Exchange.class));
-            verify(activityTracker, times(7)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(7)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
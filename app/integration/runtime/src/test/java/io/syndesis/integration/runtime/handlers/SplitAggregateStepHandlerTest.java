@@ -144,7 +144,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(SPLIT_STEP, 0);
             verifyActivityStepTracking(MOCK_STEP, 3);
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
-            verify(activityTracker, times(4)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(4)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -228,7 +228,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(MOCK_STEP, 1);
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
             verifyActivityStepTracking("mock-before", 3);
-            verify(activityTracker, times(5)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(5)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -325,7 +325,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
             verifyActivityStepTracking("bean-step", 3);
             verifyActivityStepTracking("mock-after", 1);
-            verify(activityTracker, times(8)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(8)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -397,7 +397,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(SPLIT_STEP, 0);
             verifyActivityStepTracking(MOCK_STEP, 5);
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
-            verify(activityTracker, times(6)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(6)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -469,7 +469,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(SPLIT_STEP, 0);
             verifyActivityStepTracking(MOCK_STEP, 5);
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
-            verify(activityTracker, times(6)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(6)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -540,7 +540,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(SPLIT_STEP, 0);
             verifyActivityStepTracking(MOCK_STEP, 3);
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
-            verify(activityTracker, times(4)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(4)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -615,7 +615,7 @@ public class SplitAggregateStepHandlerTest {
             verifyActivityStepTracking(SPLIT_STEP, 0);
             verifyActivityStepTracking(MOCK_STEP, 5);
             verifyActivityStepTracking(AGGREGATE_STEP, 0);
-            verify(activityTracker, times(6)).track(eq("exchange"), anyString(), eq("step"), anyString(), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+            verify(activityTracker, times(6)).trackStep(anyString(), anyString(), anyString(), anyLong(), isNull());
             verify(activityTracker).finishTracking(any(Exchange.class));
         } finally {
             context.stop();
@@ -623,6 +623,6 @@ public class SplitAggregateStepHandlerTest {
     }
 
     private void verifyActivityStepTracking(String stepId, int times) {
-        verify(activityTracker, times(times)).track(eq("exchange"), anyString(), eq("step"), eq(stepId), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+        verify(activityTracker, times(times)).trackStep(anyString(), eq(stepId), anyString(), anyLong(), isNull());
     }
 }
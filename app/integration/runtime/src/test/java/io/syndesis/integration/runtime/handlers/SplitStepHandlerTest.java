@@ -339,6 +339,70 @@ public class SplitStepHandlerTest {
         }
     }
 
+    @Test
+    public void testStreamingSplitJsonArrayInputStream() throws Exception {
+        final DefaultCamelContext context = new DefaultCamelContext();
+
+        try {
+            final RouteBuilder routes = newIntegrationRouteBuilder(activityTracker,
+                    new Step.Builder()
+                        .id(START_STEP)
+                        .stepKind(StepKind.endpoint)
+                        .action(new ConnectorAction.Builder()
+                            .descriptor(new ConnectorDescriptor.Builder()
+                                .componentScheme("direct")
+                                .putConfiguredProperty("name", "expression")
+                                .build())
+                            .build())
+                        .build(),
+                    new Step.Builder()
+                        .id(SPLIT_STEP)
+                        .stepKind(StepKind.split)
+                        .putConfiguredProperty("streaming", "true")
+                        .build(),
+                    new Step.Builder()
+                        .id(MOCK_STEP)
+                        .stepKind(StepKind.endpoint)
+                        .action(new ConnectorAction.Builder()
+                            .descriptor(new ConnectorDescriptor.Builder()
+                                .componentScheme("mock")
+                                .putConfiguredProperty("name", "expression")
+                                .build())
+                            .build())
+                        .build()
+            );
+
+            // Set up the camel context
+            context.setUuidGenerator(KeyGenerator::createKey);
+            context.addLogListener(new IntegrationLoggingListener(activityTracker));
+            context.addInterceptStrategy(new ActivityTrackingInterceptStrategy(activityTracker));
+            context.addRoutes(routes);
+
+            context.start();
+
+            // Dump routes as XML for troubleshooting
+            dumpRoutes(context);
+
+            final ProducerTemplate template = context.createProducerTemplate();
+            final MockEndpoint result = context.getEndpoint("mock:expression", MockEndpoint.class);
+            final String body = " [{\"id\": 1, \"name\": \"a\"},{\"id\": 2, \"name\": \"b\"},{\"id\": 3, \"name\": [\"c\"]}]";
+
+            result.expectedMessageCount(3);
+            result.expectedBodiesReceived("{\"id\":1,\"name\":\"a\"}", "{\"id\":2,\"name\":\"b\"}", "{\"id\":3,\"name\":[\"c\"]}");
+
+            template.sendBody("direct:expression", new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+            result.assertIsSatisfied();
+
+            verify(activityTracker).startTracking(any(Exchange.class));
+            verifyActivityStepTracking(SPLIT_STEP, 0);
+            verifyActivityStepTracking(MOCK_STEP, 3);
+            verify(activityTracker).finishTracking(any(Exchange.class));
+        } finally {
+            context.stop();
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"/person-unified-schema.json",
                  "/person-unified-schema-draft-4.json",
@@ -424,11 +488,83 @@ public class SplitStepHandlerTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testSplitUnifiedJsonBodies(final boolean streaming) throws Exception {
+        final DefaultCamelContext context = new DefaultCamelContext();
+
+        try {
+            final RouteBuilder routes = newIntegrationRouteBuilder(activityTracker,
+                    new Step.Builder()
+                            .id(START_STEP)
+                            .stepKind(StepKind.endpoint)
+                            .action(new ConnectorAction.Builder()
+                                    .descriptor(new ConnectorDescriptor.Builder()
+                                            .componentScheme("direct")
+                                            .putConfiguredProperty("name", "expression")
+                                            .build())
+                                    .build())
+                            .build(),
+                    new Step.Builder()
+                            .id(SPLIT_STEP)
+                            .stepKind(StepKind.split)
+                            .putConfiguredProperty("streaming", String.valueOf(streaming))
+                            .action(new StepAction.Builder()
+                                    .descriptor(new StepDescriptor.Builder()
+                                            .outputDataShape(new DataShape.Builder()
+                                                    .kind(DataShapeKinds.JSON_SCHEMA)
+                                                    .putMetadata(DataShapeMetaData.UNIFIED, "true")
+                                                    .specification(IOStreams.readText(getPersonUnifiedSchema("/person-unified-schema.json")))
+                                                    .build())
+                                            .build())
+                                    .build())
+                            .build(),
+                    new Step.Builder()
+                            .id(MOCK_STEP)
+                            .stepKind(StepKind.endpoint)
+                            .action(new ConnectorAction.Builder()
+                                    .descriptor(new ConnectorDescriptor.Builder()
+                                            .componentScheme("mock")
+                                            .putConfiguredProperty("name", "expression")
+                                            .build())
+                                    .build())
+                            .build()
+            );
+
+            // Set up the camel context
+            context.setUuidGenerator(KeyGenerator::createKey);
+            context.addLogListener(new IntegrationLoggingListener(activityTracker));
+            context.addInterceptStrategy(new ActivityTrackingInterceptStrategy(activityTracker));
+            context.addRoutes(routes);
+
+            context.start();
+
+            // Dump routes as XML for troubleshooting
+            dumpRoutes(context);
+
+            final ProducerTemplate template = context.createProducerTemplate();
+            final MockEndpoint result = context.getEndpoint("mock:expression", MockEndpoint.class);
+
+            // the elements of an array body, a body that is not an array as
+            // the only element and nothing for a missing body
+            result.expectedMessageCount(3);
+            result.expectedBodiesReceived("{\"id\":1,\"name\":\"a\"}", "{\"id\":2,\"name\":\"b\"}", "{\"id\":3,\"name\":\"c\"}");
+
+            template.sendBody("direct:expression", "{\"parameters\":{\"a\":\"value\"},\"body\":[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]}");
+            template.sendBody("direct:expression", "{\"parameters\":{\"a\":\"value\"},\"body\":{\"id\":3,\"name\":\"c\"}}");
+            template.sendBody("direct:expression", "{\"parameters\":{\"a\":\"value\"}}");
+
+            result.assertIsSatisfied();
+        } finally {
+            context.stop();
+        }
+    }
+
     private static InputStream getPersonUnifiedSchema(String schemaPath) {
         return SplitStepHandlerTest.class.getResourceAsStream(schemaPath);
     }
 
     private void verifyActivityStepTracking(String stepId, int times) {
-        verify(activityTracker, times(times)).track(eq("exchange"), anyString(), eq("step"), eq(stepId), eq("id"), anyString(), eq("duration"), anyLong(), eq("failure"), isNull());
+        verify(activityTracker, times(times)).trackStep(anyString(), eq(stepId), anyString(), anyLong(), isNull());
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.syndesis.integration.runtime.util.JsonSupport;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BufferedActivityTrackerTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private final PrintStream out = new PrintStream(output, true);
+
+    @Test
+    public void shouldEncodeEventsLikeJsonSupport() throws UnsupportedEncodingException {
+        final BufferedActivityTracker tracker = new BufferedActivityTracker(out, 1.0);
+
+        final Object[] event = {"exchange", "i-1", "step", "s-\"1\"", "duration", 12L, "failure", null, "failed", true};
+        tracker.track(event);
+        tracker.track("exchange", "i-1", "status", "done");
+
+        assertThat(lines()).containsExactly(JsonSupport.toJsonObject(event), "{\"exchange\":\"i-1\",\"status\":\"done\"}");
+    }
+
+    @Test
+    public void shouldEncodeStepEventsLikeOtherEvents() throws UnsupportedEncodingException {
+        final BufferedActivityTracker tracker = new BufferedActivityTracker(out, 1.0);
+
+        tracker.trackStep("i-1", "s-\"1\"", "i-2", 12L, null);
+        tracker.trackStep("i-1", "s-2", "i-3", 0L, "failed");
+
+        assertThat(lines()).containsExactly(
+            JsonSupport.toJsonObject("exchange", "i-1", "step", "s-\"1\"", "id", "i-2", "duration", 12L, "failure", null),
+            JsonSupport.toJsonObject("exchange", "i-1", "step", "s-2", "id", "i-3", "duration", 0L, "failure", "failed"));
+    }
+
+    @Test
+    public void shouldWriteAllEventsInOrderWhenAsync() throws UnsupportedEncodingException {
+        final BufferedActivityTracker tracker = new BufferedActivityTracker(out, 1.0, 10, 3);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tracker.track("exchange", "i-1", "step", "s" + i);
+            expected.add("{\"exchange\":\"i-1\",\"step\":\"s" + i + "\"}");
+        }
+
+        tracker.close();
+
+        assertThat(lines()).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldWriteEventsTrackedAfterClosingAfterQueuedEvents() throws UnsupportedEncodingException {
+        final BufferedActivityTracker tracker = new BufferedActivityTracker(out, 1.0, 1000, 1);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tracker.track("exchange", "i-1", "step", "s" + i);
+            expected.add("{\"exchange\":\"i-1\",\"step\":\"s" + i + "\"}");
+        }
+
+        final Thread closing = new Thread(tracker::close);
+        closing.start();
+
+        for (int i = 500; i < 600; i++) {
+            tracker.track("exchange", "i-1", "step", "s" + i);
+            expected.add("{\"exchange\":\"i-1\",\"step\":\"s" + i + "\"}");
+        }
+
+        tracker.close();
+
+        assertThat(lines()).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldSampleWholeExchanges() throws UnsupportedEncodingException {
+        final BufferedActivityTracker tracker = new BufferedActivityTracker(out, 0.5);
+
+        for (int i = 0; i < 1000; i++) {
+            tracker.track("exchange", "i-" + i, "status", "begin");
+            tracker.track("exchange", "i-" + i, "status", "done");
+        }
+
+        final List<String> lines = lines();
+        assertThat(lines.size()).isBetween(800, 1200);
+        for (int i = 0; i < lines.size(); i += 2) {
+            assertThat(lines.get(i + 1)).isEqualTo(lines.get(i).replace("begin", "done"));
+        }
+
+        output.reset();
+        for (int i = 0; i < 1000; i++) {
+            tracker.track("exchange", "i-" + i, "status", "begin");
+            tracker.trackStep("i-" + i, "s-1", "i-0", 0L, null);
+        }
+
+        final List<String> steps = lines();
+        for (int i = 0; i < steps.size(); i += 2) {
+            assertThat(steps.get(i + 1)).startsWith(steps.get(i).replace(",\"status\":\"begin\"}", ",\"step\":"));
+        }
+
+        assertThat(new BufferedActivityTracker(out, 0.0).isSampled("exchange", "i-1")).isFalse();
+        assertThat(new BufferedActivityTracker(out, 0.0).isSampled("message", "no exchange")).isTrue();
+    }
+
+    private List<String> lines() throws UnsupportedEncodingException {
+        return Arrays.stream(output.toString(UTF_8.name()).split(System.lineSeparator()))
+            .filter(line -> !line.isEmpty())
+            .collect(Collectors.toList());
+    }
+}
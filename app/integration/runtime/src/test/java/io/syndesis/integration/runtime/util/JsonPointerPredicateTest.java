@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.util;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonPointerPredicateTest {
+
+    private static final DefaultCamelContext CONTEXT = new DefaultCamelContext();
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Evaluates each expression both compiled and with the simple language,
+     * the outcomes need to be the same. The last column tells if the compiled
+     * expression evaluates the document or leaves it to the simple language.
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "${body.prop} == '1'|{}|true",
+        "${body.prop} == '1'|{\"prop\": 1}|true",
+        "${body.prop} == '1'|{\"prop\": null}|true",
+        "${body.prop} == '1.0'|{\"prop\": 1}|true",
+        "${body.prop} == '1.0'|{\"prop\": 1.0}|true",
+        "${body.prop} == 'a'|{\"prop\": \"a\"}|true",
+        "${body.prop} != '1'|{}|true",
+        "${body.prop} != '1'|{\"prop\": 1}|true",
+        "${body.f} == 'true'|{\"f\": true}|true",
+        "${body.f} =~ 'TRUE'|{\"f\": true}|true",
+        "${body.n} =~ 'HeLLo'|{\"n\": \"hello\"}|true",
+        "${body[1].prop} == '1'|[{\"prop\": 1}, {\"prop\": 2}]|true",
+        "${body[0].prop} == '1'|[{\"prop\": 1}, {\"prop\": 2}]|true",
+        "${body[5].x} != 'a'|[{\"x\": \"a\"}, {\"x\": \"b\"}]|true",
+        "${body[5].x} not contains 'a'|[{\"x\": \"a\"}, {\"x\": \"b\"}]|true",
+        "${body[5].x} not regex 'a'|[{\"x\": \"a\"}, {\"x\": \"b\"}]|true",
+        "${body[5].x} not in 'a,b'|[{\"x\": \"a\"}, {\"x\": \"b\"}]|true",
+        "${body[1].x} == 'b' || ${body[5].x} != 'a'|[{\"x\": \"a\"}, {\"x\": \"b\"}]|true",
+        "${body.a[2]} != '1'|{\"a\": [1, 2]}|true",
+        "${body.a.b} == 'x' || ${body.c} > '2.5'|{\"z\": [1, {\"q\": 2}], \"c\": 3, \"a\": {\"b\": \"y\"}}|true",
+        "${body.a.b} == 'x' && ${body.c} > '2.5'|{\"c\": 2, \"a\": {\"b\": \"x\"}}|true",
+        "${body.n} > '9'|{\"n\": \"10\"}|true",
+        "${body.n} > '9'|{\"n\": 10}|true",
+        "${body.n} > '9.5'|{\"n\": \"10\"}|true",
+        "${body.n} >= '10'|{\"n\": 10.0}|true",
+        "${body.n} <= '2.5'|{\"n\": 2.5}|true",
+        "${body.n} < 'b'|{\"n\": \"a\"}|true",
+        "${body.n} < '2'|{}|true",
+        "${body.n} contains 'ell'|{\"n\": \"hello\"}|true",
+        "${body.n} contains '2'|{\"n\": 123}|false",
+        "${body.n} not contains 'ell'|{}|true",
+        "${body.n} ~~ 'ELL'|{\"n\": \"hello\"}|true",
+        "${body.n} in 'a,b,c'|{\"n\": \"b\"}|true",
+        "${body.n} in '1,2'|{\"n\": 2}|true",
+        "${body.n} in 'a, b,c'|{\"n\": \"b\"}|false",
+        "${body.n} not in 'a,b'|{\"n\": \"c\"}|true",
+        "${body.n} regex '[0-9]+'|{\"n\": \"123\"}|true",
+        "${body.n} regex '[0-9]+'|{\"n\": 123}|false",
+        "${body.n} not regex '[0-9]+'|{}|true",
+        "${body.a.b} == 'x'|{}|false",
+        "${body.a.b} == 'x'|{\"a\": null}|false",
+        "${body.a.b} == 'x'|{\"a\": 5}|false",
+    })
+    public void shouldEvaluateLikeTheSimpleLanguage(final String expression, final String json, final boolean evaluated) throws IOException {
+        final JsonSimplePredicate simple = new JsonSimplePredicate(expression, CONTEXT);
+        final Object expected = outcome(() -> simple.matchesSimple(exchangeWith(json)));
+
+        final JsonPointerPredicate compiled = JsonPointerPredicate.compile(expression, CONTEXT.getTypeConverter());
+        final Boolean result = compiled == null ? null : compiled.matches(FACTORY.createParser(json));
+        if (evaluated) {
+            assertThat(result).isEqualTo(expected);
+        } else {
+            assertThat(result).isNull();
+        }
+
+        assertThat(outcome(() -> simple.matches(exchangeWith(json)))).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "2 == 1",
+        "${body} == 1",
+        "${body.x} == 1",
+        "${body.x} == true",
+        "${body.size()} == 1 && ${body[0].prop} == 1",
+        "${body.x} == '1' && ${body.y} == '2' || ${body.z} == '3'",
+        "${body.x} == ${body.y}",
+        "${header.x} == '1'",
+        "${body.x} == '${header.y}'",
+        "${body.x} in 'a, b'",
+        "${body.x} in 'a,,b'",
+        "${body.x} in ''"
+    })
+    public void shouldNotCompileOtherExpressions(final String expression) {
+        assertThat(JsonPointerPredicate.compile(expression, CONTEXT.getTypeConverter())).isNull();
+    }
+
+    @Test
+    public void shouldNotEvaluateOnObjectsOrScalarDocuments() throws IOException {
+        final JsonPointerPredicate predicate = JsonPointerPredicate.compile("${body.a} == 'x'", CONTEXT.getTypeConverter());
+
+        assertThat(predicate.matches(FACTORY.createParser("{\"a\": {\"b\": \"x\"}}"))).isNull();
+        assertThat(predicate.matches(FACTORY.createParser("1"))).isNull();
+    }
+
+    /**
+     * The result of the evaluation, or the type of the exception it failed
+     * with.
+     */
+    private static Object outcome(final Callable<Boolean> evaluation) {
+        try {
+            return evaluation.call();
+        } catch (final Exception e) {
+            return e.getClass();
+        }
+    }
+
+    private static Exchange exchangeWith(final String json) {
+        final Exchange exchange = new DefaultExchange(CONTEXT);
+        exchange.getIn().setBody(json);
+
+        return exchange;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.integration.runtime.util;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.impl.SimpleRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParsedJsonTest {
+
+    private static final DefaultCamelContext CONTEXT = new DefaultCamelContext();
+
+    private static final ObjectMapper MAPPER = ParsedJson.mapper(CONTEXT);
+
+    @Test
+    public void shouldParseEachPayloadOnce() throws IOException {
+        final Exchange exchange = new DefaultExchange(CONTEXT);
+        final String payload = "{\"prop\": 1}";
+
+        final long hits = ParsedJson.getHits();
+        final long misses = ParsedJson.getMisses();
+
+        final JsonNode first = ParsedJson.readTree(exchange, payload, MAPPER);
+        assertThat(first.get("prop").asInt()).isEqualTo(1);
+        assertThat(ParsedJson.readTree(exchange, payload, MAPPER)).isSameAs(first);
+        assertThat(ParsedJson.peek(exchange, payload)).isSameAs(first);
+
+        assertThat(ParsedJson.getHits() - hits).isGreaterThanOrEqualTo(1);
+        assertThat(ParsedJson.getMisses() - misses).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotReuseTreeOfReplacedPayload() throws IOException {
+        final Exchange exchange = new DefaultExchange(CONTEXT);
+
+        final JsonNode first = ParsedJson.readTree(exchange, "{\"prop\": 1}", MAPPER);
+        final String replaced = "{\"prop\": 2}";
+        assertThat(ParsedJson.peek(exchange, replaced)).isNull();
+
+        final JsonNode second = ParsedJson.readTree(exchange, replaced, MAPPER);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.get("prop").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldParseWithTheMapperOfTheRegistry() throws IOException {
+        final ObjectMapper mapper = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        final SimpleRegistry registry = new SimpleRegistry();
+        registry.put("mapper", mapper);
+        final DefaultCamelContext context = new DefaultCamelContext(registry);
+
+        assertThat(ParsedJson.mapper(context)).isSameAs(mapper);
+
+        final JsonNode tree = ParsedJson.readTree(new DefaultExchange(context), "{\"prop\": 1.5}", ParsedJson.mapper(context));
+        assertThat(tree.get("prop").isBigDecimal()).isTrue();
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.syndesis.server.dao.manager;
 
+import java.util.Collection;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -77,6 +78,17 @@ public interface DataAccessObject<T extends WithId<T>> {
         return ListResult.partial(totalCount, result.getItems());
     }
 
+    /**
+     * Fetches the page of entities selected by the query. Implementations
+     * should push down as much of the query as they can, by default the
+     * query is evaluated over all entities.
+     * @param query The query.
+     * @return      The {@link ListResult} with the total count of entities matching the query filters.
+     */
+    default ListResult<T> fetchAll(ListQuery<T> query) {
+        return query.apply(fetchAll().getItems());
+    }
+
     /**
      * Creates a new entity.
      * @param entity    The entity.
@@ -105,6 +117,28 @@ public interface DataAccessObject<T extends WithId<T>> {
         }
     }
 
+    /**
+     * Creates or Updates all specified entities, implementations should write
+     * them together, by default each entity is set on its own.
+     * @param entities  The entities.
+     */
+    default void setAll(Collection<T> entities) {
+        for (T entity : entities) {
+            set(entity);
+        }
+    }
+
+    /**
+     * Prepares setting all specified entities, to be applied together with
+     * the writes of other data access objects. By default the entities are
+     * set with {@link #setAll(Collection)} when the write is applied.
+     * @param entities  The entities.
+     * @return          The prepared write.
+     */
+    default PreparedWrite prepareSetAll(Collection<T> entities) {
+        return () -> setAll(entities);
+    }
+
     /**
      * Delete the specified entity.
      * @param entity    The entity.
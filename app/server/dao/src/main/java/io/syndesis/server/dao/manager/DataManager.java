@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -133,11 +134,14 @@ public class DataManager implements DataAccessObjectRegistry {
         ReadApiClientData reader = new ReadApiClientData(encryptionComponent);
         try {
             List<ModelData<?>> mdList = reader.readDataFromFile(file);
+            List<WithId<?>> entities = new ArrayList<>(mdList.size());
             for (ModelData<?> modelData : mdList) {
                 if (canLoad(modelData)) {
-                    store(modelData);
+                    LOGGER.debug("{}:{}", modelData.getKind(), modelData.getDataAsJson());
+                    entities.add(modelData.getData());
                 }
             }
+            storeAll(entities);
         } catch (Exception e) {
             throw new IllegalStateException("Cannot read startup data due to: " + e.getMessage(), e);
         }
@@ -157,6 +161,7 @@ public class DataManager implements DataAccessObjectRegistry {
             final ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
             final Resource[] resources = resolver.getResources("classpath:/META-INF/syndesis/connector/*.json");
             ReadApiClientData reader = new ReadApiClientData(encryptionComponent);
+            List<Connector> connectors = new ArrayList<>(resources.length);
 
             for (Resource resource: resources) {
                 try (InputStream is = resource.getInputStream()) {
@@ -178,10 +183,12 @@ public class DataManager implements DataAccessObjectRegistry {
 
                             connector = connector.builder().configuredProperties(configuredProperties).build();
                         }
-                        store(connector, Connector.class);
+                        connectors.add(connector);
                     }
                 }
             }
+
+            storeAll(connectors);
         } catch (FileNotFoundException ignored) {
             // ignore
         } catch (IOException e) {
@@ -229,6 +236,129 @@ public class DataManager implements DataAccessObjectRegistry {
         }
     }
 
+    /**
+     * Creates or updates all entities like {@link #store(WithId, Class)}. The
+     * writes of all kinds are prepared by their {@link DataAccessObject}s and
+     * applied together, in a single transaction if the data access objects
+     * share the store. If an id is given more than once the last entity with
+     * that id is written. The change events are broadcast once all entities
+     * are written, one per entity.
+     */
+    public void storeAll(Collection<? extends WithId<?>> entities) {
+        writeAll(entities, false);
+    }
+
+    /**
+     * Updates all entities like {@link #update(WithId)}, all entities need to
+     * exist, which is checked before anything is written. The writes of all
+     * kinds are applied together as with {@link #storeAll(Collection)}. If an
+     * id is given more than once the last entity with that id is written.
+     * The change events are broadcast once all entities are written, one per
+     * entity.
+     */
+    public void updateAll(Collection<? extends WithId<?>> entities) {
+        writeAll(entities, true);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeAll(Collection<? extends WithId<?>> entities, boolean update) {
+        // keyed by id so that the last entity with an id wins, before it is versioned
+        Map<Kind, Map<String, WithId>> byKind = new LinkedHashMap<>();
+        for (WithId<?> entity : entities) {
+            if (entity.getId().isPresent()) {
+                byKind.computeIfAbsent(entity.getKind(), k -> new LinkedHashMap<>()).put(entity.getId().get(), entity);
+            } else if (update) {
+                throw new EntityNotFoundException("Setting the id on the entity is required for updates");
+            } else {
+                LOGGER.warn("Cannot load entity since it's missing an id: {}", entity);
+            }
+        }
+
+        // everything is checked and versioned before the first kind is written
+        Map<String, ChangeEvent> events = new LinkedHashMap<>();
+        Map<Kind, List<WithId>> toWrite = new LinkedHashMap<>();
+        for (Map.Entry<Kind, Map<String, WithId>> kindEntities : byKind.entrySet()) {
+            toWrite.put(kindEntities.getKey(),
+                prepareAll((Class) kindEntities.getKey().getModelClass(), new ArrayList<>(kindEntities.getValue().values()), update, events));
+        }
+
+        List<PreparedWrite> writes = new ArrayList<>();
+        for (Map.Entry<Kind, List<WithId>> kindEntities : toWrite.entrySet()) {
+            PreparedWrite write = prepareSetAll((Class) kindEntities.getKey().getModelClass(), (List) kindEntities.getValue());
+            if (write != null) {
+                writes.add(write);
+            }
+        }
+
+        if (!writes.isEmpty()) {
+            writes.get(0).applyWith(writes.subList(1, writes.size()));
+        }
+
+        // only cached once everything is written
+        for (Map.Entry<Kind, List<WithId>> kindEntities : toWrite.entrySet()) {
+            cacheAll((Class) kindEntities.getKey().getModelClass(), (List) kindEntities.getValue());
+        }
+
+        if (eventBus != null) {
+            for (ChangeEvent event : events.values()) {
+                eventBus.broadcast(EventBus.Type.CHANGE_EVENT, event.toJson());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends WithId<T>> List<T> prepareAll(Class<T> model, List<T> entities, boolean update, Map<String, ChangeEvent> events) {
+        Kind kind = Kind.from(model);
+        List<T> toWrite = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            String id = entity.getId().get();
+            T previous;
+            try {
+                previous = fetch(model, id);
+            } catch (RuntimeException e) {
+                if (update) {
+                    throw e;
+                }
+                // Lets try to wipe out the previous record in case
+                // we are running into something like a schema change.
+                delete(model, id);
+                previous = null;
+            }
+
+            if (previous == null && update) {
+                throw new EntityNotFoundException("Can not find " + kind + " with id " + id);
+            }
+
+            T newEntity = entity;
+            if (previous != null) {
+                validateNoDuplicateName(entity, id);
+                if (entity instanceof WithIdVersioned && entity instanceof WithVersion.AutoUpdatable) {
+                    int revision = WithIdVersioned.class.cast(previous).getVersion();
+                    newEntity = (T) WithIdVersioned.class.cast(entity).withVersion(revision + 1);
+                }
+            }
+
+            toWrite.add(newEntity);
+            events.putIfAbsent(kind.getModelName() + "/" + id,
+                ChangeEvent.of(previous == null ? EventBus.Action.CREATED : EventBus.Action.UPDATED, kind.getModelName(), id));
+        }
+
+        return toWrite;
+    }
+
+    private <T extends WithId<T>> PreparedWrite prepareSetAll(Class<T> model, List<T> toWrite) {
+        return doWithDataAccessObject(model, d -> d.prepareSetAll(toWrite));
+    }
+
+    private <T extends WithId<T>> void cacheAll(Class<T> model, List<T> toWrite) {
+        Kind kind = Kind.from(model);
+        boolean daoExists = getDataAccessObject(model) != null;
+        Cache<String, T> cache = caches.getCache(kind.getModelName(), daoExists);
+        for (T entity : toWrite) {
+            cache.put(entity.getId().get(), entity);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <T extends WithId<T>> ListResult<T> fetchAll(Class<T> model) {
         return fetchAll(model, noOperators());
@@ -258,6 +388,20 @@ public class DataManager implements DataAccessObjectRegistry {
         return ListResult.partial(totalCount, result.getItems());
     }
 
+    /**
+     * Fetches the page of entities selected by the query, pushing the query
+     * down to the {@link DataAccessObject} if there is one for the model.
+     */
+    public <T extends WithId<T>> ListResult<T> fetchAll(Class<T> model, ListQuery<T> query) {
+        if (getDataAccessObject(model) != null) {
+            return doWithDataAccessObject(model, d -> d.fetchAll(query));
+        }
+
+        Kind kind = Kind.from(model);
+        Cache<String, T> cache = caches.getCache(kind.getModelName(), false);
+        return query.apply(cache.values());
+    }
+
     public <K extends WithId<K>> Stream<K> fetchAllByPropertyValue(Class<K> type, String property, String value) {
         return fetchIdsByPropertyValue(type, property, value).stream()
             .map(id -> fetch(type, id))
@@ -485,6 +629,26 @@ public class DataManager implements DataAccessObjectRegistry {
         }
     }
 
+    /**
+     * Evicts the cached entity so that the next fetch reads it from the
+     * {@link DataAccessObject}, used when the entity was changed by another
+     * server. Like {@link #clearCache()} this also drops entities of kinds
+     * without a {@link DataAccessObject}, as the cached copy is stale.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void evict(String kindName, String id) {
+        final Kind kind;
+        try {
+            kind = Kind.from(kindName);
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Not evicting {} of unknown kind {}", id, kindName, e);
+            return;
+        }
+
+        boolean daoExists = getDataAccessObject((Class<? extends WithId>) kind.getModelClass()) != null;
+        caches.getCache(kind.modelName, daoExists).remove(id);
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> Function<ListResult<T>, ListResult<T>>[] noOperators() {
         return (Function<ListResult<T>, ListResult<T>>[]) NO_OPERATORS;
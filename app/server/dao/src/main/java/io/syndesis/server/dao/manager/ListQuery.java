@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.dao.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import io.syndesis.common.model.ListResult;
+
+/**
+ * A query for a page of entities: equality filters on properties, sorting on
+ * a property and offset/limit. {@link DataAccessObject}s can push the parts
+ * of the query they support down to their store, the rest is evaluated in
+ * memory via {@link #apply(Collection)}, so each filter and the sort carry
+ * the property name, for pushing down, along with a function to evaluate them
+ * on an entity.
+ *
+ * @param <T> The type of the queried entities.
+ */
+public final class ListQuery<T> {
+
+    private final List<PropertyFilter<T>> filters = new ArrayList<>();
+    private final List<Predicate<T>> predicates = new ArrayList<>();
+    private String sortProperty;
+    private Function<T, ?> sortKey;
+    private Comparator<Object> sortKeyComparator;
+    private boolean descending;
+    private int offset;
+    private int limit = -1;
+
+    /**
+     * Matches entities that have the given value of the property.
+     */
+    public static final class PropertyFilter<T> {
+        private final String property;
+        private final String value;
+        private final Predicate<T> predicate;
+
+        PropertyFilter(String property, String value, Predicate<T> predicate) {
+            this.property = property;
+            this.value = value;
+            this.predicate = predicate;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public Predicate<T> getPredicate() {
+            return predicate;
+        }
+    }
+
+    /**
+     * Adds a filter on the property having the given value, the predicate
+     * evaluates the filter on an entity.
+     */
+    public ListQuery<T> filter(String property, String value, Predicate<T> predicate) {
+        filters.add(new PropertyFilter<>(property, value, predicate));
+        return this;
+    }
+
+    /**
+     * Adds a filter that is not on a single property, it can only be
+     * evaluated in memory on the entities selected by the property filters.
+     */
+    public ListQuery<T> where(Predicate<T> predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    /**
+     * Sorts by the given property, the key function extracts the value of the
+     * property from an entity.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ListQuery<T> sort(String property, Function<T, ? extends Comparable<?>> key, boolean descending) {
+        return sort(property, key, Comparator.nullsFirst((a, b) -> ((Comparable) a).compareTo(b)), descending);
+    }
+
+    /**
+     * Sorts by the given property, the key function extracts the value of the
+     * property from an entity and the comparator orders the extracted values.
+     */
+    public ListQuery<T> sort(String property, Function<T, ?> key, Comparator<Object> keyComparator, boolean descending) {
+        this.sortProperty = property;
+        this.sortKey = key;
+        this.sortKeyComparator = keyComparator;
+        this.descending = descending;
+        return this;
+    }
+
+    public ListQuery<T> offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Limits the number of returned entities, negative for no limit.
+     */
+    public ListQuery<T> limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public List<PropertyFilter<T>> filters() {
+        return Collections.unmodifiableList(filters);
+    }
+
+    public List<Predicate<T>> predicates() {
+        return Collections.unmodifiableList(predicates);
+    }
+
+    public String sortProperty() {
+        return sortProperty;
+    }
+
+    public boolean descending() {
+        return descending;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns {@code true} if the entity matches all filters.
+     */
+    public boolean matches(T entity) {
+        for (PropertyFilter<T> filter : filters) {
+            if (!filter.predicate.test(entity)) {
+                return false;
+            }
+        }
+        for (Predicate<T> predicate : predicates) {
+            if (!predicate.test(entity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates the query over the given entities. The total count of the
+     * result is the number of entities matching the filters.
+     */
+    public ListResult<T> apply(Collection<T> entities) {
+        final List<T> matching;
+        if (filters.isEmpty() && predicates.isEmpty()) {
+            matching = entities instanceof List ? (List<T>) entities : new ArrayList<>(entities);
+        } else {
+            matching = new ArrayList<>(entities.size());
+            for (T entity : entities) {
+                if (matches(entity)) {
+                    matching.add(entity);
+                }
+            }
+        }
+
+        if (sortKey == null) {
+            return ListResult.partial(matching.size(), page(matching));
+        }
+
+        return ListResult.partial(matching.size(), sortedPage(matching));
+    }
+
+    /**
+     * Returns the page selected by offset and limit from the given, already
+     * filtered and sorted, elements.
+     */
+    public <E> List<E> page(List<E> elements) {
+        final int size = elements.size();
+        if (offset >= size) {
+            return Collections.emptyList();
+        }
+
+        final int end = limit < 0 ? size : (int) Math.min(size, (long) offset + limit);
+        return new ArrayList<>(elements.subList(offset, end));
+    }
+
+    private static final class Keyed<T> {
+        private final T entity;
+        private final Object key;
+        private final int index;
+
+        Keyed(T entity, Object key, int index) {
+            this.entity = entity;
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Sorts extracting the key of each entity only once, when only a page is
+     * needed just the entities up to the end of the page are kept in order
+     * using a bounded heap.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<T> sortedPage(List<T> entities) {
+        final int size = entities.size();
+        if (offset >= size) {
+            return Collections.emptyList();
+        }
+
+        Comparator<Keyed<T>> byKey = Comparator.comparing(k -> k.key, sortKeyComparator);
+        if (descending) {
+            byKey = byKey.reversed();
+        }
+        // keep the original order of equal elements, like a stable sort would
+        final Comparator<Keyed<T>> comparator = byKey.thenComparingInt(k -> k.index);
+
+        final int end = limit < 0 ? size : (int) Math.min(size, (long) offset + limit);
+
+        final Keyed<T>[] sorted;
+        if (end < size / 2) {
+            final PriorityQueue<Keyed<T>> top = new PriorityQueue<>(end + 1, comparator.reversed());
+            for (int i = 0; i < size; i++) {
+                final T entity = entities.get(i);
+                top.add(new Keyed<>(entity, sortKey.apply(entity), i));
+                if (top.size() > end) {
+                    top.poll();
+                }
+            }
+            sorted = top.toArray(new Keyed[0]);
+        } else {
+            sorted = new Keyed[size];
+            for (int i = 0; i < size; i++) {
+                final T entity = entities.get(i);
+                sorted[i] = new Keyed<>(entity, sortKey.apply(entity), i);
+            }
+        }
+        Arrays.sort(sorted, comparator);
+
+        final List<T> page = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) {
+            page.add(sorted[i].entity);
+        }
+        return page;
+    }
+}
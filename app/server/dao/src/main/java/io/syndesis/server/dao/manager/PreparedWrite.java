@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.dao.manager;
+
+import java.util.List;
+
+/**
+ * Write of a {@link DataAccessObject} prepared to be applied together with
+ * the writes of other data access objects, see
+ * {@link DataAccessObject#prepareSetAll(java.util.Collection)}.
+ */
+@FunctionalInterface
+public interface PreparedWrite {
+
+    /**
+     * Applies this write on its own.
+     */
+    void apply();
+
+    /**
+     * Applies this write and the given ones, in a single transaction if they
+     * all write to the same store. By default each write is applied on its
+     * own.
+     * @param others    The writes to apply along with this one.
+     */
+    default void applyWith(List<PreparedWrite> others) {
+        apply();
+        for (PreparedWrite other : others) {
+            other.apply();
+        }
+    }
+}
@@ -22,11 +22,15 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.persistence.EntityNotFoundException;
+
+import io.syndesis.common.model.ChangeEvent;
 import io.syndesis.common.model.Kind;
 import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.connection.Connection;
 import io.syndesis.common.model.connection.Connector;
 import io.syndesis.common.model.extension.Extension;
+import io.syndesis.common.util.EventBus;
 import io.syndesis.common.util.cache.CacheManager;
 import io.syndesis.common.util.cache.LRUCacheManager;
 import io.syndesis.server.dao.manager.DataAccessObject;
@@ -42,6 +46,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class DataManagerTest {
@@ -192,6 +198,63 @@ public class DataManagerTest {
             .withMessage("You must provide a even number of additional property/value pairs. Found: 1");
     }
 
+    @Test
+    public void storeAllShouldCreateAndUpdateEntities() {
+        final EventBus eventBus = mock(EventBus.class);
+        final DataManager withEvents = new DataManager(cacheManager, Collections.emptyList(), eventBus, new EncryptionComponent(null),
+            new DefaultResourceLoader(), null);
+        withEvents.init();
+
+        final Connector twitter = withEvents.fetch(Connector.class, "twitter");
+        final Connector created = new Connector.Builder().id("batch-id").name("batch-name").build();
+
+        withEvents.storeAll(Arrays.asList(created, twitter.builder().description("changed").build(), created));
+
+        assertThat(withEvents.fetch(Connector.class, "batch-id")).isEqualTo(created);
+        final Connector updated = withEvents.fetch(Connector.class, "twitter");
+        assertThat(updated.getDescription()).isEqualTo("changed");
+        assertThat(updated.getVersion()).isEqualTo(twitter.getVersion() + 1);
+
+        verify(eventBus).broadcast(EventBus.Type.CHANGE_EVENT, ChangeEvent.of(EventBus.Action.CREATED, Kind.Connector.modelName, "batch-id").toJson());
+        verify(eventBus).broadcast(EventBus.Type.CHANGE_EVENT, ChangeEvent.of(EventBus.Action.UPDATED, Kind.Connector.modelName, "twitter").toJson());
+        verifyNoMoreInteractions(eventBus);
+    }
+
+    @Test
+    public void updateAllShouldRequireAllEntitiesToExist() {
+        final Connector twitter = dataManager.fetch(Connector.class, "twitter");
+
+        assertThatExceptionOfType(EntityNotFoundException.class).isThrownBy(() -> dataManager.updateAll(Arrays.asList(
+            twitter.builder().description("changed").build(),
+            new Connector.Builder().id("missing").name("missing").build())));
+
+        assertThat(dataManager.fetch(Connector.class, "twitter")).isSameAs(twitter);
+    }
+
+    @Test
+    public void updateAllShouldCheckAllKindsBeforeWriting() {
+        final Connector twitter = dataManager.fetch(Connector.class, "twitter");
+
+        assertThatExceptionOfType(EntityNotFoundException.class).isThrownBy(() -> dataManager.updateAll(Arrays.asList(
+            twitter.builder().description("changed").build(),
+            new Connection.Builder().id("missing").name("missing").build())));
+
+        assertThat(dataManager.fetch(Connector.class, "twitter")).isSameAs(twitter);
+    }
+
+    @Test
+    public void storeAllShouldWriteTheLastEntityOfAnId() {
+        final Connector twitter = dataManager.fetch(Connector.class, "twitter");
+
+        dataManager.storeAll(Arrays.asList(
+            twitter.builder().description("first").build(),
+            twitter.builder().description("last").build()));
+
+        final Connector updated = dataManager.fetch(Connector.class, "twitter");
+        assertThat(updated.getDescription()).isEqualTo("last");
+        assertThat(updated.getVersion()).isEqualTo(twitter.getVersion() + 1);
+    }
+
     @Test
     public void shouldNotDestroyConfiguredPropertiesOnSecondStartup() {
         final Connector concur = dataManager.fetch(Connector.class, "concur");
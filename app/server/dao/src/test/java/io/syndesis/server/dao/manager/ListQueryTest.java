@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.dao.manager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import io.syndesis.common.model.ListResult;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ListQueryTest {
+
+    private static final List<String> WORDS = Arrays.asList("pear", "fig", "apple", "kiwi", "plum", "banana", "lime", "date", "cherry", "grape");
+
+    @Test
+    public void shouldFilterAndCountMatching() {
+        ListResult<String> result = new ListQuery<String>()
+            .filter("length", "4", w -> w.length() == 4)
+            .apply(WORDS);
+
+        assertThat(result.getTotalCount()).isEqualTo(5);
+        assertThat(result.getItems()).containsExactly("pear", "kiwi", "plum", "lime", "date");
+    }
+
+    @Test
+    public void shouldFilterWithPropertyFiltersAndPredicates() {
+        ListResult<String> result = new ListQuery<String>()
+            .filter("length", "4", w -> w.length() == 4)
+            .where(w -> w.startsWith("p"))
+            .apply(WORDS);
+
+        assertThat(result.getTotalCount()).isEqualTo(2);
+        assertThat(result.getItems()).containsExactly("pear", "plum");
+    }
+
+    @Test
+    public void shouldSortPages() {
+        ListQuery<String> query = new ListQuery<String>()
+            .sort("name", Function.identity(), false)
+            .limit(3);
+
+        assertThat(query.offset(0).apply(WORDS).getItems()).containsExactly("apple", "banana", "cherry");
+        assertThat(query.offset(3).apply(WORDS).getItems()).containsExactly("date", "fig", "grape");
+        assertThat(query.offset(9).apply(WORDS).getItems()).containsExactly("plum");
+        assertThat(query.offset(10).apply(WORDS).getItems()).isEmpty();
+        assertThat(query.offset(9).apply(WORDS).getTotalCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldSortDescendingKeepingOrderOfEqualKeys() {
+        ListQuery<String> query = new ListQuery<String>()
+            .sort("length", String::length, true)
+            .limit(4);
+
+        assertThat(query.apply(WORDS).getItems()).containsExactly("banana", "cherry", "apple", "grape");
+        assertThat(query.limit(-1).apply(WORDS).getItems()).containsExactly("banana", "cherry", "apple", "grape", "pear", "kiwi", "plum", "lime", "date", "fig");
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Messages and errors of an integration, one of its deployment versions or of
+ * all integrations, in consecutive time buckets of the same width ending with
+ * the current bucket. Times are in milliseconds since the epoch.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@SuppressWarnings("PMD.TooManyFields")
+public class MetricsHistory {
+
+    private String integrationId;
+    private String version;
+    private String resolution;
+    private long start;
+    private long interval;
+    private long[] messages;
+    private long[] errors;
+    private long[] lastProcessed;
+    private long totalMessages;
+    private long totalErrors;
+    private Long lastMessage;
+    private double messagesRate;
+    private double errorsRate;
+    private List<MetricsHistory> deployments;
+
+    public MetricsHistory() {
+        // To allow json deserialization
+    }
+
+    public String getIntegrationId() {
+        return integrationId;
+    }
+
+    public void setIntegrationId(String integrationId) {
+        this.integrationId = integrationId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(String resolution) {
+        this.resolution = resolution;
+    }
+
+    /**
+     * Start of the first bucket.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    /**
+     * Width of each bucket.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Number of messages processed in each bucket.
+     */
+    public long[] getMessages() {
+        return messages;
+    }
+
+    public void setMessages(long[] messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Number of failed messages in each bucket.
+     */
+    public long[] getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long[] errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Time the last message of each bucket was processed, 0 if no message was
+     * processed.
+     */
+    public long[] getLastProcessed() {
+        return lastProcessed;
+    }
+
+    public void setLastProcessed(long[] lastProcessed) {
+        this.lastProcessed = lastProcessed;
+    }
+
+    public long getTotalMessages() {
+        return totalMessages;
+    }
+
+    public void setTotalMessages(long totalMessages) {
+        this.totalMessages = totalMessages;
+    }
+
+    public long getTotalErrors() {
+        return totalErrors;
+    }
+
+    public void setTotalErrors(long totalErrors) {
+        this.totalErrors = totalErrors;
+    }
+
+    public Long getLastMessage() {
+        return lastMessage;
+    }
+
+    public void setLastMessage(Long lastMessage) {
+        this.lastMessage = lastMessage;
+    }
+
+    /**
+     * Messages per second in the last complete bucket.
+     */
+    public double getMessagesRate() {
+        return messagesRate;
+    }
+
+    public void setMessagesRate(double messagesRate) {
+        this.messagesRate = messagesRate;
+    }
+
+    /**
+     * Errors per second in the last complete bucket.
+     */
+    public double getErrorsRate() {
+        return errorsRate;
+    }
+
+    public void setErrorsRate(double errorsRate) {
+        this.errorsRate = errorsRate;
+    }
+
+    /**
+     * History of each deployment version of the integration.
+     */
+    public List<MetricsHistory> getDeployments() {
+        return deployments;
+    }
+
+    public void setDeployments(List<MetricsHistory> deployments) {
+        this.deployments = deployments;
+    }
+
+    public void addDeployment(MetricsHistory deployment) {
+        if (deployments == null) {
+            deployments = new ArrayList<>();
+        }
+        deployments.add(deployment);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.metrics;
+
+import java.util.Optional;
+
+/**
+ * Provides the history of integration metrics kept in time buckets.
+ */
+public interface MetricsHistoryProvider {
+
+    /**
+     * History of the given integration and each of its deployment versions,
+     * empty if no metrics have been collected for the integration.
+     */
+    Optional<MetricsHistory> getIntegrationMetricsHistory(String integrationId, MetricsResolution resolution);
+
+    /**
+     * History of all integrations combined.
+     */
+    MetricsHistory getTotalIntegrationMetricsHistory(MetricsResolution resolution);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.metrics;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The time bucket sizes in which metrics history is kept, each with the
+ * number of buckets retained.
+ */
+public enum MetricsResolution {
+
+    MINUTE("1m", Duration.ofMinutes(1), 60),
+    HOUR("1h", Duration.ofHours(1), 48),
+    DAY("1d", Duration.ofDays(1), 30);
+
+    private final String id;
+    private final long width;
+    private final int buckets;
+
+    MetricsResolution(String id, Duration width, int buckets) {
+        this.id = id;
+        this.width = width.toMillis();
+        this.buckets = buckets;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Width of a single bucket in milliseconds.
+     */
+    public long width() {
+        return width;
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+
+    public static MetricsResolution of(String id) {
+        for (MetricsResolution resolution : values()) {
+            if (resolution.id.equals(id) || resolution.name().equals(id.toUpperCase(Locale.US))) {
+                return resolution;
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported metrics resolution: " + id + ", supported are 1m, 1h and 1d");
+    }
+}
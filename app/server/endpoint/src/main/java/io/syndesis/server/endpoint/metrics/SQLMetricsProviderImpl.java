@@ -23,11 +23,14 @@ import java.util.Map;
 import java.util.Optional;
 
 import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
 import io.syndesis.server.dao.manager.DataManager;
+import io.syndesis.server.openshift.OpenShiftResourceCache;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
@@ -46,11 +49,29 @@ public class SQLMetricsProviderImpl implements MetricsProvider {
 
     private final NamespacedOpenShiftClient openShiftClient;
 
+    private OpenShiftResourceCache resourceCache;
+
+    private MetricsHistoryProvider historyProvider;
+
     protected SQLMetricsProviderImpl(DataManager dataMgr, NamespacedOpenShiftClient openShiftClient) {
         this.dataMgr = dataMgr;
         this.openShiftClient = openShiftClient;
     }
 
+    @Autowired(required = false)
+    public void setResourceCache(OpenShiftResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     * When set the totals are taken from the aggregates maintained by the
+     * history instead of summing up the summaries of all integrations.
+     */
+    @Autowired(required = false)
+    public void setHistoryProvider(MetricsHistoryProvider historyProvider) {
+        this.historyProvider = historyProvider;
+    }
+
     @Override
     public IntegrationMetricsSummary getIntegrationMetricsSummary(String integrationId) {
         return dataMgr.fetch(IntegrationMetricsSummary.class, integrationId);
@@ -58,6 +79,10 @@ public class SQLMetricsProviderImpl implements MetricsProvider {
 
     @Override
     public IntegrationMetricsSummary getTotalIntegrationMetricsSummary() {
+        if (historyProvider != null) {
+            return rollup(historyProvider.getTotalIntegrationMetricsHistory(MetricsResolution.MINUTE));
+        }
+
         ListResult<IntegrationMetricsSummary> integrationMetricsList = dataMgr.fetchAll(
                 IntegrationMetricsSummary.class);
         return rollup(integrationMetricsList.getItems());
@@ -78,12 +103,10 @@ public class SQLMetricsProviderImpl implements MetricsProvider {
             } else {
                 totalLastProcessed = summary.getLastProcessed();
             }
+        }
 
-            totalStart = Optional.of(Instant.parse(
-                openShiftClient.pods().withLabelSelector(SELECTOR).list().getItems()
-                    .get(0)
-                    .getStatus()
-                    .getStartTime()));
+        if (!metricsSummaryList.isEmpty()) {
+            totalStart = Optional.of(Instant.parse(serverPods().get(0).getStatus().getStartTime()));
         }
         return new IntegrationMetricsSummary.Builder()
                 .metricsProvider("sql")
@@ -94,4 +117,27 @@ public class SQLMetricsProviderImpl implements MetricsProvider {
                 .start(totalStart)
                 .build();
     }
+
+    private IntegrationMetricsSummary rollup(MetricsHistory history) {
+        Optional<Instant> totalStart = Optional.empty();
+        if (history.getTotalMessages() > 0 || history.getLastMessage() != null) {
+            totalStart = Optional.of(Instant.parse(serverPods().get(0).getStatus().getStartTime()));
+        }
+        return new IntegrationMetricsSummary.Builder()
+                .metricsProvider("sql")
+                .messages(history.getTotalMessages())
+                .errors(history.getTotalErrors())
+                .lastProcessed(Optional.ofNullable(history.getLastMessage()).map(Instant::ofEpochMilli))
+                .uptimeDuration(totalStart.map(date -> Duration.between(date, Instant.now()).toMillis()).orElse(0L))
+                .start(totalStart)
+                .build();
+    }
+
+    private List<Pod> serverPods() {
+        if (resourceCache != null) {
+            return resourceCache.getPods(LABELS);
+        }
+
+        return openShiftClient.pods().withLabelSelector(SELECTOR).list().getItems();
+    }
 }
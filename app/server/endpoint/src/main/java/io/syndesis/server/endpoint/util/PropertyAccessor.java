@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.util;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Reads a, possibly nested, property of a model. {@link Optional} values are
+ * unwrapped, a missing value anywhere along the path reads as {@code null}.
+ *
+ * @param <T> The type of the model.
+ */
+public final class PropertyAccessor<T> {
+
+    private final String property;
+
+    private final Class<?> type;
+
+    private final Function<Object, Object>[] getters;
+
+    PropertyAccessor(String property, Class<?> type, Function<Object, Object>[] getters) {
+        this.property = property;
+        this.type = type;
+        this.getters = getters;
+    }
+
+    public Object get(T model) {
+        Object value = model;
+        for (Function<Object, Object> getter : getters) {
+            value = unwrap(getter.apply(value));
+            if (value == null) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * The type of the property value, primitives are boxed and
+     * {@link Optional}s unwrapped when their type argument is known.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isComparable() {
+        return Comparable.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Compares values of the property by their natural order, {@code null}
+     * values first.
+     *
+     * @throws IllegalStateException if the values are not comparable
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<Object> valueComparator() {
+        if (!isComparable()) {
+            throw new IllegalStateException("Values of " + property + " of type " + type.getName() + " are not comparable");
+        }
+
+        return Comparator.nullsFirst((a, b) -> ((Comparable) a).compareTo(b));
+    }
+
+    /**
+     * Compares models by the value of the property.
+     */
+    public Comparator<T> comparator() {
+        final Comparator<Object> values = valueComparator();
+        return (a, b) -> values.compare(get(a), get(b));
+    }
+
+    private static Object unwrap(Object value) {
+        if (value instanceof Optional) {
+            return ((Optional<?>) value).orElse(null);
+        }
+        return value;
+    }
+}
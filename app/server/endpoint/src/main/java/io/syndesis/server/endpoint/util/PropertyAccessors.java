@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.util;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Registry of {@link PropertyAccessor}s per model class. Getters are resolved
+ * once per class and property and compiled into functions using
+ * {@link LambdaMetafactory}, falling back to {@link MethodHandle}s or plain
+ * reflection when the getter is not accessible that way.
+ * <p>
+ * Properties are given by name, like {@code name}, and can be nested using
+ * dots, like {@code connector.name}. Getters are looked up as
+ * {@code getName()}, {@code isName()} for booleans or {@code name()} if the
+ * class declares a {@code name} field.
+ */
+public final class PropertyAccessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // only properties that resolve are cached, the names come from requests
+    private static final ClassValue<ConcurrentMap<String, PropertyAccessor<?>>> ACCESSORS = new ClassValue<ConcurrentMap<String, PropertyAccessor<?>>>() {
+        @Override
+        protected ConcurrentMap<String, PropertyAccessor<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private PropertyAccessors() {
+        // utility class
+    }
+
+    /**
+     * Returns the accessor for the property of the model class, or
+     * {@code null} if the model class does not have such property.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PropertyAccessor<T> accessor(Class<T> modelClass, String property) {
+        ConcurrentMap<String, PropertyAccessor<?>> accessors = ACCESSORS.get(modelClass);
+        PropertyAccessor<?> accessor = accessors.get(property);
+        if (accessor == null) {
+            accessor = create(modelClass, property);
+            if (accessor == null) {
+                return null;
+            }
+
+            PropertyAccessor<?> existing = accessors.putIfAbsent(property, accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+
+        return (PropertyAccessor<T>) accessor;
+    }
+
+    static int cachedAccessors(Class<?> modelClass) {
+        return ACCESSORS.get(modelClass).size();
+    }
+
+    /**
+     * Returns a comparator over the given, comma separated, properties of the
+     * model class.
+     *
+     * @throws IllegalArgumentException if any of the properties is missing or
+     *         its values are not comparable
+     */
+    public static <T> Comparator<T> comparator(Class<T> modelClass, String properties) {
+        Comparator<T> comparator = null;
+        for (PropertyAccessor<T> accessor : sortAccessors(modelClass, properties)) {
+            comparator = comparator == null ? accessor.comparator() : comparator.thenComparing(accessor.comparator());
+        }
+        return comparator;
+    }
+
+    /**
+     * Returns the accessors for the given, comma separated, properties of the
+     * model class to sort on.
+     *
+     * @throws IllegalArgumentException if any of the properties is missing or
+     *         its values are not comparable
+     */
+    public static <T> List<PropertyAccessor<T>> sortAccessors(Class<T> modelClass, String properties) {
+        List<PropertyAccessor<T>> accessors = new ArrayList<>();
+        for (String property : properties.split(",", -1)) {
+            PropertyAccessor<T> accessor = accessor(modelClass, property.trim());
+            if (accessor == null || !accessor.isComparable()) {
+                throw new IllegalArgumentException(String.format("Cannot find field %s in %s as a sortable field", property.trim(), modelClass.getName()));
+            }
+            accessors.add(accessor);
+        }
+        return accessors;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> PropertyAccessor<T> create(Class<T> modelClass, String property) {
+        String[] names = property.split("\\.", -1);
+        Function<Object, Object>[] getters = new Function[names.length];
+
+        Class<?> type = modelClass;
+        for (int i = 0; i < names.length; i++) {
+            Method getter = findGetter(type, names[i]);
+            if (getter == null) {
+                return null;
+            }
+
+            getters[i] = compile(getter);
+            type = valueType(getter);
+        }
+
+        return new PropertyAccessor<>(property, type, getters);
+    }
+
+    /**
+     * Finds the bean getter of the property, {@code getName()} or, for
+     * booleans, {@code isName()}, or a record style accessor {@code name()}
+     * of a declared field. Methods of {@link Object}, like {@code getClass()}
+     * or {@code hashCode()}, are not properties.
+     */
+    private static Method findGetter(Class<?> type, String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+
+        String capitalized = name.substring(0, 1).toUpperCase(Locale.US) + name.substring(1);
+
+        Method getter = findAccessor(type, "get" + capitalized);
+        if (getter != null) {
+            return getter;
+        }
+
+        getter = findAccessor(type, "is" + capitalized);
+        if (getter != null && (getter.getReturnType() == boolean.class || getter.getReturnType() == Boolean.class)) {
+            return getter;
+        }
+
+        getter = findAccessor(type, name);
+        if (getter != null && hasField(type, name)) {
+            return getter;
+        }
+
+        return null;
+    }
+
+    private static Method findAccessor(Class<?> type, String name) {
+        try {
+            Method method = type.getMethod(name);
+            if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers()) && method.getDeclaringClass() != Object.class) {
+                return method;
+            }
+        } catch (NoSuchMethodException ignored) {
+            // no such property
+        }
+        return null;
+    }
+
+    private static boolean hasField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The type of the value returned by the getter, with primitives boxed and
+     * {@code Optional}s unwrapped if their type argument is a class.
+     */
+    private static Class<?> valueType(Method getter) {
+        Class<?> type = getter.getReturnType();
+        if (type.isPrimitive()) {
+            return MethodType.methodType(type).wrap().returnType();
+        }
+
+        if (type == Optional.class) {
+            Type generic = getter.getGenericReturnType();
+            if (generic instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) generic).getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+                if (argument instanceof ParameterizedType) {
+                    return (Class<?>) ((ParameterizedType) argument).getRawType();
+                }
+            }
+            return Object.class;
+        }
+
+        return type;
+    }
+
+    @SuppressWarnings({"unchecked", "PMD.AvoidCatchingThrowable"})
+    private static Function<Object, Object> compile(Method getter) {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(getter);
+        } catch (IllegalAccessException e) {
+            return reflective(getter);
+        }
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return o -> {
+                try {
+                    return generic.invokeExact(o);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalArgumentException("Cannot extract value from " + getter + " for object " + o, ex);
+                }
+            };
+        }
+    }
+
+    private static Function<Object, Object> reflective(Method getter) {
+        return o -> {
+            try {
+                return getter.invoke(o);
+            } catch (InvocationTargetException | IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot extract value from " + getter + " for object " + o, e);
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.util;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import io.syndesis.server.dao.manager.ListQuery;
+
+/**
+ * Creates a {@link ListQuery} from the filter, sort and pagination options,
+ * the properties are evaluated on entities via {@link PropertyAccessors}.
+ */
+public final class ReflectiveQuery {
+
+    private ReflectiveQuery() {
+        // utility class
+    }
+
+    public static <T> ListQuery<T> create(Class<T> modelClass, List<FilterOptionsParser.Filter> filters, SortOptions sortOptions, PaginationOptions paginationOptions) {
+        ListQuery<T> query = page(paginationOptions);
+
+        for (FilterOptionsParser.Filter f : filters) {
+            String op = f.getOperation().orElseThrow(
+                () -> new IllegalArgumentException("Missing filter operation")
+            );
+
+            if ("=".equals(op)) {
+                String value = f.getValue().orElseThrow(
+                    () -> new IllegalArgumentException("Missing value in equality filter")
+                );
+                query.filter(f.getProperty(), value, equalityPredicate(modelClass, f.getProperty(), value));
+            } else {
+                throw new IllegalArgumentException(String.format("Unknown filter operation %s", op));
+            }
+        }
+
+        String sortField = sortOptions.getSortField();
+        if (sortField != null) {
+            sort(query, modelClass, sortField, sortOptions.getSortDirection() == SortOptions.SortDirection.DESC);
+        }
+
+        return query;
+    }
+
+    /**
+     * Creates a {@link ListQuery} selecting the page given by the pagination
+     * options, without any filter or sorting.
+     */
+    public static <T> ListQuery<T> page(PaginationOptions paginationOptions) {
+        if (paginationOptions.getPage() < 1) {
+            throw new IllegalArgumentException("Page number must be greater than 0");
+        }
+        if (paginationOptions.getPerPage() < 1) {
+            throw new IllegalArgumentException("Per page must be greater than 0");
+        }
+
+        return new ListQuery<T>()
+            .offset((paginationOptions.getPage() - 1) * paginationOptions.getPerPage())
+            .limit(paginationOptions.getPerPage());
+    }
+
+    private static <T> Predicate<T> equalityPredicate(final Class<T> modelClass, final String property, final String value) {
+        PropertyAccessor<T> accessor = PropertyAccessors.accessor(modelClass, property);
+        if (accessor == null) {
+            throw new IllegalArgumentException(String.format("Cannot find field %s in %s as field", property, modelClass.getName()));
+        }
+
+        return o -> {
+            Object propertyValue = accessor.get(o);
+            return propertyValue != null && value.equals(propertyValue.toString());
+        };
+    }
+
+    private static <T> void sort(ListQuery<T> query, Class<T> modelClass, String sortField, boolean descending) {
+        List<PropertyAccessor<T>> accessors = PropertyAccessors.sortAccessors(modelClass, sortField);
+        if (accessors.size() == 1) {
+            PropertyAccessor<T> accessor = accessors.get(0);
+            query.sort(sortField, accessor::get, accessor.valueComparator(), descending);
+            return;
+        }
+
+        // multiple fields are extracted once into an array compared field by field
+        @SuppressWarnings("unchecked")
+        Comparator<Object>[] comparators = new Comparator[accessors.size()];
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i] = accessors.get(i).valueComparator();
+        }
+
+        query.sort(sortField, entity -> {
+            Object[] keys = new Object[comparators.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = accessors.get(i).get(entity);
+            }
+            return keys;
+        }, (a, b) -> {
+            Object[] left = (Object[]) a;
+            Object[] right = (Object[]) b;
+            for (int i = 0; i < comparators.length; i++) {
+                int result = comparators[i].compare(left[i], right[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }, descending);
+    }
+}
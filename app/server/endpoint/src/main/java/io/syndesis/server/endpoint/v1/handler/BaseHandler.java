@@ -21,9 +21,7 @@ import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.WithId;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.dao.manager.WithDataManager;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveFilterer;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.operations.FilterOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.PaginationOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.SortOptionsFromQueryParams;
@@ -45,9 +43,11 @@ public abstract class BaseHandler implements WithDataManager {
     protected <T extends WithId<T>> ListResult<T> fetchAll(Class<T> type, UriInfo uriInfo) {
         return getDataManager().fetchAll(
             type,
-            new ReflectiveFilterer<>(type, new FilterOptionsFromQueryParams(uriInfo).getFilters()),
-            new ReflectiveSorter<>(type, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo))
+            ReflectiveQuery.create(
+                type,
+                new FilterOptionsFromQueryParams(uriInfo).getFilters(),
+                new SortOptionsFromQueryParams(uriInfo),
+                new PaginationOptionsFromQueryParams(uriInfo))
         );
     }
 }
@@ -26,8 +26,12 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import io.syndesis.common.util.json.JsonUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +46,7 @@ import org.springframework.stereotype.Component;
 public class ActivityHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(ActivityHandler.class);
+    private static final int DEFAULT_LIMIT = 10;
     private final Optional<ActivityTrackingService> service;
 
     public ActivityHandler(Optional<ActivityTrackingService> resource) {
@@ -70,4 +75,64 @@ public class ActivityHandler {
         return service.get().getActivities(integrationId, from, limit);
     }
 
+    /**
+     * Streams a page of activities as {@code {"items":[...],"next":"..."}},
+     * {@code next} is the cursor of the following page and is absent on the
+     * last page. The parameters are validated before the response is
+     * started, a failure while streaming leaves the JSON document
+     * incomplete so that it cannot be taken for the last page.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path(value = "/integrations/{integrationId}/query")
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public StreamingOutput queryActivities(
+        @PathParam("integrationId") String integrationId,
+        @QueryParam("cursor") String cursor,
+        @QueryParam("limit") Integer limit,
+        @QueryParam("failed") boolean failedOnly,
+        @QueryParam("since") Long since,
+        @QueryParam("until") Long until,
+        @QueryParam("step") String step,
+        @QueryParam("summary") boolean summary
+    ) {
+        if( !service.isPresent() ) {
+            throw new WebApplicationException(Response.Status.NOT_IMPLEMENTED);
+        }
+
+        if (limit != null && limit < 1) {
+            throw new WebApplicationException("Limit needs to be positive, given: " + limit, Response.Status.BAD_REQUEST);
+        }
+
+        final ActivityQuery query = new ActivityQuery()
+            .cursor(cursor)
+            .limit(limit == null ? DEFAULT_LIMIT : limit)
+            .failedOnly(failedOnly)
+            .since(since)
+            .until(until)
+            .step(step)
+            .summary(summary);
+
+        try {
+            query.position();
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException("Invalid cursor: " + cursor, e, Response.Status.BAD_REQUEST);
+        }
+
+        return out -> {
+            final ObjectWriter writer = JsonUtils.writer();
+            try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("items");
+                final String next = service.get().getActivities(integrationId, query, activity -> writer.writeValue(generator, activity));
+                generator.writeEndArray();
+                if (next != null) {
+                    generator.writeStringField("next", next);
+                }
+                generator.writeEndObject();
+            }
+        };
+    }
+
 }
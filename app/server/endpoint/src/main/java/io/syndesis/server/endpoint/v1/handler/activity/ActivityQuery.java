@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.v1.handler.activity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Filters and projection of an activity query. Activities are returned newest
+ * first, a query continues where the previous one stopped by passing its
+ * {@link #cursor()}.
+ */
+public class ActivityQuery {
+
+    private String cursor;
+    private Integer limit;
+    private boolean failedOnly;
+    private Long since;
+    private Long until;
+    private String step;
+    private boolean summary;
+
+    public String cursor() {
+        return cursor;
+    }
+
+    /**
+     * Opaque token returned by the previous query.
+     */
+    public ActivityQuery cursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * The id of the last activity read by the previous query, decoded from
+     * the {@link #cursor()}.
+     *
+     * @return the id or {@code null} for the first query
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public String position() {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the id of the last read activity as the cursor for the
+     * following query.
+     */
+    public static String cursorOf(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Integer limit() {
+        return limit;
+    }
+
+    public ActivityQuery limit(Integer limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public boolean failedOnly() {
+        return failedOnly;
+    }
+
+    public ActivityQuery failedOnly(boolean failedOnly) {
+        this.failedOnly = failedOnly;
+        return this;
+    }
+
+    public Long since() {
+        return since;
+    }
+
+    /**
+     * Inclusive lower bound of the activity time, in milliseconds since the
+     * epoch.
+     */
+    public ActivityQuery since(Long since) {
+        this.since = since;
+        return this;
+    }
+
+    public Long until() {
+        return until;
+    }
+
+    /**
+     * Inclusive upper bound of the activity time, in milliseconds since the
+     * epoch.
+     */
+    public ActivityQuery until(Long until) {
+        this.until = until;
+        return this;
+    }
+
+    public String step() {
+        return step;
+    }
+
+    /**
+     * Only activities that passed through the step with the given id.
+     */
+    public ActivityQuery step(String step) {
+        this.step = step;
+        return this;
+    }
+
+    public boolean summary() {
+        return summary;
+    }
+
+    /**
+     * Leave out the messages and events of the steps.
+     */
+    public ActivityQuery summary(boolean summary) {
+        this.summary = summary;
+        return this;
+    }
+
+    /**
+     * Checks the filters of this query against the given activity.
+     */
+    public boolean matches(Activity activity) {
+        if (failedOnly && !Boolean.TRUE.equals(activity.getFailed())) {
+            return false;
+        }
+
+        final Long at = activity.getAt();
+        if (since != null && (at == null || at < since)) {
+            return false;
+        }
+        if (until != null && (at == null || at > until)) {
+            return false;
+        }
+
+        if (step != null) {
+            final List<ActivityStep> steps = activity.getSteps();
+            return steps != null && steps.stream().anyMatch(s -> step.equals(s.getId()));
+        }
+
+        return true;
+    }
+
+    /**
+     * Applies the projection of this query to the given activity.
+     */
+    public Activity project(Activity activity) {
+        if (summary && activity.getSteps() != null) {
+            for (ActivityStep s : activity.getSteps()) {
+                s.setMessages(null);
+                s.setEvents(null);
+            }
+        }
+
+        return activity;
+    }
+}
@@ -19,6 +19,36 @@ import java.io.IOException;
 import java.util.List;
 
 public interface ActivityTrackingService {
+
+    /**
+     * Receives the activities of a query as they are read.
+     */
+    @FunctionalInterface
+    interface ActivityConsumer {
+        void accept(Activity activity) throws IOException;
+    }
+
     List<Activity> getActivities(String integrationId, String from, Integer limit) throws IOException;
 
+    /**
+     * Passes the activities matching the query to the consumer, newest first.
+     * The default implementation filters a page of {@link #getActivities(String, String, Integer)}.
+     *
+     * @return the cursor of the next page, or {@code null} if there are no
+     *         more activities
+     */
+    default String getActivities(String integrationId, ActivityQuery query, ActivityConsumer consumer) throws IOException {
+        final List<Activity> activities = getActivities(integrationId, query.position(), query.limit());
+        for (Activity activity : activities) {
+            if (query.matches(activity)) {
+                consumer.accept(query.project(activity));
+            }
+        }
+
+        if (activities.isEmpty() || query.limit() == null || activities.size() < query.limit()) {
+            return null;
+        }
+
+        return ActivityQuery.cursorOf(activities.get(activities.size() - 1).getId());
+    }
 }
@@ -15,6 +15,8 @@
  */
 package io.syndesis.server.endpoint.v1.handler.connection;
 
+import java.util.Collections;
+
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
@@ -24,14 +26,12 @@ import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.common.model.Kind;
 import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.action.ConnectorAction;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.handler.BaseHandler;
 import io.syndesis.server.endpoint.v1.operations.Getter;
 import io.syndesis.server.endpoint.v1.operations.Lister;
 import io.syndesis.server.endpoint.v1.operations.PaginationOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.SortOptionsFromQueryParams;
-import io.syndesis.server.endpoint.v1.util.PredicateFilter;
 
 @Tag(name = "actions")
 public class ConnectorActionHandler extends BaseHandler implements Lister<ConnectorAction>, Getter<ConnectorAction> {
@@ -65,9 +65,12 @@ public class ConnectorActionHandler extends BaseHandler implements Lister<Connec
     public ListResult<ConnectorAction> list(UriInfo uriInfo) {
         return getDataManager().fetchAll(
             ConnectorAction.class,
-            new PredicateFilter<>(o -> o.getDescriptor().getConnectorId().equals(connectorId)),
-            new ReflectiveSorter<>(ConnectorAction.class, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo))
+            ReflectiveQuery.create(
+                ConnectorAction.class,
+                Collections.emptyList(),
+                new SortOptionsFromQueryParams(uriInfo),
+                new PaginationOptionsFromQueryParams(uriInfo))
+            .where(o -> o.getDescriptor().getConnectorId().equals(connectorId))
         );
     }
 }
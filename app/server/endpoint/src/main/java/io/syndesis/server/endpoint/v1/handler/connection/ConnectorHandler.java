@@ -67,7 +67,7 @@ import io.syndesis.server.dao.file.IconDao;
 import io.syndesis.server.dao.file.SpecificationResourceDao;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.dao.manager.EncryptionComponent;
-import io.syndesis.server.endpoint.util.PaginationFilter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.handler.BaseHandler;
 import io.syndesis.server.endpoint.v1.operations.Deleter;
 import io.syndesis.server.endpoint.v1.operations.Getter;
@@ -75,7 +75,6 @@ import io.syndesis.server.endpoint.v1.operations.Lister;
 import io.syndesis.server.endpoint.v1.operations.PaginationOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.Updater;
 import io.syndesis.server.endpoint.v1.state.ClientSideState;
-import io.syndesis.server.endpoint.v1.util.PredicateFilter;
 import io.syndesis.server.inspector.Inspectors;
 import io.syndesis.server.verifier.MetadataConfigurationProperties;
 import io.syndesis.server.verifier.Verifier;
@@ -280,10 +279,9 @@ public class ConnectorHandler extends BaseHandler implements Lister<Connector>,
 
         final ListResult<Connector> all = getDataManager().fetchAll(
                     Connector.class,
-                    new PredicateFilter<>(connector -> connector.getConnectorGroupId().isPresent()
-                            && connectorGroupIdList.contains(connector.getConnectorGroupId().get())
-                    ),
-                    new PaginationFilter<>(new PaginationOptionsFromQueryParams(page, perPage)));
+                    ReflectiveQuery.<Connector>page(new PaginationOptionsFromQueryParams(page, perPage))
+                        .where(connector -> connector.getConnectorGroupId().isPresent()
+                            && connectorGroupIdList.contains(connector.getConnectorGroupId().get())));
 
         final List<Connector> connectors = all.getItems().stream()
             .map(c -> {
@@ -70,16 +70,13 @@ import io.syndesis.server.dao.file.FileDAO;
 import io.syndesis.server.dao.file.FileDataManager;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.endpoint.util.FilterOptionsParser;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveFilterer;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.SyndesisRestException;
 import io.syndesis.server.endpoint.v1.handler.BaseHandler;
 import io.syndesis.server.endpoint.v1.operations.Deleter;
 import io.syndesis.server.endpoint.v1.operations.Getter;
 import io.syndesis.server.endpoint.v1.operations.PaginationOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.SortOptionsFromQueryParams;
-import io.syndesis.server.endpoint.v1.util.PredicateFilter;
 import okio.BufferedSink;
 import okio.Okio;
 import okio.Sink;
@@ -259,12 +256,12 @@ public class ExtensionHandler extends BaseHandler implements Getter<Extension>,
 
         return getDataManager().fetchAll(
             Extension.class,
-            new ReflectiveFilterer<>(Extension.class, FilterOptionsParser.fromString(query)),
-            new PredicateFilter<>(
-                extension -> extensionType == null || extension.getExtensionType().equals(extensionType)
-            ),
-            new ReflectiveSorter<>(Extension.class, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo))
+            ReflectiveQuery.create(
+                Extension.class,
+                FilterOptionsParser.fromString(query),
+                new SortOptionsFromQueryParams(uriInfo),
+                new PaginationOptionsFromQueryParams(uriInfo))
+            .where(extension -> extensionType == null || extension.getExtensionType().equals(extensionType))
         );
     }
 
@@ -15,6 +15,7 @@
  */
 package io.syndesis.server.endpoint.v1.handler.integration;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -41,8 +42,8 @@ import io.syndesis.common.model.integration.IntegrationDeployment;
 import io.syndesis.common.model.integration.IntegrationDeploymentState;
 import io.syndesis.common.util.Labels;
 import io.syndesis.server.dao.manager.DataManager;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.dao.manager.ListQuery;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.handler.BaseHandler;
 import io.syndesis.server.endpoint.v1.handler.user.UserConfigurationProperties;
 import io.syndesis.server.endpoint.v1.operations.PaginationOptionsFromQueryParams;
@@ -111,9 +112,15 @@ public class IntegrationDeploymentHandler extends BaseHandler {
     @Produces(MediaType.APPLICATION_JSON)
     public ListResult<IntegrationDeployment> list(@NotNull @PathParam("id") @Parameter(required = true) final String id,
         @Context final UriInfo uriInfo) {
-        return getDataManager().fetchAll(IntegrationDeployment.class, new IntegrationIdFilter(id),
-            new ReflectiveSorter<>(IntegrationDeployment.class, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo)));
+        final IntegrationIdFilter integrationIdFilter = new IntegrationIdFilter(id);
+        final ListQuery<IntegrationDeployment> query = ReflectiveQuery.create(
+            IntegrationDeployment.class,
+            Collections.emptyList(),
+            new SortOptionsFromQueryParams(uriInfo),
+            new PaginationOptionsFromQueryParams(uriInfo));
+
+        return getDataManager().fetchAll(IntegrationDeployment.class,
+            query.filter("integrationId", id, integrationIdFilter::matches));
     }
 
     @PUT
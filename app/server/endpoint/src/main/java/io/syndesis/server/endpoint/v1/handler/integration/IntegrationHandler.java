@@ -15,6 +15,7 @@
  */
 package io.syndesis.server.endpoint.v1.handler.integration;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -44,8 +45,7 @@ import io.syndesis.common.model.integration.IntegrationOverview;
 import io.syndesis.server.api.generator.APIGenerator;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.dao.manager.EncryptionComponent;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.handler.BaseHandler;
 import io.syndesis.server.endpoint.v1.operations.Creator;
 import io.syndesis.server.endpoint.v1.operations.Deleter;
@@ -185,8 +185,11 @@ public class IntegrationHandler extends BaseHandler implements Lister<Integratio
     public ListResult<IntegrationOverview> list(final UriInfo uriInfo) {
         final DataManager dataManager = getDataManager();
         final ListResult<Integration> integrations = dataManager.fetchAll(Integration.class,
-            new ReflectiveSorter<>(Integration.class, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo)));
+            ReflectiveQuery.create(
+                Integration.class,
+                Collections.emptyList(),
+                new SortOptionsFromQueryParams(uriInfo),
+                new PaginationOptionsFromQueryParams(uriInfo)));
 
         final List<IntegrationOverview> items = integrations.getItems().stream().map(integrationOverviewHelper::toCurrentIntegrationOverview)
             .collect(Collectors.toList());
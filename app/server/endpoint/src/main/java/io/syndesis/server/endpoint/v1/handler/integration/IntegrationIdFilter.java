@@ -39,8 +39,12 @@ final class IntegrationIdFilter
         }
 
         final List<IntegrationDeployment> filtered = list.getItems().stream()
-            .filter(i -> i.getSpec().idEquals(integrationId)).collect(Collectors.toList());
+            .filter(this::matches).collect(Collectors.toList());
 
         return ListResult.partial(list.getTotalCount(), filtered);
     }
+
+    boolean matches(final IntegrationDeployment deployment) {
+        return deployment.getSpec().idEquals(integrationId);
+    }
 }
@@ -18,6 +18,7 @@ package io.syndesis.server.endpoint.v1.handler.integration.support;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,8 +29,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -204,21 +207,24 @@ public class IntegrationSupportHandler {
 
                 ModelExport exportObject = ModelExport.of(Schema.VERSION);
                 addEntry(tos, EXPORT_MODEL_INFO_FILE_NAME, JsonUtils.writer().writeValueAsBytes(exportObject));
-                addEntry(tos, EXPORT_MODEL_FILE_NAME, memJsonDB.getAsByteArray("/"));
+                addEntry(tos, EXPORT_MODEL_FILE_NAME, memJsonDB.getAsStreamingOutput("/"));
+
+                // extensions are JARs, already compressed, deflating them again just burns CPU
+                tos.setLevel(Deflater.NO_COMPRESSION);
                 for (String extensionId : extensions) {
                     try (InputStream extensionStream = extensionDataManager.getExtensionBinaryFile(extensionId)) {
-                        final byte[] extensionBytes = IOUtils.toByteArray(extensionStream);
-                        addEntry(tos, "extensions/" + Names.sanitize(extensionId) + ".jar", extensionBytes);
+                        addEntry(tos, "extensions/" + Names.sanitize(extensionId) + ".jar", extensionStream);
                     }
                 }
+                tos.setLevel(Deflater.DEFAULT_COMPRESSION);
+
                 for (String iconId : icons) {
                     Icon icon = getDataManager().fetch(Icon.class, iconId);
                     String ext = MediaType.valueOf(icon.getMediaType()).getSubtype();
                     String name = iconId.substring(3);
 
                     try (InputStream iconStream = iconDao.read(name)) {
-                        byte[] bytes = IOUtils.toByteArray(iconStream);
-                        addEntry(tos, "icons/" + name + "." + ext, bytes);
+                        addEntry(tos, "icons/" + name + "." + ext, iconStream);
                     }
                 }
             }
@@ -626,15 +632,19 @@ public class IntegrationSupportHandler {
     }
 
     private <T extends WithId<T>> void importModels(JsonDbDao<T> export, Map<String, List<WithResourceId>> result) {
+        final List<T> created = new ArrayList<>();
         for (T item : export.fetchAll().getItems()) {
             String id = item.getId().get();
             if (dataManager.fetch(export.getType(), id) == null) {
                 // create new item
-                dataManager.create(item);
-
-                addImportedItemResult(result, item);
+                created.add(item);
             }
         }
+
+        dataManager.storeAll(created);
+        for (T item : created) {
+            addImportedItemResult(result, item);
+        }
     }
 
     private <T extends WithId<T> & WithName> void importModels(JsonDbDao<T> export, BiFunction<T, String, T> renameFunc, Map<String, String> renames, Map<String, List<WithResourceId>> result) {
@@ -643,6 +653,7 @@ public class IntegrationSupportHandler {
 
     private <T extends WithId<T> & WithName> void importModels(JsonDbDao<T> export, BiFunction<T, String, T> renameFunc, Map<String, String> renames, Map<String, List<WithResourceId>> result, BiFunction<JsonDbDao<T>, T, Boolean> compareFunc) {
         final Set<String> names = getAllPropertyValues(export.getType(), WithName::getName);
+        final List<T> created = new ArrayList<>();
         for (T item : export.fetchAll().getItems()) {
             String id = item.getId().get();
             if (compareFunc.apply(export, item)) {
@@ -660,11 +671,14 @@ public class IntegrationSupportHandler {
                 }
 
                 // create new item
-                dataManager.create(item);
-
-                addImportedItemResult(result, item);
+                created.add(item);
             }
         }
+
+        dataManager.storeAll(created);
+        for (T item : created) {
+            addImportedItemResult(result, item);
+        }
     }
 
     private static <T extends WithId<T>> void addImportedItemResult(Map<String, List<WithResourceId>> result,
@@ -683,6 +697,21 @@ public class IntegrationSupportHandler {
         os.closeEntry();
     }
 
+    private static void addEntry(ZipOutputStream os, String path, InputStream content) throws IOException {
+        os.putNextEntry(new ZipEntry(path));
+        IOUtils.copy(content, os);
+        os.closeEntry();
+    }
+
+    private static void addEntry(ZipOutputStream os, String path, Consumer<OutputStream> content) throws IOException {
+        os.putNextEntry(new ZipEntry(path));
+        if (content != null) {
+            // JSON is written straight from the database records
+            content.accept(nonClosing(os));
+        }
+        os.closeEntry();
+    }
+
     private static Extension renameExtension(final Extension extension, final String newName) {
         return new Extension.Builder().createFrom(extension).name(newName).build();
     }
@@ -15,12 +15,19 @@
  */
 package io.syndesis.server.endpoint.v1.handler.metrics;
 
+import java.util.Optional;
+
+import javax.persistence.EntityNotFoundException;
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.springframework.stereotype.Component;
 import org.springframework.context.annotation.ComponentScan;
@@ -30,7 +37,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.syndesis.common.model.Kind;
 import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
+import io.syndesis.server.endpoint.metrics.MetricsHistory;
+import io.syndesis.server.endpoint.metrics.MetricsHistoryProvider;
 import io.syndesis.server.endpoint.metrics.MetricsProvider;
+import io.syndesis.server.endpoint.metrics.MetricsResolution;
 import io.syndesis.server.endpoint.v1.operations.Resource;
 
 @Path("/metrics/integrations")
@@ -41,9 +51,12 @@ public class IntegrationMetricsHandler implements Resource {
 
     private final MetricsProvider metricsProvider ;
 
-    public IntegrationMetricsHandler(MetricsProvider metricsProvider) {
+    private final Optional<MetricsHistoryProvider> historyProvider;
+
+    public IntegrationMetricsHandler(MetricsProvider metricsProvider, Optional<MetricsHistoryProvider> historyProvider) {
         super();
         this.metricsProvider = metricsProvider;
+        this.historyProvider = historyProvider;
     }
 
     @Override
@@ -64,4 +77,27 @@ public class IntegrationMetricsHandler implements Resource {
     public IntegrationMetricsSummary get() {
         return metricsProvider.getTotalIntegrationMetricsSummary();
     }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path(value = "/{integrationId}/history")
+    @Operation(description = "Retrieves the messages and errors of an integration and its deployments in time buckets of the given resolution")
+    public MetricsHistory getHistory(@NotNull @PathParam("integrationId") @Parameter(required = true) String integrationId,
+            @QueryParam("resolution") @DefaultValue("1m") @Parameter(description = "Width of the time buckets, one of 1m, 1h or 1d") String resolution) {
+        return history().getIntegrationMetricsHistory(integrationId, MetricsResolution.of(resolution))
+            .orElseThrow(EntityNotFoundException::new);
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path(value = "/history")
+    @Operation(description = "Retrieves the messages and errors of all integrations in time buckets of the given resolution")
+    public MetricsHistory getTotalHistory(
+            @QueryParam("resolution") @DefaultValue("1m") @Parameter(description = "Width of the time buckets, one of 1m, 1h or 1d") String resolution) {
+        return history().getTotalIntegrationMetricsHistory(MetricsResolution.of(resolution));
+    }
+
+    private MetricsHistoryProvider history() {
+        return historyProvider.orElseThrow(() -> new WebApplicationException(Response.Status.NOT_IMPLEMENTED));
+    }
 }
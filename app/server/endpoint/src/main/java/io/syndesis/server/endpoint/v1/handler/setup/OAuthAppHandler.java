@@ -43,9 +43,7 @@ import io.syndesis.common.model.connection.Connection;
 import io.syndesis.common.model.connection.Connector;
 import io.syndesis.server.credential.Credentials;
 import io.syndesis.server.dao.manager.DataManager;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveFilterer;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.syndesis.server.endpoint.v1.operations.FilterOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.PaginationOptionsFromQueryParams;
 import io.syndesis.server.endpoint.v1.operations.SortOptionsFromQueryParams;
@@ -96,11 +94,13 @@ public class OAuthAppHandler {
     @Parameter(name = "per_page", in = ParameterIn.QUERY, schema = @Schema(type = "integer", defaultValue = "20"), description = "Number of records per page")
     @Parameter(name = "query", in = ParameterIn.QUERY, schema = @Schema(type = "string"), description = "The search query to filter results on")
     public ListResult<OAuthApp> list(@Context final UriInfo uriInfo) {
-        final ListResult<Connector> all = dataMgr.fetchAll(Connector.class, //
-            OAuthConnectorFilter.INSTANCE,
-            new ReflectiveFilterer<>(Connector.class, new FilterOptionsFromQueryParams(uriInfo).getFilters()),
-            new ReflectiveSorter<>(Connector.class, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo)));
+        final ListResult<Connector> all = dataMgr.fetchAll(Connector.class,
+            ReflectiveQuery.create(
+                Connector.class,
+                new FilterOptionsFromQueryParams(uriInfo).getFilters(),
+                new SortOptionsFromQueryParams(uriInfo),
+                new PaginationOptionsFromQueryParams(uriInfo))
+            .where(OAuthConnectorFilter::isOAuthConnector));
 
         final List<Connector> oauthConnectors = all.getItems();
 
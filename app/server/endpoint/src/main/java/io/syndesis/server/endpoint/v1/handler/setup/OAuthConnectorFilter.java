@@ -33,9 +33,13 @@ final class OAuthConnectorFilter implements Function<ListResult<Connector>, List
     @Override
     public ListResult<Connector> apply(final ListResult<Connector> result) {
         final List<Connector> oauthConnectors = result.getItems().stream()
-            .filter(c -> c.propertyEntryTaggedWith(Credentials.CLIENT_ID_TAG).isPresent()).collect(Collectors.toList());
+            .filter(OAuthConnectorFilter::isOAuthConnector).collect(Collectors.toList());
 
         return ListResult.partial(result.getTotalCount(), oauthConnectors);
     }
 
+    static boolean isOAuthConnector(final Connector connector) {
+        return connector.propertyEntryTaggedWith(Credentials.CLIENT_ID_TAG).isPresent();
+    }
+
 }
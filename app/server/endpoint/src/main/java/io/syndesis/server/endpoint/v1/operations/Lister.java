@@ -24,9 +24,7 @@ import javax.ws.rs.core.UriInfo;
 import io.syndesis.server.dao.manager.WithDataManager;
 import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.WithId;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveFilterer;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.endpoint.util.ReflectiveQuery;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -44,9 +42,11 @@ public interface Lister<T extends WithId<T>> extends Resource, WithDataManager {
         Class<T> clazz = resourceKind().getModelClass();
         return getDataManager().fetchAll(
             clazz,
-            new ReflectiveFilterer<>(clazz, new FilterOptionsFromQueryParams(uriInfo).getFilters()),
-            new ReflectiveSorter<>(clazz, new SortOptionsFromQueryParams(uriInfo)),
-            new PaginationFilter<>(new PaginationOptionsFromQueryParams(uriInfo))
+            ReflectiveQuery.create(
+                clazz,
+                new FilterOptionsFromQueryParams(uriInfo).getFilters(),
+                new SortOptionsFromQueryParams(uriInfo),
+                new PaginationOptionsFromQueryParams(uriInfo))
         );
     }
 
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class PropertyAccessorsTest {
+
+    @Test
+    public void shouldAccessNestedAndOptionalProperties() {
+        PropertyAccessor<Person> accessor = PropertyAccessors.accessor(Person.class, "address.city");
+
+        assertThat(accessor.getType()).isEqualTo(String.class);
+        assertThat(accessor.get(new Person("Erwin", 1887, true, new Date(1), new Address("Vienna")))).isEqualTo("Vienna");
+        assertThat(accessor.get(new Person("Werner", 1901, false, new Date(2), null))).isNull();
+    }
+
+    @Test
+    public void shouldCacheAccessors() {
+        assertThat(PropertyAccessors.accessor(Person.class, "name")).isSameAs(PropertyAccessors.accessor(Person.class, "name"));
+        assertThat(PropertyAccessors.accessor(Person.class, "blub")).isNull();
+        assertThat(PropertyAccessors.accessor(Person.class, "address.blub")).isNull();
+    }
+
+    @Test
+    public void shouldNotCacheMissingProperties() {
+        PropertyAccessors.accessor(Person.class, "name");
+        int cached = PropertyAccessors.cachedAccessors(Person.class);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(PropertyAccessors.accessor(Person.class, "missing" + i)).isNull();
+        }
+
+        assertThat(PropertyAccessors.cachedAccessors(Person.class)).isEqualTo(cached);
+    }
+
+    @Test
+    public void shouldOnlyAccessBeanGettersAndAccessorsOfFields() {
+        assertThat(PropertyAccessors.accessor(Person.class, "nobel").get(new Person("Erwin", 1887, true, new Date(1), null))).isEqualTo(Boolean.TRUE);
+        assertThat(PropertyAccessors.accessor(Point.class, "x").get(new Point(1, 2))).isEqualTo(1);
+
+        assertThat(PropertyAccessors.accessor(Person.class, "hashCode")).isNull();
+        assertThat(PropertyAccessors.accessor(Person.class, "toString")).isNull();
+        assertThat(PropertyAccessors.accessor(Person.class, "class")).isNull();
+        assertThat(PropertyAccessors.accessor(Point.class, "norm")).isNull();
+        assertThat(PropertyAccessors.accessor(Point.class, "valid")).isNull();
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> PropertyAccessors.comparator(Person.class, "hashCode"))
+            .withMessage("Cannot find field hashCode in io.syndesis.server.endpoint.util.PropertyAccessorsTest$Person as a sortable field");
+    }
+
+    @Test
+    public void shouldSortOnTypedProperties() {
+        Person erwin = new Person("Erwin", 1887, true, new Date(3), new Address("Vienna"));
+        Person werner = new Person("Werner", 1901, false, new Date(1), null);
+        Person richard = new Person("Richard", 1918, true, new Date(2), new Address("New York"));
+
+        List<Person> people = new ArrayList<>(Arrays.asList(erwin, werner, richard));
+
+        people.sort(PropertyAccessors.comparator(Person.class, "born"));
+        assertThat(people).containsExactly(werner, richard, erwin);
+
+        people.sort(PropertyAccessors.comparator(Person.class, "address.city"));
+        assertThat(people).containsExactly(werner, richard, erwin);
+
+        people.sort(PropertyAccessors.comparator(Person.class, "nobel, year"));
+        assertThat(people).containsExactly(werner, erwin, richard);
+    }
+
+    @Test
+    public void shouldNotSortOnMissingOrUncomparableProperties() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> PropertyAccessors.comparator(Person.class, "name,address"))
+            .withMessage("Cannot find field address in io.syndesis.server.endpoint.util.PropertyAccessorsTest$Person as a sortable field");
+    }
+
+    public static final class Address {
+        private final String city;
+
+        Address(String city) {
+            this.city = city;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    public static final class Person {
+        private final String name;
+        private final int year;
+        private final boolean nobel;
+        private final Date born;
+        private final Address address;
+
+        Person(String name, int year, boolean nobel, Date born, Address address) {
+            this.name = name;
+            this.year = year;
+            this.nobel = nobel;
+            this.born = born;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public boolean isNobel() {
+            return nobel;
+        }
+
+        public Date getBorn() {
+            return born;
+        }
+
+        public Optional<Address> getAddress() {
+            return Optional.ofNullable(address);
+        }
+    }
+
+    public static final class Point {
+        private final int x;
+        private final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        public int x() {
+            return x;
+        }
+
+        public int y() {
+            return y;
+        }
+
+        public int norm() {
+            return Math.abs(x) + Math.abs(y);
+        }
+
+        public String isValid() {
+            return "not a boolean";
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.syndesis.common.model.ListResult;
+import io.syndesis.server.dao.manager.ListQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class ReflectiveQueryTest {
+
+    private static final List<Integer> INTS = Arrays.asList(1, 2, 3, 4, 5);
+
+    static List<Arguments> pages() {
+        return Arrays.asList(
+            arguments(1, 1, Arrays.asList(1)),
+            arguments(2, 1, Arrays.asList(2)),
+            arguments(2, 3, Arrays.asList(4, 5)),
+            arguments(1, 5, Arrays.asList(1, 2, 3, 4, 5)),
+            arguments(2, 5, Collections.emptyList()),
+            arguments(7, 2, Collections.emptyList())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("pages")
+    public void shouldSelectPage(int page, int perPage, List<Integer> expected) {
+        ListResult<Integer> result = ReflectiveQuery.<Integer>page(pagination(page, perPage)).apply(INTS);
+
+        assertThat(result.getItems()).isEqualTo(expected);
+        assertThat(result.getTotalCount()).isEqualTo(INTS.size());
+    }
+
+    @Test
+    public void shouldRejectPagesBeforeTheFirst() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> ReflectiveQuery.page(pagination(0, 1)))
+            .withMessage("Page number must be greater than 0");
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> ReflectiveQuery.page(pagination(-1, 1)))
+            .withMessage("Page number must be greater than 0");
+    }
+
+    @Test
+    public void shouldRejectEmptyPages() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> ReflectiveQuery.page(pagination(1, 0)))
+            .withMessage("Per page must be greater than 0");
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> ReflectiveQuery.page(pagination(1, -1)))
+            .withMessage("Per page must be greater than 0");
+    }
+
+    @Test
+    public void shouldFilterOnEquality() {
+        ListResult<TestPerson> result = query(Collections.singletonList(new FilterOptionsParser.Filter("birthYear", "=", "1901")), null, null)
+            .apply(getTestData());
+
+        assertThat(result.getItems()).extracting(TestPerson::getLastName).containsExactly("Heisenberg");
+        assertThat(result.getTotalCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRejectUnknownFilterOperations() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> query(Collections.singletonList(new FilterOptionsParser.Filter("lastName", "~", "Feynman")), null, null))
+            .withMessage("Unknown filter operation ~");
+    }
+
+    @Test
+    public void shouldRejectFiltersOnUnknownFields() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> query(Collections.singletonList(new FilterOptionsParser.Filter("blub", "=", "Feynman")), null, null))
+            .withMessage("Cannot find field blub in io.syndesis.server.endpoint.util.ReflectiveQueryTest$TestPerson as field");
+    }
+
+    @Test
+    public void stringSort() {
+        assertThat(query(Collections.emptyList(), "lastName", SortOptions.SortDirection.ASC).apply(getTestData()).getItems())
+            .extracting(TestPerson::getLastName)
+            .containsExactly("Feynman", "Heisenberg", "Maxwell", "Schrödinger");
+
+        assertThat(query(Collections.emptyList(), "lastName", SortOptions.SortDirection.DESC).apply(getTestData()).getItems())
+            .extracting(TestPerson::getLastName)
+            .containsExactly("Schrödinger", "Maxwell", "Heisenberg", "Feynman");
+    }
+
+    @Test
+    public void intSort() {
+        assertThat(query(Collections.emptyList(), "birthYear", SortOptions.SortDirection.ASC).apply(getTestData()).getItems())
+            .extracting(TestPerson::getLastName)
+            .containsExactly("Maxwell", "Schrödinger", "Heisenberg", "Feynman");
+    }
+
+    @Test
+    public void multipleFieldSort() {
+        List<TestPerson> people = Arrays.asList(
+            new TestPerson("Richard", "Feynman", 1918),
+            new TestPerson("Edward", "Feynman", 1901),
+            new TestPerson("Werner", "Heisenberg", 1901));
+
+        assertThat(query(Collections.emptyList(), "birthYear,lastName", SortOptions.SortDirection.ASC).apply(people).getItems())
+            .extracting(TestPerson::getFirstName)
+            .containsExactly("Edward", "Werner", "Richard");
+    }
+
+    @Test
+    public void invalidType() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> query(Collections.emptyList(), "blub", SortOptions.SortDirection.ASC))
+            .withMessage("Cannot find field blub in io.syndesis.server.endpoint.util.ReflectiveQueryTest$TestPerson as a sortable field");
+    }
+
+    @Test
+    public void noParams() {
+        ListResult<TestPerson> result = query(Collections.emptyList(), null, null).apply(getTestData());
+
+        assertThat(result.getItems())
+            .extracting(TestPerson::getLastName)
+            .containsExactly("Schrödinger", "Heisenberg", "Feynman", "Maxwell");
+        assertThat(result.getTotalCount()).isEqualTo(getTestData().size());
+    }
+
+    private static ListQuery<TestPerson> query(List<FilterOptionsParser.Filter> filters, String sortField, SortOptions.SortDirection direction) {
+        return ReflectiveQuery.create(TestPerson.class, filters, new SortOptions() {
+            @Override
+            public String getSortField() {
+                return sortField;
+            }
+
+            @Override
+            public SortDirection getSortDirection() {
+                return direction;
+            }
+        }, pagination(1, 20));
+    }
+
+    private static PaginationOptions pagination(int page, int perPage) {
+        return new PaginationOptions() {
+            @Override
+            public int getPage() {
+                return page;
+            }
+
+            @Override
+            public int getPerPage() {
+                return perPage;
+            }
+        };
+    }
+
+    private static List<TestPerson> getTestData() {
+        return Arrays.asList(
+            new TestPerson("Erwin", "Schrödinger", 1887),
+            new TestPerson("Werner", "Heisenberg", 1901),
+            new TestPerson("Richard", "Feynman", 1918),
+            new TestPerson("James Clerk", "Maxwell", 1831));
+    }
+
+    public static final class TestPerson {
+
+        private final String firstName;
+        private final String lastName;
+        private final int birthYear;
+
+        TestPerson(String firstName, String lastName, int birthYear) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.birthYear = birthYear;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public int getBirthYear() {
+            return birthYear;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.endpoint.v1.handler.activity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class ActivityHandlerTest {
+
+    private final ActivityTrackingService service = mock(ActivityTrackingService.class);
+
+    private final ActivityHandler handler = new ActivityHandler(Optional.of(service));
+
+    @Test
+    public void shouldRejectInvalidCursorBeforeStreaming() {
+        assertThatThrownBy(() -> handler.queryActivities("i-1", "not a cursor!", null, false, null, null, null, false))
+            .isInstanceOfSatisfying(WebApplicationException.class, e -> assertThat(e.getResponse().getStatus()).isEqualTo(400));
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    public void shouldRejectNonPositiveLimit() {
+        assertThatThrownBy(() -> handler.queryActivities("i-1", null, 0, false, null, null, null, false))
+            .isInstanceOfSatisfying(WebApplicationException.class, e -> assertThat(e.getResponse().getStatus()).isEqualTo(400));
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    public void shouldStreamActivitiesWithNextCursor() throws IOException {
+        final Activity activity = new Activity();
+        activity.setId("exchange-1");
+        when(service.getActivities(eq("i-1"), any(ActivityQuery.class), any())).thenAnswer(invocation -> {
+            invocation.<ActivityTrackingService.ActivityConsumer>getArgument(2).accept(activity);
+            return ActivityQuery.cursorOf("exchange-1");
+        });
+
+        final String next = ActivityQuery.cursorOf("exchange-1");
+        assertThat(new ActivityQuery().cursor(next).position()).isEqualTo("exchange-1");
+        assertThat(stream(handler.queryActivities("i-1", null, 1, false, null, null, null, false)))
+            .isEqualTo("{\"items\":[{\"id\":\"exchange-1\"}],\"next\":\"" + next + "\"}");
+    }
+
+    @Test
+    public void shouldNotCompleteTheDocumentOnFailure() throws IOException {
+        when(service.getActivities(eq("i-1"), any(ActivityQuery.class), any())).thenThrow(new IOException("database went away"));
+
+        final StreamingOutput output = handler.queryActivities("i-1", null, 1, false, null, null, null, false);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> output.write(out)).hasMessage("database went away");
+        assertThat(new String(out.toByteArray(), UTF_8)).isEqualTo("{\"items\":[");
+    }
+
+    private static String stream(StreamingOutput output) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return new String(out.toByteArray(), UTF_8);
+    }
+}
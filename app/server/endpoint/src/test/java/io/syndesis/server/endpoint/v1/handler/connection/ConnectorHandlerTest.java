@@ -22,7 +22,6 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.function.Function;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
@@ -31,6 +30,7 @@ import javax.ws.rs.core.Response;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.springframework.context.ApplicationContext;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
@@ -55,6 +55,7 @@ import io.syndesis.server.dao.file.IconDao;
 import io.syndesis.server.dao.file.SpecificationResourceDao;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.dao.manager.EncryptionComponent;
+import io.syndesis.server.dao.manager.ListQuery;
 import io.syndesis.server.endpoint.v1.state.ClientSideState;
 import io.syndesis.server.inspector.Inspectors;
 import io.syndesis.server.verifier.MetadataConfigurationProperties;
@@ -185,18 +186,8 @@ public class ConnectorHandlerTest {
             new Connector.Builder().id("4").connectorGroupId("4").build());
 
         // verify predicates in listApiConnectors()
-        when(dataManager.fetchAll(eq(Connector.class), any()))
-            .then(a -> {
-                ListResult<Connector> result = ListResult.complete(connectors);
-                final Object[] operators = a.getArguments();
-                for (int i = 1; i < operators.length; i++) {
-                    @SuppressWarnings("unchecked")
-                    Function<ListResult<Connector>, ListResult<Connector>> operator = (Function<ListResult<Connector>
-                        , ListResult<Connector>>) operators[i];
-                    result = operator.apply(result);
-                }
-                return result;
-            });
+        when(dataManager.fetchAll(eq(Connector.class), ArgumentMatchers.<ListQuery<Connector>>any()))
+            .then(a -> a.<ListQuery<Connector>>getArgument(1).apply(connectors));
 
         // no integrations, 0 usage for all connectors
         when(dataManager.fetchAll(Integration.class))
@@ -173,7 +173,7 @@ public class PublicApiHandlerTest {
             new Connector.Builder()
                 .putProperty("prop", new ConfigurationProperty.Builder().build())
                 .build());
-        when(dataManager.fetchAll(eq(Integration.class), any())).then((Answer<ListResult<Integration>>) invocation -> {
+        when(dataManager.fetchAll(eq(Integration.class), ArgumentMatchers.<Function<ListResult<Integration>, ListResult<Integration>>>any())).then((Answer<ListResult<Integration>>) invocation -> {
             final Object[] arguments = invocation.getArguments();
             ListResult<Integration> result = new ListResult.Builder<Integration>().addItem(integration).build();
             for (int i = 1; i < arguments.length; i++) {
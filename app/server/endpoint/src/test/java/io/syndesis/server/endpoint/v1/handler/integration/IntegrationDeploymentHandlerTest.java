@@ -20,7 +20,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 import javax.ws.rs.core.MultivaluedHashMap;
@@ -33,8 +32,7 @@ import io.syndesis.common.model.integration.Integration;
 import io.syndesis.common.model.integration.IntegrationDeployment;
 import io.syndesis.common.model.integration.IntegrationDeploymentState;
 import io.syndesis.server.dao.manager.DataManager;
-import io.syndesis.server.endpoint.util.PaginationFilter;
-import io.syndesis.server.endpoint.util.ReflectiveSorter;
+import io.syndesis.server.dao.manager.ListQuery;
 import io.syndesis.server.endpoint.v1.handler.integration.IntegrationDeploymentHandler.TargetStateRequest;
 import io.syndesis.server.endpoint.v1.handler.user.UserConfigurationProperties;
 import io.syndesis.server.openshift.OpenShiftService;
@@ -84,9 +82,8 @@ public class IntegrationDeploymentHandlerTest {
         final IntegrationDeployment deployment3 = deployment(3);
 
         @SuppressWarnings("unchecked")
-        final ArgumentCaptor<Function<ListResult<IntegrationDeployment>, ListResult<IntegrationDeployment>>> args = ArgumentCaptor
-            .forClass(Function.class);
-        when(dataManager.fetchAll(eq(IntegrationDeployment.class), args.capture()))
+        final ArgumentCaptor<ListQuery<IntegrationDeployment>> query = ArgumentCaptor.forClass(ListQuery.class);
+        when(dataManager.fetchAll(eq(IntegrationDeployment.class), query.capture()))
             .thenReturn(ListResult.complete(deployment1, deployment2, deployment3));
 
         final UriInfo uriInfo = mock(UriInfo.class);
@@ -96,15 +93,15 @@ public class IntegrationDeploymentHandlerTest {
 
         assertThat(results).containsExactly(deployment1, deployment2, deployment3);
 
-        final List<Function<ListResult<IntegrationDeployment>, ListResult<IntegrationDeployment>>> filters = args
-            .getAllValues();
-
-        assertThat(filters).hasSize(3);
-
-        assertThat(filters.get(0)).isInstanceOf(IntegrationIdFilter.class)
-            .satisfies(f -> assertThat(((IntegrationIdFilter) f).integrationId).isEqualTo(INTEGRATION_ID));
-        assertThat(filters.get(1)).isInstanceOf(ReflectiveSorter.class);
-        assertThat(filters.get(2)).isInstanceOf(PaginationFilter.class);
+        final ListQuery<IntegrationDeployment> listQuery = query.getValue();
+        assertThat(listQuery.filters()).hasSize(1);
+        assertThat(listQuery.filters().get(0).getProperty()).isEqualTo("integrationId");
+        assertThat(listQuery.filters().get(0).getValue()).isEqualTo(INTEGRATION_ID);
+        assertThat(listQuery.matches(deploymentOf(INTEGRATION_ID))).isTrue();
+        assertThat(listQuery.matches(deploymentOf("other-integration-id"))).isFalse();
+        assertThat(listQuery.sortProperty()).isNull();
+        assertThat(listQuery.offset()).isEqualTo(0);
+        assertThat(listQuery.limit()).isEqualTo(20);
     }
 
     @Test
@@ -177,6 +174,10 @@ public class IntegrationDeploymentHandlerTest {
         return new IntegrationDeployment.Builder().spec(new Integration.Builder().build()).version(version).build();
     }
 
+    private static IntegrationDeployment deploymentOf(final String integrationId) {
+        return new IntegrationDeployment.Builder().spec(new Integration.Builder().id(integrationId).build()).build();
+    }
+
     private static IntegrationDeployment unpublished(final int version) {
         return new IntegrationDeployment.Builder().createFrom(deployment(version))
             .targetState(IntegrationDeploymentState.Unpublished).build();
@@ -0,0 +1,435 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.filestore.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
+import org.skife.jdbi.v2.util.LongColumnMapper;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+
+import io.syndesis.server.dao.DaoException;
+
+/**
+ * Stores file contents split in fixed size chunks, each content is stored
+ * once no matter how many paths refer to it. Contents are identified by
+ * their SHA-256 hash. Reads fetch one chunk at a time, so no connection is
+ * held while the content is consumed.
+ */
+final class ChunkedStorage {
+
+    // chunks inserted in a single batch
+    private static final int BATCH_SIZE = 16;
+
+    // SQL state of unique constraint violations on PostgreSQL, H2 and Derby
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final DBI dbi;
+
+    private final int chunkSize;
+
+    private final ContentCache cache;
+
+    /**
+     * Row of the {@code filestore_files} table.
+     */
+    static final class StoredFile {
+        final String hash;
+        final long size;
+        final int chunkSize;
+
+        StoredFile(String hash, long size, int chunkSize) {
+            this.hash = hash;
+            this.size = size;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Content spooled to disk, with its hash computed while spooling.
+     */
+    static final class Spooled implements AutoCloseable {
+        final Path file;
+        final String hash;
+        final long size;
+
+        Spooled(Path file, String hash, long size) {
+            this.file = file;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    ChunkedStorage(DBI dbi, int chunkSize, ContentCache cache) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size needs to be positive, given: " + chunkSize);
+        }
+
+        this.dbi = dbi;
+        this.chunkSize = chunkSize;
+        this.cache = cache;
+    }
+
+    static void createTables(Handle h, SqlFileStore.DatabaseKind databaseKind) {
+        if (databaseKind == SqlFileStore.DatabaseKind.PostgreSQL) {
+            h.execute("CREATE TABLE filestore_files (path VARCHAR COLLATE \"C\" PRIMARY KEY, hash VARCHAR(64) NOT NULL, size BIGINT NOT NULL, chunk_size INT NOT NULL)");
+            h.execute("CREATE TABLE filestore_chunks (hash VARCHAR(64), seq INT, data BYTEA NOT NULL, PRIMARY KEY (hash, seq))");
+        } else if (databaseKind == SqlFileStore.DatabaseKind.H2) {
+            h.execute("CREATE TABLE filestore_files (path VARCHAR PRIMARY KEY, hash VARCHAR(64) NOT NULL, size BIGINT NOT NULL, chunk_size INT NOT NULL)");
+            h.execute("CREATE TABLE filestore_chunks (hash VARCHAR(64), seq INT, data BLOB NOT NULL, PRIMARY KEY (hash, seq))");
+        } else if (databaseKind == SqlFileStore.DatabaseKind.Apache_Derby) {
+            h.execute("CREATE TABLE filestore_files (path VARCHAR(1000), hash VARCHAR(64) NOT NULL, size BIGINT NOT NULL, chunk_size INT NOT NULL, PRIMARY KEY (path))");
+            h.execute("CREATE TABLE filestore_chunks (hash VARCHAR(64), seq INT, data BLOB NOT NULL, PRIMARY KEY (hash, seq))");
+        } else {
+            throw new DaoException("Unsupported database kind: " + databaseKind);
+        }
+        h.execute("CREATE INDEX filestore_files_hash ON filestore_files (hash)");
+    }
+
+    static void dropTables(Handle h) {
+        h.execute("DROP TABLE filestore_files");
+        h.execute("DROP TABLE filestore_chunks");
+    }
+
+    /**
+     * Copies the content to a local file computing its hash, before any
+     * database connection is taken.
+     */
+    Spooled spool(InputStream content) throws IOException {
+        final Path file = cache == null ? Files.createTempFile("filestore-", ".part") : cache.temporaryFile();
+        try {
+            final MessageDigest digest = sha256();
+            final long size;
+            try (DigestInputStream in = new DigestInputStream(content, digest); OutputStream out = Files.newOutputStream(file)) {
+                size = IOUtils.copyLarge(in, out);
+            }
+
+            return new Spooled(file, hex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Stores the spooled content under the given path, the content's chunks
+     * are inserted only if no other path refers to the same content. The
+     * first chunk of an existing content is locked until the transaction
+     * ends, so a concurrent {@link #collect(Handle, String)} cannot remove
+     * the chunks before the new path referring to them is committed. If a
+     * concurrent write inserts the same new content first this fails with a
+     * unique constraint violation, see {@link #isDuplicateContent(Throwable)}.
+     * Reused chunks keep the chunk size they were stored with, which may
+     * differ from the configured one.
+     */
+    void write(Handle h, String path, Spooled content) throws IOException {
+        final StoredFile previous = find(h, path);
+        if (previous != null) {
+            h.update("DELETE FROM filestore_files WHERE path=?", path);
+        }
+
+        Integer contentChunkSize = null;
+        if (lockContent(h, content.hash)) {
+            contentChunkSize = previous != null && previous.hash.equals(content.hash) ? Integer.valueOf(previous.chunkSize) : chunkSizeOf(h, content.hash);
+            if (contentChunkSize == null) {
+                // chunks no path refers to, store them again
+                h.update("DELETE FROM filestore_chunks WHERE hash=?", content.hash);
+            }
+        }
+
+        if (contentChunkSize == null) {
+            insertChunks(h, content);
+            contentChunkSize = chunkSize;
+        }
+
+        h.insert("INSERT INTO filestore_files(path, hash, size, chunk_size) VALUES (?,?,?,?)", path, content.hash, content.size, contentChunkSize);
+
+        if (previous != null && !previous.hash.equals(content.hash)) {
+            collect(h, previous.hash);
+        }
+    }
+
+    /**
+     * Moves the spooled content into the disk cache, if there is one, the
+     * next read of the content does not need to fetch it from the database.
+     */
+    void cache(Spooled content) throws IOException {
+        if (cache != null) {
+            cache.put(content.hash, content.file);
+        }
+    }
+
+    static StoredFile find(Handle h, String path) {
+        final List<Map<String, Object>> rows = h.select("SELECT hash, size, chunk_size FROM filestore_files WHERE path=?", path);
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        final Map<String, Object> row = rows.get(0);
+        return new StoredFile((String) row.get("hash"), ((Number) row.get("size")).longValue(), ((Number) row.get("chunk_size")).intValue());
+    }
+
+    static boolean exists(Handle h, String path) {
+        return h.createQuery("SELECT COUNT(*) FROM filestore_files WHERE path=?").bind(0, path).map(LongColumnMapper.PRIMITIVE).first() > 0;
+    }
+
+    static boolean move(Handle h, String fromPath, String toPath) {
+        return h.update("UPDATE filestore_files SET path=? WHERE path=?", toPath, fromPath) > 0;
+    }
+
+    static boolean delete(Handle h, String path) {
+        final String hash = hashOf(h, path);
+        if (hash == null) {
+            return false;
+        }
+
+        h.update("DELETE FROM filestore_files WHERE path=?", path);
+        collect(h, hash);
+
+        return true;
+    }
+
+    /**
+     * Opens the stored content starting at the given offset, served from the
+     * disk cache if there is one.
+     */
+    InputStream read(StoredFile file, long offset) throws IOException {
+        if (cache == null) {
+            return new ChunkInputStream(file, offset);
+        }
+
+        Path cached = cache.get(file.hash);
+        if (cached == null) {
+            cached = fill(file);
+        }
+
+        final InputStream in = Files.newInputStream(cached);
+        try {
+            IOUtils.skip(in, offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        return in;
+    }
+
+    private Path fill(StoredFile file) throws IOException {
+        final Path temporary = cache.temporaryFile();
+        try {
+            final MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(new ChunkInputStream(file, 0), digest); OutputStream out = Files.newOutputStream(temporary)) {
+                IOUtils.copyLarge(in, out);
+            }
+
+            if (!file.hash.equals(hex(digest.digest()))) {
+                throw new DaoException("Stored content does not match its hash " + file.hash);
+            }
+
+            return cache.put(file.hash, temporary);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void insertChunks(Handle h, Spooled content) throws IOException {
+        try (InputStream in = Files.newInputStream(content.file)) {
+            int seq = 0;
+            PreparedBatch batch = h.prepareBatch("INSERT INTO filestore_chunks(hash, seq, data) VALUES (?,?,?)");
+            while (true) {
+                final byte[] chunk = IOUtils.readFully(in, (int) Math.min(chunkSize, content.size - (long) seq * chunkSize));
+                batch.add(content.hash, seq, chunk);
+                seq++;
+
+                if ((long) seq * chunkSize >= content.size) {
+                    break;
+                }
+
+                if (batch.size() >= BATCH_SIZE) {
+                    batch.execute();
+                    batch = h.prepareBatch("INSERT INTO filestore_chunks(hash, seq, data) VALUES (?,?,?)");
+                }
+            }
+            batch.execute();
+        }
+    }
+
+    /**
+     * Tells if the write failed because a concurrent write inserted the
+     * chunks of the same content first, writing again reuses those chunks.
+     */
+    static boolean isDuplicateContent(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Locks the first chunk of the content until the end of the transaction,
+     * serializing writes referring to the content with its collection.
+     *
+     * @return {@code true} if the content is stored
+     */
+    private static boolean lockContent(Handle h, String hash) {
+        return !h.select("SELECT seq FROM filestore_chunks WHERE hash=? AND seq=0 FOR UPDATE", hash).isEmpty();
+    }
+
+    private static Integer chunkSizeOf(Handle h, String hash) {
+        return h.createQuery("SELECT chunk_size FROM filestore_files WHERE hash=?").bind(0, hash).map(IntegerColumnMapper.WRAPPER).first();
+    }
+
+    private static String hashOf(Handle h, String path) {
+        return h.createQuery("SELECT hash FROM filestore_files WHERE path=?").bind(0, path).map(StringColumnMapper.INSTANCE).first();
+    }
+
+    /**
+     * Removes the chunks of the content if no path refers to it anymore. The
+     * content is locked first, the check for referring paths runs after any
+     * concurrent write that locked the content has finished.
+     */
+    private static void collect(Handle h, String hash) {
+        if (lockContent(h, hash)) {
+            h.update("DELETE FROM filestore_chunks WHERE hash=? AND NOT EXISTS (SELECT 1 FROM filestore_files WHERE hash=?)", hash, hash);
+        }
+    }
+
+    private static byte[] bytes(ResultSet rs) throws SQLException {
+        try (InputStream data = rs.getBinaryStream(1)) {
+            return IOUtils.toByteArray(data);
+        } catch (IOException e) {
+            throw new SQLException("Unable to read chunk", e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by the JVM", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Reads the chunks of a content one by one, each with its own short lived
+     * handle.
+     */
+    final class ChunkInputStream extends InputStream {
+
+        private final StoredFile file;
+
+        private int seq;
+
+        private byte[] chunk = new byte[0];
+
+        private int position;
+
+        ChunkInputStream(StoredFile file, long offset) {
+            this.file = file;
+            this.seq = (int) (offset / file.chunkSize);
+            this.position = (int) (offset % file.chunkSize);
+            if (offset > 0 && offset < file.size) {
+                chunk = fetch(seq++);
+            } else if (offset >= file.size) {
+                seq = Integer.MAX_VALUE;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureAvailable()) {
+                return -1;
+            }
+
+            final int read = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return chunk.length - position;
+        }
+
+        private boolean ensureAvailable() {
+            while (position >= chunk.length) {
+                if ((long) seq * file.chunkSize >= file.size) {
+                    return false;
+                }
+                chunk = fetch(seq++);
+                position = 0;
+            }
+            return true;
+        }
+
+        private byte[] fetch(int index) {
+            final byte[] data = dbi.withHandle(h -> h.createQuery("SELECT data FROM filestore_chunks WHERE hash=? AND seq=?")
+                .bind(0, file.hash)
+                .bind(1, index)
+                .map((i, rs, ctx) -> bytes(rs))
+                .first());
+
+            if (data == null) {
+                throw new DaoException("Missing chunk " + index + " of content " + file.hash);
+            }
+
+            return data;
+        }
+    }
+}
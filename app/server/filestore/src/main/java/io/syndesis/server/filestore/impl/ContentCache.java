@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.filestore.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local disk cache of file contents keyed by their hash, the least recently
+ * used contents are evicted once the cache grows over its maximum size.
+ * Contents are immutable, so a cached file never needs to be invalidated.
+ */
+final class ContentCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentCache.class);
+
+    private static final String TEMPORARY_PREFIX = "tmp-";
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    // guarded by this, in access order
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // guarded by this
+    private long size;
+
+    ContentCache(Path directory, long maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+
+        final List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().startsWith(TEMPORARY_PREFIX)) {
+                    // left over from an interrupted write
+                    Files.deleteIfExists(file);
+                } else {
+                    existing.add(file);
+                }
+            }
+        }
+
+        existing.sort(Comparator.comparing(ContentCache::lastModified));
+        for (Path file : existing) {
+            add(file.getFileName().toString(), Files.size(file));
+        }
+    }
+
+    /**
+     * Creates a file in the cache directory to write new content to, so it
+     * can later be moved into the cache by {@link #put(String, Path)}.
+     */
+    Path temporaryFile() throws IOException {
+        return Files.createTempFile(directory, TEMPORARY_PREFIX, ".part");
+    }
+
+    /**
+     * Returns the cached content with the given hash or {@code null}.
+     */
+    synchronized Path get(String hash) {
+        final Long length = entries.get(hash);
+        if (length == null) {
+            return null;
+        }
+
+        final Path file = directory.resolve(hash);
+        if (!Files.exists(file)) {
+            entries.remove(hash);
+            size -= length;
+            return null;
+        }
+
+        return file;
+    }
+
+    /**
+     * Moves the file with the content of the given hash into the cache.
+     */
+    Path put(String hash, Path file) throws IOException {
+        final Path cached = directory.resolve(hash);
+        final long length = Files.size(file);
+        Files.move(file, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        final List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            add(hash, length);
+
+            final Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (size > maxSize && entries.size() > 1) {
+                final Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(hash)) {
+                    continue;
+                }
+                evicted.add(directory.resolve(entry.getKey()));
+                size -= entry.getValue();
+                eldest.remove();
+            }
+        }
+
+        // readers that have the file open can still read it after it is deleted
+        for (Path path : evicted) {
+            Files.deleteIfExists(path);
+        }
+
+        return cached;
+    }
+
+    private void add(String hash, long length) {
+        final Long previous = entries.put(hash, length);
+        if (previous != null) {
+            size -= previous;
+        }
+        size += length;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            LOG.debug("Unable to determine when {} was last modified", file, e);
+            return 0;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -37,6 +38,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.postgresql.PGConnection;
 import org.postgresql.largeobject.LargeObject;
 import org.postgresql.largeobject.LargeObjectManager;
@@ -48,6 +50,10 @@ import io.syndesis.server.dao.DaoException;
 
 /**
  * Implementation of a {@code ExtensionDataAccessObject} backed by a SQL database.
+ * Files are stored either as a single BLOB (large object on PostgreSQL) or,
+ * with the {@link Storage#CHUNKED} storage, as content addressed chunks with
+ * an optional local disk cache. Files written before switching to chunked
+ * storage remain readable.
  */
 @SuppressWarnings("PMD.GodClass")
 public class SqlFileStore {
@@ -56,6 +62,19 @@ public class SqlFileStore {
         PostgreSQL, H2, Apache_Derby
     }
 
+    public enum Storage {
+        /**
+         * One BLOB per file, a read holds a connection until the returned
+         * stream is closed.
+         */
+        BLOB,
+        /**
+         * Fixed size chunks stored once per distinct content, read one chunk
+         * at a time.
+         */
+        CHUNKED
+    }
+
     private static final DateTimeFormatter FILE_DATE_FORMAT =  new DateTimeFormatterBuilder()
         .appendValue(ChronoField.YEAR, 4)
         .appendLiteral('-')
@@ -72,13 +91,39 @@ public class SqlFileStore {
 
     private final DatabaseKind databaseKind;
 
+    private final ChunkedStorage chunked;
+
     public SqlFileStore(DBI dbi) {
+        this(dbi, Storage.BLOB, 0, null, 0);
+    }
+
+    /**
+     * @param chunkSize size in bytes of the chunks, used only by the chunked storage
+     * @param cacheDirectory directory of the local disk cache used by the
+     *        chunked storage, {@code null} for no cache
+     * @param cacheSize maximum size in bytes of the local disk cache
+     */
+    public SqlFileStore(DBI dbi, Storage storage, int chunkSize, Path cacheDirectory, long cacheSize) {
         this.dbi = dbi;
 
         this.databaseKind = dbi.inTransaction((h, s) -> {
             String dbName = h.getConnection().getMetaData().getDatabaseProductName();
             return DatabaseKind.valueOf(dbName.replace(" ", "_"));
         });
+
+        if (storage == Storage.CHUNKED) {
+            ContentCache cache = null;
+            if (cacheDirectory != null) {
+                try {
+                    cache = new ContentCache(cacheDirectory, cacheSize);
+                } catch (IOException ex) {
+                    throw new DaoException("Unable to create the file store cache in " + cacheDirectory, ex);
+                }
+            }
+            chunked = new ChunkedStorage(dbi, chunkSize, cache);
+        } else {
+            chunked = null;
+        }
     }
 
     public void init() {
@@ -101,6 +146,14 @@ public class SqlFileStore {
                 throw new DaoException("Unable to initialize the filestore", ex);
             }
         }
+
+        if (chunked != null && !dbi.inTransaction((h, s) -> tableExists(h, "filestore_files"))) {
+            try {
+                dbi.useHandle(h -> ChunkedStorage.createTables(h, databaseKind));
+            } catch (CallbackFailedException ex) {
+                throw new DaoException("Unable to initialize the chunked filestore", ex);
+            }
+        }
     }
 
     public void destroy() {
@@ -109,12 +162,25 @@ public class SqlFileStore {
         } catch (CallbackFailedException ignored) {
             // simply ignore
         }
+
+        if (chunked != null) {
+            try {
+                dbi.useHandle(ChunkedStorage::dropTables);
+            } catch (CallbackFailedException ignored) {
+                // simply ignore
+            }
+        }
     }
 
     public void write(String path, InputStream file) {
         FileStoreSupport.checkValidPath(path);
         Objects.requireNonNull(file, "file cannot be null");
 
+        if (chunked != null) {
+            writeChunked(path, file);
+            return;
+        }
+
         try {
             dbi.inTransaction((h, status) -> {
                 doWrite(h, path, file);
@@ -128,6 +194,12 @@ public class SqlFileStore {
     public String writeTemporaryFile(InputStream file) {
         Objects.requireNonNull(file, "file cannot be null");
 
+        if (chunked != null) {
+            final String path = newRandomTempFilePath();
+            writeChunked(path, file);
+            return path;
+        }
+
         try {
             return dbi.inTransaction((h, status) -> {
                 String path = newRandomTempFilePath();
@@ -143,6 +215,13 @@ public class SqlFileStore {
         FileStoreSupport.checkValidPath(path);
 
         try {
+            if (chunked != null) {
+                final ChunkedStorage.StoredFile stored = dbi.withHandle(h -> ChunkedStorage.find(h, path));
+                if (stored != null) {
+                    return chunked.read(stored, 0);
+                }
+            }
+
             if (databaseKind == DatabaseKind.PostgreSQL) {
                 return doReadPostgres(path);
             } else if (databaseKind == DatabaseKind.Apache_Derby) {
@@ -150,7 +229,44 @@ public class SqlFileStore {
             } else {
                 return dbi.inTransaction((h, status) -> doReadStandard(h, path));
             }
-        } catch (CallbackFailedException ex) {
+        } catch (CallbackFailedException | IOException ex) {
+            throw new DaoException("Unable to read data from path " + path, ex);
+        }
+    }
+
+    /**
+     * Reads at most {@code length} bytes of the file starting at the given
+     * offset, with the chunked storage only the chunks covering the range
+     * are fetched.
+     */
+    public InputStream read(String path, long offset, long length) {
+        FileStoreSupport.checkValidPath(path);
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative, given offset: " + offset + ", length: " + length);
+        }
+
+        try {
+            if (chunked != null) {
+                final ChunkedStorage.StoredFile stored = dbi.withHandle(h -> ChunkedStorage.find(h, path));
+                if (stored != null) {
+                    return new BoundedInputStream(chunked.read(stored, offset), length);
+                }
+            }
+
+            final InputStream file = read(path);
+            if (file == null) {
+                return null;
+            }
+
+            try {
+                IOUtils.skip(file, offset);
+            } catch (IOException ex) {
+                IOUtils.closeQuietly(file);
+                throw ex;
+            }
+
+            return new BoundedInputStream(file, length);
+        } catch (CallbackFailedException | IOException ex) {
             throw new DaoException("Unable to read data from path " + path, ex);
         }
     }
@@ -161,9 +277,18 @@ public class SqlFileStore {
 
         try {
             return dbi.inTransaction((h, status) -> {
+                if (chunked != null && ChunkedStorage.exists(h, fromPath)) {
+                    doDelete(h, toPath);
+                    ChunkedStorage.delete(h, toPath);
+                    return ChunkedStorage.move(h, fromPath, toPath);
+                }
+
                 boolean existed = h.select("SELECT 1 from filestore WHERE path=?", fromPath).size() > 0;
                 if (existed) {
                     doDelete(h, toPath);
+                    if (chunked != null) {
+                        ChunkedStorage.delete(h, toPath);
+                    }
                     h.update("UPDATE filestore SET path=? WHERE path=?", toPath, fromPath);
                 }
 
@@ -178,7 +303,13 @@ public class SqlFileStore {
         FileStoreSupport.checkValidPath(path);
 
         try {
-            return dbi.inTransaction((h, status) -> doDelete(h, path));
+            return dbi.inTransaction((h, status) -> {
+                final boolean deleted = doDelete(h, path);
+                if (chunked != null) {
+                    return ChunkedStorage.delete(h, path) || deleted;
+                }
+                return deleted;
+            });
         } catch (CallbackFailedException ex) {
             throw new DaoException("Unable to delete path " + path, ex);
         }
@@ -186,6 +317,38 @@ public class SqlFileStore {
 
     // ============================================================
 
+    /**
+     * The content is spooled to disk before the transaction is started, so
+     * the connection is not held while the upload is received, and identical
+     * content already stored is not inserted again.
+     */
+    private void writeChunked(String path, InputStream file) {
+        try (ChunkedStorage.Spooled spooled = chunked.spool(file)) {
+            try {
+                writeChunked(path, spooled);
+            } catch (CallbackFailedException ex) {
+                if (!ChunkedStorage.isDuplicateContent(ex)) {
+                    throw ex;
+                }
+                // a concurrent write stored the same content first, this
+                // time its chunks are found and reused
+                writeChunked(path, spooled);
+            }
+
+            chunked.cache(spooled);
+        } catch (CallbackFailedException | IOException ex) {
+            throw new DaoException("Unable to write on path " + path, ex);
+        }
+    }
+
+    private void writeChunked(String path, ChunkedStorage.Spooled spooled) {
+        dbi.inTransaction((h, status) -> {
+            doDelete(h, path);
+            chunked.write(h, path, spooled);
+            return true;
+        });
+    }
+
     private void doWrite(Handle h, String path, InputStream file) {
         if (databaseKind == DatabaseKind.PostgreSQL) {
             doWritePostgres(h, path, file);
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.filestore.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContentCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedContent() throws IOException {
+        final ContentCache cache = new ContentCache(directory, 10);
+
+        cache.put("a", content(cache, "aaaa"));
+        cache.put("b", content(cache, "bbbb"));
+        assertThat(cache.get("a")).isNotNull();
+
+        cache.put("c", content(cache, "cccc"));
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(directory.resolve("b")).doesNotExist();
+        assertThat(cache.get("a")).hasContent("aaaa");
+        assertThat(cache.get("c")).hasContent("cccc");
+    }
+
+    @Test
+    public void shouldKeepContentLargerThanTheCache() throws IOException {
+        final ContentCache cache = new ContentCache(directory, 2);
+
+        cache.put("a", content(cache, "aaaa"));
+        assertThat(cache.get("a")).hasContent("aaaa");
+
+        cache.put("b", content(cache, "bbbb"));
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).hasContent("bbbb");
+    }
+
+    @Test
+    public void shouldPickUpExistingContentAndRemoveTemporaryFiles() throws IOException {
+        final ContentCache previous = new ContentCache(directory, 10);
+        previous.put("a", content(previous, "aaaa"));
+        final Path leftOver = previous.temporaryFile();
+
+        final ContentCache cache = new ContentCache(directory, 10);
+
+        assertThat(leftOver).doesNotExist();
+        assertThat(cache.get("a")).hasContent("aaaa");
+
+        cache.put("b", content(cache, "bbbb"));
+        cache.put("c", content(cache, "cccc"));
+        assertThat(cache.get("a")).isNull();
+    }
+
+    private static Path content(ContentCache cache, String content) throws IOException {
+        return Files.write(cache.temporaryFile(), content.getBytes(UTF_8));
+    }
+}
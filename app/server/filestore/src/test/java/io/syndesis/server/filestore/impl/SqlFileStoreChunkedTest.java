@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.filestore.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.util.LongColumnMapper;
+
+import io.syndesis.server.dao.DaoException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SqlFileStoreChunkedTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    private DBI dbi;
+
+    private SqlFileStore store;
+
+    @BeforeEach
+    public void createStore() {
+        final JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dbi = new DBI(ds);
+
+        store = new SqlFileStore(dbi, SqlFileStore.Storage.CHUNKED, CHUNK_SIZE, null, 0);
+        store.init();
+    }
+
+    @Test
+    public void shouldReadWhatWasWritten() throws IOException {
+        store.write("/empty", stream(""));
+        store.write("/exact", stream("01234567"));
+        store.write("/partial", stream("0123456789"));
+
+        assertThat(read(store.read("/empty"))).isEmpty();
+        assertThat(read(store.read("/exact"))).isEqualTo("01234567");
+        assertThat(read(store.read("/partial"))).isEqualTo("0123456789");
+
+        assertThat(chunksOf("01234567")).isEqualTo(2);
+        assertThat(chunksOf("0123456789")).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldReadRanges() throws IOException {
+        store.write("/file", stream("0123456789"));
+
+        assertThat(read(store.read("/file", 0, 3))).isEqualTo("012");
+        assertThat(read(store.read("/file", 5, 4))).isEqualTo("5678");
+        assertThat(read(store.read("/file", 6, 100))).isEqualTo("6789");
+        assertThat(read(store.read("/file", 10, 5))).isEmpty();
+        assertThat(read(store.read("/file", 20, 5))).isEmpty();
+    }
+
+    @Test
+    public void shouldShareChunksOfIdenticalContent() throws IOException {
+        store.write("/a", stream("0123456789"));
+        store.write("/b", stream("0123456789"));
+
+        assertThat(chunks()).isEqualTo(3);
+        assertThat(read(store.read("/a"))).isEqualTo("0123456789");
+        assertThat(read(store.read("/b"))).isEqualTo("0123456789");
+
+        assertThat(store.delete("/a")).isTrue();
+        assertThat(chunks()).isEqualTo(3);
+        assertThat(read(store.read("/b"))).isEqualTo("0123456789");
+
+        assertThat(store.delete("/b")).isTrue();
+        assertThat(chunks()).isZero();
+    }
+
+    @Test
+    public void shouldReadContentStoredWithAnotherChunkSize() throws IOException {
+        store.write("/a", stream("0123456789"));
+
+        final SqlFileStore resized = new SqlFileStore(dbi, SqlFileStore.Storage.CHUNKED, 3, null, 0);
+        resized.write("/b", stream("0123456789"));
+        resized.write("/c", stream("abcdefg"));
+        resized.write("/a", stream("0123456789"));
+
+        assertThat(chunksOf("0123456789")).isEqualTo(3);
+        assertThat(chunksOf("abcdefg")).isEqualTo(3);
+
+        for (SqlFileStore reading : Arrays.asList(store, resized)) {
+            assertThat(read(reading.read("/a"))).isEqualTo("0123456789");
+            assertThat(read(reading.read("/b"))).isEqualTo("0123456789");
+            assertThat(read(reading.read("/b", 5, 4))).isEqualTo("5678");
+            assertThat(read(reading.read("/c"))).isEqualTo("abcdefg");
+            assertThat(read(reading.read("/c", 4, 2))).isEqualTo("ef");
+        }
+
+        store.write("/d", stream("abcdefg"));
+        assertThat(read(store.read("/d", 3, 4))).isEqualTo("defg");
+    }
+
+    @Test
+    public void shouldCollectChunksOfOverwrittenAndDeletedContent() throws IOException {
+        store.write("/file", stream("0123456789"));
+        store.write("/file", stream("abcdef"));
+
+        assertThat(chunksOf("0123456789")).isZero();
+        assertThat(chunksOf("abcdef")).isEqualTo(2);
+        assertThat(chunks()).isEqualTo(2);
+        assertThat(read(store.read("/file"))).isEqualTo("abcdef");
+
+        assertThat(store.delete("/file")).isTrue();
+        assertThat(chunks()).isZero();
+        assertThat(store.read("/file")).isNull();
+        assertThat(store.delete("/file")).isFalse();
+    }
+
+    @Test
+    public void shouldFillCacheFromChunks(@TempDir Path cacheDirectory) throws IOException {
+        store.write("/file", stream("0123456789"));
+
+        final SqlFileStore cached = new SqlFileStore(dbi, SqlFileStore.Storage.CHUNKED, CHUNK_SIZE, cacheDirectory, 1024);
+
+        assertThat(read(cached.read("/file"))).isEqualTo("0123456789");
+        assertThat(read(cached.read("/file", 2, 3))).isEqualTo("234");
+        assertThat(cacheDirectory.resolve(hash("0123456789"))).hasContent("0123456789");
+    }
+
+    @Test
+    public void shouldNotCacheContentNotMatchingItsHash(@TempDir Path cacheDirectory) throws IOException {
+        store.write("/file", stream("0123456789"));
+        dbi.useHandle(h -> h.update("UPDATE filestore_chunks SET data=? WHERE seq=1", "xxxx".getBytes(UTF_8)));
+
+        final SqlFileStore cached = new SqlFileStore(dbi, SqlFileStore.Storage.CHUNKED, CHUNK_SIZE, cacheDirectory, 1024);
+
+        assertThatThrownBy(() -> cached.read("/file"))
+            .isInstanceOf(DaoException.class)
+            .hasMessageContaining("does not match its hash");
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private long chunks() {
+        return dbi.withHandle(h -> h.createQuery("SELECT COUNT(*) FROM filestore_chunks").map(LongColumnMapper.PRIMITIVE).first());
+    }
+
+    private long chunksOf(String content) {
+        final String hash = hash(content);
+        return dbi.withHandle(h -> h.createQuery("SELECT COUNT(*) FROM filestore_chunks WHERE hash=?").bind(0, hash).map(LongColumnMapper.PRIMITIVE).first());
+    }
+
+    private static String hash(String content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(UTF_8));
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream content = in) {
+            return IOUtils.toString(content, UTF_8);
+        }
+    }
+}
@@ -181,4 +181,51 @@ public interface JsonDB {
 
     String push(String path, InputStream body);
 
+    ///////////////////////////////////////////////////////////////////
+    //
+    // Bulk writes
+    //
+    ///////////////////////////////////////////////////////////////////
+
+    /**
+     * Collects the operations of a {@link JsonDB#batch(Consumer)}.
+     */
+    interface Batch {
+
+        Batch set(String path, byte[] json);
+
+        Batch update(String path, byte[] json);
+
+        Batch delete(String path);
+
+    }
+
+    /**
+     * Applies the operations added to the batch. Implementations apply them
+     * in a single transaction, executing the statements in JDBC batches, and
+     * emit one change event per changed path once the transaction is
+     * committed. The default implementation applies each operation on its
+     * own.
+     */
+    default void batch(Consumer<Batch> operations) {
+        operations.accept(new Batch() {
+            @Override
+            public Batch set(String path, byte[] json) {
+                JsonDB.this.set(path, json);
+                return this;
+            }
+
+            @Override
+            public Batch update(String path, byte[] json) {
+                JsonDB.this.update(path, json);
+                return this;
+            }
+
+            @Override
+            public Batch delete(String path) {
+                JsonDB.this.delete(path);
+                return this;
+            }
+        });
+    }
 }
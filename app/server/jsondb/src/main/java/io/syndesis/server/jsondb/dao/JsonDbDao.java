@@ -16,10 +16,15 @@
 package io.syndesis.server.jsondb.dao;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -32,9 +37,13 @@ import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.WithId;
 import io.syndesis.common.model.connection.Connection;
 import io.syndesis.common.model.extension.Extension;
+import io.syndesis.common.model.validation.UniqueProperty;
+import io.syndesis.common.util.IndexedProperty;
 import io.syndesis.common.util.SyndesisServerException;
 import io.syndesis.common.util.json.JsonUtils;
 import io.syndesis.server.dao.manager.DataAccessObject;
+import io.syndesis.server.dao.manager.ListQuery;
+import io.syndesis.server.dao.manager.PreparedWrite;
 import io.syndesis.server.dao.manager.operators.IdPrefixFilter;
 import io.syndesis.server.jsondb.GetOptions;
 import io.syndesis.server.jsondb.JsonDB;
@@ -44,8 +53,16 @@ import io.syndesis.server.jsondb.JsonDB;
  */
 public abstract class JsonDbDao<T extends WithId<T>> implements DataAccessObject<T> {
 
+    /**
+     * Above this many matching entities it's cheaper to read the whole
+     * collection than to fetch each entity by id.
+     */
+    private static final int FETCH_BY_ID_LIMIT = 50;
+
     private final ObjectReader reader;
 
+    private volatile Set<String> indexedProperties;
+
     private final JsonDB jsondb;
 
     public JsonDbDao(JsonDB jsondb) {
@@ -130,6 +147,117 @@ public abstract class JsonDbDao<T extends WithId<T>> implements DataAccessObject
         }
     }
 
+    /**
+     * Filters on indexed properties are resolved to ids using the JsonDB
+     * indexes, if those are the only filters and the query is not sorted,
+     * i.e. in id order, only the entities on the requested page are fetched.
+     * In that case the total count is the number of ids from the index that
+     * are still present in the collection, read with {@link #fetchIds()}
+     * which only reads the ids and not the entities. Otherwise the candidate
+     * entities are fetched and the remaining query is evaluated in memory.
+     * Queries without a filter on an indexed property, or with more than
+     * {@value #FETCH_BY_ID_LIMIT} candidates, fall back to reading the whole
+     * collection with {@link #fetchAll(Function[])}.
+     * <p>
+     * Sorting is never pushed down: JsonDB has no means to order the entities
+     * of a collection by a property, so a sorted query is always evaluated in
+     * memory over all candidate entities. For a sorted query without a filter
+     * on an indexed property this reads and sorts the whole collection, just
+     * as listing did before, only the key extraction and the partial sort of
+     * {@link ListQuery#apply(Collection)} make it cheaper.
+     */
+    @Override
+    public ListResult<T> fetchAll(ListQuery<T> query) {
+        Set<String> ids = null;
+        boolean allFiltersIndexed = true;
+        for (ListQuery.PropertyFilter<T> filter : query.filters()) {
+            if (!indexedProperties().contains(filter.getProperty())) {
+                allFiltersIndexed = false;
+                continue;
+            }
+
+            Set<String> matching = fetchIdsByPropertyValue(filter.getProperty(), filter.getValue());
+            if (ids == null) {
+                ids = new HashSet<>(matching);
+            } else {
+                ids.retainAll(matching);
+            }
+        }
+
+        if (ids == null) {
+            return query.apply(fetchAll().getItems());
+        }
+
+        if (allFiltersIndexed && query.predicates().isEmpty() && query.sortProperty() == null) {
+            // the index can hold ids of deleted entities, count only the
+            // ones still present
+            ids.retainAll(fetchIds());
+            List<String> sortedIds = new ArrayList<>(new TreeSet<>(ids));
+
+            List<T> page = new ArrayList<>();
+            int missing = 0;
+            for (String id : query.page(sortedIds)) {
+                T entity = fetch(id);
+                if (entity == null) {
+                    // deleted since the ids were read
+                    missing++;
+                } else {
+                    page.add(entity);
+                }
+            }
+            return ListResult.partial(sortedIds.size() - missing, page);
+        }
+
+        if (ids.size() > FETCH_BY_ID_LIMIT) {
+            return query.apply(fetchAll().getItems());
+        }
+
+        List<T> candidates = new ArrayList<>(ids.size());
+        for (String id : new TreeSet<>(ids)) {
+            T entity = fetch(id);
+            if (entity != null) {
+                candidates.add(entity);
+            }
+        }
+        return query.apply(candidates);
+    }
+
+    /**
+     * Properties of the entity type that are indexed in JsonDB.
+     */
+    protected Set<String> indexedProperties() {
+        if (indexedProperties == null) {
+            Set<String> properties = new HashSet<>();
+            Class<T> type = getType();
+
+            UniqueProperty unique = type.getAnnotation(UniqueProperty.class);
+            if (unique != null) {
+                properties.add(unique.value());
+            }
+            UniqueProperty.Multiple uniques = type.getAnnotation(UniqueProperty.Multiple.class);
+            if (uniques != null) {
+                for (UniqueProperty p : uniques.value()) {
+                    properties.add(p.value());
+                }
+            }
+
+            IndexedProperty indexed = type.getAnnotation(IndexedProperty.class);
+            if (indexed != null) {
+                properties.add(indexed.value());
+            }
+            IndexedProperty.Multiple indexes = type.getAnnotation(IndexedProperty.Multiple.class);
+            if (indexes != null) {
+                for (IndexedProperty p : indexes.value()) {
+                    properties.add(p.value());
+                }
+            }
+
+            indexedProperties = properties;
+        }
+
+        return indexedProperties;
+    }
+
     @Override
     public Set<String> fetchIds() {
         try {
@@ -204,6 +332,32 @@ public abstract class JsonDbDao<T extends WithId<T>> implements DataAccessObject
         }
     }
 
+    /**
+     * Sets all entities with a single {@link JsonDB#batch(java.util.function.Consumer)}.
+     */
+    @Override
+    public void setAll(Collection<T> entities) {
+        prepareSetAll(entities).apply();
+    }
+
+    /**
+     * Prepares setting all entities, applied together with the writes
+     * prepared by other {@link JsonDbDao}s on the same {@link JsonDB} in a
+     * single {@link JsonDB#batch(java.util.function.Consumer)}.
+     */
+    @Override
+    public PreparedWrite prepareSetAll(Collection<T> entities) {
+        try {
+            Map<String, byte[]> values = new LinkedHashMap<>();
+            for (T entity : entities) {
+                values.put(getCollectionPath()+"/:"+entity.getId().get(), JsonUtils.writer().writeValueAsBytes(entity));
+            }
+            return new BatchWrite(jsondb, values);
+        } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") RuntimeException|IOException e) {
+            throw SyndesisServerException.launderThrowable(e);
+        }
+    }
+
     @Override
     public boolean delete(WithId<T> entity) {
         return this.delete(entity.getId().get());
@@ -231,4 +385,41 @@ public abstract class JsonDbDao<T extends WithId<T>> implements DataAccessObject
             throw SyndesisServerException.launderThrowable(e);
         }
     }
+
+    private static final class BatchWrite implements PreparedWrite {
+        private final JsonDB jsondb;
+        private final Map<String, byte[]> values;
+
+        BatchWrite(JsonDB jsondb, Map<String, byte[]> values) {
+            this.jsondb = jsondb;
+            this.values = values;
+        }
+
+        @Override
+        public void apply() {
+            applyWith(Collections.emptyList());
+        }
+
+        @Override
+        public void applyWith(List<PreparedWrite> others) {
+            for (PreparedWrite other : others) {
+                if (!(other instanceof BatchWrite) || ((BatchWrite) other).jsondb != jsondb) {
+                    // not on the same JsonDB, can't share the batch
+                    PreparedWrite.super.applyWith(others);
+                    return;
+                }
+            }
+
+            try {
+                jsondb.batch(batch -> {
+                    values.forEach(batch::set);
+                    for (PreparedWrite other : others) {
+                        ((BatchWrite) other).values.forEach(batch::set);
+                    }
+                });
+            } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") RuntimeException e) {
+                throw SyndesisServerException.launderThrowable(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,843 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.jsondb.impl;
+
+import static io.syndesis.server.jsondb.impl.JsonRecordSupport.STRING_VALUE_PREFIX;
+import static io.syndesis.server.jsondb.impl.JsonRecordSupport.validateKey;
+import static io.syndesis.server.jsondb.impl.Strings.prefix;
+import static io.syndesis.server.jsondb.impl.Strings.trimSuffix;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.Query;
+import org.skife.jdbi.v2.ResultIterator;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.syndesis.common.util.EventBus;
+import io.syndesis.server.jsondb.GetOptions;
+import io.syndesis.server.jsondb.JsonDBException;
+import io.syndesis.server.jsondb.impl.expr.SqlExpressionBuilder;
+
+/**
+ * Implements the JsonDB via DBI/JDBC storing every entry of the configured
+ * document collections (like {@code /integrations}) as a single JSON document
+ * record, JSONB on PostgreSQL and CLOB on other databases. Values of the
+ * declared {@link Index}es are kept in a side table so property lookups don't
+ * need to parse the documents. A side table rather than generated columns, as
+ * those need PostgreSQL 12 and have no counterpart for CLOB documents, while
+ * the side table has the same layout as the {@code jsondb} table so filters
+ * are built by the same {@link SqlExpressionBuilder}. All other paths are
+ * stored one record per value as in {@link SqlJsonDB}.
+ */
+@SuppressWarnings({"PMD.GodClass", "PMD.CyclomaticComplexity", "PMD.ModifiedCyclomaticComplexity", "PMD.StdCyclomaticComplexity", "PMD.TooManyMethods"})
+public class DocumentSqlJsonDB extends SqlJsonDB {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentSqlJsonDB.class);
+
+    private static final Comparator<JsonRecord> BY_PATH = Comparator.comparing(JsonRecord::getPath);
+
+    private final Set<String> documentCollections;
+
+    public DocumentSqlJsonDB(DBI dbi, EventBus bus, Collection<Index> indexes, Collection<String> documentCollections) {
+        super(dbi, bus, indexes);
+        this.documentCollections = documentCollections.stream()
+            .map(c -> trimSuffix(prefix(c, "/"), "/").substring(1))
+            .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    @Override
+    public void createTables() {
+        withTransaction(dbi -> {
+            if (isJsonbSupported()) {
+                dbi.update("CREATE TABLE IF NOT EXISTS jsondb_doc (path VARCHAR COLLATE \"C\" PRIMARY KEY, document JSONB)");
+                dbi.update("CREATE TABLE IF NOT EXISTS jsondb_doc_idx (path VARCHAR COLLATE \"C\" PRIMARY KEY, idx VARCHAR COLLATE \"C\", value VARCHAR)");
+            } else {
+                dbi.update("CREATE TABLE IF NOT EXISTS jsondb_doc (path VARCHAR PRIMARY KEY, document CLOB)");
+                dbi.update("CREATE TABLE IF NOT EXISTS jsondb_doc_idx (path VARCHAR PRIMARY KEY, idx VARCHAR, value VARCHAR)");
+            }
+            dbi.update("CREATE INDEX IF NOT EXISTS jsondb_doc_idx_idx ON jsondb_doc_idx (idx, value)");
+        });
+        super.createTables();
+    }
+
+    @Override
+    public void dropTables() {
+        withTransaction(dbi -> {
+            dbi.update("DROP TABLE IF EXISTS jsondb_doc_idx");
+            dbi.update("DROP TABLE IF EXISTS jsondb_doc");
+        });
+        super.dropTables();
+    }
+
+    /**
+     * Moves the entries of the document collections still stored one record per
+     * value in the {@code jsondb} table into the document table. Safe to run
+     * repeatedly, collections without records in the {@code jsondb} table are
+     * left untouched. A value stored directly on the collection path is not
+     * an entry and stays in the {@code jsondb} table.
+     */
+    public void migrateToDocuments() {
+        for (String collection : documentCollections) {
+            String collectionPath = "/" + collection + "/";
+            int[] migrated = new int[1];
+            boolean[] kept = new boolean[1];
+            withTransaction(dbi -> {
+                List<JsonRecord> records = new ArrayList<>();
+                String currentDocumentPath = null;
+
+                try (ResultIterator<JsonRecord> iterator = dbi.createQuery("SELECT path,value,ovalue FROM jsondb WHERE path LIKE :like ORDER BY path")
+                    .bind("like", collectionPath + "%")
+                    .map(JsonRecordMapper.INSTANCE)
+                    .iterator()) {
+
+                    while (iterator.hasNext()) {
+                        JsonRecord record = iterator.next();
+                        String documentPath = documentPath(record.getPath());
+                        if (documentPath == null) {
+                            // a value stored directly on the collection path, not an entry
+                            kept[0] = true;
+                            continue;
+                        }
+
+                        if (!documentPath.equals(currentDocumentPath)) {
+                            if (currentDocumentPath != null) {
+                                writeDocument(dbi, currentDocumentPath, records);
+                                migrated[0]++;
+                            }
+                            records.clear();
+                            currentDocumentPath = documentPath;
+                        }
+                        records.add(record);
+                    }
+                }
+
+                if (currentDocumentPath != null) {
+                    writeDocument(dbi, currentDocumentPath, records);
+                    migrated[0]++;
+                }
+
+                dbi.update("DELETE FROM jsondb WHERE path LIKE ? AND path <> ?", collectionPath + "%", collectionPath);
+            });
+
+            if (migrated[0] > 0) {
+                LOG.info("Migrated {} entries of {} to document storage", migrated[0], collectionPath);
+            }
+            if (kept[0]) {
+                LOG.warn("Value stored directly on {} is not an entry, kept it in the jsondb table", collectionPath);
+            }
+        }
+    }
+
+    @Override
+    public Consumer<OutputStream> getAsStreamingOutput(String path, GetOptions options) {
+        String baseDBPath = JsonRecordSupport.convertToDBPath(path);
+        boolean root = depth(baseDBPath) == 0;
+        if (!root && !isDocumentPath(baseDBPath)) {
+            return super.getAsStreamingOutput(path, options);
+        }
+
+        GetOptions o;
+        if (options != null) {
+            o = options;
+        } else {
+            o = new GetOptions();
+        }
+        Comparator<JsonRecord> order = o.order() == GetOptions.Order.DESC ? BY_PATH.reversed() : BY_PATH;
+
+        Consumer<OutputStream> result = null;
+        final Handle h = dbi.open();
+        ResultIterator<JsonRecord> records = null;
+        try {
+            DocumentRecordIterator documents = queryDocumentRecords(h, baseDBPath, o, order);
+            Iterator<JsonRecord> iterator = documents;
+            if (root) {
+                records = queryRecords(h, baseDBPath, o);
+                iterator = new MergingIterator(records, documents, order);
+            }
+
+            // At this point we know if we can produce results..
+            if (iterator.hasNext()) {
+                final Iterator<JsonRecord> merged = iterator;
+                final ResultIterator<JsonRecord> toClose = records;
+                result = output -> {
+                    try (JsonRecordConsumer toJson = new JsonRecordConsumer(baseDBPath, output, o)) {
+                        while ( !toJson.isClosed() && merged.hasNext() ) {
+                            toJson.accept(merged.next());
+                        }
+                    } catch (IOException e) {
+                        throw new JsonDBException(e);
+                    } finally {
+                        documents.close();
+                        if (toClose != null) {
+                            toClose.close();
+                        }
+                        h.close();
+                    }
+                };
+            } else {
+                documents.close();
+            }
+        } finally {
+            // if we are producing results, then defer closing the handle
+            if (result == null) {
+                if (records != null) {
+                    records.close();
+                }
+                h.close();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void set(Handle dbi, BatchManager mb, String baseDBPath, JsonParser jp) throws IOException {
+        int depth = depth(baseDBPath);
+        if (depth == 0) {
+            setRoot(dbi, mb, jp);
+        } else if (!isDocumentPath(baseDBPath)) {
+            super.set(dbi, mb, baseDBPath, jp);
+        } else if (depth == 1) {
+            deleteJsonRecords(dbi, baseDBPath, baseDBPath + "%");
+            Map<String, Document> existing;
+            if (getWriteMode() == WriteMode.DIFF) {
+                existing = loadDocuments(dbi, baseDBPath + "%");
+            } else {
+                deleteDocuments(dbi, baseDBPath + "%");
+                existing = new HashMap<>();
+            }
+            setCollection(dbi, baseDBPath, jp, existing);
+            deleteDocuments(dbi, existing.keySet());
+        } else {
+            String documentPath = documentPath(baseDBPath);
+            boolean diff = getWriteMode() == WriteMode.DIFF;
+            List<JsonRecord> existing = depth == 2 && !diff ? new ArrayList<>() : loadRecords(dbi, documentPath);
+
+            List<JsonRecord> records = new ArrayList<>(existing);
+            Set<String> parentPaths = new HashSet<>(getAllParentPaths(baseDBPath));
+            records.removeIf(r -> r.getPath().startsWith(baseDBPath) || parentPaths.contains(r.getPath()));
+            JsonRecordSupport.jsonStreamToRecords(getIndexPaths(), jp, baseDBPath, records::add);
+
+            if (diff) {
+                mergeDocument(dbi, documentPath, existing, records);
+            } else {
+                writeDocument(dbi, documentPath, records);
+            }
+        }
+    }
+
+    private void setRoot(Handle dbi, BatchManager mb, JsonParser jp) throws IOException {
+        boolean diff = getWriteMode() == WriteMode.DIFF;
+        Map<String, JsonRecord> existingRecords;
+        Map<String, Document> existingDocuments;
+        if (diff) {
+            existingRecords = mb.loadRecordsForDiff("/");
+            existingDocuments = loadDocuments(dbi, "/%");
+        } else {
+            deleteDocuments(dbi, "/%");
+            mb.deleteRecordsForSet("/");
+            existingRecords = new HashMap<>();
+            existingDocuments = new HashMap<>();
+        }
+
+        JsonToken token = jp.nextToken();
+        if (token != JsonToken.VALUE_NULL) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(jp, "Expected a json object");
+            }
+
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                String collectionPath = "/" + validateKey(jp.getCurrentName()) + "/";
+                if (isDocumentPath(collectionPath)) {
+                    setCollection(dbi, collectionPath, jp, existingDocuments);
+                } else if (diff) {
+                    JsonRecordSupport.jsonStreamToRecords(getIndexPaths(), jp, collectionPath, mb.createDiffConsumer(existingRecords));
+                } else {
+                    super.set(dbi, mb, collectionPath, jp);
+                }
+            }
+        }
+
+        mb.deleteRecords(existingRecords.keySet());
+        deleteDocuments(dbi, existingDocuments.keySet());
+    }
+
+    /**
+     * Stores the entries of the collection as documents, the documents already
+     * stored are taken from {@code existing} and merged with the new entries,
+     * leaving the ones that were not replaced in the map.
+     */
+    private void setCollection(Handle dbi, String collectionPath, JsonParser jp, Map<String, Document> existing) throws IOException {
+        JsonToken token = jp.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(jp, "Document collection " + collectionPath + " can only hold a json object");
+        }
+
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String documentPath = collectionPath + validateKey(jp.getCurrentName()) + "/";
+            List<JsonRecord> records = new ArrayList<>();
+            JsonRecordSupport.jsonStreamToRecords(getIndexPaths(), jp, documentPath, records::add);
+
+            Document current = existing.remove(documentPath);
+            if (current == null) {
+                writeDocument(dbi, documentPath, records);
+            } else {
+                mergeDocument(dbi, documentPath, current.toRecords(Collections.emptySet()), records);
+            }
+        }
+    }
+
+    @Override
+    protected boolean delete(Handle dbi, String baseDBPath) {
+        int depth = depth(baseDBPath);
+        if (depth != 0 && !isDocumentPath(baseDBPath)) {
+            return super.delete(dbi, baseDBPath);
+        }
+
+        String like = baseDBPath + "%";
+        if (depth <= 1) {
+            boolean deleted = deleteDocuments(dbi, like) > 0;
+            return deleteJsonRecords(dbi, baseDBPath, like) > 0 || deleted;
+        } else if (depth == 2) {
+            return deleteDocument(dbi, baseDBPath) > 0;
+        }
+
+        String documentPath = documentPath(baseDBPath);
+        List<JsonRecord> records = loadRecords(dbi, documentPath);
+        if (records.removeIf(r -> r.getPath().startsWith(baseDBPath))) {
+            writeDocument(dbi, documentPath, records);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean exists(String path) {
+        String baseDBPath = JsonRecordSupport.convertToDBPath(path);
+        int depth = depth(baseDBPath);
+        if (depth != 0 && !isDocumentPath(baseDBPath)) {
+            return super.exists(path);
+        }
+
+        boolean[] rc = new boolean[]{false};
+        withTransaction(dbi -> {
+            if (depth <= 2) {
+                rc[0] = dbi.createQuery("SELECT COUNT(*) FROM jsondb_doc WHERE path LIKE ?")
+                    .bind(0, baseDBPath + "%")
+                    .map(IntegerColumnMapper.PRIMITIVE).first() > 0;
+            } else {
+                rc[0] = loadRecords(dbi, documentPath(baseDBPath)).stream()
+                    .anyMatch(r -> r.getPath().startsWith(baseDBPath));
+            }
+        });
+        return rc[0] || depth <= 1 && super.exists(path);
+    }
+
+    @Override
+    public Set<String> fetchIdsByPropertyValue(final String collectionPath, final String property, final String value) {
+        String path = prefix(trimSuffix(collectionPath, "/"), "/");
+        if (!isDocumentPath(path + "/")) {
+            return super.fetchIdsByPropertyValue(collectionPath, property, value);
+        }
+
+        String suffix = "/" + property + "/";
+        String idx = path + "/#" + property;
+        final AtomicReference<Set<String>> ret = new AtomicReference<>();
+        if (getIndexPaths().contains(idx)) {
+            withTransaction(dbi -> {
+                final List<String> paths = dbi.createQuery("SELECT path FROM jsondb_doc_idx WHERE idx = ? AND value = ?")
+                    .bind(0, idx)
+                    .bind(1, STRING_VALUE_PREFIX + value)
+                    .map(StringColumnMapper.INSTANCE).list();
+
+                ret.set(paths.stream()
+                    .map(x -> trimSuffix(x, suffix))
+                    .collect(Collectors.toCollection(HashSet::new)));
+            });
+        } else {
+            LOG.warn("fetchIdsByPropertyValue not optimzed !!!: Index not defined for:  collectionPath: {}, property: {}", path, property);
+
+            final Pattern propertyPath = Pattern.compile(Pattern.quote(path) + "/:[^/]+" + Pattern.quote(suffix));
+            final String expected = STRING_VALUE_PREFIX + value;
+            withTransaction(dbi -> {
+                Set<String> paths = new HashSet<>();
+                try (ResultIterator<Document> documents = dbi.createQuery("SELECT path, document FROM jsondb_doc WHERE path LIKE :like")
+                    .bind("like", path + "/%")
+                    .map(DocumentMapper.INSTANCE)
+                    .iterator()) {
+                    while (documents.hasNext()) {
+                        for (JsonRecord record : documents.next().toRecords(Collections.emptySet())) {
+                            if (expected.equals(record.getValue()) && propertyPath.matcher(record.getPath()).matches()) {
+                                paths.add(trimSuffix(record.getPath(), suffix));
+                            }
+                        }
+                    }
+                }
+                ret.set(paths);
+            });
+        }
+        return ret.get();
+    }
+
+    @Override
+    protected SqlJsonDB checkpointed(DBI transacted, EventBus transactedBus) {
+        return new DocumentSqlJsonDB(transacted, transactedBus, getIndexes(), documentCollections);
+    }
+
+    public Set<String> getDocumentCollections() {
+        return Collections.unmodifiableSet(documentCollections);
+    }
+
+    private boolean isJsonbSupported() {
+        return getDatabaseKind() == DatabaseKind.PostgreSQL || getDatabaseKind() == DatabaseKind.CockroachDB;
+    }
+
+    private boolean isDocumentPath(String dbPath) {
+        int end = dbPath.indexOf('/', 1);
+        return end > 0 && documentCollections.contains(dbPath.substring(1, end));
+    }
+
+    private DocumentRecordIterator queryDocumentRecords(Handle h, String baseDBPath, GetOptions o, Comparator<JsonRecord> order) {
+        StringBuilder sql = new StringBuilder("SELECT path, document FROM jsondb_doc");
+        ArrayList<Consumer<Query<Map<String, Object>>>> binds = new ArrayList<>();
+        Predicate<JsonRecord> include;
+
+        if (o.filter() != null) {
+            // the indexed values of the documents are kept in the side table
+            sql.append(" A INNER JOIN (");
+            SqlExpressionBuilder.create(this, o.filter(), baseDBPath, "jsondb_doc_idx").build(sql, binds);
+            sql.append(") B ON A.path = B.match_path");
+        }
+        sql.append(" WHERE ");
+
+        if (depth(baseDBPath) < 2) {
+            // the range options select whole documents
+            sql.append("path LIKE :like");
+            binds.add(query -> query.bind("like", baseDBPath + "%"));
+            for (PathRange.Bound bound : PathRange.of(baseDBPath, o).getBounds()) {
+                sql.append(" AND path ").append(bound.getOperator()).append(" :").append(bound.getName());
+                binds.add(query -> query.bind(bound.getName(), bound.getValue()));
+            }
+            include = r -> true;
+        } else {
+            // the range options select values within a single document
+            sql.append("path = :path");
+            binds.add(query -> query.bind("path", documentPath(baseDBPath)));
+            PathRange range = PathRange.of(baseDBPath, o);
+            include = r -> r.getPath().startsWith(baseDBPath) && range.includes(r.getPath());
+        }
+        sql.append(" ORDER BY path ").append(o.order() == GetOptions.Order.DESC ? GetOptions.Order.DESC : GetOptions.Order.ASC);
+
+        Query<Map<String, Object>> query = h.createQuery(sql.toString());
+        for (Consumer<Query<Map<String, Object>>> bind : binds) {
+            bind.accept(query);
+        }
+
+        return new DocumentRecordIterator(query.map(DocumentMapper.INSTANCE).iterator(), include, order);
+    }
+
+    private static Map<String, Document> loadDocuments(Handle dbi, String like) {
+        Map<String, Document> documents = new HashMap<>();
+        try (ResultIterator<Document> iterator = dbi.createQuery("SELECT path, document FROM jsondb_doc WHERE path LIKE :like")
+            .bind("like", like)
+            .map(DocumentMapper.INSTANCE)
+            .iterator()) {
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                documents.put(document.path, document);
+            }
+        }
+        return documents;
+    }
+
+    private static List<JsonRecord> loadRecords(Handle dbi, String documentPath) {
+        Document document = dbi.createQuery("SELECT path, document FROM jsondb_doc WHERE path = :path")
+            .bind("path", documentPath)
+            .map(DocumentMapper.INSTANCE)
+            .first();
+
+        if (document == null) {
+            return new ArrayList<>();
+        }
+        return document.toRecords(Collections.emptySet());
+    }
+
+    /**
+     * Stores the given records as the document at the given path, or removes the
+     * document if there are no records left.
+     */
+    private void writeDocument(Handle dbi, String documentPath, List<JsonRecord> records) {
+        deleteDocument(dbi, documentPath);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        records.sort(BY_PATH);
+
+        String insert = isJsonbSupported()
+            ? "INSERT INTO jsondb_doc (path, document) VALUES (:path, CAST(:document AS JSONB))"
+            : "INSERT INTO jsondb_doc (path, document) VALUES (:path, :document)";
+        dbi.createStatement(insert)
+            .bind("path", documentPath)
+            .bind("document", toJson(documentPath, records))
+            .execute();
+
+        PreparedBatch indexBatch = null;
+        for (JsonRecord record : records) {
+            String idx = JsonRecordSupport.indexFieldValue(getIndexPaths(), record.getPath());
+            if (idx != null) {
+                if (indexBatch == null) {
+                    indexBatch = dbi.prepareBatch("INSERT INTO jsondb_doc_idx (path, idx, value) VALUES (:path, :idx, :value)");
+                }
+                indexBatch.bind("path", record.getPath())
+                    .bind("idx", idx)
+                    .bind("value", record.getValue())
+                    .add();
+            }
+        }
+        if (indexBatch != null) {
+            indexBatch.execute();
+        }
+    }
+
+    /**
+     * Stores the given records as the document at the given path like
+     * {@link #writeDocument(Handle, String, List)}, but only updates the
+     * document and the index values that differ from the existing records.
+     */
+    private void mergeDocument(Handle dbi, String documentPath, List<JsonRecord> existing, List<JsonRecord> records) {
+        if (existing.isEmpty() || records.isEmpty()) {
+            writeDocument(dbi, documentPath, records);
+            return;
+        }
+        if (sameRecords(existing, records)) {
+            return;
+        }
+
+        records.sort(BY_PATH);
+
+        String update = isJsonbSupported()
+            ? "UPDATE jsondb_doc SET document = CAST(:document AS JSONB) WHERE path = :path"
+            : "UPDATE jsondb_doc SET document = :document WHERE path = :path";
+        dbi.createStatement(update)
+            .bind("path", documentPath)
+            .bind("document", toJson(documentPath, records))
+            .execute();
+
+        mergeIndexValues(dbi, existing, records);
+    }
+
+    /**
+     * Updates the index values of the document that differ between the
+     * existing and the given records.
+     */
+    private void mergeIndexValues(Handle dbi, List<JsonRecord> existing, List<JsonRecord> records) {
+        Map<String, String> previousValues = indexValues(existing);
+        PreparedBatch insertBatch = null;
+        PreparedBatch updateBatch = null;
+        for (JsonRecord record : records) {
+            String idx = JsonRecordSupport.indexFieldValue(getIndexPaths(), record.getPath());
+            if (idx == null) {
+                continue;
+            }
+            String previous = previousValues.remove(record.getPath());
+            if (previous == null) {
+                if (insertBatch == null) {
+                    insertBatch = dbi.prepareBatch("INSERT INTO jsondb_doc_idx (path, idx, value) VALUES (:path, :idx, :value)");
+                }
+                insertBatch.bind("path", record.getPath())
+                    .bind("idx", idx)
+                    .bind("value", record.getValue())
+                    .add();
+            } else if (!previous.equals(record.getValue())) {
+                if (updateBatch == null) {
+                    updateBatch = dbi.prepareBatch("UPDATE jsondb_doc_idx SET value = :value WHERE path = :path");
+                }
+                updateBatch.bind("path", record.getPath())
+                    .bind("value", record.getValue())
+                    .add();
+            }
+        }
+        if (insertBatch != null) {
+            insertBatch.execute();
+        }
+        if (updateBatch != null) {
+            updateBatch.execute();
+        }
+        if (!previousValues.isEmpty()) {
+            PreparedBatch deleteBatch = dbi.prepareBatch("DELETE FROM jsondb_doc_idx WHERE path = :path");
+            for (String path : previousValues.keySet()) {
+                deleteBatch.bind("path", path).add();
+            }
+            deleteBatch.execute();
+        }
+    }
+
+    /**
+     * Returns the values of the given records stored in the index side table
+     * keyed by their paths.
+     */
+    private Map<String, String> indexValues(List<JsonRecord> records) {
+        Map<String, String> values = new HashMap<>();
+        for (JsonRecord record : records) {
+            if (JsonRecordSupport.indexFieldValue(getIndexPaths(), record.getPath()) != null) {
+                values.put(record.getPath(), record.getValue());
+            }
+        }
+        return values;
+    }
+
+    private static boolean sameRecords(List<JsonRecord> existing, List<JsonRecord> records) {
+        if (existing.size() != records.size()) {
+            return false;
+        }
+
+        Map<String, JsonRecord> current = new HashMap<>();
+        for (JsonRecord record : existing) {
+            current.put(record.getPath(), record);
+        }
+        for (JsonRecord record : records) {
+            JsonRecord previous = current.get(record.getPath());
+            if (previous == null || !Objects.equals(previous.getValue(), record.getValue()) || !Objects.equals(previous.getOValue(), record.getOValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toJson(String documentPath, List<JsonRecord> records) {
+        ByteArrayOutputStream document = new ByteArrayOutputStream();
+        try (JsonRecordConsumer toJson = new JsonRecordConsumer(documentPath, document, new GetOptions())) {
+            records.forEach(toJson);
+        } catch (IOException e) {
+            throw new JsonDBException(e);
+        }
+        return new String(document.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deletes the documents, and their index values, stored at the given paths.
+     */
+    private static void deleteDocuments(Handle dbi, Collection<String> documentPaths) {
+        for (String documentPath : documentPaths) {
+            deleteDocument(dbi, documentPath);
+        }
+    }
+
+    /**
+     * Deletes the documents, and their index values, with paths matching the given pattern.
+     */
+    private static int deleteDocuments(Handle dbi, String like) {
+        dbi.update("DELETE FROM jsondb_doc_idx WHERE path LIKE ?", like);
+        return dbi.update("DELETE FROM jsondb_doc WHERE path LIKE ?", like);
+    }
+
+    /**
+     * Deletes the document, and its index values, stored at the given path.
+     */
+    private static int deleteDocument(Handle dbi, String documentPath) {
+        dbi.update("DELETE FROM jsondb_doc_idx WHERE path LIKE ?", documentPath + "%");
+        return dbi.update("DELETE FROM jsondb_doc WHERE path = ?", documentPath);
+    }
+
+    private static int depth(String dbPath) {
+        int depth = 0;
+        for (int i = 1; i < dbPath.length(); i++) {
+            if (dbPath.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the path of the document, i.e. the first two path segments, holding
+     * the value at the given path or {@code null} if the path does not point
+     * into a document.
+     */
+    private static String documentPath(String dbPath) {
+        int collectionEnd = dbPath.indexOf('/', 1);
+        if (collectionEnd < 0) {
+            return null;
+        }
+        int documentEnd = dbPath.indexOf('/', collectionEnd + 1);
+        if (documentEnd < 0) {
+            return null;
+        }
+        return dbPath.substring(0, documentEnd + 1);
+    }
+
+    static final class Document {
+        private final String path;
+        private final String json;
+
+        Document(String path, String json) {
+            this.path = path;
+            this.json = json;
+        }
+
+        List<JsonRecord> toRecords(Set<String> indexPaths) {
+            List<JsonRecord> records = new ArrayList<>();
+            try {
+                JsonRecordSupport.jsonStreamToRecords(indexPaths, path, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), records::add);
+            } catch (IOException e) {
+                throw new JsonDBException(e);
+            }
+            return records;
+        }
+    }
+
+    static class DocumentMapper implements ResultSetMapper<Document> {
+        static final DocumentMapper INSTANCE = new DocumentMapper();
+        @Override
+        public Document map(int index, ResultSet r, StatementContext ctx) throws SQLException {
+            return new Document(r.getString("path"), r.getString("document"));
+        }
+    }
+
+    /**
+     * Iterates over the records of the documents, in order, converting one
+     * document at a time.
+     */
+    static final class DocumentRecordIterator implements Iterator<JsonRecord>, AutoCloseable {
+        private final ResultIterator<Document> documents;
+        private final Predicate<JsonRecord> include;
+        private final Comparator<JsonRecord> order;
+        private Iterator<JsonRecord> current = Collections.emptyIterator();
+        private JsonRecord next;
+
+        DocumentRecordIterator(ResultIterator<Document> documents, Predicate<JsonRecord> include, Comparator<JsonRecord> order) {
+            this.documents = documents;
+            this.include = include;
+            this.order = order;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (current.hasNext()) {
+                    JsonRecord candidate = current.next();
+                    if (include.test(candidate)) {
+                        next = candidate;
+                    }
+                } else if (documents.hasNext()) {
+                    List<JsonRecord> records = documents.next().toRecords(Collections.emptySet());
+                    records.sort(order);
+                    current = records.iterator();
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public JsonRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JsonRecord ret = next;
+            next = null;
+            return ret;
+        }
+
+        @Override
+        public void close() {
+            documents.close();
+        }
+    }
+
+    /**
+     * Merges two iterators of records sorted in the same order.
+     */
+    static final class MergingIterator implements Iterator<JsonRecord> {
+        private final Iterator<JsonRecord> left;
+        private final Iterator<JsonRecord> right;
+        private final Comparator<JsonRecord> order;
+        private JsonRecord nextLeft;
+        private JsonRecord nextRight;
+
+        MergingIterator(Iterator<JsonRecord> left, Iterator<JsonRecord> right, Comparator<JsonRecord> order) {
+            this.left = left;
+            this.right = right;
+            this.order = order;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextLeft == null && left.hasNext()) {
+                nextLeft = left.next();
+            }
+            if (nextRight == null && right.hasNext()) {
+                nextRight = right.next();
+            }
+            return nextLeft != null || nextRight != null;
+        }
+
+        @Override
+        public JsonRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JsonRecord ret;
+            if (nextRight == null || nextLeft != null && order.compare(nextLeft, nextRight) <= 0) {
+                ret = nextLeft;
+                nextLeft = null;
+            } else {
+                ret = nextRight;
+                nextRight = null;
+            }
+            return ret;
+        }
+    }
+}
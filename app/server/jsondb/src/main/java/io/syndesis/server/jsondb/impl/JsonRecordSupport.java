@@ -193,7 +193,7 @@ public final class JsonRecordSupport {
         }
     }
 
-    private static String indexFieldValue(Set<String> indexes, String path) {
+    static String indexFieldValue(Set<String> indexes, String path) {
         Matcher matcher = INDEX_EXTRACTOR_PATTERN.matcher(path);
         if( !matcher.matches() ) {
             return null;
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.jsondb.impl;
+
+import static io.syndesis.server.jsondb.impl.JsonRecordSupport.validateKey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.syndesis.server.jsondb.GetOptions;
+
+/**
+ * The key range selected by the startAfter/startAt/endAt/endBefore
+ * {@link GetOptions} expressed as bounds on the record path.
+ */
+final class PathRange {
+
+    static final class Bound {
+        private final String operator;
+        private final String name;
+        private final String value;
+
+        Bound(String operator, String name, String value) {
+            this.operator = operator;
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        boolean test(String path) {
+            int cmp = path.compareTo(value);
+            switch (operator) {
+                case "<":
+                    return cmp < 0;
+                case "<=":
+                    return cmp <= 0;
+                case ">":
+                    return cmp > 0;
+                case ">=":
+                    return cmp >= 0;
+                default:
+                    throw new IllegalStateException("Unsupported operator: " + operator);
+            }
+        }
+    }
+
+    private final List<Bound> bounds;
+
+    private PathRange(List<Bound> bounds) {
+        this.bounds = bounds;
+    }
+
+    public List<Bound> getBounds() {
+        return bounds;
+    }
+
+    public boolean includes(String path) {
+        for (Bound bound : bounds) {
+            if (!bound.test(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static PathRange of(String baseDBPath, GetOptions o) {
+        List<Bound> bounds = new ArrayList<>();
+        boolean desc = o.order() == GetOptions.Order.DESC;
+
+        if (o.startAfter() != null) {
+            String startAfter = validateKey(o.startAfter());
+            if (desc) {
+                bounds.add(new Bound("<=", "startAfter", baseDBPath + startAfter));
+            } else {
+                bounds.add(new Bound(">=", "startAfter", baseDBPath + incrementKey(startAfter)));
+            }
+        }
+        if (o.startAt() != null) {
+            String startAt = validateKey(o.startAt());
+            if (desc) {
+                bounds.add(new Bound("<", "startAt", baseDBPath + incrementKey(startAt)));
+            } else {
+                bounds.add(new Bound(">=", "startAt", baseDBPath + startAt));
+            }
+        }
+        if (o.endAt() != null) {
+            String endAt = validateKey(o.endAt());
+            if (desc) {
+                bounds.add(new Bound(">", "endAt", baseDBPath + endAt));
+            } else {
+                bounds.add(new Bound("<", "endAt", baseDBPath + incrementKey(endAt)));
+            }
+        }
+        if (o.endBefore() != null) {
+            String endBefore = validateKey(o.endBefore());
+            if (desc) {
+                bounds.add(new Bound(">=", "endBefore", baseDBPath + incrementKey(endBefore)));
+            } else {
+                bounds.add(new Bound("<", "endBefore", baseDBPath + endBefore));
+            }
+        }
+
+        return new PathRange(Collections.unmodifiableList(bounds));
+    }
+
+    private static String incrementKey(String value) {
+        if( value == null || value.isEmpty()) {
+            return value;
+        }
+        char[] chars = value.toCharArray();
+        chars[chars.length-1]++;
+        return new String(chars);
+    }
+}
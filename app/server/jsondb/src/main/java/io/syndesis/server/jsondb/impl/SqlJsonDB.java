@@ -16,7 +16,6 @@
 package io.syndesis.server.jsondb.impl;
 
 import static io.syndesis.server.jsondb.impl.JsonRecordSupport.STRING_VALUE_PREFIX;
-import static io.syndesis.server.jsondb.impl.JsonRecordSupport.validateKey;
 import static io.syndesis.server.jsondb.impl.Strings.prefix;
 import static io.syndesis.server.jsondb.impl.Strings.suffix;
 import static io.syndesis.server.jsondb.impl.Strings.trimSuffix;
@@ -33,9 +32,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
@@ -84,14 +86,32 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         PostgreSQL, SQLite, H2, CockroachDB
     }
 
+    /**
+     * How values are written on {@code set} and {@code update}.
+     */
+    public enum WriteMode {
+        /**
+         * All records under the path are deleted and the new value is
+         * inserted.
+         */
+        REPLACE,
+        /**
+         * The records under the path are compared with the new value and only
+         * the records that differ are inserted, updated or deleted.
+         */
+        DIFF
+    }
+
     protected final DBI dbi;
-    private final EventBus bus;
+    protected final EventBus bus;
     private final Collection<Index> indexes;
     private final Set<String> indexPaths = new HashSet<>();
 
     // These values are used to compute a seq key
     private DatabaseKind databaseKind = DatabaseKind.PostgreSQL;
 
+    private WriteMode writeMode = WriteMode.REPLACE;
+
     public SqlJsonDB(DBI dbi, EventBus bus) {
         this(dbi, bus, Collections.emptyList());
     }
@@ -152,17 +172,7 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         return KeyGenerator.createKey();
     }
 
-    private static String incrementKey(String value) {
-        if( value == null || value.isEmpty()) {
-            return value;
-        }
-        char[] chars = value.toCharArray();
-        chars[chars.length-1]++;
-        return new String(chars);
-    }
-
     @Override
-    @SuppressWarnings({"PMD.ExcessiveMethodLength", "PMD.NPathComplexity"})
     public Consumer<OutputStream> getAsStreamingOutput(String path, GetOptions options) {
 
         GetOptions o;
@@ -174,99 +184,11 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
 
         // Lets normalize the path a bit
         String baseDBPath = JsonRecordSupport.convertToDBPath(path);
-        String like = baseDBPath + "%";
-        GetOptions.Order order = o.order();
-        if( order == null ) {
-            order = GetOptions.Order.ASC;
-        }
 
         Consumer<OutputStream> result = null;
         final Handle h = dbi.open();
         try {
-
-            StringBuilder sql = new StringBuilder(250);
-            // Creating the iterator could fail with a runtime exception,
-            ArrayList<Consumer<Query<Map<String, Object>>>> binds = new ArrayList<>();
-
-            if( o.filter() == null ) {
-                sql.append("select path,value,ovalue from jsondb where path LIKE :like");
-            } else {
-                sql.append("SELECT path,value,ovalue FROM jsondb A INNER JOIN (");
-                SqlExpressionBuilder.create(this, o.filter(), baseDBPath).build(sql, binds);
-                sql.append(") B ON A.path LIKE B.match_path||'%'");
-            }
-
-            if (o.startAfter() != null) {
-                String startAfter = validateKey(o.startAfter());
-                if (o.order() == GetOptions.Order.DESC) {
-                    sql.append(" and path <= :startAfter");
-                    binds.add(query -> {
-                        String bindPath = baseDBPath + startAfter;
-                        query.bind("startAfter", bindPath);
-                    });
-                } else {
-                    sql.append(" and path >= :startAfter");
-                    binds.add(query -> {
-                        String bindPath = baseDBPath + incrementKey(startAfter);
-                        query.bind("startAfter", bindPath);
-                    });
-                }
-            }
-            if (o.startAt() != null) {
-                String startAt = validateKey(o.startAt());
-                if (o.order() == GetOptions.Order.DESC) {
-                    sql.append(" and path < :startAt");
-                    binds.add(query -> {
-                        String bindPath = baseDBPath + incrementKey(startAt);
-                        query.bind("startAt", bindPath);
-                    });
-                } else {
-                    sql.append(" and path >= :startAt");
-                    binds.add(query -> {
-                        String bindPath = baseDBPath + startAt;
-                        query.bind("startAt", bindPath);
-                    });
-                }
-            }
-            if (o.endAt() != null) {
-                String endAt = validateKey(o.endAt());
-                if (o.order() == GetOptions.Order.DESC) {
-                    sql.append(" and path > :endAt");
-                    binds.add(query -> {
-                        String value = baseDBPath + endAt;
-                        query.bind("endAt", value);
-                    });
-                } else {
-                    sql.append(" and path < :endAt");
-                    binds.add(query -> {
-                        String bindPath = baseDBPath + incrementKey(endAt);
-                        query.bind("endAt", bindPath);
-                    });
-                }
-            }
-            if (o.endBefore() != null) {
-                String endBefore = validateKey(o.endBefore());
-                if (o.order() == GetOptions.Order.DESC) {
-                    sql.append(" and path >= :endBefore");
-                    binds.add(query -> {
-                        String value = baseDBPath + incrementKey(endBefore);
-                        query.bind("endBefore", value);
-                    });
-                } else {
-                    sql.append(" and path < :endBefore");
-                    binds.add(query -> {
-                        String value = baseDBPath + endBefore;
-                        query.bind("endBefore", value);
-                    });
-                }
-            }
-
-            sql.append(" order by path ").append(order);
-            Query<Map<String, Object>> query = h.createQuery(sql.toString()).bind("like", like);
-            for (Consumer<Query<Map<String, Object>>> bind : binds) {
-                bind.accept(query);
-            }
-            ResultIterator<JsonRecord> iterator = query.map(JsonRecordMapper.INSTANCE).iterator();
+            ResultIterator<JsonRecord> iterator = queryRecords(h, baseDBPath, o);
 
             try {
                 // At this point we know if we can produce results..
@@ -299,14 +221,48 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         return result;
     }
 
+    /**
+     * Queries the records under the given path, the returned iterator must be closed.
+     */
+    protected ResultIterator<JsonRecord> queryRecords(Handle h, String baseDBPath, GetOptions o) {
+        String like = baseDBPath + "%";
+        GetOptions.Order order = o.order();
+        if( order == null ) {
+            order = GetOptions.Order.ASC;
+        }
+
+        StringBuilder sql = new StringBuilder(250);
+        // Creating the iterator could fail with a runtime exception,
+        ArrayList<Consumer<Query<Map<String, Object>>>> binds = new ArrayList<>();
+
+        if( o.filter() == null ) {
+            sql.append("select path,value,ovalue from jsondb where path LIKE :like");
+        } else {
+            sql.append("SELECT path,value,ovalue FROM jsondb A INNER JOIN (");
+            SqlExpressionBuilder.create(this, o.filter(), baseDBPath).build(sql, binds);
+            sql.append(") B ON A.path LIKE B.match_path||'%'");
+        }
+
+        for (PathRange.Bound bound : PathRange.of(baseDBPath, o).getBounds()) {
+            sql.append(" and path ").append(bound.getOperator()).append(" :").append(bound.getName());
+            binds.add(query -> query.bind(bound.getName(), bound.getValue()));
+        }
+
+        sql.append(" order by path ").append(order);
+        Query<Map<String, Object>> query = h.createQuery(sql.toString()).bind("like", like);
+        for (Consumer<Query<Map<String, Object>>> bind : binds) {
+            bind.accept(query);
+        }
+        return query.map(JsonRecordMapper.INSTANCE).iterator();
+    }
+
 
     @Override
     public boolean delete(String path) {
         String baseDBPath = JsonRecordSupport.convertToDBPath(path);
-        String like = baseDBPath+"%";
         boolean rc[] = new boolean[]{false};
         withTransaction(dbi -> {
-            rc[0] = deleteJsonRecords(dbi, baseDBPath, like) > 0;
+            rc[0] = delete(dbi, baseDBPath);
         });
         if( bus!=null && rc[0] ) {
             bus.broadcast("jsondb-deleted", prefix(trimSuffix(path, "/"), "/"));
@@ -314,6 +270,13 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         return rc[0];
     }
 
+    /**
+     * Deletes the value at the given path within the transaction of the given handle.
+     */
+    protected boolean delete(Handle dbi, String baseDBPath) {
+        return deleteJsonRecords(dbi, baseDBPath, baseDBPath + "%") > 0;
+    }
+
     public void executeNative(final String sql, final Object... parameters) {
         withTransaction(handle -> handle.execute(sql, parameters));
     }
@@ -395,6 +358,8 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         private final Handle dbi;
         private long batchSize;
         private PreparedBatch insertBatch;
+        private PreparedBatch updateBatch;
+        private PreparedBatch deleteBatch;
 
         BatchManager(Handle dbi) {
             this.dbi = dbi;
@@ -405,6 +370,66 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
             deleteJsonRecords(dbi, baseDBPath, like);
         }
 
+        /**
+         * Deletes the records of the parent paths, which are replaced by the
+         * object being set, and loads the records under the given path.
+         */
+        public Map<String, JsonRecord> loadRecordsForDiff(String baseDBPath) {
+            Deque<String> parentPaths = getAllParentPaths(baseDBPath);
+            if (!parentPaths.isEmpty()) {
+                StringBuilder sql = new StringBuilder("DELETE FROM jsondb WHERE path IN (");
+                sql.append(String.join(",", Collections.nCopies(parentPaths.size(), "?"))).append(')');
+                dbi.update(sql.toString(), parentPaths.toArray());
+            }
+
+            Map<String, JsonRecord> existing = new HashMap<>();
+            try (ResultIterator<JsonRecord> records = dbi.createQuery("SELECT path,value,ovalue FROM jsondb WHERE path LIKE :like")
+                .bind("like", baseDBPath + "%")
+                .map(JsonRecordMapper.INSTANCE)
+                .iterator()) {
+                while (records.hasNext()) {
+                    JsonRecord record = records.next();
+                    existing.put(record.getPath(), record);
+                }
+            }
+            return existing;
+        }
+
+        /**
+         * Writes the records that differ from the existing ones, the existing
+         * records that were not replaced remain in the given map.
+         */
+        public Consumer<JsonRecord> createDiffConsumer(Map<String, JsonRecord> existing) {
+            Consumer<JsonRecord> insert = createSetConsumer();
+            return r -> {
+                JsonRecord current = existing.remove(r.getPath());
+                if (current == null) {
+                    insert.accept(r);
+                } else if (!Objects.equals(current.getValue(), r.getValue()) || !Objects.equals(current.getOValue(), r.getOValue())) {
+                    if (updateBatch == null) {
+                        updateBatch = dbi.prepareBatch("UPDATE jsondb SET value = :value, ovalue = :ovalue, idx = :idx WHERE path = :path");
+                    }
+                    updateBatch.bind("path", r.getPath())
+                        .bind("value", r.getValue())
+                        .bind("ovalue", r.getOValue())
+                        .bind("idx", r.getIndex())
+                        .add();
+                }
+            };
+        }
+
+        public void deleteRecords(Collection<String> paths) {
+            if (paths.isEmpty()) {
+                return;
+            }
+            if (deleteBatch == null) {
+                deleteBatch = dbi.prepareBatch("DELETE FROM jsondb WHERE path = :path");
+            }
+            for (String path : paths) {
+                deleteBatch.bind("path", path).add();
+            }
+        }
+
         public Consumer<JsonRecord> createSetConsumer() {
             return r -> {
                 PreparedBatch insert = getInsertBatch();
@@ -430,9 +455,15 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         }
 
         public void flush() {
+            if (deleteBatch != null && deleteBatch.getSize() > 0) {
+                deleteBatch.execute();
+            }
+            if (updateBatch != null && updateBatch.getSize() > 0) {
+                updateBatch.execute();
+            }
             if (batchSize > 0 && insertBatch != null) {
                 insertBatch.execute();
-
+                batchSize = 0;
             }
         }
     }
@@ -442,9 +473,13 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         withTransaction(dbi -> {
             BatchManager mb = new BatchManager(dbi);
             String baseDBPath = JsonRecordSupport.convertToDBPath(path);
-            mb.deleteRecordsForSet(baseDBPath);
-            try {
-                JsonRecordSupport.jsonStreamToRecords(indexPaths, baseDBPath, body, mb.createSetConsumer());
+            try (JsonParser jp = new JsonFactory().createParser(body)) {
+                set(dbi, mb, baseDBPath, jp);
+
+                JsonToken jsonToken = jp.nextToken();
+                if (jsonToken != null) {
+                    throw new JsonParseException(jp, "Document did not terminate as expected.");
+                }
             } catch (IOException e) {
                 throw new JsonDBException(e);
             }
@@ -455,6 +490,22 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         }
     }
 
+    /**
+     * Replaces the value at the given path with the next value read from the parser,
+     * within the transaction of the given handle.
+     */
+    protected void set(Handle dbi, BatchManager mb, String baseDBPath, JsonParser jp) throws IOException {
+        if (writeMode == WriteMode.DIFF) {
+            Map<String, JsonRecord> existing = mb.loadRecordsForDiff(baseDBPath);
+            JsonRecordSupport.jsonStreamToRecords(indexPaths, jp, baseDBPath, mb.createDiffConsumer(existing));
+            mb.deleteRecords(existing.keySet());
+            return;
+        }
+
+        mb.deleteRecordsForSet(baseDBPath);
+        JsonRecordSupport.jsonStreamToRecords(indexPaths, jp, baseDBPath, mb.createSetConsumer());
+    }
+
     @Override
     public void update(String path, InputStream is) {
         ArrayList<String> updatePaths = new ArrayList<>();
@@ -463,53 +514,173 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
                 BatchManager mb = new BatchManager(dbi);
 
                 try (JsonParser jp = new JsonFactory().createParser(is)) {
-                    JsonToken nextToken = jp.nextToken();
-                    if (nextToken != JsonToken.START_OBJECT ) {
-                        throw new JsonParseException(jp, "Update did not contain a json object");
-                    }
+                    update(dbi, mb, path, jp, updatePaths);
+                    mb.flush();
+                }
+            } catch (IOException e) {
+                throw new JsonDBException(e);
+            }
 
-                    while(true) {
+        });
+        if( bus!=null ) {
+            for (String updatePath : updatePaths) {
+                bus.broadcast("jsondb-updated", prefix(trimSuffix(updatePath, "/"), "/"));
+            }
+        }
+    }
 
-                        nextToken = jp.nextToken();
-                        if (nextToken == JsonToken.END_OBJECT ) {
-                            break;
-                        }
-                        if (nextToken != JsonToken.FIELD_NAME ) {
-                            throw new JsonParseException(jp, "Expected a field name");
-                        }
 
-                        String key = suffix(path, "/")+jp.getCurrentName();
-                        updatePaths.add(key);
-                        String baseDBPath = JsonRecordSupport.convertToDBPath(key);
-                        mb.deleteRecordsForSet(baseDBPath);
+    /**
+     * Sets each field of the json object read from the parser under the given path,
+     * within the transaction of the given handle, collecting the updated paths.
+     */
+    protected void update(Handle dbi, BatchManager mb, String path, JsonParser jp, List<String> updatePaths) throws IOException {
+        JsonToken nextToken = jp.nextToken();
+        if (nextToken != JsonToken.START_OBJECT ) {
+            throw new JsonParseException(jp, "Update did not contain a json object");
+        }
 
-                        try {
-                            JsonRecordSupport.jsonStreamToRecords(indexPaths, jp, baseDBPath, mb.createSetConsumer());
-                        } catch (IOException e) {
-                            throw new JsonDBException(e);
-                        }
+        while(true) {
+
+            nextToken = jp.nextToken();
+            if (nextToken == JsonToken.END_OBJECT ) {
+                break;
+            }
+            if (nextToken != JsonToken.FIELD_NAME ) {
+                throw new JsonParseException(jp, "Expected a field name");
+            }
+
+            String key = suffix(path, "/")+jp.getCurrentName();
+            updatePaths.add(key);
+            String baseDBPath = JsonRecordSupport.convertToDBPath(key);
+            set(dbi, mb, baseDBPath, jp);
+        }
+
+        nextToken = jp.nextToken();
+        if (nextToken != null) {
+            throw new JsonParseException(jp, "Document did not terminate as expected.");
+        }
+    }
+
+    /**
+     * Applies all operations in a single transaction. Inserts, updates and
+     * deletes of records are executed in JDBC batches, the batches are
+     * flushed before an operation on a path overlapping a pending write.
+     * Change events are coalesced per path and emitted after the commit.
+     */
+    @Override
+    public void batch(Consumer<Batch> operations) {
+        List<BatchOperation> ops = new ArrayList<>();
+        operations.accept(new Batch() {
+            @Override
+            public Batch set(String path, byte[] json) {
+                ops.add(new BatchOperation(BatchOperation.Type.SET, path, json));
+                return this;
+            }
+
+            @Override
+            public Batch update(String path, byte[] json) {
+                ops.add(new BatchOperation(BatchOperation.Type.UPDATE, path, json));
+                return this;
+            }
+
+            @Override
+            public Batch delete(String path) {
+                ops.add(new BatchOperation(BatchOperation.Type.DELETE, path, null));
+                return this;
+            }
+        });
+
+        if (ops.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> events = new LinkedHashMap<>();
+        withTransaction(dbi -> {
+            BatchManager mb = new BatchManager(dbi);
+            List<String> pending = new ArrayList<>();
+            try {
+                for (BatchOperation op : ops) {
+                    String baseDBPath = JsonRecordSupport.convertToDBPath(op.path);
+                    if (op.type == BatchOperation.Type.DELETE || overlaps(pending, baseDBPath)) {
+                        mb.flush();
+                        pending.clear();
                     }
 
-                    nextToken = jp.nextToken();
-                    if (nextToken != null) {
-                        throw new JsonParseException(jp, "Document did not terminate as expected.");
+                    switch (op.type) {
+                    case SET:
+                        try (JsonParser jp = new JsonFactory().createParser(op.json)) {
+                            set(dbi, mb, baseDBPath, jp);
+                            if (jp.nextToken() != null) {
+                                throw new JsonParseException(jp, "Document did not terminate as expected.");
+                            }
+                        }
+                        pending.add(baseDBPath);
+                        addEvent(events, "jsondb-updated", op.path);
+                        break;
+                    case UPDATE:
+                        List<String> updatePaths = new ArrayList<>();
+                        try (JsonParser jp = new JsonFactory().createParser(op.json)) {
+                            update(dbi, mb, op.path, jp, updatePaths);
+                        }
+                        pending.add(baseDBPath);
+                        for (String updatePath : updatePaths) {
+                            addEvent(events, "jsondb-updated", updatePath);
+                        }
+                        break;
+                    default:
+                        if (delete(dbi, baseDBPath)) {
+                            addEvent(events, "jsondb-deleted", op.path);
+                        }
+                        break;
                     }
-                    mb.flush();
                 }
+                mb.flush();
             } catch (IOException e) {
                 throw new JsonDBException(e);
             }
-
         });
+
         if( bus!=null ) {
-            for (String updatePath : updatePaths) {
-                bus.broadcast("jsondb-updated", prefix(trimSuffix(updatePath, "/"), "/"));
+            for (Map.Entry<String, String> event : events.entrySet()) {
+                bus.broadcast(event.getValue(), event.getKey());
             }
         }
     }
 
+    private static boolean overlaps(List<String> baseDBPaths, String baseDBPath) {
+        for (String pending : baseDBPaths) {
+            if (pending.startsWith(baseDBPath) || baseDBPath.startsWith(pending)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-    private static int deleteJsonRecords(Handle dbi, String baseDBPath, String like) {
+    private static void addEvent(Map<String, String> events, String event, String path) {
+        String eventPath = prefix(trimSuffix(path, "/"), "/");
+        // keep the order of the last change of each path
+        events.remove(eventPath);
+        events.put(eventPath, event);
+    }
+
+    private static final class BatchOperation {
+        enum Type {
+            SET, UPDATE, DELETE
+        }
+
+        final Type type;
+        final String path;
+        final byte[] json;
+
+        BatchOperation(Type type, String path, byte[] json) {
+            this.type = type;
+            this.path = path;
+            this.json = json;
+        }
+    }
+
+    static int deleteJsonRecords(Handle dbi, String baseDBPath, String like) {
 
         ArrayList<String> expressions = new ArrayList<>();
         ArrayList<String> queryParams = new ArrayList<>();
@@ -526,7 +697,7 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         return dbi.update(sql.toString(), queryParams.toArray());
     }
 
-    private static Deque<String> getAllParentPaths(String baseDBPath) {
+    static Deque<String> getAllParentPaths(String baseDBPath) {
         Deque<String> params = new ArrayDeque<>();
         Pattern compile = Pattern.compile("/[^/]*$");
         String current = trimSuffix(baseDBPath, "/");
@@ -547,15 +718,15 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         return result.intValue();
     }
 
-    private static class JsonRecordMapper implements ResultSetMapper<JsonRecord> {
-        private static final JsonRecordMapper INSTANCE = new JsonRecordMapper();
+    static class JsonRecordMapper implements ResultSetMapper<JsonRecord> {
+        static final JsonRecordMapper INSTANCE = new JsonRecordMapper();
         @Override
         public JsonRecord map(int index, ResultSet r, StatementContext ctx) throws SQLException {
             return JsonRecord.of(r.getString("path"), r.getString("value"), r.getString("ovalue"), null);
         }
     }
 
-    private void withTransaction(Consumer<Handle> cb) {
+    protected void withTransaction(Consumer<Handle> cb) {
         try (Handle h = dbi.open()) {
             try {
                 h.begin();
@@ -580,6 +751,14 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         return databaseKind;
     }
 
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    public void setWriteMode(WriteMode writeMode) {
+        this.writeMode = writeMode;
+    }
+
     @Override
     public void withGlobalTransaction(final Consumer<JsonDB> handler) {
         final String checkpoint = UUID.randomUUID().toString();
@@ -590,7 +769,8 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
 
             try (Connection connection = handle.getConnection(); Connection transacted = withoutTransactionControl(connection)) {
                 final TransactedEventBus transactedBus = new TransactedEventBus(bus);
-                final SqlJsonDB checkpointed = new SqlJsonDB(new DBI(() -> transacted), transactedBus);
+                final SqlJsonDB checkpointed = checkpointed(new DBI(() -> transacted), transactedBus);
+                checkpointed.setWriteMode(writeMode);
 
                 boolean committed = false;
                 try {
@@ -612,6 +792,13 @@ public class SqlJsonDB implements JsonDB, WithGlobalTransaction {
         }
     }
 
+    /**
+     * Creates the JsonDB used within a global transaction.
+     */
+    protected SqlJsonDB checkpointed(DBI transacted, EventBus transactedBus) {
+        return new SqlJsonDB(transacted, transactedBus);
+    }
+
     private static Connection withoutTransactionControl(Connection connection) {
         return (Connection) Proxy.newProxyInstance(SqlJsonDB.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
             // we control the transaction not the DBI or the consumer
@@ -28,12 +28,14 @@ import io.syndesis.server.jsondb.impl.SqlJsonDB;
 
 class BinarySqlExpressionBuilder extends SqlExpressionBuilder {
     private final SqlJsonDB db;
+    private final String table;
     private final SqlExpressionBuilder arg1;
     private final String op;
     private final SqlExpressionBuilder arg2;
 
-    public BinarySqlExpressionBuilder(SqlJsonDB db, SqlExpressionBuilder arg1, String op, SqlExpressionBuilder arg2) {
+    public BinarySqlExpressionBuilder(SqlJsonDB db, String table, SqlExpressionBuilder arg1, String op, SqlExpressionBuilder arg2) {
         this.db = db;
+        this.table = table;
         this.arg1 = arg1;
         this.op = op;
         this.arg2 = arg2;
@@ -47,7 +49,7 @@ class BinarySqlExpressionBuilder extends SqlExpressionBuilder {
         } else {
             sql.append("trim(trailing split_part('#', idx, 2)||'/' from path)");
         }
-        sql.append("as match_path FROM jsondb WHERE (");
+        sql.append("as match_path FROM ").append(table).append(" WHERE (");
         arg1.build(sql, binds, bindCounter);
         sql.append(op);
         arg2.build(sql, binds, bindCounter);
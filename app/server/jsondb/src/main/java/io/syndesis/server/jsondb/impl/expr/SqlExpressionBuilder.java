@@ -39,30 +39,39 @@ public abstract class SqlExpressionBuilder {
     }
 
     public static SqlExpressionBuilder create(SqlJsonDB db, Filter filter, String path) {
+        return create(db, filter, path, "jsondb");
+    }
+
+    /**
+     * Creates the builder of the query selecting the matching paths from the
+     * given table, which needs the {@code path}, {@code idx} and {@code value}
+     * columns of the {@code jsondb} table.
+     */
+    public static SqlExpressionBuilder create(SqlJsonDB db, Filter filter, String path, String table) {
         if( filter instanceof ChildFilter ) {
             ChildFilter childFilter = (ChildFilter) filter;
-            return create(db, childFilter, path);
+            return create(db, childFilter, path, table);
         }
         if( filter instanceof LogicalFilter) {
             LogicalFilter logicalFilter = (LogicalFilter) filter;
-            return create(db, logicalFilter, path);
+            return create(db, logicalFilter, path, table);
         }
         throw new JsonDBException("Unsupported filter: "+filter);
     }
 
-    public static SqlExpressionBuilder create(SqlJsonDB db, ChildFilter filter, String path) {
+    public static SqlExpressionBuilder create(SqlJsonDB db, ChildFilter filter, String path, String table) {
         String idx = path+"#"+filter.field();
         if( !db.getIndexPaths().contains(idx) ) {
             throw new JsonDBException("You can only filter on fields that are indexed.");
         }
         PropertySqlExpressionBuilder left = new PropertySqlExpressionBuilder(idx);
         LiteralSqlExpressionBuilder right = new LiteralSqlExpressionBuilder(filter.value());
-        return new BinarySqlExpressionBuilder(db, left, toSqlOp(filter.op()), right);
+        return new BinarySqlExpressionBuilder(db, table, left, toSqlOp(filter.op()), right);
     }
 
-    public static SqlExpressionBuilder create(SqlJsonDB db, LogicalFilter filter, String path) {
+    public static SqlExpressionBuilder create(SqlJsonDB db, LogicalFilter filter, String path, String table) {
         List<SqlExpressionBuilder> children = filter.filters().stream()
-            .map(x -> create(db, x, path))
+            .map(x -> create(db, x, path, table))
             .collect(Collectors.toList());
 
         switch( filter.op() ) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.jsondb.dao;
+
+import java.util.Arrays;
+
+import io.syndesis.common.model.connection.Connection;
+import io.syndesis.common.model.connection.Connector;
+import io.syndesis.common.util.cache.LRUCacheManager;
+import io.syndesis.server.dao.manager.DataManager;
+import io.syndesis.server.jsondb.impl.SqlJsonDB;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonDbDaoBulkWriteTest {
+
+    private SqlJsonDB jsondb;
+
+    private DataManager dataManager;
+
+    @BeforeEach
+    public void before() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+
+        jsondb = new SqlJsonDB(new DBI(ds), null);
+        try {
+            jsondb.dropTables();
+        } catch (Exception e) {
+        }
+        jsondb.createTables();
+
+        dataManager = new DataManager(new LRUCacheManager(100), Arrays.asList(
+            new JsonDbDao<Connection>(jsondb) {
+                @Override
+                public Class<Connection> getType() {
+                    return Connection.class;
+                }
+            },
+            new JsonDbDao<Connector>(jsondb) {
+                @Override
+                public Class<Connector> getType() {
+                    return Connector.class;
+                }
+            }), null, null, null, null);
+        dataManager.init();
+    }
+
+    @Test
+    public void shouldWriteAllKinds() {
+        dataManager.storeAll(Arrays.asList(
+            new Connection.Builder().id("connection").name("connection").build(),
+            new Connector.Builder().id("connector").name("connector").build()));
+
+        assertThat(jsondb.exists("/connections/:connection")).isTrue();
+        assertThat(jsondb.exists("/connectors/:connector")).isTrue();
+    }
+
+    @Test
+    public void shouldNotWriteAnyKindIfALaterKindFails() {
+        // keys holding dots are refused by the JsonDB when the batch is applied
+        final Connector invalid = new Connector.Builder().id("connector").name("connector")
+            .putConfiguredProperty("invalid.key", "value")
+            .build();
+
+        assertThatThrownBy(() -> dataManager.storeAll(Arrays.asList(
+            new Connection.Builder().id("connection").name("connection").build(),
+            invalid)));
+
+        assertThat(jsondb.exists("/connections/:connection")).isFalse();
+        assertThat(jsondb.exists("/connectors/:connector")).isFalse();
+        assertThat(dataManager.fetch(Connection.class, "connection")).isNull();
+        assertThat(dataManager.fetchAll(Connection.class).getItems()).isEmpty();
+    }
+}
@@ -15,24 +15,36 @@
  */
 package io.syndesis.server.jsondb.dao;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Stream;
 
 import io.syndesis.common.model.Kind;
+import io.syndesis.common.model.ListResult;
 import io.syndesis.common.model.WithId;
 import io.syndesis.common.model.WithUsage;
 import io.syndesis.common.model.connection.ConnectionOverview;
+import io.syndesis.common.model.integration.Integration;
+import io.syndesis.common.model.integration.IntegrationDeployment;
 import io.syndesis.common.model.validation.TargetWithDomain;
+import io.syndesis.common.util.json.JsonUtils;
+import io.syndesis.server.dao.manager.ListQuery;
+import io.syndesis.server.jsondb.GetOptions;
 import io.syndesis.server.jsondb.JsonDB;
 
 import org.immutables.value.Value;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.reflections.Reflections;
 import org.reflections.util.ConfigurationBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -53,6 +65,35 @@ public class JsonDbDaoTest<T extends WithId<T> & WithUsage> {
         assertThat(fetched.getUses()).isEqualTo(14);
     }
 
+    @Test
+    public void shouldCountOnlyIndexedEntitiesStillPresent() throws IOException {
+        final JsonDB jsondb = mock(JsonDB.class);
+        final JsonDbDao<IntegrationDeployment> dao = new JsonDbDao<IntegrationDeployment>(jsondb) {
+            @Override
+            public Class<IntegrationDeployment> getType() {
+                return IntegrationDeployment.class;
+            }
+        };
+        final String path = dao.getCollectionPath();
+
+        // the index still holds the id of the deleted deployment b
+        when(jsondb.fetchIdsByPropertyValue(path, "integrationId", "integration"))
+            .thenReturn(new HashSet<>(Arrays.asList(path + "/:a", path + "/:b", path + "/:c")));
+        when(jsondb.getAsString(eq(path), any(GetOptions.class))).thenReturn("{\":a\":true,\":c\":true}");
+        final IntegrationDeployment deployment = new IntegrationDeployment.Builder()
+            .id("a")
+            .spec(new Integration.Builder().id("integration").build())
+            .build();
+        when(jsondb.getAsByteArray(path + "/:a")).thenReturn(JsonUtils.writer().writeValueAsBytes(deployment));
+
+        final ListResult<IntegrationDeployment> result = dao.fetchAll(new ListQuery<IntegrationDeployment>()
+            .filter("integrationId", "integration", d -> d.getIntegrationId().filter("integration"::equals).isPresent())
+            .limit(1));
+
+        assertThat(result.getTotalCount()).isEqualTo(2);
+        assertThat(result.getItems()).extracting(d -> d.getId().get()).containsExactly("a");
+    }
+
     static Stream<JsonDbDao<?>> parameters() {
         final Reflections reflections = new Reflections(new ConfigurationBuilder()
             .forPackages("io.syndesis")
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.jsondb.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.logging.NoOpLog;
+
+/**
+ * Runs the document storage JsonDB tests with diff based writes.
+ */
+public class DiffDocumentSqlJsonDBTest extends DocumentSqlJsonDBTest {
+
+    @BeforeEach
+    @Override
+    public void before() {
+        super.before();
+        jsondb.setWriteMode(SqlJsonDB.WriteMode.DIFF);
+    }
+
+    @Test
+    public void shouldWriteOnlyChangedDocuments() {
+        List<String> writes = new ArrayList<>();
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:documents;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        DBI logging = new DBI(ds);
+        logging.setSQLLog(new NoOpLog() {
+            @Override
+            public void logSQL(long time, String sql) {
+                String write = documentWrite(sql);
+                if (write != null) {
+                    writes.add(write);
+                }
+            }
+
+            @Override
+            public void logPreparedBatch(long time, String sql, int count) {
+                String write = documentWrite(sql);
+                if (write != null) {
+                    writes.add(write + " " + count);
+                }
+            }
+        });
+
+        DocumentSqlJsonDB logged = new DocumentSqlJsonDB(logging, null,
+            Arrays.asList(new Index("/users", "name"), new Index("/users", "age")),
+            Collections.singletonList("/users"));
+        logged.setWriteMode(SqlJsonDB.WriteMode.DIFF);
+
+        logged.set("/users", "{\":1\":{\"name\":\"Hiram\",\"city\":\"Tampa\"},\":2\":{\"name\":\"Ana\"}}");
+
+        writes.clear();
+        logged.set("/users", "{\":1\":{\"name\":\"Hiram\",\"city\":\"Tampa\"},\":2\":{\"name\":\"Ana\"}}");
+        assertThat(writes).isEmpty();
+
+        writes.clear();
+        logged.set("/users", "{\":1\":{\"name\":\"Hiram\",\"city\":\"Miami\"}}");
+        assertThat(writes).containsExactly("UPDATE jsondb_doc", "DELETE jsondb_doc_idx", "DELETE jsondb_doc");
+
+        writes.clear();
+        logged.set("/users/:1/name", "\"Ana\"");
+        assertThat(writes).containsExactly("UPDATE jsondb_doc", "UPDATE jsondb_doc_idx 1");
+
+        writes.clear();
+        logged.set("/users/:1/city", "\"Miami\"");
+        assertThat(writes).isEmpty();
+
+        writes.clear();
+        logged.set("/users/:1", "{\"name\":\"Ana\",\"age\":30}");
+        assertThat(writes).containsExactly("UPDATE jsondb_doc", "INSERT jsondb_doc_idx 1");
+
+        assertThat(logged.getAsString("/users")).isEqualTo("{\":1\":{\"age\":30,\"name\":\"Ana\"}}");
+        assertThat(logged.fetchIdsByPropertyValue("/users", "name", "Ana")).containsOnly("/users/:1");
+        assertThat(logged.fetchIdsByPropertyValue("/users", "name", "Hiram")).isEmpty();
+    }
+
+    /**
+     * Returns the statement kind and the document table written to by the
+     * given SQL, or {@code null} for queries and writes to other tables.
+     */
+    private static String documentWrite(String sql) {
+        String[] words = sql.trim().split("\\s+");
+        String table;
+        switch (words[0]) {
+        case "UPDATE":
+            table = words[1];
+            break;
+        case "INSERT":
+        case "DELETE":
+            table = words[2];
+            break;
+        default:
+            return null;
+        }
+        if (!table.startsWith("jsondb_doc")) {
+            return null;
+        }
+        return words[0] + " " + table;
+    }
+}
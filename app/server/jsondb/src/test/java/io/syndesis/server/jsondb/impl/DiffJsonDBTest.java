@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.jsondb.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.logging.NoOpLog;
+
+/**
+ * Runs the JsonDB tests with diff based writes.
+ */
+public class DiffJsonDBTest extends JsonDBTest {
+
+    @BeforeEach
+    @Override
+    public void before() {
+        super.before();
+        jsondb.setWriteMode(SqlJsonDB.WriteMode.DIFF);
+    }
+
+    @Test
+    public void shouldWriteOnlyChangedRecords() {
+        List<String> batches = new ArrayList<>();
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:test1;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        DBI dbi = new DBI(ds);
+        dbi.setSQLLog(new NoOpLog() {
+            @Override
+            public void logPreparedBatch(long time, String sql, int count) {
+                batches.add(sql.substring(0, sql.indexOf(' ')) + " " + count);
+            }
+        });
+
+        SqlJsonDB logged = new SqlJsonDB(dbi, null);
+        logged.setWriteMode(SqlJsonDB.WriteMode.DIFF);
+
+        logged.set("/test", "{\"name\":\"Hiram\",\"props\":{\"city\":\"Tampa\",\"state\":\"FL\"},\"tags\":[\"a\",\"b\"]}");
+        assertThat(batches).containsExactly("INSERT 5");
+
+        batches.clear();
+        logged.set("/test", "{\"name\":\"Hiram\",\"props\":{\"city\":\"Miami\",\"state\":\"FL\"},\"tags\":[\"a\"]}");
+        assertThat(batches).containsExactly("DELETE 1", "UPDATE 1");
+
+        batches.clear();
+        logged.update("/test", "{\"props/zip\":\"33101\",\"name\":\"Hiram\"}");
+        assertThat(batches).containsExactly("INSERT 1");
+
+        assertThat(logged.getAsString("/test")).isEqualTo("{\"name\":\"Hiram\",\"props\":{\"city\":\"Miami\",\"state\":\"FL\",\"zip\":\"33101\"},\"tags\":[\"a\"]}");
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.jsondb.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
+
+import io.syndesis.server.jsondb.Filter;
+import io.syndesis.server.jsondb.Filter.Op;
+import io.syndesis.server.jsondb.GetOptions;
+import io.syndesis.server.jsondb.JsonDBException;
+
+/**
+ * Unit Tests for the document storage JsonDB implementation.
+ */
+public class DocumentSqlJsonDBTest {
+
+    protected DBI dbi;
+
+    protected DocumentSqlJsonDB jsondb;
+
+    @BeforeEach
+    public void before() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:documents;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        dbi = new DBI(ds);
+
+        this.jsondb = new DocumentSqlJsonDB(dbi, null,
+            Arrays.asList(new Index("/users", "name"), new Index("/users", "age")),
+            Collections.singletonList("/users"));
+
+        try {
+            this.jsondb.dropTables();
+        } catch (Exception e) {
+        }
+        this.jsondb.createTables();
+    }
+
+    @Test
+    public void shouldStoreEntriesAsSingleDocuments() {
+        jsondb.set("/users/:1", "{\"name\":\"Hiram\",\"tags\":[\"a\",\"b\"],\"props\":{\"city\":\"Tampa\"}}");
+        jsondb.set("/users/:2", "{\"name\":\"Ana\"}");
+
+        assertThat(count("jsondb_doc")).isEqualTo(2);
+        assertThat(count("jsondb")).isZero();
+
+        assertThat(jsondb.getAsString("/users/:1")).isEqualTo("{\"name\":\"Hiram\",\"props\":{\"city\":\"Tampa\"},\"tags\":[\"a\",\"b\"]}");
+        assertThat(jsondb.getAsString("/users/:1/tags/1")).isEqualTo("\"b\"");
+        assertThat(jsondb.getAsString("/users")).isEqualTo("{\":1\":{\"name\":\"Hiram\",\"props\":{\"city\":\"Tampa\"},\"tags\":[\"a\",\"b\"]},\":2\":{\"name\":\"Ana\"}}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().depth(1))).isEqualTo("{\":1\":true,\":2\":true}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().startAt(":2"))).isEqualTo("{\":2\":{\"name\":\"Ana\"}}");
+        assertThat(jsondb.getAsString("/users/:3")).isNull();
+    }
+
+    @Test
+    public void shouldUpdateValuesWithinDocuments() {
+        jsondb.set("/users/:1", "{\"name\":\"Hiram\",\"props\":{\"city\":\"Tampa\",\"state\":\"FL\"}}");
+
+        jsondb.update("/users/:1", "{\"name\":\"Ana\",\"props/city\":\"Miami\"}");
+        assertThat(jsondb.getAsString("/users/:1")).isEqualTo("{\"name\":\"Ana\",\"props\":{\"city\":\"Miami\",\"state\":\"FL\"}}");
+
+        jsondb.set("/users/:1/props", "\"none\"");
+        assertThat(jsondb.getAsString("/users/:1")).isEqualTo("{\"name\":\"Ana\",\"props\":\"none\"}");
+
+        assertThat(jsondb.delete("/users/:1/props")).isTrue();
+        assertThat(jsondb.exists("/users/:1/props")).isFalse();
+        assertThat(jsondb.getAsString("/users/:1")).isEqualTo("{\"name\":\"Ana\"}");
+    }
+
+    @Test
+    public void shouldDeleteDocuments() {
+        jsondb.set("/users", "{\":1\":{\"name\":\"Hiram\"},\":2\":{\"name\":\"Ana\"}}");
+
+        assertThat(jsondb.exists("/users/:1")).isTrue();
+        assertThat(jsondb.delete("/users/:1")).isTrue();
+        assertThat(jsondb.exists("/users/:1")).isFalse();
+        assertThat(jsondb.delete("/users/:1")).isFalse();
+
+        assertThat(jsondb.delete("/users")).isTrue();
+        assertThat(jsondb.exists("/users")).isFalse();
+        assertThat(count("jsondb_doc_idx")).isZero();
+    }
+
+    @Test
+    public void shouldFetchIdsUsingIndexedProperties() {
+        jsondb.set("/users/:1", "{\"name\":\"Hiram\",\"city\":\"Tampa\"}");
+        jsondb.set("/users/:2", "{\"name\":\"Ana\",\"city\":\"Tampa\"}");
+
+        assertThat(jsondb.fetchIdsByPropertyValue("/users", "name", "Ana")).containsOnly("/users/:2");
+        assertThat(jsondb.fetchIdsByPropertyValue("/users", "city", "Tampa")).containsOnly("/users/:1", "/users/:2");
+
+        jsondb.update("/users/:2", "{\"name\":\"Hiram\"}");
+        assertThat(jsondb.fetchIdsByPropertyValue("/users", "name", "Ana")).isEmpty();
+        assertThat(jsondb.fetchIdsByPropertyValue("/users", "name", "Hiram")).containsOnly("/users/:1", "/users/:2");
+    }
+
+    @Test
+    public void shouldFilterDocumentsOnIndexedValues() {
+        jsondb.set("/users", "{\":1\":{\"name\":\"Hiram\",\"age\":10},\":2\":{\"name\":\"Ana\",\"age\":20},\":3\":{\"name\":\"Ana\",\"age\":30}}");
+
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.child("name", Op.EQ, "Ana"))))
+            .isEqualTo("{\":2\":{\"age\":20,\"name\":\"Ana\"},\":3\":{\"age\":30,\"name\":\"Ana\"}}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.child("age", Op.LT, 25)).depth(1)))
+            .isEqualTo("{\":1\":true,\":2\":true}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.and(
+            Filter.child("name", Op.EQ, "Ana"),
+            Filter.child("age", Op.GT, 25)
+        )).depth(1))).isEqualTo("{\":3\":true}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.or(
+            Filter.child("name", Op.EQ, "Hiram"),
+            Filter.child("age", Op.EQ, 30)
+        )).depth(1))).isEqualTo("{\":1\":true,\":3\":true}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.child("name", Op.EQ, "Ana")).startAfter(":2").depth(1)))
+            .isEqualTo("{\":3\":true}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.child("name", Op.EQ, "Bob")))).isNull();
+
+        jsondb.update("/users/:1", "{\"name\":\"Ana\"}");
+        assertThat(jsondb.getAsString("/users", new GetOptions().filter(Filter.child("name", Op.EQ, "Ana")).depth(1)))
+            .isEqualTo("{\":1\":true,\":2\":true,\":3\":true}");
+
+        assertThatThrownBy(() -> jsondb.getAsString("/users", new GetOptions().filter(Filter.child("city", Op.EQ, "Tampa"))))
+            .isInstanceOf(JsonDBException.class)
+            .hasMessage("You can only filter on fields that are indexed.");
+    }
+
+    @Test
+    public void shouldMergeDocumentsAndRecordsOnRoot() {
+        jsondb.set("/settings", "{\"a\":1}");
+        jsondb.set("/users/:1", "{\"name\":\"Hiram\"}");
+        jsondb.set("/zones", "{\"b\":true}");
+
+        assertThat(count("jsondb")).isEqualTo(2);
+        assertThat(jsondb.getAsString("/")).isEqualTo("{\"settings\":{\"a\":1},\"users\":{\":1\":{\"name\":\"Hiram\"}},\"zones\":{\"b\":true}}");
+
+        jsondb.set("/", "{\"users\":{\":2\":{\"name\":\"Ana\"}},\"zones\":{\"c\":false}}");
+        assertThat(jsondb.getAsString("/")).isEqualTo("{\"users\":{\":2\":{\"name\":\"Ana\"}},\"zones\":{\"c\":false}}");
+    }
+
+    @Test
+    public void shouldMigrateRecordsToDocuments() {
+        SqlJsonDB rows = new SqlJsonDB(dbi, null, Arrays.asList(new Index("/users", "name")));
+        rows.set("/users", "{\":1\":{\"name\":\"Hiram\",\"tags\":[\"a\",\"b\"]},\":2\":{\"name\":\"Ana\"}}");
+        rows.set("/settings", "{\"a\":1}");
+
+        jsondb.migrateToDocuments();
+
+        assertThat(count("jsondb_doc")).isEqualTo(2);
+        assertThat(jsondb.getAsString("/users")).isEqualTo("{\":1\":{\"name\":\"Hiram\",\"tags\":[\"a\",\"b\"]},\":2\":{\"name\":\"Ana\"}}");
+        assertThat(jsondb.getAsString("/settings")).isEqualTo("{\"a\":1}");
+        assertThat(jsondb.fetchIdsByPropertyValue("/users", "name", "Ana")).containsOnly("/users/:2");
+        assertThat(rows.getAsString("/users")).isNull();
+    }
+
+    @Test
+    public void shouldKeepValuesOfTheCollectionPathWhenMigrating() {
+        SqlJsonDB rows = new SqlJsonDB(dbi, null, Arrays.asList(new Index("/users", "name")));
+        rows.set("/users", "\"none\"");
+
+        jsondb.migrateToDocuments();
+
+        assertThat(count("jsondb_doc")).isZero();
+        assertThat(rows.getAsString("/users")).isEqualTo("\"none\"");
+    }
+
+    private int count(String table) {
+        return dbi.withHandle(h -> h.createQuery("SELECT COUNT(*) FROM " + table).map(IntegerColumnMapper.PRIMITIVE).first());
+    }
+}
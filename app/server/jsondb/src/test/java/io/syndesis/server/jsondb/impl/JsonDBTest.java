@@ -21,6 +21,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -47,7 +48,7 @@ import io.syndesis.server.jsondb.JsonDBException;
  */
 public class JsonDBTest {
 
-    private SqlJsonDB jsondb;
+    protected SqlJsonDB jsondb;
     private final ObjectMapper mapper = new ObjectMapper()
         .setSerializationInclusion(JsonInclude.Include.ALWAYS);
 
@@ -683,6 +684,37 @@ public class JsonDBTest {
 
     }
 
+    @Test
+    public void testBatch() {
+        jsondb.set("/test", "{\"name\":\"Hiram\",\"gone\":true}");
+
+        jsondb.batch(batch -> batch
+            .set("/users/u1", bytes("{\"name\":\"u1\",\"age\":1}"))
+            .set("/users/u2", bytes("{\"name\":\"u2\"}"))
+            .set("/users/u1", bytes("{\"name\":\"u1\",\"age\":2}"))
+            .update("/test", bytes("{\"name\":\"Ana\",\"props/city\":\"Miami\"}"))
+            .delete("/test/gone")
+            .set("/users/u3", bytes("{\"name\":\"u3\"}"))
+            .delete("/users/u3"));
+
+        assertThat(jsondb.getAsString("/users")).isEqualTo("{\"u1\":{\"age\":2,\"name\":\"u1\"},\"u2\":{\"name\":\"u2\"}}");
+        assertThat(jsondb.getAsString("/test")).isEqualTo("{\"name\":\"Ana\",\"props\":{\"city\":\"Miami\"}}");
+        assertThat(jsondb.fetchIdsByPropertyValue("/users", "name", "u1")).containsOnly("/users/u1");
+    }
+
+    @Test
+    public void testBatchIsAppliedInASingleTransaction() {
+        assertThatExceptionOfType(JsonDBException.class).isThrownBy(() -> jsondb.batch(batch -> batch
+            .set("/users/u1", bytes("{\"name\":\"u1\"}"))
+            .set("/users/u2", bytes("{\"name\":"))));
+
+        assertThat(jsondb.exists("/users/u1")).isFalse();
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
     // Helper method to help construct maps with concise syntax
     private HashMap<String, Object> map(Object... values) {
         HashMap<String, Object> rc = new HashMap<String, Object>() {
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batches activity tracking events into database writes. Events are
+ * partitioned by integration id, each partition has its own bounded queue and
+ * writer so that all events of a single integration (and its pods) are
+ * written in order, while events of different integrations are written
+ * concurrently.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class ActivityBatchPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityBatchPipeline.class);
+
+    private final List<BlockingQueue<BatchOperation>> partitions;
+    private final int batchSize;
+    private final long batchLatencyMillis;
+    private final long enqueueTimeoutMillis;
+    private final Consumer<Map<String, Object>> writer;
+    private final AtomicBoolean stopped;
+
+    private final MeterRegistry registry;
+    private final List<Meter> meters = new ArrayList<>();
+    private final Counter queued;
+    private final Counter late;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer latency;
+    private final DistributionSummary size;
+
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    ActivityBatchPipeline(int writers, int queueCapacity, int batchSize, Duration batchLatency, Duration enqueueTimeout,
+        Consumer<Map<String, Object>> writer, AtomicBoolean stopped, MeterRegistry registry) {
+        if (writers < 1) {
+            throw new IllegalArgumentException("At least one writer is needed, given: " + writers);
+        }
+
+        this.batchSize = batchSize;
+        this.batchLatencyMillis = batchLatency.toMillis();
+        this.enqueueTimeoutMillis = enqueueTimeout.toMillis();
+        this.writer = writer;
+        this.stopped = stopped;
+        this.registry = registry;
+
+        partitions = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            final BlockingQueue<BatchOperation> queue = new LinkedBlockingQueue<>(queueCapacity);
+            partitions.add(queue);
+            meters.add(Gauge.builder("syndesis.activity.queue.depth", queue, Collection::size)
+                .description("Activity tracking events waiting to be written")
+                .tag("partition", Integer.toString(i))
+                .register(registry));
+        }
+
+        queued = register(Counter.builder("syndesis.activity.events")
+            .description("Activity tracking events handed to the writers")
+            .tag("outcome", "queued")
+            .register(registry));
+        late = register(Counter.builder("syndesis.activity.events")
+            .description("Activity tracking events handed to the writers")
+            .tag("outcome", "late")
+            .register(registry));
+        dropped = register(Counter.builder("syndesis.activity.events")
+            .description("Activity tracking events handed to the writers")
+            .tag("outcome", "dropped")
+            .register(registry));
+        failed = register(Counter.builder("syndesis.activity.batch.failures")
+            .description("Activity tracking batches that could not be written")
+            .register(registry));
+        latency = register(Timer.builder("syndesis.activity.batch.latency")
+            .description("Time from the first event of a batch until the batch is written")
+            .register(registry));
+        size = register(DistributionSummary.builder("syndesis.activity.batch.size")
+            .description("Number of records written in a single batch")
+            .register(registry));
+    }
+
+    /**
+     * Starts a writer for each partition.
+     */
+    void start(Executor executor) {
+        for (int i = 0; i < partitions.size(); i++) {
+            final int partition = i;
+            executor.execute(() -> processPartition(partition));
+        }
+    }
+
+    /**
+     * Removes the meters of this pipeline from the registry, the writers
+     * themselves stop when the controller is stopped.
+     */
+    void close() {
+        for (Meter meter : meters) {
+            registry.remove(meter);
+        }
+        meters.clear();
+    }
+
+    /**
+     * Queues the operation on the partition of the given key. If the
+     * partition is full the caller is blocked, counting the event as late,
+     * for at most the enqueue timeout after which the event is dropped. Only
+     * for best effort events, see {@link #enqueueState(String, BatchOperation)}.
+     *
+     * @return {@code true} if the operation was queued
+     */
+    boolean enqueue(String key, BatchOperation operation) throws InterruptedException {
+        final BlockingQueue<BatchOperation> queue = partitions.get(partitionOf(key));
+
+        if (queue.offer(operation)) {
+            queued.increment();
+            return true;
+        }
+
+        late.increment();
+        if (queue.offer(operation, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            queued.increment();
+            return true;
+        }
+
+        dropped.increment();
+        LOG.warn("Dropped activity tracking event for {}, the writers did not catch up within {} ms", key, enqueueTimeoutMillis);
+        return false;
+    }
+
+    /**
+     * Queues the operation on the partition of the given key, blocking the
+     * caller until the partition has room for it. For operations that track
+     * state which must never be dropped.
+     */
+    void enqueueState(String key, BatchOperation operation) throws InterruptedException {
+        final BlockingQueue<BatchOperation> queue = partitions.get(partitionOf(key));
+
+        if (!queue.offer(operation)) {
+            late.increment();
+            queue.put(operation);
+        }
+
+        queued.increment();
+    }
+
+    int partitionOf(String key) {
+        return Math.floorMod(key.hashCode(), partitions.size());
+    }
+
+    int depth(int partition) {
+        return partitions.get(partition).size();
+    }
+
+    private void processPartition(int partition) {
+        Thread.currentThread().setName("Logs Controller [running]: processEventQueue-" + partition);
+        final BlockingQueue<BatchOperation> queue = partitions.get(partition);
+        try {
+            LOG.info("Batch ingestion work thread for partition {} started.", partition);
+            while (!stopped.get()) {
+
+                // Using a timeout so that if queue is empty, we break out periodically to
+                // check if we are stopped.
+                BatchOperation event = queue.poll(1, TimeUnit.SECONDS);
+                if (event == null) {
+                    continue;
+                }
+
+                // Start a batch..  We use a tree map so that records are sorted
+                // to help avoid deadlocks.
+                TreeMap<String, Object> batch = new TreeMap<>();
+                long batchStartTime = System.nanoTime();
+                int eventCounter = 0;
+
+                try {
+
+                    while (!stopped.get() && event != null) {
+                        eventCounter++;
+                        event.apply(batch);
+
+                        // Once the batch gets big enough, or we are taking too long on this batch..
+                        long remaining = batchLatencyMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStartTime);
+                        if (batch.size() >= batchSize || remaining <= 0) {
+                            event = null;
+                        } else {
+                            // try to get more for the batch
+                            event = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                        }
+                    }
+
+                    // Write the batch..
+                    try {
+                        writer.accept(batch);
+                        size.record(batch.size());
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        LOG.warn("Unable to write batch of events: {}", e.getMessage());
+                        LOG.debug("Unable to write batch of events: ", e);
+                    }
+                    latency.record(System.nanoTime() - batchStartTime, TimeUnit.NANOSECONDS);
+
+                    LOG.debug("Batch ingested {} log events on partition {}", eventCounter, partition);
+
+                } catch (IOException e) {
+                    LOG.error("Unexpected Error", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted", e);
+        } finally {
+            Thread.currentThread().setName(ActivityTrackingController.IDLE_THREAD_NAME);
+        }
+        LOG.info("Batch ingestion work thread for partition {} done.", partition);
+    }
+
+    private <T extends Meter> T register(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+}
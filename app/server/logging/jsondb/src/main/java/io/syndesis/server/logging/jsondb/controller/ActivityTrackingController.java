@@ -19,6 +19,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -26,7 +28,6 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -36,7 +37,10 @@ import javax.annotation.PreDestroy;
 
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.syndesis.common.util.DurationConverter;
 import io.syndesis.common.util.backend.BackendController;
 import io.syndesis.common.util.json.JsonUtils;
@@ -44,6 +48,8 @@ import io.syndesis.server.jsondb.GetOptions;
 import io.syndesis.server.jsondb.JsonDB;
 import io.syndesis.server.jsondb.impl.JsonRecordSupport;
 import io.syndesis.server.jsondb.impl.SqlJsonDB;
+import io.syndesis.server.logging.jsondb.store.ActivityTable;
+import io.syndesis.server.openshift.OpenShiftResourceCache;
 import io.syndesis.server.openshift.OpenShiftService;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.PreparedBatch;
@@ -77,15 +83,29 @@ public class ActivityTrackingController implements BackendController, Closeable
 
     final KubernetesSupport kubernetesSupport;
 
-    protected final LinkedBlockingDeque<BatchOperation> eventQueue = new LinkedBlockingDeque<>(1000);
     protected final AtomicBoolean stopped = new AtomicBoolean();
 
+    private ActivityBatchPipeline pipeline;
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OpenShiftResourceCache resourceCache;
+    private ActivityTable activityTable;
+
     /** The number of retained activity log items */
     private int retention = 50;
     /** Logs older than this will not be processed */
     private Duration retentionTime = Duration.ofDays(1);
+    /** Activities older than this are removed, only with the activity table storage */
+    private Duration retentionPeriod = Duration.ofDays(7);
     private Duration cleanUpInterval = Duration.ofMinutes(15);
     private Duration startupDelay = Duration.ofSeconds(15);
+    /** Number of concurrent batch writers, 0 for one per available processor */
+    private int writers;
+    /** Capacity of the event queue of each writer */
+    private int queueCapacity = 1000;
+    private int batchSize = 1000;
+    private Duration batchLatency = Duration.ofSeconds(1);
+    /** Events that cannot be queued within this time are dropped */
+    private Duration enqueueTimeout = Duration.ofSeconds(30);
     private SqlJsonDB.DatabaseKind databaseKind;
 
     @Autowired
@@ -106,7 +126,9 @@ public class ActivityTrackingController implements BackendController, Closeable
         scheduler = Executors.newScheduledThreadPool(1, newThreadFactory("Logs Controller Scheduler"));
         executor =  Executors.newCachedThreadPool(newThreadFactory("Logs Controller"));
         stopped.set(false);
-        executor.execute(this::processEventQueue);
+        final int writerCount = writers > 0 ? writers : Runtime.getRuntime().availableProcessors();
+        pipeline = new ActivityBatchPipeline(writerCount, queueCapacity, batchSize, batchLatency, enqueueTimeout, this::writeBatch, stopped, meterRegistry);
+        pipeline.start(executor);
         scheduler.scheduleWithFixedDelay(this::pollPods, startupDelay.getSeconds(), 5, TimeUnit.SECONDS);
         scheduler.scheduleWithFixedDelay(this::cleanupLogs, startupDelay.toMillis(), cleanUpInterval.toMillis(), TimeUnit.MILLISECONDS);
 
@@ -133,12 +155,22 @@ public class ActivityTrackingController implements BackendController, Closeable
         try {
             LOG.info("Purging old activity logs");
 
+            if (activityTable != null) {
+                int dropped = activityTable.expire(Instant.now().minus(retentionPeriod));
+                LOG.info("expired activities older than {}: {}", retentionPeriod, dropped);
+            }
+
             @SuppressWarnings("unchecked")
             Map<String, Object> hashMap = dbGet(HashMap.class, "/activity/integrations");
             if( hashMap!=null ) {
                 for (String integrationId : hashMap.keySet()) {
-                    String integrationPath = "/activity/exchanges/" + integrationId + "/%";
-                    int count = deleteKeepingRetention(integrationPath);
+                    final int count;
+                    if (activityTable == null) {
+                        String integrationPath = "/activity/exchanges/" + integrationId + "/%";
+                        count = deleteKeepingRetention(integrationPath);
+                    } else {
+                        count = activityTable.retain(integrationId, retention);
+                    }
                     LOG.info("deleted {} transactions for integration: {}", count, integrationId);
                 }
             }
@@ -169,8 +201,27 @@ public class ActivityTrackingController implements BackendController, Closeable
         });
     }
 
-    private void writeBatch(Map<String, Object> batch) {
+    private void writeBatch(Map<String, Object> given) {
+        final Map<String, Object> batch;
+        final Map<String, Map<String, String>> activities;
+        if (activityTable == null) {
+            batch = given;
+            activities = Collections.emptyMap();
+        } else {
+            batch = new TreeMap<>();
+            activities = new TreeMap<>();
+            splitActivities(given, batch, activities);
+            activityTable.prepare(activities);
+        }
+
         dbi.inTransaction((conn, status) -> {
+            if (!activities.isEmpty()) {
+                activityTable.write(conn, activities);
+            }
+            if (batch.isEmpty()) {
+                return new int[0];
+            }
+
             final String sql;
             if( databaseKind == SqlJsonDB.DatabaseKind.PostgreSQL ) {
                 // Lets update if the record exists.
@@ -207,6 +258,23 @@ public class ActivityTrackingController implements BackendController, Closeable
         });
     }
 
+    /**
+     * Separates the activities, keyed by {@code /exchanges/<integration>/<exchange>},
+     * from the other entries of the batch.
+     */
+    private static void splitActivities(Map<String, Object> batch, Map<String, Object> others, Map<String, Map<String, String>> activities) {
+        for (Map.Entry<String, Object> entry : batch.entrySet()) {
+            final String key = entry.getKey();
+            final int exchangeStart = key.lastIndexOf('/');
+            if (key.startsWith("/exchanges/") && exchangeStart > "/exchanges/".length()) {
+                final String integrationId = key.substring("/exchanges/".length(), exchangeStart);
+                activities.computeIfAbsent(integrationId, k -> new TreeMap<>()).put(key.substring(exchangeStart + 1), (String) entry.getValue());
+            } else {
+                others.put(key, entry.getValue());
+            }
+        }
+    }
+
     @Override
     public void stop() {
         close();
@@ -233,6 +301,8 @@ public class ActivityTrackingController implements BackendController, Closeable
             } while (!schedulerStopped && !executorStopped);
             scheduler = null;
             executor = null;
+            pipeline.close();
+            pipeline = null;
         } catch (final InterruptedException e) {
             LOG.warn("Unable to cleanly stop: {}", e.getMessage());
             LOG.debug("Interrupted while stopping", e);
@@ -305,11 +375,17 @@ public class ActivityTrackingController implements BackendController, Closeable
     }
 
     protected PodList listPods() {
+        if (resourceCache != null) {
+            return new PodListBuilder()
+                .withItems(resourceCache.getPods(Collections.singletonMap(OpenShiftService.COMPONENT_LABEL, "integration")))
+                .build();
+        }
+
         return client.pods().withLabel(OpenShiftService.COMPONENT_LABEL, "integration").list();
     }
 
     protected boolean isPodRunning(String name) {
-        Pod pod = client.pods().withName(name).get();
+        Pod pod = resourceCache == null ? client.pods().withName(name).get() : resourceCache.getPod(name);
         if (pod == null) {
             return false;
         }
@@ -344,61 +420,25 @@ public class ActivityTrackingController implements BackendController, Closeable
         return JsonUtils.reader().forType(type).readValue(data);
     }
 
-    private void processEventQueue() {
-        Thread.currentThread().setName("Logs Controller [running]: processEventQueue");
-        try {
-            LOG.info("Batch ingestion work thread started.");
-            while (!stopped.get()) {
-
-                // Using a timeout so that if queue is empty, we break out periodically to
-                // check if we are stopped.
-                BatchOperation event = eventQueue.pollFirst(1, TimeUnit.SECONDS);
-                if (event == null) {
-                    continue;
-                }
-
-                // Start a batch..  We use a tree map so that records are sorted
-                // to help avoid deadlocks.
-                TreeMap<String, Object> batch = new TreeMap<>();
-                long batchStartTime = System.currentTimeMillis();
-                int eventCounter = 0;
-
-                try {
-
-                    while (!stopped.get() && event != null) {
-                        eventCounter++;
-                        event.apply(batch);
-
-                        // Once the batch gets big enough, or we are taking too long on this batch..
-                        long remaining = 1000 - (System.currentTimeMillis() - batchStartTime);
-                        if (batch.size() >= 1000 || remaining <= 0) {
-                            event = null;
-                        } else {
-                            // try to get more for the batch
-                            event = eventQueue.poll(remaining, TimeUnit.MILLISECONDS);
-                        }
-                    }
-
-                    // Write the batch..
-                    try {
-                        writeBatch(batch);
-                    } catch (RuntimeException e) {
-                        LOG.warn("Unable to write batch of events: {}", e.getMessage());
-                        LOG.debug("Unable to write batch of events: ", e);
-                    }
-
-                    LOG.debug("Batch ingested {} log events", eventCounter);
+    /**
+     * Queues the operation to be applied to a batch written by the writer
+     * responsible for the given integration, blocks if that writer is falling
+     * behind and drops the operation if it does not catch up within the
+     * enqueue timeout.
+     *
+     * @return {@code true} if the operation was queued
+     */
+    boolean enqueue(String integrationId, BatchOperation operation) throws InterruptedException {
+        return pipeline.enqueue(integrationId, operation);
+    }
 
-                } catch (IOException e) {
-                    LOG.error("Unexpected Error", e);
-                }
-            }
-        } catch (InterruptedException e) {
-            LOG.error("Interrupted", e);
-        } finally {
-            Thread.currentThread().setName(IDLE_THREAD_NAME);
-        }
-        LOG.info("Batch ingestion work thread done.");
+    /**
+     * Queues the operation to be applied to a batch written by the writer
+     * responsible for the given integration, blocks until that writer has
+     * room for it. State operations are never dropped.
+     */
+    void enqueueState(String integrationId, BatchOperation operation) throws InterruptedException {
+        pipeline.enqueueState(integrationId, operation);
     }
 
     @Value("${controllers.dblogging.retention:50}")
@@ -411,6 +451,11 @@ public class ActivityTrackingController implements BackendController, Closeable
         this.retentionTime = new DurationConverter().convert(retentionTime);
     }
 
+    @Value("${controllers.dblogging.retentionPeriod:7 days}")
+    public void setRetentionPeriod(final String retentionPeriod) {
+        this.retentionPeriod = new DurationConverter().convert(retentionPeriod);
+    }
+
     @Value("${controllers.dblogging.cleanUpPeriod:15 minutes}")
     public void setCleanUpInterval(String cleanUpInterval) {
         this.cleanUpInterval = new DurationConverter().convert(cleanUpInterval);
@@ -421,6 +466,46 @@ public class ActivityTrackingController implements BackendController, Closeable
         this.startupDelay = new DurationConverter().convert(startupDelay);
     }
 
+    @Value("${controllers.dblogging.writers:0}")
+    public void setWriters(int writers) {
+        this.writers = writers;
+    }
+
+    @Value("${controllers.dblogging.queueCapacity:1000}")
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Value("${controllers.dblogging.batchSize:1000}")
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Value("${controllers.dblogging.batchLatency:1 second}")
+    public void setBatchLatency(String batchLatency) {
+        this.batchLatency = new DurationConverter().convert(batchLatency);
+    }
+
+    @Value("${controllers.dblogging.enqueueTimeout:30 seconds}")
+    public void setEnqueueTimeout(String enqueueTimeout) {
+        this.enqueueTimeout = new DurationConverter().convert(enqueueTimeout);
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Autowired(required = false)
+    public void setResourceCache(OpenShiftResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
+    @Autowired(required = false)
+    public void setActivityTable(ActivityTable activityTable) {
+        this.activityTable = activityTable;
+    }
+
     public int getRetention() {
         return retention;
     }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.controller;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.syndesis.common.util.json.JsonUtils;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A structured activity tracking log line, like:
+ * {@code 2018-06-06T21:54:36.30603486Z {"exchange":"i-LEM51uGKc6IuIjvR95Vz","status":"begin"}}.
+ * Parsed directly from the bytes read from the pod log, fields used by the
+ * activity tracking are extracted while streaming over the JSON, any other
+ * fields are collected in {@link #getFields()}.
+ */
+@SuppressWarnings("PMD.TooManyFields")
+final class LogLine {
+
+    private static final JsonFactory JSON_FACTORY = JsonUtils.reader().getFactory();
+
+    // length of the fixed part of the timestamp: 2018-06-06T21:54:36.
+    private static final int TIMESTAMP_PREFIX_LENGTH = 20;
+
+    private String time;
+    private String exchange;
+    private String id;
+    private String step;
+    private String status;
+    private Boolean failed;
+    private String message;
+    private String failure;
+    private Long duration;
+    private ObjectNode fields;
+
+    private LogLine() {
+        // use parse
+    }
+
+    /**
+     * Parses the line at the given position within the buffer, returns
+     * {@code null} if the line is not a structured activity tracking log line.
+     */
+    static LogLine parse(final byte[] buffer, final int offset, final int length) throws IOException {
+        final int end = offset + length;
+        final int timestampEnd = timestampEnd(buffer, offset, end);
+        if (timestampEnd < 0 || timestampEnd + 1 >= end || buffer[timestampEnd] != ' ' || buffer[timestampEnd + 1] != '{') {
+            return null;
+        }
+
+        int jsonEnd = end;
+        while (jsonEnd > timestampEnd && isWhitespace(buffer[jsonEnd - 1])) {
+            jsonEnd--;
+        }
+        if (buffer[jsonEnd - 1] != '}') {
+            return null;
+        }
+
+        final LogLine line = new LogLine();
+        line.time = new String(buffer, offset, timestampEnd - offset, US_ASCII);
+
+        final int jsonStart = timestampEnd + 1;
+        try (JsonParser parser = JSON_FACTORY.createParser(buffer, jsonStart, jsonEnd - jsonStart)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                if (!line.field(parser.getCurrentName(), parser)) {
+                    return null;
+                }
+            }
+
+            if (token != JsonToken.END_OBJECT) {
+                return null;
+            }
+        }
+
+        return line;
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private boolean field(final String name, final JsonParser parser) throws IOException {
+        final JsonToken value = parser.nextToken();
+
+        switch (name) {
+        case "exchange":
+        case "id":
+        case "step":
+            // required to be strings, otherwise the line is not in the expected format
+            if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                return false;
+            }
+            final String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            if ("exchange".equals(name)) {
+                exchange = text;
+            } else if ("id".equals(name)) {
+                id = text;
+            } else {
+                step = text;
+            }
+            return true;
+        case "status":
+        case "message":
+        case "failure":
+            if (value == JsonToken.VALUE_STRING) {
+                if ("status".equals(name)) {
+                    status = parser.getText();
+                } else if ("message".equals(name)) {
+                    message = parser.getText();
+                } else {
+                    failure = parser.getText();
+                }
+                return true;
+            }
+            break;
+        case "failed":
+            if (value == JsonToken.VALUE_TRUE || value == JsonToken.VALUE_FALSE) {
+                failed = value == JsonToken.VALUE_TRUE;
+                return true;
+            }
+            break;
+        case "duration":
+            if (value.isNumeric()) {
+                duration = parser.getLongValue();
+                return true;
+            }
+            break;
+        default:
+            break;
+        }
+
+        if (value != JsonToken.VALUE_NULL || !isKnown(name)) {
+            final JsonNode node = value == JsonToken.VALUE_NULL ? JsonNodeFactory.instance.nullNode() : JsonUtils.reader().readTree(parser);
+            fields().set(name, node);
+        }
+
+        return true;
+    }
+
+    private static boolean isKnown(final String name) {
+        switch (name) {
+        case "status":
+        case "message":
+        case "failure":
+        case "failed":
+        case "duration":
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns the end of the timestamp in the {@code yyyy-MM-ddTHH:mm:ss.nnnnZ}
+     * format at the start of the line, or -1 if the line does not start with one.
+     */
+    private static int timestampEnd(final byte[] buffer, final int offset, final int end) {
+        if (end - offset < TIMESTAMP_PREFIX_LENGTH + 2) {
+            return -1;
+        }
+
+        for (int i = 0; i < TIMESTAMP_PREFIX_LENGTH; i++) {
+            final byte b = buffer[offset + i];
+            switch (i) {
+            case 4:
+            case 7:
+                if (b != '-') {
+                    return -1;
+                }
+                break;
+            case 10:
+                if (b != 'T') {
+                    return -1;
+                }
+                break;
+            case 13:
+            case 16:
+                if (b != ':') {
+                    return -1;
+                }
+                break;
+            case 19:
+                if (b != '.') {
+                    return -1;
+                }
+                break;
+            default:
+                if (!isDigit(b)) {
+                    return -1;
+                }
+            }
+        }
+
+        int i = offset + TIMESTAMP_PREFIX_LENGTH;
+        while (i < end && isDigit(buffer[i])) {
+            i++;
+        }
+
+        if (i == offset + TIMESTAMP_PREFIX_LENGTH || i == end || buffer[i] != 'Z') {
+            return -1;
+        }
+
+        return i + 1;
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    private ObjectNode fields() {
+        if (fields == null) {
+            fields = JsonNodeFactory.instance.objectNode();
+        }
+        return fields;
+    }
+
+    String getTime() {
+        return time;
+    }
+
+    String getExchange() {
+        return exchange;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getStep() {
+        return step;
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    Boolean getFailed() {
+        return failed;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    String getFailure() {
+        return failure;
+    }
+
+    Long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Fields other than the ones used by activity tracking, or {@code null} if
+     * there are none.
+     */
+    ObjectNode getFields() {
+        return fields;
+    }
+}
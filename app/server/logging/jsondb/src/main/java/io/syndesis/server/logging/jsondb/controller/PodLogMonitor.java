@@ -15,22 +15,24 @@
  */
 package io.syndesis.server.logging.jsondb.controller;
 
-import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.syndesis.common.util.KeyGenerator;
 import io.syndesis.common.util.json.JsonUtils;
@@ -51,8 +53,13 @@ class PodLogMonitor implements Consumer<InputStream> {
 
     private static final Logger LOG = LoggerFactory.getLogger(ActivityTrackingController.class);
 
-    // matches log lines like: 2018-06-06T21:54:36.30603486Z {"exchange":"i-LEM51uGKc6IuIjvR95Vz","status":"begin"}
-    private static final Pattern LOG_LINE_REGEX = Pattern.compile("^(\\d\\d\\d\\d\\-\\d\\d\\-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d+Z) (\\{.*\\})\\s*");
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private static final int INITIAL_LINE_SIZE = 1024;
+
+    private static final int MAX_LINE_LENGTH = 1024 * 10;
+
+    private static final byte[] TRUNCATED_JSON_TERMINATOR = "\"}".getBytes(UTF_8);
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final ActivityTrackingController logsController;
@@ -136,27 +143,46 @@ class PodLogMonitor implements Consumer<InputStream> {
     }
 
     void processLogStream(final InputStream is) throws IOException, InterruptedException {
-        ByteArrayOutputStream line = new ByteArrayOutputStream();
-        int c;
+        final byte[] chunk = new byte[READ_BUFFER_SIZE];
+        byte[] line = new byte[INITIAL_LINE_SIZE];
+        int lineLength = 0;
 
         while (!logsController.stopped.get()) {
-            c = is.read();
-            if (c < 0) {
+            final int read = is.read(chunk);
+            if (read < 0) {
                 break;
             }
 
-            line.write(c);
-            // cut really long lines to avoid blowing up our memory.
-            if (line.size() > 1024 * 10) {
-                // as the string is prematurely cut, add the closing terminator to the json value
-                line.write("\"}".getBytes(UTF_8));
-                c = '\n';
-            }
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                final boolean endOfLine = chunk[i] == '\n';
+                final int length = lineLength + i + 1 - start;
+
+                // cut really long lines to avoid blowing up our memory.
+                if (!endOfLine && length <= MAX_LINE_LENGTH) {
+                    continue;
+                }
+
+                line = append(line, lineLength, chunk, start, i + 1 - start);
+                lineLength += i + 1 - start;
+                start = i + 1;
+
+                if (!endOfLine) {
+                    // as the string is prematurely cut, add the closing terminator to the json value
+                    line = append(line, lineLength, TRUNCATED_JSON_TERMINATOR, 0, TRUNCATED_JSON_TERMINATOR.length);
+                    lineLength += TRUNCATED_JSON_TERMINATOR.length;
+                }
+
+                processLine(line, 0, lineLength);
+                lineLength = 0;
 
-            if (c == '\n') {
-                processLine(new String(line.toByteArray(), UTF_8));
-                line.reset();
+                if (logsController.stopped.get()) {
+                    return;
+                }
             }
+
+            line = append(line, lineLength, chunk, start, read - start);
+            lineLength += read - start;
         }
 
         if (!logsController.stopped.get()) {
@@ -174,7 +200,7 @@ class PodLogMonitor implements Consumer<InputStream> {
         Activity activity = new Activity();
         ArrayList<ActivityStep> doneSteps = new ArrayList<>();
         Map<String, ActivityStep> activeSteps = new LinkedHashMap<>();
-        Map<String, Object> metadata = new HashMap<>();
+        ObjectNode metadata = JsonNodeFactory.instance.objectNode();
 
         public ActivityStep getStep(String step, String id) throws IOException {
             ActivityStep rc = activeSteps.get(step);
@@ -202,21 +228,25 @@ class PodLogMonitor implements Consumer<InputStream> {
         return data;
     }
 
-    void processLine(String line) throws IOException {
-        // Does it look like a data of json structured output?
-        Matcher matcher = LOG_LINE_REGEX.matcher(line);
-        if (!matcher.matches()) {
-            return;
+    private static byte[] append(final byte[] line, final int lineLength, final byte[] source, final int offset, final int length) {
+        byte[] target = line;
+        if (lineLength + length > target.length) {
+            target = Arrays.copyOf(line, Math.max(target.length * 2, lineLength + length));
         }
+        System.arraycopy(source, offset, target, lineLength, length);
+        return target;
+    }
 
-        String time = matcher.group(1);
-        String data = matcher.group(2);
+    void processLine(final byte[] buffer, final int offset, final int length) throws IOException {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> json = JsonUtils.reader().forType(HashMap.class).readValue(data); //NOPMD
+            // Does it look like a data of json structured output?
+            final LogLine line = LogLine.parse(buffer, offset, length);
+            if (line == null) {
+                return;
+            }
 
             // are the required fields set?
-            String exchange = validate((String) json.remove("exchange"));
+            String exchange = validate(line.getExchange());
             if (exchange == null) {
                 // This log entry is not valid json format
                 return;
@@ -227,19 +257,20 @@ class PodLogMonitor implements Consumer<InputStream> {
                 // This log entry is too old.. don't process it..
                 return;
             }
+            String time = line.getTime();
             InflightData inflightData = getInflightData(exchange, time);
 
-            String id = validate((String) json.remove("id"));
-            String step = (String) json.remove("step");
+            String id = validate(line.getId());
+            String step = line.getStep();
             if (step == null) {
                 // Looks like an exchange level logging event.
-                processLogLineExchange(json, inflightData, exchange, time);
+                processLogLineExchange(line, inflightData, exchange, time);
             } else {
                 // Looks like a step level logging event.
-                processLogLineStep(json, inflightData, step, id);
+                processLogLineStep(line, inflightData, step, id);
             }
 
-        } catch (JsonDBException | ClassCastException | IOException ignored) {
+        } catch (JsonDBException | IOException ignored) {
             /// log record not in the expected format.
         } catch (InterruptedException e) {
             final InterruptedIOException rethrow = new InterruptedIOException(e.getMessage());
@@ -248,9 +279,9 @@ class PodLogMonitor implements Consumer<InputStream> {
         }
     }
 
-    private static void processLogLineStep(Map<String, Object> json, InflightData inflightData, String step, String id) throws IOException {
+    private static void processLogLineStep(LogLine line, InflightData inflightData, String step, String id) throws IOException {
         ActivityStep as = inflightData.getStep(step, id);
-        String message = (String) json.remove("message");
+        String message = line.getMessage();
         if (message != null) {
             if (as.getMessages() == null) {
                 as.setMessages(new ArrayList<>());
@@ -258,21 +289,30 @@ class PodLogMonitor implements Consumer<InputStream> {
             as.getMessages().add(message);
         }
 
-        String failure = (String) json.remove("failure");
+        String failure = line.getFailure();
         if (failure != null) {
             as.setFailure(failure);
         }
 
-        Number duration = (Number) json.remove("duration");
+        Long duration = line.getDuration();
         if (duration != null) {
-            as.setDuration(duration.longValue());
+            as.setDuration(duration);
         }
 
-        if (!json.isEmpty()) {
+        // exchange level fields have no special meaning on steps
+        ObjectNode event = line.getFields();
+        if (line.getStatus() != null) {
+            event = withField(event, "status", TextNode.valueOf(line.getStatus()));
+        }
+        if (line.getFailed() != null) {
+            event = withField(event, "failed", BooleanNode.valueOf(line.getFailed()));
+        }
+
+        if (event != null) {
             if (as.getEvents() == null) {
                 as.setEvents(new ArrayList<>());
             }
-            as.getEvents().add(toJsonNode(json));
+            as.getEvents().add(event);
         }
 
         if (duration != null) {
@@ -288,41 +328,66 @@ class PodLogMonitor implements Consumer<InputStream> {
         }
     }
 
-    private void processLogLineExchange(Map<String, Object> json, InflightData inflightData, String exchange, String time) throws IOException, InterruptedException {
-        Boolean failed = (Boolean) json.remove("failed");
+    private void processLogLineExchange(LogLine line, InflightData inflightData, String exchange, String time) throws IOException, InterruptedException {
+        Boolean failed = line.getFailed();
         if (failed != null) {
             inflightData.activity.setFailed(failed);
         }
-        String status = (String) json.remove("status");
-        inflightData.metadata.putAll(json);
+        String status = line.getStatus();
+
+        // step level fields have no special meaning on exchanges
+        if (line.getFields() != null) {
+            inflightData.metadata.setAll(line.getFields());
+        }
+        if (line.getMessage() != null) {
+            inflightData.metadata.put("message", line.getMessage());
+        }
+        if (line.getFailure() != null) {
+            inflightData.metadata.put("failure", line.getFailure());
+        }
+        if (line.getDuration() != null) {
+            inflightData.metadata.put("duration", line.getDuration());
+        }
+
         if (status != null) {
             inflightData.activity.setStatus(status);
             if ("done".equals(status)) {
                 inflightData.activity.setSteps(inflightData.doneSteps);
-                if (!inflightData.metadata.isEmpty()) {
-                    inflightData.activity.setMetadata(toJsonNode(inflightData.metadata));
+                if (inflightData.metadata.size() > 0) {
+                    inflightData.activity.setMetadata(inflightData.metadata);
                 }
 
                 String activityAsString = JsonUtils.writer().writeValueAsString(inflightData.activity);
                 String transactionPath = format("/exchanges/%s/%s", integrationId, exchange);
                 inflightActivities.remove(exchange);
 
-                logsController.eventQueue.put(batch -> {
-                    // Do as little as possible in here, single thread processes the event queue.
+                final boolean queued = logsController.enqueue(integrationId, batch -> {
+                    // Do as little as possible in here, a single thread processes the events of this integration.
                     batch.put(transactionPath, activityAsString);
                     trackState(time, batch);
                 });
 
+                if (!queued) {
+                    // the activity is dropped, but the position in the log
+                    // must still be recorded
+                    logsController.enqueueState(integrationId, batch -> trackState(time, batch));
+                }
+
             }
         }
     }
 
-    long now() {
-        return System.currentTimeMillis();
+    private static ObjectNode withField(ObjectNode fields, String name, JsonNode value) {
+        ObjectNode ret = fields;
+        if (ret == null) {
+            ret = JsonNodeFactory.instance.objectNode();
+        }
+        ret.set(name, value);
+        return ret;
     }
 
-    private static JsonNode toJsonNode(Map<String, Object> json) throws IOException {
-        return JsonUtils.reader().readTree(JsonUtils.writer().writeValueAsString(json));
+    long now() {
+        return System.currentTimeMillis();
     }
 
     private void trackState(String time, Map<String, Object> batch) {
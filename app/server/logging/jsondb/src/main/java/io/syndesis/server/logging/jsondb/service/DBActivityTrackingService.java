@@ -19,22 +19,35 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import io.syndesis.common.util.KeyGenerator;
 import io.syndesis.common.util.json.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import io.syndesis.server.endpoint.v1.handler.activity.Activity;
+import io.syndesis.server.endpoint.v1.handler.activity.ActivityQuery;
+import io.syndesis.server.endpoint.v1.handler.activity.ActivityStep;
 import io.syndesis.server.endpoint.v1.handler.activity.ActivityTrackingService;
 import io.syndesis.server.jsondb.GetOptions;
 import io.syndesis.server.jsondb.JsonDB;
 import io.syndesis.server.logging.jsondb.controller.ActivityTrackingController;
+import io.syndesis.server.logging.jsondb.store.ActivityTable;
 
 /**
  * Implements a dblogging service for the Activity JAXRS service.
@@ -44,23 +57,41 @@ import io.syndesis.server.logging.jsondb.controller.ActivityTrackingController;
 public class DBActivityTrackingService implements ActivityTrackingService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ActivityTrackingController.class);
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int MIN_PAGE_SIZE = 100;
+    private static final int MAX_SCANNED = 10_000;
+
+    private static final ObjectReader ACTIVITY_READER = JsonUtils.reader().forType(Activity.class);
+    private static final ObjectReader SUMMARY_READER = JsonUtils.copyObjectMapperConfiguration()
+        .addMixIn(ActivityStep.class, SummaryStep.class)
+        .readerFor(Activity.class);
+
     private final JsonDB jsondb;
+    private ActivityTable activityTable;
 
     public DBActivityTrackingService(final JsonDB jsondb) {
         this.jsondb = jsondb;
     }
 
+    @Autowired(required = false)
+    public void setActivityTable(ActivityTable activityTable) {
+        this.activityTable = activityTable;
+    }
+
     @Override
     public List<Activity> getActivities(String integrationId, String from, Integer requestedLimit) throws IOException {
 
         String path = "/activity/exchanges/" + integrationId;
 
-        int limit = 10;
-        if( requestedLimit != null ) {
-            limit = requestedLimit;
-        }
-        if( limit > 1000 ) {
-            limit = 1000; // max out to 1000 per request.
+        int limit = limitOf(requestedLimit);
+
+        if (activityTable != null) {
+            List<Activity> rc = new ArrayList<>();
+            for (String value : activityTable.activities(integrationId, from, limit)) {
+                addActivity(rc, value);
+            }
+            return rc;
         }
 
         GetOptions options = new GetOptions()
@@ -78,19 +109,157 @@ public class DBActivityTrackingService implements ActivityTrackingService {
         Iterator<Map.Entry<String, JsonNode>> i = map.fields();
         while (i.hasNext()) {
             Map.Entry<String, JsonNode> entry = i.next();
-            try {
-                String value = entry.getValue().textValue();
-                Activity activity = JsonUtils.reader().forType(Activity.class).readValue(value);
-                if (activity.getSteps() == null){
-                    activity.setSteps(new ArrayList<>());
+            addActivity(rc, entry.getValue().textValue());
+        }
+        return rc;
+    }
+
+    /**
+     * Scans the activities of the integration newest first, in pages keyed by
+     * exchange id, until the limit of matching activities is reached, an
+     * exchange older than the start of the queried time range is read or at
+     * most {@value #MAX_SCANNED} activities have been read. The returned
+     * cursor encodes the last read exchange id so a selective query can be
+     * continued where the scan stopped.
+     */
+    @Override
+    public String getActivities(String integrationId, ActivityQuery query, ActivityConsumer consumer) throws IOException {
+        final int limit = limitOf(query.limit());
+        if (limit < 1) {
+            throw new WebApplicationException("Limit needs to be positive, given: " + limit, Response.Status.BAD_REQUEST);
+        }
+
+        final int pageSize = Math.min(Math.max(limit, MIN_PAGE_SIZE), MAX_LIMIT);
+        final ObjectReader reader = query.summary() ? SUMMARY_READER : ACTIVITY_READER;
+
+        String after = positionOf(query);
+        if (after == null && query.until() != null && activityTable == null) {
+            // exchange ids are time ordered keys, start after the last possible key of the range
+            after = KeyGenerator.recreateKey(query.until() + 1, 0, 0);
+        }
+
+        int found = 0;
+        int scanned = 0;
+        while (scanned < MAX_SCANNED) {
+            final Map<String, String> page = page(integrationId, after, query, pageSize);
+            for (Map.Entry<String, String> entry : page.entrySet()) {
+                if (query.since() != null && activityTable == null && isOlderThan(entry.getKey(), query.since())) {
+                    // exchange ids are time ordered keys, the remaining exchanges are all older
+                    return null;
+                }
+
+                scanned++;
+                after = entry.getKey();
+
+                final Activity activity = readActivity(reader, entry.getValue());
+                if (activity == null) {
+                    continue;
+                }
+                if (query.matches(activity)) {
+                    consumer.accept(activity);
+                    if (++found == limit) {
+                        return ActivityQuery.cursorOf(after);
+                    }
                 }
-                rc.add(activity);
-            } catch (RuntimeException ignored) {
-                // We could get stuff like class cast exceptions..
-                LOG.debug("Could convert entry: {}", entry, ignored);
+            }
+
+            if (page.size() < pageSize) {
+                return null;
             }
         }
-        return rc;
+
+        return ActivityQuery.cursorOf(after);
+    }
+
+    private Map<String, String> page(String integrationId, String after, ActivityQuery query, int pageSize) throws IOException {
+        if (activityTable != null) {
+            return activityTable.activities(integrationId, after, query.since(), query.until(), pageSize);
+        }
+
+        final GetOptions options = new GetOptions()
+            .order(GetOptions.Order.DESC)
+            .startAfter(after)
+            .limitToFirst(pageSize);
+
+        final Map<String, String> page = new LinkedHashMap<>();
+        final byte[] data = jsondb.getAsByteArray("/activity/exchanges/" + integrationId, options);
+        if (data == null) {
+            return page;
+        }
+
+        // read the entries of the map one by one, instead of as a tree
+        try (JsonParser parser = JsonUtils.reader().getFactory().createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return page;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String exchange = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    page.put(exchange, parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return page;
+    }
+
+    private static int limitOf(Integer requestedLimit) {
+        int limit = 10;
+        if( requestedLimit != null ) {
+            limit = requestedLimit;
+        }
+        if( limit > MAX_LIMIT ) {
+            limit = MAX_LIMIT; // max out to 1000 per request.
+        }
+        return limit;
+    }
+
+    private static String positionOf(ActivityQuery query) {
+        try {
+            return query.position();
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException("Invalid cursor: " + query.cursor(), e, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private static boolean isOlderThan(String exchange, long since) {
+        try {
+            return KeyGenerator.getKeyTimeMillis(exchange) < since;
+        } catch (IOException | IllegalArgumentException ignored) {
+            LOG.debug("Exchange id {} is not a generated key", exchange, ignored);
+            return false;
+        }
+    }
+
+    private static Activity readActivity(ObjectReader reader, String value) throws IOException {
+        try {
+            Activity activity = reader.readValue(value);
+            if (activity.getSteps() == null){
+                activity.setSteps(new ArrayList<>());
+            }
+            return activity;
+        } catch (RuntimeException ignored) {
+            // We could get stuff like class cast exceptions..
+            LOG.debug("Could convert entry: {}", value, ignored);
+            return null;
+        }
+    }
+
+    private static void addActivity(List<Activity> activities, String value) throws IOException {
+        final Activity activity = readActivity(ACTIVITY_READER, value);
+        if (activity != null) {
+            activities.add(activity);
+        }
+    }
+
+    /**
+     * Leaves the messages and events of the steps out when reading summaries.
+     */
+    @JsonIgnoreProperties({"messages", "events"})
+    private abstract static class SummaryStep {
+        // mixin only
     }
 
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.store;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import io.syndesis.common.util.KeyGenerator;
+import io.syndesis.common.util.SyndesisServerException;
+import io.syndesis.server.jsondb.impl.SqlJsonDB;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.PreparedBatch;
+import org.skife.jdbi.v2.Query;
+import org.skife.jdbi.v2.ResultIterator;
+import org.skife.jdbi.v2.exceptions.DBIException;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores activities in their own table instead of the generic {@code jsondb}
+ * table, indexed by integration and exchange id. Exchange ids are time ordered
+ * so the newest activities of an integration are read from the end of the
+ * index. On PostgreSQL 11 or later the table is partitioned by day so
+ * activities are expired by dropping whole partitions, on older versions,
+ * or if the table was created unpartitioned by an older version, activities
+ * are expired row by row like on the other databases.
+ */
+@Component
+@ConditionalOnProperty(value = "dblogging.storage", havingValue = "table")
+public class ActivityTable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityTable.class);
+
+    private static final String PARTITION_PREFIX = "activity_p";
+
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // SQL states of PostgreSQL's unique_violation and duplicate_table
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String DUPLICATE_TABLE = "42P07";
+
+    // declarative partitioning with ON CONFLICT needs PostgreSQL 11
+    private static final int PARTITIONING_MAJOR_VERSION = 11;
+
+    private final DBI dbi;
+
+    private final Set<LocalDate> partitions = ConcurrentHashMap.newKeySet();
+
+    private SqlJsonDB.DatabaseKind databaseKind;
+
+    private boolean partitioned;
+
+    public ActivityTable(DBI dbi) {
+        this.dbi = dbi;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        dbi.useHandle(h -> {
+            databaseKind = databaseKind(h);
+
+            partitioned = databaseKind == SqlJsonDB.DatabaseKind.PostgreSQL && supportsPartitioning(h);
+
+            if (partitioned) {
+                h.execute("CREATE TABLE IF NOT EXISTS activity (integration VARCHAR COLLATE \"C\" NOT NULL, exchange VARCHAR COLLATE \"C\" NOT NULL, "
+                    + "at BIGINT NOT NULL, value TEXT NOT NULL, PRIMARY KEY (integration, exchange, at)) PARTITION BY RANGE (at)");
+                partitions.addAll(listPartitions(h));
+            } else if (databaseKind == SqlJsonDB.DatabaseKind.PostgreSQL) {
+                // exchange ids are ordered by their bytes, not by the locale
+                h.execute("CREATE TABLE IF NOT EXISTS activity (integration VARCHAR COLLATE \"C\" NOT NULL, exchange VARCHAR COLLATE \"C\" NOT NULL, "
+                    + "at BIGINT NOT NULL, value TEXT NOT NULL, PRIMARY KEY (integration, exchange))");
+                h.execute("CREATE INDEX IF NOT EXISTS activity_at ON activity (at)");
+            } else {
+                h.execute("CREATE TABLE IF NOT EXISTS activity (integration VARCHAR NOT NULL, exchange VARCHAR NOT NULL, "
+                    + "at BIGINT NOT NULL, value TEXT NOT NULL, PRIMARY KEY (integration, exchange))");
+                h.execute("CREATE INDEX IF NOT EXISTS activity_at ON activity (at)");
+            }
+        });
+    }
+
+    public void dropTable() {
+        dbi.useHandle(h -> h.execute("DROP TABLE activity"));
+        partitions.clear();
+    }
+
+    /**
+     * Writes the activities, given as JSON keyed by integration id and
+     * exchange id, within the given transaction, replacing the activities
+     * already stored for the same exchanges. The activity time is taken
+     * from the exchange id, activities whose exchange id is not a
+     * {@link KeyGenerator} key are not stored.
+     */
+    public void write(Handle h, Map<String, Map<String, String>> activitiesByIntegration) {
+        final String sql;
+        switch (databaseKind) {
+        case PostgreSQL:
+            sql = "INSERT INTO activity (integration, exchange, at, value) VALUES (?, ?, ?, ?) "
+                + (partitioned ? "ON CONFLICT (integration, exchange, at)" : "ON CONFLICT (integration, exchange)")
+                + " DO UPDATE SET value = EXCLUDED.value";
+            break;
+        case CockroachDB:
+            sql = "UPSERT INTO activity (integration, exchange, at, value) VALUES (?, ?, ?, ?)";
+            break;
+        case H2:
+            sql = "MERGE INTO activity (integration, exchange, at, value) KEY (integration, exchange) VALUES (?, ?, ?, ?)";
+            break;
+        case SQLite:
+            sql = "INSERT OR REPLACE INTO activity (integration, exchange, at, value) VALUES (?, ?, ?, ?)";
+            break;
+        default:
+            throw new IllegalStateException("Unsupported database: " + databaseKind);
+        }
+
+        final PreparedBatch insert = h.prepareBatch(sql);
+        for (Map.Entry<String, Map<String, String>> integration : activitiesByIntegration.entrySet()) {
+            for (Map.Entry<String, String> activity : integration.getValue().entrySet()) {
+                final Long at = timeOf(activity.getKey());
+                if (at == null) {
+                    LOG.warn("Not storing activity of integration {}, exchange id {} is not a key", integration.getKey(), activity.getKey());
+                    continue;
+                }
+                insert.add(integration.getKey(), activity.getKey(), at, activity.getValue());
+            }
+        }
+        if (insert.size() > 0) {
+            insert.execute();
+        }
+    }
+
+    /**
+     * Creates the partitions needed to store the given activities, in their
+     * own transactions so that they are not rolled back with a failed write.
+     * Writers preparing the same day concurrently may both try to create
+     * its partition, the one that loses ignores the failure.
+     */
+    public void prepare(Map<String, Map<String, String>> activitiesByIntegration) {
+        if (!isPartitioned()) {
+            return;
+        }
+
+        final Set<LocalDate> days = new TreeSet<>();
+        for (Map<String, String> activities : activitiesByIntegration.values()) {
+            for (String exchange : activities.keySet()) {
+                final Long at = timeOf(exchange);
+                if (at != null) {
+                    days.add(dayOf(at));
+                }
+            }
+        }
+        days.removeAll(partitions);
+
+        for (LocalDate day : days) {
+            createPartition(day);
+        }
+    }
+
+    /**
+     * Returns the activities of the integration as JSON, newest first,
+     * starting after the given exchange id.
+     */
+    public List<String> activities(String integrationId, String from, int limit) {
+        return dbi.withHandle(h -> {
+            if (from == null) {
+                return h.createQuery("SELECT value FROM activity WHERE integration = ? ORDER BY exchange DESC LIMIT ?")
+                    .bind(0, integrationId)
+                    .bind(1, limit)
+                    .map(StringColumnMapper.INSTANCE)
+                    .list();
+            }
+
+            return h.createQuery("SELECT value FROM activity WHERE integration = ? AND exchange < ? ORDER BY exchange DESC LIMIT ?")
+                .bind(0, integrationId)
+                .bind(1, from)
+                .bind(2, limit)
+                .map(StringColumnMapper.INSTANCE)
+                .list();
+        });
+    }
+
+    /**
+     * Returns the activities of the integration as JSON keyed by exchange id,
+     * newest first, starting after the given exchange id and limited to the
+     * given time range.
+     */
+    public Map<String, String> activities(String integrationId, String after, Long since, Long until, int limit) {
+        final StringBuilder sql = new StringBuilder("SELECT exchange, value FROM activity WHERE integration = ?");
+        final List<Object> params = new ArrayList<>();
+        params.add(integrationId);
+        if (after != null) {
+            sql.append(" AND exchange < ?");
+            params.add(after);
+        }
+        if (since != null) {
+            sql.append(" AND at >= ?");
+            params.add(since);
+        }
+        if (until != null) {
+            sql.append(" AND at <= ?");
+            params.add(until);
+        }
+        sql.append(" ORDER BY exchange DESC LIMIT ?");
+        params.add(limit);
+
+        return dbi.withHandle(h -> {
+            final Query<Map<String, Object>> query = h.createQuery(sql.toString());
+            for (int i = 0; i < params.size(); i++) {
+                query.bind(i, params.get(i));
+            }
+
+            final Map<String, String> activities = new LinkedHashMap<>();
+            try (ResultIterator<String[]> rows = query.map((index, rs, ctx) -> new String[] {rs.getString(1), rs.getString(2)}).iterator()) {
+                while (rows.hasNext()) {
+                    final String[] row = rows.next();
+                    activities.put(row[0], row[1]);
+                }
+            }
+            return activities;
+        });
+    }
+
+    /**
+     * Deletes all but the newest {@code retention} activities of the
+     * integration. The cutoff is found by walking the index, rows older
+     * than the cutoff are then deleted by range.
+     */
+    public int retain(String integrationId, int retention) {
+        return dbi.inTransaction((h, status) -> {
+            final String cutoff = h.createQuery("SELECT exchange FROM activity WHERE integration = ? ORDER BY exchange DESC LIMIT 1 OFFSET ?")
+                .bind(0, integrationId)
+                .bind(1, retention)
+                .map(StringColumnMapper.INSTANCE)
+                .first();
+
+            if (cutoff == null) {
+                return 0;
+            }
+
+            return h.update("DELETE FROM activity WHERE integration = ? AND exchange <= ?", integrationId, cutoff);
+        });
+    }
+
+    /**
+     * Removes the activities older than the given time, if the table is
+     * partitioned only whole days are removed by dropping their partitions.
+     * The partition of the following day is created ahead of time, so that
+     * writers rarely need to create one.
+     *
+     * @return the number of removed activities, or of removed partitions if
+     *         the table is partitioned
+     */
+    public int expire(Instant before) {
+        if (!isPartitioned()) {
+            return dbi.withHandle(h -> h.update("DELETE FROM activity WHERE at < ?", before.toEpochMilli()));
+        }
+
+        final LocalDate tomorrow = dayOf(System.currentTimeMillis()).plusDays(1);
+        if (!partitions.contains(tomorrow)) {
+            createPartition(tomorrow);
+        }
+
+        final LocalDate firstKept = dayOf(before.toEpochMilli());
+        return dbi.withHandle(h -> {
+            int dropped = 0;
+            for (LocalDate day : listPartitions(h)) {
+                if (day.isBefore(firstKept)) {
+                    h.execute("DROP TABLE IF EXISTS " + partitionName(day));
+                    partitions.remove(day);
+                    dropped++;
+                }
+            }
+            return dropped;
+        });
+    }
+
+    private boolean isPartitioned() {
+        return partitioned;
+    }
+
+    private void createPartition(LocalDate day) {
+        final long from = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        try {
+            dbi.useHandle(h -> h.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day) + " PARTITION OF activity FOR VALUES FROM ("
+                + from + ") TO (" + (from + DAY_MILLIS) + ")"));
+        } catch (DBIException e) {
+            // IF NOT EXISTS does not prevent concurrent creations from
+            // failing on the catalog's unique constraints
+            if (!isDuplicate(e)) {
+                throw e;
+            }
+            LOG.debug("Activity partition {} was created concurrently", partitionName(day), e);
+        }
+        partitions.add(day);
+    }
+
+    private static boolean isDuplicate(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                final String state = ((SQLException) cause).getSQLState();
+                if (UNIQUE_VIOLATION.equals(state) || DUPLICATE_TABLE.equals(state)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Partitions the table on PostgreSQL 11 or later, keeping the table as it
+     * is if it was already created, partitioned or not.
+     */
+    private static boolean supportsPartitioning(Handle h) {
+        final String kind = h.createQuery("SELECT c.relkind FROM pg_class c WHERE c.relname = 'activity' AND pg_table_is_visible(c.oid)")
+            .map(StringColumnMapper.INSTANCE)
+            .first();
+        if (kind != null) {
+            return "p".equals(kind);
+        }
+
+        try {
+            return h.getConnection().getMetaData().getDatabaseMajorVersion() >= PARTITIONING_MAJOR_VERSION;
+        } catch (SQLException e) {
+            throw SyndesisServerException.launderThrowable(e);
+        }
+    }
+
+    private static Set<LocalDate> listPartitions(Handle h) {
+        final List<String> names = h.createQuery("SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'activity'")
+            .map(StringColumnMapper.INSTANCE)
+            .list();
+
+        final Set<LocalDate> days = new TreeSet<>();
+        for (String name : names) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+
+            try {
+                days.add(LocalDate.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_FORMAT));
+            } catch (DateTimeParseException e) {
+                LOG.debug("Ignoring activity partition {}", name, e);
+            }
+        }
+
+        return days;
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_FORMAT.format(day);
+    }
+
+    private static LocalDate dayOf(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    /**
+     * Returns the time of the exchange from its id, or {@code null} if the id
+     * is not a key. The time is part of the primary key of the partitioned
+     * table, so it has to be the same each time the activity of an exchange
+     * is written.
+     */
+    private static Long timeOf(String exchange) {
+        try {
+            return KeyGenerator.getKeyTimeMillis(exchange);
+        } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") IOException | RuntimeException e) {
+            LOG.debug("Exchange id {} is not a key", exchange, e);
+            return null;
+        }
+    }
+
+    private static SqlJsonDB.DatabaseKind databaseKind(Handle h) {
+        try {
+            final String dbName = h.getConnection().getMetaData().getDatabaseProductName();
+            SqlJsonDB.DatabaseKind kind;
+            try {
+                kind = SqlJsonDB.DatabaseKind.valueOf(dbName);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Storing activities in their own table is not supported on " + dbName
+                    + ", use the default dblogging.storage", e);
+            }
+
+            // CockroachDB uses the PostgreSQL driver.. so need to look a little closer.
+            if (kind == SqlJsonDB.DatabaseKind.PostgreSQL) {
+                final String version = h.createQuery("SELECT VERSION()").mapTo(String.class).first();
+                if (version.startsWith("CockroachDB")) {
+                    kind = SqlJsonDB.DatabaseKind.CockroachDB;
+                }
+            }
+
+            return kind;
+        } catch (SQLException e) {
+            throw SyndesisServerException.launderThrowable(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.controller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.given;
+
+public class ActivityBatchPipelineTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    @Test
+    public void shouldWriteEventsOfAnIntegrationOnTheSameWriter() throws InterruptedException {
+        final Map<String, String> writtenBy = new ConcurrentHashMap<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        final ActivityBatchPipeline pipeline = new ActivityBatchPipeline(4, 100, 10, Duration.ofMillis(50), Duration.ofSeconds(1), batch -> {
+            batchSizes.add(batch.size());
+            for (String key : batch.keySet()) {
+                final String previous = writtenBy.put(key.substring(0, key.indexOf('/', 1)), Thread.currentThread().getName());
+                assertThat(previous).isIn(null, Thread.currentThread().getName());
+            }
+        }, stopped, registry);
+
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            pipeline.start(executor);
+
+            for (int i = 0; i < 100; i++) {
+                final String integrationId = "/i-" + (i % 7);
+                final String key = integrationId + "/" + i;
+                assertThat(pipeline.enqueue(integrationId, batch -> batch.put(key, Boolean.TRUE))).isTrue();
+            }
+
+            given().await()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(100));
+        } finally {
+            stopped.set(true);
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(writtenBy).hasSize(7);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(10));
+        assertThat(registry.get("syndesis.activity.events").tag("outcome", "queued").counter().count()).isEqualTo(100);
+        assertThat(registry.get("syndesis.activity.batch.latency").timer().count()).isEqualTo(batchSizes.size());
+    }
+
+    @Test
+    public void shouldDropEventsWhenWritersDoNotCatchUp() throws InterruptedException {
+        final ActivityBatchPipeline pipeline = new ActivityBatchPipeline(1, 2, 10, Duration.ofMillis(50), Duration.ofMillis(10), batch -> {
+            // not started
+        }, stopped, registry);
+
+        assertThat(pipeline.enqueue("i-1", batch -> batch.put("/a", Boolean.TRUE))).isTrue();
+        assertThat(pipeline.enqueue("i-1", batch -> batch.put("/b", Boolean.TRUE))).isTrue();
+        assertThat(pipeline.enqueue("i-1", batch -> batch.put("/c", Boolean.TRUE))).isFalse();
+
+        assertThat(pipeline.depth(0)).isEqualTo(2);
+        assertThat(registry.get("syndesis.activity.queue.depth").tag("partition", "0").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("syndesis.activity.events").tag("outcome", "late").counter().count()).isEqualTo(1);
+        assertThat(registry.get("syndesis.activity.events").tag("outcome", "dropped").counter().count()).isEqualTo(1);
+
+        pipeline.close();
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotDropStateEventsWhenWritersDoNotCatchUp() throws InterruptedException {
+        final List<String> written = new CopyOnWriteArrayList<>();
+        final ActivityBatchPipeline pipeline = new ActivityBatchPipeline(1, 2, 10, Duration.ofMillis(50), Duration.ofMillis(10),
+            batch -> written.addAll(batch.keySet()), stopped, registry);
+
+        assertThat(pipeline.enqueue("i-1", batch -> batch.put("/a", Boolean.TRUE))).isTrue();
+        assertThat(pipeline.enqueue("i-1", batch -> batch.put("/b", Boolean.TRUE))).isTrue();
+        assertThat(pipeline.enqueue("i-1", batch -> batch.put("/c", Boolean.TRUE))).isFalse();
+
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            final Future<?> state = executor.submit(() -> {
+                pipeline.enqueueState("i-1", batch -> batch.put("/pods/p-1", Boolean.TRUE));
+                return null;
+            });
+
+            // blocked well past the enqueue timeout while the queue is full
+            Thread.sleep(200);
+            assertThat(state).isNotDone();
+
+            pipeline.start(executor);
+
+            given().await()
+                .atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(written).containsExactly("/a", "/b", "/pods/p-1"));
+            assertThat(state).isDone();
+        } finally {
+            stopped.set(true);
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(registry.get("syndesis.activity.events").tag("outcome", "queued").counter().count()).isEqualTo(3);
+        assertThat(registry.get("syndesis.activity.events").tag("outcome", "late").counter().count()).isEqualTo(2);
+        assertThat(registry.get("syndesis.activity.events").tag("outcome", "dropped").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogLineTest {
+
+    @Test
+    public void shouldParseExchangeLines() throws IOException {
+        final LogLine line = parse("2018-06-06T21:54:36.30603486Z {\"exchange\":\"i-LEM51uGKc6IuIjvR95Vz\",\"status\":\"done\",\"failed\":true,\"custom\":{\"a\":1}}\n");
+
+        assertThat(line).isNotNull();
+        assertThat(line.getTime()).isEqualTo("2018-06-06T21:54:36.30603486Z");
+        assertThat(line.getExchange()).isEqualTo("i-LEM51uGKc6IuIjvR95Vz");
+        assertThat(line.getStep()).isNull();
+        assertThat(line.getStatus()).isEqualTo("done");
+        assertThat(line.getFailed()).isTrue();
+        assertThat(line.getFields()).hasToString("{\"custom\":{\"a\":1}}");
+    }
+
+    @Test
+    public void shouldParseStepLines() throws IOException {
+        final LogLine line = parse("2018-06-06T21:54:36.3Z {\"exchange\":\"i-L38cZ51d1L876xV4vEFz\",\"step\":\"s2\",\"id\":\"i-L38cZ5Jd1L876xV4vEGz\",\"duration\":582977,\"message\":\"Hello\"}  \r\n");
+
+        assertThat(line).isNotNull();
+        assertThat(line.getStep()).isEqualTo("s2");
+        assertThat(line.getId()).isEqualTo("i-L38cZ5Jd1L876xV4vEGz");
+        assertThat(line.getDuration()).isEqualTo(582977L);
+        assertThat(line.getMessage()).isEqualTo("Hello");
+        assertThat(line.getFields()).isNull();
+    }
+
+    @Test
+    public void shouldIgnoreUnstructuredLines() throws IOException {
+        assertThat(parse("2018-01-12T21:22:02.068338027Z Starting the Java application\n")).isNull();
+        assertThat(parse("2018-01-12T21:22:02.068338027Z\n")).isNull();
+        assertThat(parse("2018-01-12 21:22:02.068338027Z {\"exchange\":\"x\"}\n")).isNull();
+        assertThat(parse("2018-01-12T21:22:02.Z {\"exchange\":\"x\"}\n")).isNull();
+        assertThat(parse("2018-01-12T21:22:02.068338027Z {\"exchange\":\"x\"} trailing\n")).isNull();
+        assertThat(parse("2018-01-12T21:22:02.068338027Z {\"exchange\":1}\n")).isNull();
+    }
+
+    @Test
+    public void shouldParseWithinBuffer() throws IOException {
+        final byte[] buffer = "garbage2018-06-06T21:54:36.1Z {\"exchange\":\"i-x\"}\ngarbage".getBytes(StandardCharsets.UTF_8);
+
+        final LogLine line = LogLine.parse(buffer, 7, buffer.length - 14);
+
+        assertThat(line).isNotNull();
+        assertThat(line.getExchange()).isEqualTo("i-x");
+    }
+
+    private static LogLine parse(final String line) throws IOException {
+        final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return LogLine.parse(bytes, 0, bytes.length);
+    }
+}
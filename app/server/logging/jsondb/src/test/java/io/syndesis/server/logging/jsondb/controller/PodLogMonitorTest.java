@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.controller;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.syndesis.common.util.KeyGenerator;
+import io.syndesis.common.util.json.JsonUtils;
+import io.syndesis.server.openshift.OpenShiftService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PodLogMonitorTest {
+
+    private final ActivityTrackingController controller = mock(ActivityTrackingController.class);
+
+    private final Pod pod = new PodBuilder()
+        .withNewMetadata()
+        .withName("test-pod-x23x")
+        .addToLabels(OpenShiftService.DEPLOYMENT_VERSION_LABEL, "3")
+        .addToLabels(OpenShiftService.INTEGRATION_ID_LABEL, "my-integration")
+        .endMetadata()
+        .build();
+
+    @Test
+    public void shouldTrackStepsWithKeyIds() throws IOException, InterruptedException {
+        when(controller.getRetentionTime()).thenReturn(Duration.ofDays(1));
+        when(controller.enqueue(eq("my-integration"), any())).thenReturn(true);
+
+        final PodLogMonitor monitor = new PodLogMonitor(controller, pod);
+        monitor.state = new PodLogState();
+
+        // step ids are created by the integration runtime using KeyGenerator
+        final String exchange = KeyGenerator.createKey();
+        final String step = KeyGenerator.createKey();
+
+        process(monitor, "{\"exchange\":\"" + exchange + "\",\"status\":\"begin\"}");
+        process(monitor, "{\"exchange\":\"" + exchange + "\",\"step\":\"s1\",\"id\":\"" + step + "\",\"message\":\"Hello\"}");
+        process(monitor, "{\"exchange\":\"" + exchange + "\",\"step\":\"s1\",\"id\":\"" + step + "\",\"duration\":12}");
+        process(monitor, "{\"exchange\":\"" + exchange + "\",\"status\":\"done\",\"failed\":false}");
+
+        final ArgumentCaptor<BatchOperation> operation = ArgumentCaptor.forClass(BatchOperation.class);
+        verify(controller).enqueue(eq("my-integration"), operation.capture());
+
+        final Map<String, Object> batch = new HashMap<>();
+        operation.getValue().apply(batch);
+
+        final JsonNode activity = JsonUtils.reader().readTree((String) batch.get("/exchanges/my-integration/" + exchange));
+        final JsonNode steps = activity.get("steps");
+        assertThat(steps).hasSize(1);
+        assertThat(steps.get(0).get("id").asText()).isEqualTo("s1");
+        assertThat(steps.get(0).get("at").asLong()).isEqualTo(KeyGenerator.getKeyTimeMillis(step));
+        assertThat(steps.get(0).get("duration").asLong()).isEqualTo(12);
+        assertThat(steps.get(0).get("messages").get(0).asText()).isEqualTo("Hello");
+        assertThat(batch).containsKeys("/pods/test-pod-x23x", "/integrations/my-integration");
+
+        verify(controller, never()).enqueueState(any(), any());
+    }
+
+    @Test
+    public void shouldTrackStateOfDroppedActivities() throws IOException, InterruptedException {
+        when(controller.getRetentionTime()).thenReturn(Duration.ofDays(1));
+        when(controller.enqueue(eq("my-integration"), any())).thenReturn(false);
+
+        final PodLogMonitor monitor = new PodLogMonitor(controller, pod);
+        monitor.state = new PodLogState();
+
+        final String exchange = KeyGenerator.createKey();
+
+        process(monitor, "{\"exchange\":\"" + exchange + "\",\"status\":\"begin\"}");
+        process(monitor, "{\"exchange\":\"" + exchange + "\",\"status\":\"done\",\"failed\":false}");
+
+        final ArgumentCaptor<BatchOperation> operation = ArgumentCaptor.forClass(BatchOperation.class);
+        verify(controller).enqueueState(eq("my-integration"), operation.capture());
+
+        final Map<String, Object> batch = new HashMap<>();
+        operation.getValue().apply(batch);
+
+        assertThat(batch).containsOnlyKeys("/pods/test-pod-x23x", "/integrations/my-integration");
+        assertThat(monitor.state.time).isEqualTo("2018-06-06T21:54:36.3Z");
+    }
+
+    private static void process(final PodLogMonitor monitor, final String event) throws IOException {
+        final byte[] line = ("2018-06-06T21:54:36.3Z " + event + "\n").getBytes(UTF_8);
+        monitor.processLine(line, 0, line.length);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.syndesis.common.util.json.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the regular expression and tree model based parsing of pod log
+ * lines with the streaming {@link LogLine} parser, over the lines of the
+ * recorded {@code test-pod-x23x.txt} log. Not run as part of the build, run
+ * with {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodLogParsingBenchmark {
+
+    private static final Pattern LOG_LINE_REGEX = Pattern.compile("^(\\d\\d\\d\\d\\-\\d\\d\\-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d+Z) (\\{.*\\})\\s*");
+
+    private static final ObjectReader MAP_READER = JsonUtils.reader().forType(HashMap.class);
+
+    private byte[] log;
+
+    private final List<int[]> lines = new ArrayList<>();
+
+    @Setup
+    public void readLog() throws IOException {
+        try (InputStream is = PodLogParsingBenchmark.class.getResourceAsStream("/test-pod-x23x.txt")) {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[4096];
+            int read;
+            while ((read = is.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            final byte[] recorded = buffer.toByteArray();
+
+            log = new byte[recorded.length * 100];
+            for (int i = 0; i < 100; i++) {
+                System.arraycopy(recorded, 0, log, i * recorded.length, recorded.length);
+            }
+        }
+
+        int start = 0;
+        for (int i = 0; i < log.length; i++) {
+            if (log[i] == '\n') {
+                lines.add(new int[] {start, i + 1 - start});
+                start = i + 1;
+            }
+        }
+    }
+
+    @Benchmark
+    public void regexAndMap(final Blackhole blackhole) throws IOException {
+        for (int[] line : lines) {
+            final Matcher matcher = LOG_LINE_REGEX.matcher(new String(log, line[0], line[1], UTF_8));
+            if (matcher.matches()) {
+                final Map<String, Object> json = MAP_READER.readValue(matcher.group(2));
+                blackhole.consume(matcher.group(1));
+                blackhole.consume(json);
+            }
+        }
+    }
+
+    @Benchmark
+    public void streaming(final Blackhole blackhole) throws IOException {
+        for (int[] line : lines) {
+            blackhole.consume(LogLine.parse(log, line[0], line[1]));
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PodLogParsingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.WebApplicationException;
+
+import io.syndesis.common.util.KeyGenerator;
+import io.syndesis.common.util.json.JsonUtils;
+import io.syndesis.server.endpoint.v1.handler.activity.Activity;
+import io.syndesis.server.endpoint.v1.handler.activity.ActivityQuery;
+import io.syndesis.server.jsondb.GetOptions;
+import io.syndesis.server.jsondb.JsonDB;
+import io.syndesis.server.logging.jsondb.store.ActivityTable;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DBActivityTrackingServiceTest {
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private ActivityTable table;
+
+    private DBActivityTrackingService service;
+
+    private final List<String> exchanges = new ArrayList<>();
+
+    @BeforeEach
+    public void createActivities() {
+        final JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:activity-service;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        final DBI dbi = new DBI(ds);
+
+        table = new ActivityTable(dbi);
+        table.createTable();
+
+        // ten activities a minute apart, oldest first, every third one failed
+        final Map<String, String> activities = new TreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            final long at = NOW - TimeUnit.MINUTES.toMillis(9 - i);
+            final String exchange = KeyGenerator.recreateKey(at, 0, i);
+            exchanges.add(exchange);
+            activities.put(exchange, "{\"id\":\"" + exchange + "\",\"at\":" + at + ",\"failed\":" + (i % 3 == 0)
+                + ",\"steps\":[{\"id\":\"step-" + (i % 2) + "\",\"messages\":[\"message " + i + "\"]}]}");
+        }
+
+        final Map<String, Map<String, String>> batch = Collections.singletonMap("i-1", activities);
+        dbi.inTransaction((h, status) -> {
+            table.write(h, batch);
+            return null;
+        });
+
+        service = new DBActivityTrackingService(null);
+        service.setActivityTable(table);
+    }
+
+    @AfterEach
+    public void dropTable() {
+        table.dropTable();
+    }
+
+    @Test
+    public void shouldPageWithCursor() throws IOException {
+        final List<Activity> first = new ArrayList<>();
+        final String cursor = service.getActivities("i-1", new ActivityQuery().limit(4), first::add);
+        assertThat(first).extracting(Activity::getId).containsExactly(exchanges.get(9), exchanges.get(8), exchanges.get(7), exchanges.get(6));
+        assertThat(cursor).isNotNull();
+
+        final List<Activity> second = new ArrayList<>();
+        assertThat(service.getActivities("i-1", new ActivityQuery().limit(10).cursor(cursor), second::add)).isNull();
+        assertThat(second).extracting(Activity::getId).containsExactly(exchanges.get(5), exchanges.get(4), exchanges.get(3), exchanges.get(2),
+            exchanges.get(1), exchanges.get(0));
+    }
+
+    @Test
+    public void shouldFilterActivities() throws IOException {
+        final List<Activity> failed = new ArrayList<>();
+        service.getActivities("i-1", new ActivityQuery().limit(10).failedOnly(true), failed::add);
+        assertThat(failed).extracting(Activity::getId).containsExactly(exchanges.get(9), exchanges.get(6), exchanges.get(3), exchanges.get(0));
+
+        final List<Activity> inRange = new ArrayList<>();
+        service.getActivities("i-1", new ActivityQuery().limit(10)
+            .since(NOW - TimeUnit.MINUTES.toMillis(5))
+            .until(NOW - TimeUnit.MINUTES.toMillis(3))
+            .step("step-1"), inRange::add);
+        assertThat(inRange).extracting(Activity::getId).containsExactly(exchanges.get(5));
+    }
+
+    @Test
+    public void shouldLeaveOutStepMessagesOfSummaries() throws IOException {
+        final List<Activity> summaries = new ArrayList<>();
+        service.getActivities("i-1", new ActivityQuery().limit(1).summary(true), summaries::add);
+        assertThat(summaries).hasSize(1);
+        assertThat(summaries.get(0).getSteps()).hasSize(1);
+        assertThat(summaries.get(0).getSteps().get(0).getId()).isEqualTo("step-1");
+        assertThat(summaries.get(0).getSteps().get(0).getMessages()).isNull();
+
+        final List<Activity> activities = new ArrayList<>();
+        service.getActivities("i-1", new ActivityQuery().limit(1), activities::add);
+        assertThat(activities.get(0).getSteps().get(0).getMessages()).containsExactly("message 9");
+    }
+
+    @Test
+    public void shouldStopScanningJsonDBAtTheStartOfTheRange() throws IOException {
+        // a full page of exchanges a second apart, newest first
+        final Map<String, String> activities = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            final long at = NOW - TimeUnit.SECONDS.toMillis(i);
+            final String exchange = KeyGenerator.recreateKey(at, 0, i);
+            activities.put(exchange, "{\"id\":\"" + exchange + "\",\"at\":" + at + ",\"failed\":false}");
+        }
+
+        final JsonDB jsondb = mock(JsonDB.class);
+        when(jsondb.getAsByteArray(eq("/activity/exchanges/i-1"), any(GetOptions.class)))
+            .thenReturn(JsonUtils.toString(activities).getBytes(StandardCharsets.UTF_8));
+        final DBActivityTrackingService fallback = new DBActivityTrackingService(jsondb);
+        final long since = NOW - TimeUnit.SECONDS.toMillis(9) - 500;
+
+        final List<Activity> inRange = new ArrayList<>();
+        assertThat(fallback.getActivities("i-1", new ActivityQuery().limit(20).since(since), inRange::add)).isNull();
+        assertThat(inRange).hasSize(10);
+
+        final List<Activity> failed = new ArrayList<>();
+        assertThat(fallback.getActivities("i-1", new ActivityQuery().limit(20).since(since).failedOnly(true), failed::add)).isNull();
+        assertThat(failed).isEmpty();
+
+        // the older exchanges of the full page were not scanned, nor further pages read
+        verify(jsondb, times(2)).getAsByteArray(eq("/activity/exchanges/i-1"), any(GetOptions.class));
+    }
+
+    @Test
+    public void shouldRejectInvalidQueries() {
+        assertThatThrownBy(() -> service.getActivities("i-1", new ActivityQuery().limit(0), a -> {}))
+            .isInstanceOfSatisfying(WebApplicationException.class, e -> assertThat(e.getResponse().getStatus()).isEqualTo(400));
+
+        assertThatThrownBy(() -> service.getActivities("i-1", new ActivityQuery().limit(1).cursor("not a cursor!"), a -> {}))
+            .isInstanceOfSatisfying(WebApplicationException.class, e -> assertThat(e.getResponse().getStatus()).isEqualTo(400));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.store;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import io.syndesis.common.util.KeyGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Covers the daily partitions of the activity table, which are only used
+ * on PostgreSQL.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class ActivityTablePostgreSqlITCase {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRESQL = new PostgreSQLContainer<>(DockerImageName.parse("postgres:12.6"));
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private DBI dbi;
+
+    private ActivityTable table;
+
+    private final List<String> exchanges = new ArrayList<>();
+
+    @BeforeEach
+    public void createTable() {
+        dbi = new DBI(POSTGRESQL.getJdbcUrl(), POSTGRESQL.getUsername(), POSTGRESQL.getPassword());
+
+        table = new ActivityTable(dbi);
+        table.createTable();
+
+        // ten activities a day apart, oldest first
+        final Map<String, String> activities = new TreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            final String exchange = KeyGenerator.recreateKey(NOW - TimeUnit.DAYS.toMillis(9 - i), 0, i);
+            exchanges.add(exchange);
+            activities.put(exchange, "{\"id\":\"" + exchange + "\"}");
+        }
+
+        write(table, Collections.singletonMap("i-1", activities));
+    }
+
+    @AfterEach
+    public void dropTable() {
+        table.dropTable();
+    }
+
+    @Test
+    public void shouldStoreActivitiesInDailyPartitions() {
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add(partitionOf(NOW - TimeUnit.DAYS.toMillis(9 - i)));
+        }
+        assertThat(partitions()).containsExactlyElementsOf(expected);
+
+        final Map<String, String> stored = new HashMap<>();
+        dbi.withHandle(h -> h.createQuery("SELECT exchange, tableoid::regclass::text AS part FROM activity")
+            .map((index, rs, ctx) -> new String[] {rs.getString("exchange"), rs.getString("part")})
+            .list())
+            .forEach(row -> stored.put(row[0], row[1]));
+        for (int i = 0; i < 10; i++) {
+            assertThat(stored).containsEntry(exchanges.get(i), expected.get(i));
+        }
+    }
+
+    @Test
+    public void shouldOverwriteRewrittenActivities() {
+        write(table, Collections.singletonMap("i-1", Collections.singletonMap(exchanges.get(9), "{}")));
+
+        assertThat(table.activities("i-1", null, 100)).hasSize(10).startsWith("{}");
+    }
+
+    @Test
+    public void shouldReuseExistingPartitions() {
+        final List<String> existing = partitions();
+
+        // another server starting on the same database
+        final ActivityTable other = new ActivityTable(dbi);
+        other.createTable();
+
+        final String future = KeyGenerator.recreateKey(NOW + TimeUnit.DAYS.toMillis(3), 0, 10);
+        final Map<String, Map<String, String>> batch = Collections.singletonMap("i-1", Collections.singletonMap(future, "{}"));
+
+        // both servers write to the same new day, the second one finds the partition in place
+        write(other, batch);
+        write(table, batch);
+
+        final List<String> expected = new ArrayList<>(existing);
+        expected.add(partitionOf(NOW + TimeUnit.DAYS.toMillis(3)));
+        assertThat(partitions()).containsExactlyElementsOf(expected);
+        assertThat(table.activities("i-1", null, 100)).hasSize(11);
+    }
+
+    @Test
+    public void shouldRetainNewestActivitiesAcrossPartitions() {
+        assertThat(table.retain("i-1", 4)).isEqualTo(6);
+        assertThat(table.activities("i-1", null, 100)).containsExactly(activity(9), activity(8), activity(7), activity(6));
+    }
+
+    @Test
+    public void shouldDropPartitionsOfExpiredDays() {
+        assertThat(table.expire(Instant.ofEpochMilli(NOW - TimeUnit.DAYS.toMillis(2) - 1))).isEqualTo(7);
+
+        assertThat(table.activities("i-1", null, 100)).containsExactly(activity(9), activity(8), activity(7));
+        // the partition of the following day is created ahead of time
+        assertThat(partitions()).containsExactly(
+            partitionOf(NOW - TimeUnit.DAYS.toMillis(2)),
+            partitionOf(NOW - TimeUnit.DAYS.toMillis(1)),
+            partitionOf(NOW),
+            partitionOf(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+
+        assertThat(table.expire(Instant.ofEpochMilli(NOW - TimeUnit.DAYS.toMillis(2) - 1))).isZero();
+    }
+
+    private void write(ActivityTable target, Map<String, Map<String, String>> batch) {
+        target.prepare(batch);
+        dbi.inTransaction((h, status) -> {
+            target.write(h, batch);
+            return null;
+        });
+    }
+
+    private List<String> partitions() {
+        return dbi.withHandle(h -> h.createQuery("SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'activity' ORDER BY c.relname")
+            .map(StringColumnMapper.INSTANCE)
+            .list());
+    }
+
+    private static String partitionOf(long millis) {
+        final LocalDate day = Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC).toLocalDate();
+        return "activity_p" + DateTimeFormatter.BASIC_ISO_DATE.format(day);
+    }
+
+    private String activity(int index) {
+        return "{\"id\":\"" + exchanges.get(index) + "\"}";
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.store;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import io.syndesis.common.util.KeyGenerator;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActivityTableTest {
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private DBI dbi;
+
+    private ActivityTable table;
+
+    private final List<String> exchanges = new ArrayList<>();
+
+    @BeforeEach
+    public void createTable() {
+        final JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:activity;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        dbi = new DBI(ds);
+
+        table = new ActivityTable(dbi);
+        table.createTable();
+
+        // ten activities a day apart, oldest first
+        final Map<String, String> activities = new TreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            final String exchange = KeyGenerator.recreateKey(NOW - TimeUnit.DAYS.toMillis(9 - i), 0, i);
+            exchanges.add(exchange);
+            activities.put(exchange, "{\"id\":\"" + exchange + "\"}");
+        }
+
+        final Map<String, Map<String, String>> batch = Collections.singletonMap("i-1", activities);
+        table.prepare(batch);
+        dbi.inTransaction((h, status) -> {
+            table.write(h, batch);
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void dropTable() {
+        table.dropTable();
+    }
+
+    @Test
+    public void shouldPageNewestFirst() {
+        assertThat(table.activities("i-1", null, 3)).containsExactly(activity(9), activity(8), activity(7));
+        assertThat(table.activities("i-1", exchanges.get(7), 3)).containsExactly(activity(6), activity(5), activity(4));
+        assertThat(table.activities("i-2", null, 3)).isEmpty();
+    }
+
+    @Test
+    public void shouldPageWithinTimeRange() {
+        final Long since = NOW - TimeUnit.DAYS.toMillis(6);
+        final Long until = NOW - TimeUnit.DAYS.toMillis(2);
+
+        assertThat(table.activities("i-1", null, since, until, 3)).containsOnlyKeys(exchanges.get(7), exchanges.get(6), exchanges.get(5));
+        assertThat(table.activities("i-1", exchanges.get(5), since, until, 3)).containsOnlyKeys(exchanges.get(4), exchanges.get(3));
+        assertThat(table.activities("i-1", null, null, null, 2).keySet()).containsExactly(exchanges.get(9), exchanges.get(8));
+    }
+
+    @Test
+    public void shouldOverwriteRewrittenActivities() {
+        final Map<String, Map<String, String>> batch = Collections.singletonMap("i-1", Collections.singletonMap(exchanges.get(9), "{}"));
+        dbi.inTransaction((h, status) -> {
+            table.write(h, batch);
+            return null;
+        });
+
+        assertThat(table.activities("i-1", null, 1)).containsExactly("{}");
+    }
+
+    @Test
+    public void shouldNotStoreActivitiesOfExchangesWithoutKeys() {
+        final Map<String, Map<String, String>> batch = Collections.singletonMap("i-1", Collections.singletonMap("not-a-key", "{}"));
+        table.prepare(batch);
+        dbi.inTransaction((h, status) -> {
+            table.write(h, batch);
+            return null;
+        });
+
+        assertThat(table.activities("i-1", null, 100)).hasSize(10).doesNotContain("{}");
+    }
+
+    @Test
+    public void shouldRetainNewestActivities() {
+        assertThat(table.retain("i-1", 4)).isEqualTo(6);
+        assertThat(table.activities("i-1", null, 100)).containsExactly(activity(9), activity(8), activity(7), activity(6));
+
+        assertThat(table.retain("i-1", 4)).isZero();
+    }
+
+    @Test
+    public void shouldExpireOldActivities() {
+        table.expire(Instant.ofEpochMilli(NOW - TimeUnit.DAYS.toMillis(2) - 1));
+
+        assertThat(table.activities("i-1", null, 100)).containsExactly(activity(9), activity(8), activity(7));
+    }
+
+    private String activity(int index) {
+        return "{\"id\":\"" + exchanges.get(index) + "\"}";
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.logging.jsondb.store;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import io.syndesis.common.util.KeyGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.util.StringColumnMapper;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Covers the activity table on PostgreSQL versions without declarative
+ * partitioning, where it is created unpartitioned.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class ActivityTableUnpartitionedPostgreSqlITCase {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRESQL = new PostgreSQLContainer<>(DockerImageName.parse("postgres:9.6"));
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private DBI dbi;
+
+    private ActivityTable table;
+
+    private final TreeMap<String, String> activities = new TreeMap<>();
+
+    @BeforeEach
+    public void createTable() {
+        dbi = new DBI(POSTGRESQL.getJdbcUrl(), POSTGRESQL.getUsername(), POSTGRESQL.getPassword());
+
+        table = new ActivityTable(dbi);
+        table.createTable();
+
+        // three activities a day apart, oldest first
+        for (int i = 0; i < 3; i++) {
+            final String exchange = KeyGenerator.recreateKey(NOW - TimeUnit.DAYS.toMillis(2 - i), 0, i);
+            activities.put(exchange, "{\"id\":\"" + exchange + "\"}");
+        }
+
+        write(Collections.singletonMap("i-1", activities));
+    }
+
+    @AfterEach
+    public void dropTable() {
+        table.dropTable();
+    }
+
+    @Test
+    public void shouldCreateUnpartitionedTable() {
+        final String kind = dbi.withHandle(h -> h.createQuery("SELECT relkind FROM pg_class WHERE relname = 'activity'")
+            .map(StringColumnMapper.INSTANCE)
+            .first());
+
+        assertThat(kind).isEqualTo("r");
+    }
+
+    @Test
+    public void shouldOverwriteRewrittenActivities() {
+        final String newest = activities.lastKey();
+        write(Collections.singletonMap("i-1", Collections.singletonMap(newest, "{}")));
+
+        assertThat(table.activities("i-1", null, 100)).hasSize(3).startsWith("{}");
+    }
+
+    @Test
+    public void shouldExpireOldActivitiesRowByRow() {
+        assertThat(table.expire(Instant.ofEpochMilli(NOW - TimeUnit.DAYS.toMillis(1) - 1))).isEqualTo(1);
+        assertThat(table.activities("i-1", null, 100)).hasSize(2);
+    }
+
+    private void write(Map<String, Map<String, String>> batch) {
+        table.prepare(batch);
+        dbi.inTransaction((h, status) -> {
+            table.write(h, batch);
+            return null;
+        });
+    }
+}
@@ -21,16 +21,21 @@ import io.syndesis.server.jsondb.GetOptions;
 import io.syndesis.server.jsondb.JsonDB;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 
@@ -44,6 +49,9 @@ public class JsonDBRawMetrics implements RawMetricsHandler {
     };
     private final JsonDB jsonDB;
 
+    // the last metrics written for each pod, keyed by path
+    private final Map<String, String> written = new ConcurrentHashMap<>();
+
     public JsonDBRawMetrics(JsonDB jsonDB) {
         this.jsonDB = jsonDB;
     }
@@ -53,21 +61,46 @@ public class JsonDBRawMetrics implements RawMetricsHandler {
      */
     @Override
     public void persist(RawMetrics rawMetrics) {
+        persist(Collections.singletonList(rawMetrics));
+    }
 
+    /**
+     * Persists the latest metrics of the live pods to the database. Only the
+     * metrics that differ from the ones last written are persisted, all of them
+     * in a single update.
+     */
+    @Override
+    public void persist(Collection<RawMetrics> rawMetrics) {
+        // keyed by the path relative to path()
+        Map<String, String> changed = new LinkedHashMap<>();
         try {
-            //persist the latest rawMetrics
-            String path = path(rawMetrics.getIntegrationId(), rawMetrics.getPod());
-            String json = JsonUtils.writer().writeValueAsString(rawMetrics);
-            if (jsonDB.exists(path)) {
+            for (RawMetrics metrics : rawMetrics) {
+                String json = JsonUtils.writer().writeValueAsString(metrics);
                 //only update if not the same (don't cause unnecessary and expensive writes)
-                if (! jsonDB.getAsString(path).equals(json)) {
-                    jsonDB.update(path, json);
+                if (!json.equals(written.get(path(metrics.getIntegrationId(), metrics.getPod())))) {
+                    changed.put(metrics.getIntegrationId() + "/pods/" + metrics.getPod(), json);
                 }
-            } else {
-                jsonDB.set(path, json);
             }
 
-        } catch (JsonProcessingException e) {
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            StringWriter update = new StringWriter();
+            try (JsonGenerator generator = JsonUtils.writer().getFactory().createGenerator(update)) {
+                generator.writeStartObject();
+                for (Map.Entry<String, String> entry : changed.entrySet()) {
+                    generator.writeFieldName(entry.getKey());
+                    generator.writeRawValue(entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            jsonDB.update(path(), update.toString());
+
+            for (Map.Entry<String, String> entry : changed.entrySet()) {
+                written.put(path() + "/" + entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
             LOGGER.error("Error persisting metrics!", e);
         }
     }
@@ -129,6 +162,7 @@ public class JsonDBRawMetrics implements RawMetricsHandler {
                 }
                 //delete the dead pod metrics since it has been added to the history
                 jsonDB.delete(path(integrationId,entry.getKey()));
+                written.remove(path(integrationId,entry.getKey()));
             }
         }
     }
@@ -147,6 +181,8 @@ public class JsonDBRawMetrics implements RawMetricsHandler {
             for (String rawIntId : rawIntegrationIds) {
                 if (! activeIntegrationIds.contains(rawIntId)) {
                     jsonDB.delete(path(rawIntId));
+                    String deleted = path(rawIntId) + "/";
+                    written.keySet().removeIf(p -> p.startsWith(deleted));
                 }
             }
         }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.metrics.jsondb;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import io.syndesis.server.endpoint.metrics.MetricsResolution;
+
+/**
+ * Ring of fixed width time buckets holding the number of messages, errors and
+ * the time the last message was processed. Buckets are identified by the time
+ * divided by the bucket width, the slot of a bucket is that number modulo the
+ * number of buckets, so the ring only needs to be cleared when time moves on.
+ * Not thread safe.
+ */
+final class MetricsBuckets {
+
+    private final MetricsResolution resolution;
+    private final long[] messages;
+    private final long[] errors;
+    private final long[] lastProcessed;
+
+    // the newest bucket recorded, -1 if nothing was recorded
+    private long current = -1;
+
+    MetricsBuckets(MetricsResolution resolution) {
+        this.resolution = resolution;
+        this.messages = new long[resolution.buckets()];
+        this.errors = new long[resolution.buckets()];
+        this.lastProcessed = new long[resolution.buckets()];
+    }
+
+    MetricsResolution resolution() {
+        return resolution;
+    }
+
+    /**
+     * Adds the messages and errors to the bucket containing the given time,
+     * ignored if the bucket has already been rolled out of the ring.
+     */
+    void add(long time, long messageCount, long errorCount) {
+        final int slot = slot(time);
+        if (slot >= 0) {
+            messages[slot] += messageCount;
+            errors[slot] += errorCount;
+        }
+    }
+
+    /**
+     * Records that a message was processed at the given time.
+     */
+    void processed(long time) {
+        final int slot = slot(time);
+        if (slot >= 0 && lastProcessed[slot] < time) {
+            lastProcessed[slot] = time;
+        }
+    }
+
+    /**
+     * Adds the buckets to the given arrays, each holding as many buckets as
+     * the ring with the last one being the bucket containing {@code now}.
+     */
+    void addTo(long now, long[] messagesTo, long[] errorsTo, long[] lastProcessedTo) {
+        final int size = messages.length;
+        final long last = now / resolution.width();
+        for (int i = 0; i < size; i++) {
+            final long bucket = last - size + 1 + i;
+            if (bucket > current || bucket <= current - size || bucket < 0) {
+                continue;
+            }
+
+            final int slot = (int) (bucket % size);
+            messagesTo[i] += messages[slot];
+            errorsTo[i] += errors[slot];
+            lastProcessedTo[i] = Math.max(lastProcessedTo[i], lastProcessed[slot]);
+        }
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(current);
+        out.writeInt(messages.length);
+        for (int i = 0; i < messages.length; i++) {
+            out.writeLong(messages[i]);
+            out.writeLong(errors[i]);
+            out.writeLong(lastProcessed[i]);
+        }
+    }
+
+    void read(DataInput in) throws IOException {
+        final long readCurrent = in.readLong();
+        final int size = in.readInt();
+        final long[] readMessages = new long[size];
+        final long[] readErrors = new long[size];
+        final long[] readLastProcessed = new long[size];
+        for (int i = 0; i < size; i++) {
+            readMessages[i] = in.readLong();
+            readErrors[i] = in.readLong();
+            readLastProcessed[i] = in.readLong();
+        }
+
+        if (size != messages.length || readCurrent < 0) {
+            // the number of buckets was changed, start over
+            return;
+        }
+
+        current = readCurrent;
+        System.arraycopy(readMessages, 0, messages, 0, size);
+        System.arraycopy(readErrors, 0, errors, 0, size);
+        System.arraycopy(readLastProcessed, 0, lastProcessed, 0, size);
+    }
+
+    /**
+     * Returns the slot of the bucket containing the given time moving the ring
+     * forward if needed, or -1 if the bucket is too old to be kept.
+     */
+    private int slot(long time) {
+        final int size = messages.length;
+        final long bucket = time / resolution.width();
+        if (bucket > current) {
+            final long cleared = Math.min(bucket - current, size);
+            for (long b = bucket - cleared + 1; b <= bucket; b++) {
+                final int slot = (int) (b % size);
+                messages[slot] = 0;
+                errors[slot] = 0;
+                lastProcessed[slot] = 0;
+            }
+            current = bucket;
+        } else if (bucket <= current - size || bucket < 0) {
+            return -1;
+        }
+
+        return (int) (bucket % size);
+    }
+}
@@ -17,21 +17,30 @@ package io.syndesis.server.metrics.jsondb;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
@@ -39,8 +48,10 @@ import org.springframework.stereotype.Service;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.internal.readiness.Readiness;
+import io.syndesis.common.util.DurationConverter;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.jsondb.JsonDB;
+import io.syndesis.server.openshift.OpenShiftResourceCache;
 import io.syndesis.common.model.integration.Integration;
 import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
 
@@ -55,9 +66,19 @@ public class MetricsCollector implements Runnable, Closeable {
     private final DataManager dataManager;
     private final RawMetricsHandler rmh;
     private final IntegrationMetricsHandler imh;
+    private OpenShiftResourceCache resourceCache;
+    private MetricsHistoryStore history;
+
+    private int concurrency = 10;
+    private Duration jitter = Duration.ofSeconds(2);
+    private Duration timeout = Duration.ofSeconds(8);
+
+    // readers and the last scrape of each live pod, only used from the scheduler thread
+    private final Map<String, PodMetricsReader> readers = new HashMap<>();
+    private final Map<String, Future<List<RawMetrics>>> scrapes = new HashMap<>();
 
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final ExecutorService executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("metrics-collector"));
+    private ScheduledThreadPoolExecutor executor;
 
     @Autowired
     public MetricsCollector(DataManager dataManager, JsonDB jsonDB, KubernetesClient kubernetes) {
@@ -68,10 +89,49 @@ public class MetricsCollector implements Runnable, Closeable {
     }
 
 
+    @Autowired(required = false)
+    public void setResourceCache(OpenShiftResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
+    @Autowired(required = false)
+    public void setHistory(MetricsHistoryStore history) {
+        this.history = history;
+    }
+
+    /**
+     * Maximum number of pods scraped at the same time.
+     */
+    @Value("${metrics.collector.concurrency:10}")
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Upper bound of the random delay before each pod is scraped, spreads the
+     * requests to the pods over the start of each collection cycle.
+     */
+    @Value("${metrics.collector.jitter:2 seconds}")
+    public void setJitter(String jitter) {
+        this.jitter = new DurationConverter().convert(jitter);
+    }
+
+    /**
+     * Time since the start of a collection cycle after which scraping of pods
+     * that have not responded is cancelled. Should be shorter than the 10
+     * second collection interval.
+     */
+    @Value("${metrics.collector.timeout:8 seconds}")
+    public void setTimeout(String timeout) {
+        this.timeout = new DurationConverter().convert(timeout);
+    }
+
     @PostConstruct
     @SuppressWarnings("FutureReturnValueIgnored")
     public void open() {
         LOGGER.info("Starting metrics collector.");
+        executor = new ScheduledThreadPoolExecutor(concurrency, new CustomizableThreadFactory("metrics-collector"));
+        executor.setRemoveOnCancelPolicy(true);
         scheduler.scheduleAtFixedRate(this, 10, 10, TimeUnit.SECONDS);
     }
 
@@ -80,7 +140,9 @@ public class MetricsCollector implements Runnable, Closeable {
     public void close() throws IOException {
         LOGGER.info("Stopping metrics collector.");
         close(scheduler);
-        close(executor);
+        if (executor != null) {
+            close(executor);
+        }
     }
 
 
@@ -88,24 +150,16 @@ public class MetricsCollector implements Runnable, Closeable {
     public void run() {
         LOGGER.debug("Collecting metrics for active integration pods.");
         try {
-            List<Pod> integrationPodList = kubernetes.pods().withLabel("integration").list().getItems();
+            List<Pod> integrationPodList = listIntegrationPods();
             Set<String> livePods = new HashSet<>();
             for (Pod pod : integrationPodList) {
                 livePods.add(pod.getMetadata().getName());
             }
 
-            integrationPodList
-                .stream()
-                .filter(p -> Readiness.isReady(p))
-                .forEach(p ->
-                    executor.execute(new PodMetricsReader(
-                            kubernetes,
-                            p.getMetadata().getName(),
-                            p.getMetadata().getAnnotations().get("syndesis.io/integration-name"),
-                            p.getMetadata().getLabels().get("syndesis.io/integration-id"),
-                            p.getMetadata().getLabels().get("syndesis.io/deployment-version"),
-                            rmh))
-            );
+            readers.keySet().retainAll(livePods);
+            scrapes.keySet().retainAll(livePods);
+
+            rmh.persist(scrape(integrationPodList));
 
             Set<String> activeIntegrationIds = dataManager.fetchIds(Integration.class);
             for (String integrationId : activeIntegrationIds) {
@@ -117,18 +171,97 @@ public class MetricsCollector implements Runnable, Closeable {
                                 rawMetrics,
                                 livePods);
                 imh.persist(imSummary);
+                if (history != null) {
+                    history.record(imSummary);
+                }
                 rmh.curate(integrationId, rawMetrics, livePods);
             }
 
             rmh.curate(activeIntegrationIds);
             imh.curate(activeIntegrationIds);
+            if (history != null) {
+                history.curate(activeIntegrationIds);
+                history.persistIfDue();
+            }
 
+        } catch (InterruptedException ex) {
+            LOGGER.warn("Interrupted while collecting metrics of integration pods.");
+            Thread.currentThread().interrupt();
         } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") Exception ex) {
             LOGGER.error("Error while iterating integration pods.", ex);
         }
 
     }
 
+    /**
+     * Scrapes the metrics of all ready pods, at most {@link #concurrency} at a
+     * time each after a random delay of up to {@link #jitter}, and waits for
+     * them until {@link #timeout} has passed. Pods that haven't responded by
+     * then are skipped in this cycle, and pods that are still being scraped
+     * since a previous cycle are not scraped again.
+     */
+    private List<RawMetrics> scrape(List<Pod> pods) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+
+        final Map<String, Future<List<RawMetrics>>> cycle = new HashMap<>();
+        for (Pod pod : pods) {
+            if (!Readiness.isReady(pod)) {
+                continue;
+            }
+
+            final String name = pod.getMetadata().getName();
+            final Future<List<RawMetrics>> previous = scrapes.get(name);
+            if (previous != null && !previous.isDone()) {
+                LOGGER.debug("Still collecting metrics from pod: {}, skipping it", name);
+                continue;
+            }
+
+            final PodMetricsReader reader = readers.computeIfAbsent(name, n -> new PodMetricsReader(
+                kubernetes,
+                n,
+                pod.getMetadata().getAnnotations().get("syndesis.io/integration-name"),
+                pod.getMetadata().getLabels().get("syndesis.io/integration-id"),
+                pod.getMetadata().getLabels().get("syndesis.io/deployment-version"),
+                rmh,
+                (int) timeout.toMillis()));
+
+            final long delay = ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+            final Future<List<RawMetrics>> scrape = executor.schedule(reader::read, delay, TimeUnit.MILLISECONDS);
+            scrapes.put(name, scrape);
+            cycle.put(name, scrape);
+        }
+
+        final List<RawMetrics> collected = new ArrayList<>();
+        for (Map.Entry<String, Future<List<RawMetrics>>> entry : cycle.entrySet()) {
+            collected.addAll(await(entry.getKey(), entry.getValue(), deadline));
+        }
+
+        return collected;
+    }
+
+    private List<RawMetrics> await(String pod, Future<List<RawMetrics>> scrape, long deadline) throws InterruptedException {
+        try {
+            return scrape.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Collecting metrics from pod: {} did not complete within {}, skipping it", pod, timeout);
+            scrape.cancel(true);
+            // the connection could still be in use by the cancelled scrape
+            readers.remove(pod);
+        } catch (ExecutionException e) {
+            LOGGER.error("Error while collecting metrics from pod: {}", pod, e.getCause());
+        }
+
+        return Collections.emptyList();
+    }
+
+    private List<Pod> listIntegrationPods() {
+        if (resourceCache != null) {
+            return resourceCache.getPodsWithLabel("integration");
+        }
+
+        return kubernetes.pods().withLabel("integration").list().getItems();
+    }
+
     private static List<Runnable> close(ExecutorService service) throws IOException {
         service.shutdown();
         try {
@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.metrics.jsondb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import io.syndesis.common.model.metrics.IntegrationDeploymentMetrics;
+import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
+import io.syndesis.common.util.DurationConverter;
+import io.syndesis.common.util.json.JsonUtils;
+import io.syndesis.server.endpoint.metrics.MetricsHistory;
+import io.syndesis.server.endpoint.metrics.MetricsHistoryProvider;
+import io.syndesis.server.endpoint.metrics.MetricsResolution;
+import io.syndesis.server.jsondb.JsonDB;
+
+/**
+ * Keeps the history of integration metrics in memory, in time buckets per
+ * integration, per deployment version of each integration and for all
+ * integrations combined. The history is fed with the summaries computed by the
+ * {@link MetricsCollector} and is periodically persisted to the JsonDB, one
+ * compact binary encoded entry per integration.
+ */
+@Service
+@ConditionalOnProperty(value = "metrics.kind", havingValue = "sql")
+public class MetricsHistoryStore implements MetricsHistoryProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsHistoryStore.class);
+
+    private static final TypeReference<Map<String, String>> TYPE_REFERENCE = new TypeReference<Map<String, String>>() {
+    };
+
+    // increased on incompatible changes of the persisted format
+    private static final int FORMAT = 1;
+
+    // key of the history of all integrations, not a valid integration id
+    private static final String TOTAL = "-total-";
+
+    private final JsonDB jsonDB;
+
+    private final Clock clock;
+
+    private final Map<String, IntegrationSeries> integrations = new HashMap<>();
+    private MetricsSeries total = new MetricsSeries();
+    private final Set<String> dirty = new HashSet<>();
+
+    private Duration persistInterval = Duration.ofMinutes(1);
+    private long lastPersisted = System.nanoTime();
+
+    @Autowired
+    public MetricsHistoryStore(JsonDB jsonDB) {
+        this(jsonDB, Clock.systemUTC());
+    }
+
+    MetricsHistoryStore(JsonDB jsonDB, Clock clock) {
+        this.jsonDB = jsonDB;
+        this.clock = clock;
+    }
+
+    @Value("${metrics.history.persistInterval:1 minute}")
+    public void setPersistInterval(String persistInterval) {
+        this.persistInterval = new DurationConverter().convert(persistInterval);
+    }
+
+    /**
+     * Loads the persisted history.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        try {
+            final String json = jsonDB.getAsString(path());
+            if (json == null) {
+                return;
+            }
+
+            final Map<String, String> persisted = JsonUtils.reader().forType(TYPE_REFERENCE).readValue(json);
+            for (Map.Entry<String, String> entry : persisted.entrySet()) {
+                try {
+                    final IntegrationSeries series = IntegrationSeries.decode(entry.getValue());
+                    if (series != null) {
+                        integrations.put(entry.getKey(), series);
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    LOGGER.warn("Unable to read metrics history of integration: {}, starting over", entry.getKey());
+                    LOGGER.debug("Unable to read metrics history of integration: {}", entry.getKey(), e);
+                }
+            }
+
+            final IntegrationSeries all = integrations.remove(TOTAL);
+            if (all != null) {
+                total = all.series;
+            }
+        } catch (IOException e) {
+            LOGGER.error("Unable to load metrics history", e);
+        }
+    }
+
+    /**
+     * Persists the history of integrations changed since it was last
+     * persisted.
+     */
+    @PreDestroy
+    public void close() {
+        persist();
+    }
+
+    /**
+     * Records the accumulated metrics of an integration and its deployments.
+     */
+    public synchronized void record(IntegrationMetricsSummary summary) {
+        final long now = clock.millis();
+        final String integrationId = summary.getId().get();
+
+        final IntegrationSeries series = integrations.computeIfAbsent(integrationId, id -> new IntegrationSeries());
+        final boolean seen = series.series.seen();
+        final long messages = series.series.messages();
+        final long errors = series.series.errors();
+        final long lastProcessed = series.series.lastProcessed();
+
+        boolean changed = series.series.record(now, summary.getMessages(), summary.getErrors(), toMillis(summary.getLastProcessed()));
+        for (IntegrationDeploymentMetrics deployment : summary.getIntegrationDeploymentMetrics().orElse(Collections.emptyList())) {
+            changed |= series.versions.computeIfAbsent(deployment.getVersion(), v -> new MetricsSeries())
+                .record(now, deployment.getMessages(), deployment.getErrors(), toMillis(deployment.getLastProcessed()));
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        dirty.add(integrationId);
+        dirty.add(TOTAL);
+        if (seen) {
+            total.add(now, Math.max(0, series.series.messages() - messages), Math.max(0, series.series.errors() - errors));
+        }
+        if (series.series.lastProcessed() > lastProcessed) {
+            total.processed(series.series.lastProcessed());
+        }
+    }
+
+    /**
+     * Forgets the history of deleted integrations, the history of all
+     * integrations combined is kept.
+     */
+    public synchronized void curate(Set<String> activeIntegrationIds) {
+        for (String integrationId : new HashSet<>(integrations.keySet())) {
+            if (!activeIntegrationIds.contains(integrationId)) {
+                integrations.remove(integrationId);
+                dirty.add(integrationId);
+            }
+        }
+    }
+
+    /**
+     * Persists the history if the persist interval has passed since it was
+     * last persisted.
+     */
+    public void persistIfDue() {
+        if (System.nanoTime() - lastPersisted >= persistInterval.toNanos()) {
+            persist();
+        }
+    }
+
+    /**
+     * Persists the history of all integrations changed since the history was
+     * last persisted in a single update.
+     */
+    public void persist() {
+        final Map<String, String> changed = new TreeMap<>();
+        final Set<String> deleted = new HashSet<>();
+        synchronized (this) {
+            lastPersisted = System.nanoTime();
+            try {
+                for (String integrationId : dirty) {
+                    final IntegrationSeries series = TOTAL.equals(integrationId) ? new IntegrationSeries(total) : integrations.get(integrationId);
+                    if (series == null) {
+                        deleted.add(integrationId);
+                    } else {
+                        changed.put(integrationId, series.encode());
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Unable to encode metrics history", e);
+                return;
+            }
+            dirty.clear();
+        }
+
+        for (String integrationId : deleted) {
+            jsonDB.delete(path() + "/" + integrationId);
+        }
+
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        try {
+            final StringWriter update = new StringWriter();
+            try (JsonGenerator generator = JsonUtils.writer().getFactory().createGenerator(update)) {
+                generator.writeStartObject();
+                for (Map.Entry<String, String> entry : changed.entrySet()) {
+                    generator.writeStringField(entry.getKey(), entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            jsonDB.update(path(), update.toString());
+        } catch (IOException e) {
+            LOGGER.error("Unable to persist metrics history", e);
+        }
+    }
+
+    @Override
+    public synchronized Optional<MetricsHistory> getIntegrationMetricsHistory(String integrationId, MetricsResolution resolution) {
+        final IntegrationSeries series = integrations.get(integrationId);
+        if (series == null) {
+            return Optional.empty();
+        }
+
+        final long now = clock.millis();
+        final MetricsHistory history = history(now, resolution, series.series);
+        history.setIntegrationId(integrationId);
+
+        for (Map.Entry<String, MetricsSeries> version : new TreeMap<>(series.versions).entrySet()) {
+            final MetricsHistory deployment = history(now, resolution, version.getValue());
+            deployment.setVersion(version.getKey());
+            history.addDeployment(deployment);
+        }
+
+        return Optional.of(history);
+    }
+
+    @Override
+    public synchronized MetricsHistory getTotalIntegrationMetricsHistory(MetricsResolution resolution) {
+        final long now = clock.millis();
+        final MetricsHistory history = MetricsSeries.history(now, resolution);
+        total.addTo(now, resolution, history);
+
+        long messages = 0;
+        long errors = 0;
+        long lastProcessed = total.lastProcessed();
+        for (IntegrationSeries series : integrations.values()) {
+            messages += series.series.messages();
+            errors += series.series.errors();
+            lastProcessed = Math.max(lastProcessed, series.series.lastProcessed());
+        }
+        MetricsSeries.complete(history, messages, errors, lastProcessed);
+
+        return history;
+    }
+
+    private static MetricsHistory history(long now, MetricsResolution resolution, MetricsSeries series) {
+        final MetricsHistory history = MetricsSeries.history(now, resolution);
+        series.addTo(now, resolution, history);
+        MetricsSeries.complete(history, series.messages(), series.errors(), series.lastProcessed());
+
+        return history;
+    }
+
+    private static long toMillis(Optional<Instant> instant) {
+        return instant.map(Instant::toEpochMilli).orElse(0L);
+    }
+
+    static String path() {
+        return "MetricsHistory/integrations";
+    }
+
+    /**
+     * The history of an integration and of each of its deployment versions.
+     */
+    static final class IntegrationSeries {
+
+        final MetricsSeries series;
+
+        final Map<String, MetricsSeries> versions = new HashMap<>();
+
+        IntegrationSeries() {
+            this(new MetricsSeries());
+        }
+
+        IntegrationSeries(MetricsSeries series) {
+            this.series = series;
+        }
+
+        String encode() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(FORMAT);
+                series.write(out);
+                out.writeInt(versions.size());
+                for (Map.Entry<String, MetricsSeries> version : versions.entrySet()) {
+                    out.writeUTF(version.getKey());
+                    version.getValue().write(out);
+                }
+            }
+
+            return Base64.getEncoder().encodeToString(bytes.toByteArray());
+        }
+
+        static IntegrationSeries decode(String encoded) throws IOException {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+                if (in.readByte() != FORMAT) {
+                    return null;
+                }
+
+                final IntegrationSeries decoded = new IntegrationSeries();
+                decoded.series.read(in);
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    final String version = in.readUTF();
+                    final MetricsSeries series = new MetricsSeries();
+                    series.read(in);
+                    decoded.versions.put(version, series);
+                }
+
+                return decoded;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.metrics.jsondb;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import io.syndesis.server.endpoint.metrics.MetricsHistory;
+import io.syndesis.server.endpoint.metrics.MetricsResolution;
+
+/**
+ * Rolling aggregates of the messages and errors of an integration, a
+ * deployment version of an integration or of all integrations, kept in
+ * buckets of each {@link MetricsResolution}. Fed with the accumulated
+ * counters, the difference to the previously seen counters is added to the
+ * current buckets. Not thread safe.
+ */
+final class MetricsSeries {
+
+    private static final MetricsResolution[] RESOLUTIONS = MetricsResolution.values();
+
+    private final MetricsBuckets[] buckets = new MetricsBuckets[RESOLUTIONS.length];
+
+    // accumulated counters as last seen, -1 until seen for the first time
+    private long messages = -1;
+    private long errors = -1;
+    private long lastProcessed;
+
+    MetricsSeries() {
+        for (int i = 0; i < RESOLUTIONS.length; i++) {
+            buckets[i] = new MetricsBuckets(RESOLUTIONS[i]);
+        }
+    }
+
+    /**
+     * Records the accumulated counters as seen at the given time, returns
+     * {@code true} if the counters changed.
+     */
+    boolean record(long now, long messageCount, long errorCount, long lastProcessedTime) {
+        final boolean first = messages < 0;
+        // counters going backwards were reset, we can't tell what happened
+        // since we've seen them last so we start counting from there
+        final long newMessages = first ? 0 : Math.max(0, messageCount - messages);
+        final long newErrors = first ? 0 : Math.max(0, errorCount - errors);
+        final boolean changed = first || messageCount != messages || errorCount != errors || lastProcessedTime != lastProcessed;
+
+        add(now, newMessages, newErrors);
+        if (lastProcessedTime > lastProcessed) {
+            processed(lastProcessedTime);
+        }
+
+        messages = messageCount;
+        errors = errorCount;
+        lastProcessed = Math.max(lastProcessed, lastProcessedTime);
+
+        return changed;
+    }
+
+    void add(long now, long messageCount, long errorCount) {
+        for (MetricsBuckets bucket : buckets) {
+            bucket.add(now, messageCount, errorCount);
+        }
+    }
+
+    void processed(long time) {
+        for (MetricsBuckets bucket : buckets) {
+            bucket.processed(time);
+        }
+    }
+
+    /**
+     * Returns {@code true} if counters have been recorded before.
+     */
+    boolean seen() {
+        return messages >= 0;
+    }
+
+    long messages() {
+        return Math.max(0, messages);
+    }
+
+    long errors() {
+        return Math.max(0, errors);
+    }
+
+    long lastProcessed() {
+        return lastProcessed;
+    }
+
+    /**
+     * Adds the buckets of the given resolution ending with the one containing
+     * {@code now} to the history.
+     */
+    void addTo(long now, MetricsResolution resolution, MetricsHistory history) {
+        buckets[resolution.ordinal()].addTo(now, history.getMessages(), history.getErrors(), history.getLastProcessed());
+    }
+
+    /**
+     * Creates an empty history for the given resolution ending with the bucket
+     * containing {@code now}.
+     */
+    static MetricsHistory history(long now, MetricsResolution resolution) {
+        final MetricsHistory history = new MetricsHistory();
+        history.setResolution(resolution.id());
+        history.setInterval(resolution.width());
+        history.setStart((now / resolution.width() - resolution.buckets() + 1) * resolution.width());
+        history.setMessages(new long[resolution.buckets()]);
+        history.setErrors(new long[resolution.buckets()]);
+        history.setLastProcessed(new long[resolution.buckets()]);
+
+        return history;
+    }
+
+    /**
+     * Fills in the totals of the history, and the rates computed over the
+     * last complete bucket.
+     */
+    static void complete(MetricsHistory history, long totalMessages, long totalErrors, long lastProcessedTime) {
+        history.setTotalMessages(totalMessages);
+        history.setTotalErrors(totalErrors);
+        if (lastProcessedTime > 0) {
+            history.setLastMessage(lastProcessedTime);
+        }
+
+        final int previous = history.getMessages().length - 2;
+        final double seconds = history.getInterval() / 1000.0;
+        history.setMessagesRate(history.getMessages()[previous] / seconds);
+        history.setErrorsRate(history.getErrors()[previous] / seconds);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(messages);
+        out.writeLong(errors);
+        out.writeLong(lastProcessed);
+        out.writeByte(buckets.length);
+        for (MetricsBuckets bucket : buckets) {
+            out.writeUTF(bucket.resolution().name());
+            bucket.write(out);
+        }
+    }
+
+    void read(DataInput in) throws IOException {
+        messages = in.readLong();
+        errors = in.readLong();
+        lastProcessed = in.readLong();
+        final int count = in.readByte();
+        for (int i = 0; i < count; i++) {
+            final String resolution = in.readUTF();
+            final MetricsBuckets read = new MetricsBuckets(MetricsResolution.valueOf(resolution));
+            read.read(in);
+            buckets[read.resolution().ordinal()] = read;
+        }
+    }
+}
@@ -67,16 +67,40 @@ public class PodMetricsReader implements Runnable {
 
     public PodMetricsReader(KubernetesClient kubernetes, String pod, String integration, String integrationId, String version,
             RawMetricsHandler handler) {
+        this(kubernetes, pod, integration, integrationId, version, handler, 0);
+    }
+
+    /**
+     * Creates a reader that can be used repeatedly to read the metrics of the
+     * given pod, reusing the connection to the pod's Jolokia agent and the
+     * resolved Camel context.
+     *
+     * @param timeout connection and socket timeout in milliseconds used when
+     *        talking to Jolokia, {@code 0} or less for the client defaults
+     */
+    @SuppressWarnings("PMD.ExcessiveParameterList")
+    public PodMetricsReader(KubernetesClient kubernetes, String pod, String integration, String integrationId, String version,
+            RawMetricsHandler handler, int timeout) {
         this.pod = pod;
         this.integration = integration;
         this.integrationId = integrationId;
         this.version = version;
         this.handler = handler;
-        this.jolokia = forPod(kubernetes, pod);
+        this.jolokia = forPod(kubernetes, pod, timeout);
     }
 
     @Override
     public void run() {
+        handler.persist(read());
+    }
+
+    /**
+     * Reads the metrics of all routes of the integration running in the pod.
+     *
+     * @return the metrics of each route, empty if the metrics could not be read
+     */
+    public List<RawMetrics> read() {
+        List<RawMetrics> metrics = new ArrayList<>();
         try {
             LOGGER.debug("Collecting stats from integrationId: {}", integrationId);
             List<Map<String, String>> routeStats = getRoutes(integration, "[a-zA-z0-9_-]+");
@@ -98,7 +122,7 @@ public class PodMetricsReader implements Runnable {
                     Instant startDate = toInstant(m.get(START_TIMESTAMP));
 
 
-                    handler.persist(new RawMetrics.Builder()
+                    metrics.add(new RawMetrics.Builder()
                         .pod(pod)
                         .integrationId(integrationId)
                         .version(version)
@@ -114,7 +138,10 @@ public class PodMetricsReader implements Runnable {
         } catch (MalformedObjectNameException | J4pException e) {
             LOGGER.error("Collecting stats from integrationId: {}", integrationId);
             LOGGER.debug("Collecting stats from integrationId: {}", integrationId, e);
+            return Collections.emptyList();
         }
+
+        return metrics;
     }
 
 
@@ -226,17 +253,23 @@ public class PodMetricsReader implements Runnable {
      * Creates a {@link J4pClient} for the specified pod.
      * @param kubernetes The {@link KubernetesClient} instance.
      * @param pod        The name of the pod.
+     * @param timeout    The connection and socket timeout in milliseconds, {@code 0} or less for the defaults.
      * @return An instance of the {@link J4pClient}.
      */
-    private static J4pClient forPod(KubernetesClient kubernetes, String pod) {
+    private static J4pClient forPod(KubernetesClient kubernetes, String pod, int timeout) {
         String jolokiaUrl = String.format("%sapi/v1/namespaces/%s/pods/https:%s:8778/proxy/jolokia/", kubernetes.getMasterUrl(), kubernetes.getNamespace(), pod);
         try {
-            return new J4pClientBuilder()
+            J4pClientBuilder builder = new J4pClientBuilder()
                 .url(jolokiaUrl)
                 .user("user")
                 .authenticator(new JolokiaKubernetesAuthenticator(kubernetes))
-                .sslConnectionSocketFactory(new SSLConnectionSocketFactory(SSLUtils.sslContext(kubernetes.getConfiguration())))
-                .build();
+                .sslConnectionSocketFactory(new SSLConnectionSocketFactory(SSLUtils.sslContext(kubernetes.getConfiguration())));
+
+            if (timeout > 0) {
+                builder.connectionTimeout(timeout).socketTimeout(timeout);
+            }
+
+            return builder.build();
 
         } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") Exception e) {
             throw SyndesisServerException.launderThrowable(e);
@@ -16,6 +16,7 @@
 package io.syndesis.server.metrics.jsondb;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,6 +26,14 @@ public interface RawMetricsHandler {
 
     void persist(RawMetrics rawMetrics);
 
+    /**
+     * Persists the metrics collected from the live pods in a single collection
+     * cycle, implementations are free to write only the metrics that changed.
+     */
+    default void persist(Collection<RawMetrics> rawMetrics) {
+        rawMetrics.forEach(this::persist);
+    }
+
     Map<String,RawMetrics> getRawMetrics(String integrationId) throws IOException;
 
     void curate(String integrationId, Map<String,RawMetrics> metrics,
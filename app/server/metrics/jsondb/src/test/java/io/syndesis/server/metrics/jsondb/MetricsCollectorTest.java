@@ -207,4 +207,26 @@ public class MetricsCollectorTest {
         assertThat(metricsAfter.size()).isEqualTo(0);
         assertThat(dataManager.fetchAll(IntegrationMetricsSummary.class).getTotalCount()).isEqualTo(0);
     }
+
+    @Test
+    public void testPersistOnlyChangedMetrics() throws IOException {
+        RawMetrics pod1 = raw("intId1","1","pod1",5L, "31-01-2018 10:20:56");
+        RawMetrics pod2 = raw("intId1","1","pod2",5L, "31-01-2018 10:22:56");
+        jsondbRM.persist(Arrays.asList(pod1, pod2));
+
+        Map<String,RawMetrics> metrics = jsondbRM.getRawMetrics("intId1");
+        assertThat(metrics.get("pod1").getMessages()).isEqualTo(5L);
+        assertThat(metrics.get("pod2").getMessages()).isEqualTo(5L);
+        assertThat(metrics.keySet()).contains("HISTORY1");
+
+        //change pod2 behind the handler's back, unchanged metrics are not written again
+        jsondb.update(JsonDBRawMetrics.path("intId1","pod2"), JsonUtils.writer().writeValueAsString(raw("intId1","1","pod2",7L,"31-01-2018 10:22:56")));
+        RawMetrics updated = raw("intId1","1","pod1",6L, "31-01-2018 10:20:56");
+        jsondbRM.persist(Arrays.asList(updated, pod2));
+
+        Map<String,RawMetrics> metrics2 = jsondbRM.getRawMetrics("intId1");
+        assertThat(metrics2.get("pod1").getMessages()).isEqualTo(6L);
+        assertThat(metrics2.get("pod2").getMessages()).isEqualTo(7L);
+        assertThat(metrics2.keySet()).contains("HISTORY1");
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.metrics.jsondb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skife.jdbi.v2.DBI;
+
+import io.syndesis.common.model.metrics.IntegrationDeploymentMetrics;
+import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
+import io.syndesis.server.endpoint.metrics.MetricsHistory;
+import io.syndesis.server.endpoint.metrics.MetricsResolution;
+import io.syndesis.server.jsondb.impl.SqlJsonDB;
+
+public class MetricsHistoryStoreTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2018-01-31T10:20:56Z"), ZoneOffset.UTC);
+
+    private SqlJsonDB jsondb;
+
+    @BeforeEach
+    public void before() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:history;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        DBI dbi = new DBI(ds);
+
+        this.jsondb = new SqlJsonDB(dbi, null, Collections.emptyList());
+
+        try {
+            this.jsondb.dropTables();
+        } catch (Exception e) {
+        }
+        this.jsondb.createTables();
+    }
+
+    @Test
+    public void shouldAggregateMessagesInBuckets() {
+        MetricsHistoryStore store = new MetricsHistoryStore(jsondb, clock);
+        store.record(summary("intId1", 10L, 1L));
+        store.record(summary("intId1", 15L, 2L));
+        store.record(summary("intId2", 3L, 0L));
+        store.record(summary("intId2", 7L, 0L));
+
+        MetricsHistory history = store.getIntegrationMetricsHistory("intId1", MetricsResolution.MINUTE).get();
+        assertThat(history.getMessages()).hasSize(60);
+        assertThat(history.getInterval()).isEqualTo(60_000L);
+        //the first summary seen only sets the baseline
+        assertThat(history.getMessages()[59]).isEqualTo(5L);
+        assertThat(history.getErrors()[59]).isEqualTo(1L);
+        assertThat(history.getTotalMessages()).isEqualTo(15L);
+        assertThat(history.getTotalErrors()).isEqualTo(2L);
+        assertThat(history.getDeployments()).hasSize(1);
+        assertThat(history.getDeployments().get(0).getVersion()).isEqualTo("1");
+        assertThat(history.getDeployments().get(0).getMessages()[59]).isEqualTo(5L);
+
+        MetricsHistory total = store.getTotalIntegrationMetricsHistory(MetricsResolution.HOUR);
+        assertThat(total.getMessages()).hasSize(48);
+        assertThat(total.getMessages()[47]).isEqualTo(9L);
+        assertThat(total.getTotalMessages()).isEqualTo(22L);
+
+        assertThat(store.getIntegrationMetricsHistory("intId3", MetricsResolution.MINUTE)).isEmpty();
+    }
+
+    @Test
+    public void shouldPersistAndLoadHistory() {
+        MetricsHistoryStore store = new MetricsHistoryStore(jsondb, clock);
+        store.record(summary("intId1", 10L, 1L));
+        store.record(summary("intId1", 15L, 2L));
+        store.record(summary("intId2", 3L, 0L));
+        store.persist();
+
+        MetricsHistoryStore loaded = new MetricsHistoryStore(jsondb, clock);
+        loaded.open();
+        MetricsHistory history = loaded.getIntegrationMetricsHistory("intId1", MetricsResolution.DAY).get();
+        assertThat(history.getMessages()[29]).isEqualTo(5L);
+        assertThat(history.getTotalMessages()).isEqualTo(15L);
+        assertThat(loaded.getTotalIntegrationMetricsHistory(MetricsResolution.MINUTE).getMessages()[59]).isEqualTo(5L);
+
+        //counting continues from the persisted counters
+        loaded.record(summary("intId1", 20L, 2L));
+        assertThat(loaded.getIntegrationMetricsHistory("intId1", MetricsResolution.MINUTE).get().getMessages()[59]).isEqualTo(10L);
+
+        loaded.curate(Collections.singleton("intId1"));
+        loaded.persist();
+        assertThat(jsondb.exists(MetricsHistoryStore.path() + "/intId2")).isFalse();
+        assertThat(loaded.getIntegrationMetricsHistory("intId2", MetricsResolution.MINUTE)).isEmpty();
+    }
+
+    private static IntegrationMetricsSummary summary(String integrationId, long messages, long errors) {
+        Instant now = Instant.parse("2018-01-31T10:20:00Z");
+        return new IntegrationMetricsSummary.Builder()
+            .id(integrationId)
+            .messages(messages)
+            .errors(errors)
+            .lastProcessed(now)
+            .uptimeDuration(0L)
+            .integrationDeploymentMetrics(Arrays.asList(new IntegrationDeploymentMetrics.Builder()
+                .version("1")
+                .messages(messages)
+                .errors(errors)
+                .lastProcessed(Optional.of(now))
+                .uptimeDuration(0L)
+                .build()))
+            .build();
+    }
+}
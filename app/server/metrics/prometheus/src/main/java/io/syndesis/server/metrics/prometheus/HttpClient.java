@@ -15,6 +15,9 @@
  */
 package io.syndesis.server.metrics.prometheus;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -24,9 +27,12 @@ import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.plugins.providers.jackson.ResteasyJackson2Provider;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+@SuppressWarnings("PMD.DoNotUseThreads")
 public class HttpClient {
 
     /**
@@ -35,25 +41,49 @@ public class HttpClient {
     private static final int CONNECT_TIMEOUT = 15;
     private static final int READ_TIMEOUT = 15;
 
+    private static final int DEFAULT_CONNECTIONS = 8;
+
+    private final ExecutorService executor;
+
     private final Client client;
 
     public HttpClient() {
-        this.client = createClient();
+        this(DEFAULT_CONNECTIONS);
+    }
 
+    /**
+     * Creates a client keeping up to the given number of connections to
+     * Prometheus, and running as many queries concurrently.
+     */
+    public HttpClient(int connections) {
+        this.executor = Executors.newFixedThreadPool(connections, daemonThreads());
+        this.client = createClient(connections, executor);
     }
+
     public QueryResult queryPrometheus(HttpQuery query) {
         return client.target(query.getUriBuilder()).request(MediaType.APPLICATION_JSON).get(QueryResult.class);
     }
 
+    public CompletableFuture<QueryResult> queryPrometheusAsync(HttpQuery query) {
+        return client.target(query.getUriBuilder()).request(MediaType.APPLICATION_JSON).rx().get(QueryResult.class).toCompletableFuture();
+    }
+
     public void close() {
         this.client.close();
+        this.executor.shutdownNow();
     }
 
     // ************
     // Helper
     // ************
 
-    private static Client createClient() {
+    private static CustomizableThreadFactory daemonThreads() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("prometheus-query-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private static Client createClient(int connections, ExecutorService executor) {
         final ObjectMapper mapper = JsonMapper.builder()
             .enable(MapperFeature.BLOCK_UNSAFE_POLYMORPHIC_BASE_TYPES)
             .build()
@@ -65,8 +95,11 @@ public class HttpClient {
         final ResteasyProviderFactory providerFactory = ResteasyProviderFactory.getInstance();
         providerFactory.register(resteasyJacksonProvider);
 
-        return ClientBuilder.newBuilder()
+        return ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+            .connectionPoolSize(connections)
+            .maxPooledPerRoute(connections)
             .withConfig(providerFactory.getConfiguration())
+            .executorService(executor)
             .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
             .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
             .build();
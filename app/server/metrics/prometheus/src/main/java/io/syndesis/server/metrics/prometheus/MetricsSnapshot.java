@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.metrics.prometheus;
+
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * Metrics of all integrations, decoded from the results of queries grouped by
+ * integration and deployment version.
+ */
+final class MetricsSnapshot {
+
+    private final Map<String, Map<String, Long>> messages;
+    private final Map<String, Map<String, Long>> errors;
+    private final Map<String, Map<String, Instant>> start;
+    private final Map<String, Map<String, Instant>> lastProcessed;
+    private final Map<String, Instant> integrationStart;
+    private final Map<String, Instant> integrationLastProcessed;
+
+    MetricsSnapshot(Map<String, Map<String, Long>> messages, Map<String, Map<String, Long>> errors,
+                    Map<String, Map<String, Instant>> start, Map<String, Map<String, Instant>> lastProcessed,
+                    Map<String, Instant> integrationStart, Map<String, Instant> integrationLastProcessed) {
+        this.messages = messages;
+        this.errors = errors;
+        this.start = start;
+        this.lastProcessed = lastProcessed;
+        this.integrationStart = integrationStart;
+        this.integrationLastProcessed = integrationLastProcessed;
+    }
+
+    /**
+     * Messages per deployment version of the integration.
+     */
+    Map<String, Long> messages(String integrationId) {
+        return messages.getOrDefault(integrationId, Collections.emptyMap());
+    }
+
+    /**
+     * Errors per deployment version of the integration.
+     */
+    Map<String, Long> errors(String integrationId) {
+        return errors.getOrDefault(integrationId, Collections.emptyMap());
+    }
+
+    /**
+     * Start time per deployment version of the integration.
+     */
+    Map<String, Instant> start(String integrationId) {
+        return start.getOrDefault(integrationId, Collections.emptyMap());
+    }
+
+    /**
+     * Last processed time per deployment version of the integration.
+     */
+    Map<String, Instant> lastProcessed(String integrationId) {
+        return lastProcessed.getOrDefault(integrationId, Collections.emptyMap());
+    }
+
+    /**
+     * Earliest start time of the integration, or {@code null}.
+     */
+    Instant integrationStart(String integrationId) {
+        return integrationStart.get(integrationId);
+    }
+
+    /**
+     * Last processed time of the integration, or {@code null}.
+     */
+    Instant integrationLastProcessed(String integrationId) {
+        return integrationLastProcessed.get(integrationId);
+    }
+
+    /**
+     * Sum of the given metric over all integrations and versions.
+     */
+    static long total(Map<String, Map<String, Long>> values) {
+        long total = 0;
+        for (Map<String, Long> versions : values.values()) {
+            for (Long value : versions.values()) {
+                total += value;
+            }
+        }
+        return total;
+    }
+
+    long totalMessages() {
+        return total(messages);
+    }
+
+    long totalErrors() {
+        return total(errors);
+    }
+
+    /**
+     * Last processed time over all integrations, or {@code null}.
+     */
+    Instant lastProcessed() {
+        Instant latest = null;
+        for (Instant instant : integrationLastProcessed.values()) {
+            if (latest == null || instant.isAfter(latest)) {
+                latest = instant;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Integrations with most messages, most first.
+     */
+    Map<String, Long> topIntegrations(int count) {
+        final Map<String, Long> top = new LinkedHashMap<>();
+        messages.entrySet().stream()
+            .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().values().stream().mapToLong(Long::longValue).sum()))
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(count)
+            .forEachOrdered(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    /**
+     * Values of the query result by integration and deployment version, series
+     * without the labels or a value are skipped.
+     */
+    static <T> Map<String, Map<String, T>> byIntegrationAndVersion(QueryResult response, String integrationIdLabel, String versionLabel,
+                                                                 Class<? extends T> clazz, BinaryOperator<T> mergeFunction) {
+        final Map<String, Map<String, T>> values = new HashMap<>();
+        response.getData().ifPresent(data -> {
+            for (QueryResult.Data.Result result : data.getResult()) {
+                final String integrationId = result.getLabel(integrationIdLabel);
+                final String version = result.getLabel(versionLabel);
+                if (integrationId == null || version == null) {
+                    continue;
+                }
+
+                result.<T>getTypedValue(clazz).ifPresent(value ->
+                    values.computeIfAbsent(integrationId, id -> new HashMap<>()).merge(version, value, mergeFunction));
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Values of the query result by integration, series without the label or
+     * a value are skipped.
+     */
+    static <T> Map<String, T> byIntegration(QueryResult response, String integrationIdLabel, Class<? extends T> clazz,
+                                            BinaryOperator<T> mergeFunction) {
+        final Map<String, T> values = new HashMap<>();
+        response.getData().ifPresent(data -> {
+            for (QueryResult.Data.Result result : data.getResult()) {
+                final String integrationId = result.getLabel(integrationIdLabel);
+                if (integrationId != null) {
+                    result.<T>getTypedValue(clazz).ifPresent(value -> values.merge(integrationId, value, mergeFunction));
+                }
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Merges the values of the second map into the first one.
+     */
+    static <K, T> Map<K, T> merge(Map<K, T> into, Map<K, T> from, BinaryOperator<T> mergeFunction) {
+        from.forEach((key, value) -> into.merge(key, value, mergeFunction));
+        return into;
+    }
+}
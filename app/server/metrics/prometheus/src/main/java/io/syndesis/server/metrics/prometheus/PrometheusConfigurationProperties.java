@@ -33,6 +33,8 @@ public class PrometheusConfigurationProperties {
     private String typeLabel = "type";
     private String metricsHistoryRange = "1d";
     private int topIntegrationsCount = 5;
+    private long queryCacheTimeToLive = 10000;
+    private int connections = 8;
 
     public String getService() {
         return service;
@@ -89,4 +91,28 @@ public class PrometheusConfigurationProperties {
     public void setTopIntegrationsCount(int topIntegrationsCount) {
         this.topIntegrationsCount = topIntegrationsCount;
     }
+
+    /**
+     * Time in milliseconds the results of the queries are reused for, shared
+     * by all requests.
+     */
+    public long getQueryCacheTimeToLive() {
+        return queryCacheTimeToLive;
+    }
+
+    public void setQueryCacheTimeToLive(long queryCacheTimeToLive) {
+        this.queryCacheTimeToLive = queryCacheTimeToLive;
+    }
+
+    /**
+     * Maximum number of connections to Prometheus, and of queries executed
+     * concurrently.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
 }
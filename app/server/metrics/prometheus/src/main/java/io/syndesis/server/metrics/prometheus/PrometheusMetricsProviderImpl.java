@@ -18,12 +18,15 @@ package io.syndesis.server.metrics.prometheus;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
@@ -34,9 +37,12 @@ import io.syndesis.common.model.metrics.IntegrationDeploymentMetrics;
 import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
 import io.syndesis.common.util.CollectionsUtils;
 import io.syndesis.common.util.KeyGenerator;
+import io.syndesis.common.util.SyndesisServerException;
 import io.syndesis.server.endpoint.metrics.MetricsProvider;
+import io.syndesis.server.openshift.OpenShiftResourceCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
@@ -64,6 +70,8 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
     private final String typeLabel;
     private final String metricsHistoryRange;
     private final int topIntegrationsCount;
+    private final long queryCacheTimeToLive;
+    private final int connections;
 
     private final NamespacedOpenShiftClient openShiftClient;
 
@@ -76,7 +84,18 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
 
     private volatile HttpClient httpClient;
 
+    private OpenShiftResourceCache resourceCache;
+
+    // guarded by this
+    private CompletableFuture<MetricsSnapshot> snapshot;
+    private long snapshotTime;
+
     protected PrometheusMetricsProviderImpl(PrometheusConfigurationProperties config, NamespacedOpenShiftClient openShiftClient) {
+        this(config, openShiftClient, null);
+    }
+
+    PrometheusMetricsProviderImpl(PrometheusConfigurationProperties config, NamespacedOpenShiftClient openShiftClient, HttpClient httpClient) {
+        this.httpClient = httpClient;
         this.serviceName = config.getService();
         this.integrationIdLabel = config.getIntegrationIdLabel();
         this.deploymentVersionLabel = config.getDeploymentVersionLabel();
@@ -84,13 +103,20 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
         this.typeLabel = config.getTypeLabel();
         this.metricsHistoryRange = config.getMetricsHistoryRange();
         this.topIntegrationsCount = config.getTopIntegrationsCount();
+        this.queryCacheTimeToLive = TimeUnit.MILLISECONDS.toNanos(config.getQueryCacheTimeToLive());
+        this.connections = config.getConnections();
         this.openShiftClient = openShiftClient;
     }
 
+    @Autowired(required = false)
+    public void setResourceCache(OpenShiftResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
     @PostConstruct
     public void init() {
         if (this.httpClient == null) {
-            this.httpClient = new HttpClient();
+            this.httpClient = new HttpClient(connections);
         }
 
     }
@@ -109,26 +135,11 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
             throw new IllegalArgumentException("Did not privide an valid integration ID: " + integrationId);
         }
 
-        // aggregate values across versions
-        final Map<String, Long> totalMessagesMap = getMetricValues(integrationId, METRIC_TOTAL, deploymentVersionLabel, Long.class, PrometheusMetricsProviderImpl::sum);
-        final Map<String, Long> failedMessagesMap = getMetricValues(integrationId, METRIC_FAILED, deploymentVersionLabel, Long.class, PrometheusMetricsProviderImpl::sum);
+        final MetricsSnapshot metrics = snapshot();
 
-        final Map<String, Instant> startTimeMap = getMetricValues(integrationId, METRIC_START_TIMESTAMP, deploymentVersionLabel, Instant.class, PrometheusMetricsProviderImpl::max);
-
-        // compute last processed time from lastCompleted and lastFailure times
-        final Map<String, Instant> lastCompletedTimeMap = getMetricValues(integrationId, METRIC_COMPLETED_TIMESTAMP, deploymentVersionLabel, Instant.class, PrometheusMetricsProviderImpl::max);
-        final Map<String, Instant> lastFailedTimeMap = getMetricValues(integrationId, METRIC_FAILURE_TIMESTAMP, deploymentVersionLabel, Instant.class, PrometheusMetricsProviderImpl::max);
-        final Map<String, Instant> lastProcessedTimeMap = Stream.concat(lastCompletedTimeMap.entrySet().stream(), lastFailedTimeMap.entrySet().stream())
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, PrometheusMetricsProviderImpl::max));
-
-        final Optional<Instant> startTime = getAggregateMetricValue(integrationId, METRIC_START_TIMESTAMP, Instant.class, "min");
-
-        final Optional<Instant> lastCompletedTime = getAggregateMetricValue(integrationId, METRIC_COMPLETED_TIMESTAMP, Instant.class, "max");
-        final Optional<Instant> lastFailureTime = getAggregateMetricValue(integrationId, METRIC_FAILURE_TIMESTAMP, Instant.class, "max");
-        final Instant lastProcessedTime = max(lastCompletedTime.orElse(null), lastFailureTime.orElse(null));
-
-        return createIntegrationMetricsSummary(totalMessagesMap, failedMessagesMap,
-            startTimeMap, lastProcessedTimeMap, startTime, Optional.ofNullable(lastProcessedTime));
+        return createIntegrationMetricsSummary(metrics.messages(integrationId), metrics.errors(integrationId),
+            metrics.start(integrationId), metrics.lastProcessed(integrationId),
+            Optional.ofNullable(metrics.integrationStart(integrationId)), Optional.ofNullable(metrics.integrationLastProcessed(integrationId)));
     }
 
     private static IntegrationMetricsSummary createIntegrationMetricsSummary(Map<String, Long> totalMessagesMap, Map<String, Long> failedMessagesMap,
@@ -175,10 +186,11 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
 
     @Override
     public IntegrationMetricsSummary getTotalIntegrationMetricsSummary() {
-        final Optional<Long> totalMessages = getSummaryMetricValue(METRIC_TOTAL, Long.class, "sum");
-        final Optional<Long> failedMessages = getSummaryMetricValue(METRIC_FAILED, Long.class, "sum");
+        final MetricsSnapshot metrics = snapshot();
 
-        final List<Pod> serverList = openShiftClient.pods().withLabelSelector(SELECTOR).list().getItems();
+        final List<Pod> serverList = resourceCache == null
+            ? openShiftClient.pods().withLabelSelector(SELECTOR).list().getItems()
+            : resourceCache.getPods(LABELS);
         final Optional<Instant> startTime;
         if (!serverList.isEmpty()) {
             startTime = Optional.of(Instant.parse(serverList.get(0).getStatus().getStartTime()));
@@ -189,10 +201,7 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
             startTime = Optional.empty();
         }
 
-        // compute last processed time
-        final Optional<Instant> lastCompletedTime = getAggregateMetricValue(METRIC_COMPLETED_TIMESTAMP, Instant.class, "max");
-        final Optional<Instant> lastFailureTime = getAggregateMetricValue(METRIC_FAILURE_TIMESTAMP, Instant.class, "max");
-        final Optional<Instant> lastProcessedTime = Optional.ofNullable(max(lastCompletedTime.orElse(null), lastFailureTime.orElse(null)));
+        final Optional<Instant> lastProcessedTime = Optional.ofNullable(metrics.lastProcessed());
 
         // get top 5 integrations by total messages
         return new IntegrationMetricsSummary.Builder()
@@ -201,68 +210,89 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
             .start(startTime.map(st -> Instant.ofEpochMilli(st.toEpochMilli() * 1000)))
             .lastProcessed(lastProcessedTime.map(lp -> Instant.ofEpochMilli(lp.toEpochMilli() * 1000)))
             .uptimeDuration(startTime.map(date -> Duration.between(date, Instant.now()).toMillis()).orElse(0L))
-            .messages(totalMessages.orElse(0L))
-            .errors(failedMessages.orElse(0L))
-            .topIntegrations(getTopIntegrations())
+            .messages(metrics.totalMessages())
+            .errors(metrics.totalErrors())
+            .topIntegrations(metrics.topIntegrations(topIntegrationsCount))
             .build();
     }
 
-    private <T> Map<String, T> getMetricValues(String integrationId, String metric, String label, Class<? extends T> clazz, BinaryOperator<T> mergeFunction) {
-        HttpQuery queryTotalMessages = createSummaryHttpQuery(integrationId, metric, null);
-        QueryResult response = httpClient.queryPrometheus(queryTotalMessages);
-        validateResponse(response);
-        return QueryResult.getValueMap(response, label, clazz, mergeFunction);
-    }
-
-    private <T> Optional<T> getSummaryMetricValue(String metric, Class<? extends T> clazz, String aggregationOperator) {
-        HttpQuery queryTotalMessages = createSummaryHttpQuery(metric, aggregationOperator);
-        QueryResult response = httpClient.queryPrometheus(queryTotalMessages);
-        validateResponse(response);
-        return QueryResult.getFirstValue(response, clazz);
-    }
-
-    private <T> Optional<T> getAggregateMetricValue(String metric, Class<? extends T> clazz, String aggregationOperator) {
-        HttpQuery queryTotalMessages = createInstantHttpQuery(metric, aggregationOperator);
-        QueryResult response = httpClient.queryPrometheus(queryTotalMessages);
-        validateResponse(response);
-        return QueryResult.getFirstValue(response, clazz);
-    }
+    /**
+     * Returns the metrics of all integrations, queried at most once per
+     * {@link #queryCacheTimeToLive} and shared by all concurrent requests.
+     */
+    private MetricsSnapshot snapshot() {
+        final CompletableFuture<MetricsSnapshot> current;
+        synchronized (this) {
+            if (snapshot == null || snapshot.isCompletedExceptionally()
+                || snapshot.isDone() && System.nanoTime() - snapshotTime > queryCacheTimeToLive) {
+                snapshotTime = System.nanoTime();
+                snapshot = querySnapshot();
+            }
+            current = snapshot;
+        }
 
-    private <T> Optional<T> getAggregateMetricValue(String integrationId, String metric, Class<? extends T> clazz, String aggregationOperator) {
-        HttpQuery queryTotalMessages = createInstantHttpQuery(integrationId, metric, aggregationOperator);
-        QueryResult response = httpClient.queryPrometheus(queryTotalMessages);
-        validateResponse(response);
-        return QueryResult.getFirstValue(response, clazz);
+        try {
+            return current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SyndesisServerException.launderThrowable(e);
+        } catch (ExecutionException e) {
+            throw SyndesisServerException.launderThrowable(e.getCause());
+        }
     }
 
-    private Map<String, Long> getTopIntegrations() {
-        HttpQuery queryTotalMessages = new HttpQuery.Builder().createFrom(createInstantHttpQuery(METRIC_TOTAL, OPERATOR_TOPK))
-                .addAggregationOperatorParameters(Integer.toString(topIntegrationsCount))
-                .addByLabels(integrationIdLabel)
-                .build();
-        QueryResult response = httpClient.queryPrometheus(queryTotalMessages);
-        validateResponse(response);
-        return QueryResult.getValueMap(response, integrationIdLabel, Long.class, PrometheusMetricsProviderImpl::sum);
+    /**
+     * Queries the metrics of all integrations at once, with queries grouped by
+     * integration and deployment version that are executed concurrently.
+     */
+    private CompletableFuture<MetricsSnapshot> querySnapshot() {
+        final CompletableFuture<QueryResult> total = query(METRIC_TOTAL, "sum", true, integrationIdLabel, deploymentVersionLabel);
+        final CompletableFuture<QueryResult> failed = query(METRIC_FAILED, "sum", true, integrationIdLabel, deploymentVersionLabel);
+        final CompletableFuture<QueryResult> start = query(METRIC_START_TIMESTAMP, "max", true, integrationIdLabel, deploymentVersionLabel);
+        final CompletableFuture<QueryResult> completed = query(METRIC_COMPLETED_TIMESTAMP, "max", true, integrationIdLabel, deploymentVersionLabel);
+        final CompletableFuture<QueryResult> failure = query(METRIC_FAILURE_TIMESTAMP, "max", true, integrationIdLabel, deploymentVersionLabel);
+        final CompletableFuture<QueryResult> integrationStart = query(METRIC_START_TIMESTAMP, "min", false, integrationIdLabel);
+        final CompletableFuture<QueryResult> integrationCompleted = query(METRIC_COMPLETED_TIMESTAMP, "max", false, integrationIdLabel);
+        final CompletableFuture<QueryResult> integrationFailure = query(METRIC_FAILURE_TIMESTAMP, "max", false, integrationIdLabel);
+
+        return CompletableFuture.allOf(total, failed, start, completed, failure, integrationStart, integrationCompleted, integrationFailure)
+            .thenApply(v -> {
+                final Map<String, Map<String, Instant>> lastProcessed = byIntegrationAndVersion(completed.join(), Instant.class, PrometheusMetricsProviderImpl::max);
+                byIntegrationAndVersion(failure.join(), Instant.class, PrometheusMetricsProviderImpl::max)
+                    .forEach((integrationId, versions) -> MetricsSnapshot.merge(
+                        lastProcessed.computeIfAbsent(integrationId, id -> new HashMap<>()), versions, PrometheusMetricsProviderImpl::max));
+
+                return new MetricsSnapshot(
+                    byIntegrationAndVersion(total.join(), Long.class, PrometheusMetricsProviderImpl::sum),
+                    byIntegrationAndVersion(failed.join(), Long.class, PrometheusMetricsProviderImpl::sum),
+                    byIntegrationAndVersion(start.join(), Instant.class, PrometheusMetricsProviderImpl::max),
+                    lastProcessed,
+                    MetricsSnapshot.byIntegration(validateResponse(integrationStart.join()), integrationIdLabel, Instant.class, PrometheusMetricsProviderImpl::min),
+                    MetricsSnapshot.merge(
+                        MetricsSnapshot.byIntegration(validateResponse(integrationCompleted.join()), integrationIdLabel, Instant.class, PrometheusMetricsProviderImpl::max),
+                        MetricsSnapshot.byIntegration(validateResponse(integrationFailure.join()), integrationIdLabel, Instant.class, PrometheusMetricsProviderImpl::max),
+                        PrometheusMetricsProviderImpl::max));
+            });
     }
 
-    private HttpQuery createSummaryHttpQuery(String integrationId, String metric, String aggregationOperator) {
-        return new HttpQuery.Builder().createFrom(createInstantHttpQuery(integrationId, metric, aggregationOperator))
-                .function(FUNCTION_MAX_OVER_TIME)
-                .range(metricsHistoryRange)
-                .build();
+    private <T> Map<String, Map<String, T>> byIntegrationAndVersion(QueryResult response, Class<? extends T> clazz, BinaryOperator<T> mergeFunction) {
+        return MetricsSnapshot.byIntegrationAndVersion(validateResponse(response), integrationIdLabel, deploymentVersionLabel, clazz, mergeFunction);
     }
 
-    private HttpQuery createSummaryHttpQuery(String metric, String aggregationOperator) {
-        return new HttpQuery.Builder().createFrom(createInstantHttpQuery(metric, aggregationOperator))
-                .function(FUNCTION_MAX_OVER_TIME)
-                .range(metricsHistoryRange)
-                .build();
-    }
+    /**
+     * Aggregates the metric by the given labels, over the metrics history range
+     * or at the current time.
+     */
+    private CompletableFuture<QueryResult> query(String metric, String aggregationOperator, boolean overHistory, String... byLabels) {
+        final HttpQuery.Builder query = new HttpQuery.Builder();
+        query.createFrom(createInstantHttpQuery(metric, aggregationOperator))
+            .addByLabels(byLabels);
+        if (overHistory) {
+            query.function(FUNCTION_MAX_OVER_TIME)
+                .range(metricsHistoryRange);
+        }
 
-    private HttpQuery createInstantHttpQuery(String integrationId, String metric, String aggregationOperator) {
-        return new HttpQuery.Builder().createFrom(createInstantHttpQuery(metric, aggregationOperator))
-                .addLabelValues(integrationId, this.integrationIdLabel)
-                .build();
+        return httpClient.queryPrometheusAsync(query.build());
     }
 
     private HttpQuery createInstantHttpQuery(String metric, String aggregationOperator) {
@@ -275,11 +305,12 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
                 .build();
     }
 
-    private static void validateResponse(QueryResult response) {
+    private static QueryResult validateResponse(QueryResult response) {
         if (response.isError()) {
             throw new IllegalArgumentException(
                 String.format("Error Type: %s, Error: %s", response.getErrorType(), response.getError()));
         }
+        return response;
     }
 
     private static long sum(final Long a, final Long b) {
@@ -298,6 +329,21 @@ public class PrometheusMetricsProviderImpl implements MetricsProvider {
         return a + b;
     }
 
+    /**
+     * @return earlier of the two dates or null if both are null
+     */
+    private static Instant min(final Instant a, final Instant b) {
+        if (a == null) {
+            return b;
+        }
+
+        if (b == null) {
+            return a;
+        }
+
+        return a.compareTo(b) < 0 ? a : b;
+    }
+
     /**
      * @return more recent of the two dates or null if both are null
      */
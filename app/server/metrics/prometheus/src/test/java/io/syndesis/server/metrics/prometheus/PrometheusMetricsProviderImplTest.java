@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.metrics.prometheus;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.syndesis.common.model.metrics.IntegrationDeploymentMetrics;
+import io.syndesis.common.model.metrics.IntegrationMetricsSummary;
+import io.syndesis.server.openshift.OpenShiftResourceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrometheusMetricsProviderImplTest {
+
+    private static final String INTEGRATION_1 = "i1z";
+
+    private static final String INTEGRATION_2 = "i2z";
+
+    private static final String INTEGRATION_ID = "syndesis_io_integration_id";
+
+    private static final String VERSION = "syndesis_io_deployment_version";
+
+    private final PrometheusConfigurationProperties config = new PrometheusConfigurationProperties();
+
+    private final HttpClient httpClient = mock(HttpClient.class);
+
+    private final OpenShiftResourceCache resourceCache = mock(OpenShiftResourceCache.class);
+
+    private final Map<String, CompletableFuture<QueryResult>> responses = new HashMap<>();
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @BeforeEach
+    public void stubPrometheus() {
+        // grouped by integration and version
+        respond("org_apache_camel_ExchangesTotal", "sum", true, result(
+            series(INTEGRATION_1, "1", 10),
+            series(INTEGRATION_1, "2", 5),
+            series(INTEGRATION_2, "1", 7),
+            // not deployed by syndesis, skipped
+            series(null, null, 100)));
+        respond("org_apache_camel_ExchangesFailed", "sum", true, result(
+            series(INTEGRATION_1, "1", 1),
+            series(INTEGRATION_1, "2", 0),
+            series(INTEGRATION_2, "1", 2)));
+        respond("io_syndesis_camel_StartTimestamp", "max", true, result(
+            series(INTEGRATION_1, "1", 100),
+            series(INTEGRATION_1, "2", 200),
+            series(INTEGRATION_2, "1", 150)));
+        respond("io_syndesis_camel_LastExchangeCompletedTimestamp", "max", true, result(
+            series(INTEGRATION_1, "1", 300),
+            series(INTEGRATION_2, "1", 350)));
+        respond("io_syndesis_camel_LastExchangeFailureTimestamp", "max", true, result(
+            series(INTEGRATION_1, "1", 400),
+            series(INTEGRATION_1, "2", 250)));
+
+        // grouped by integration
+        respond("io_syndesis_camel_StartTimestamp", "min", false, result(
+            series(INTEGRATION_1, null, 100),
+            series(INTEGRATION_2, null, 150)));
+        respond("io_syndesis_camel_LastExchangeCompletedTimestamp", "max", false, result(
+            series(INTEGRATION_1, null, 300),
+            series(INTEGRATION_2, null, 350)));
+        respond("io_syndesis_camel_LastExchangeFailureTimestamp", "max", false, result(
+            series(INTEGRATION_1, null, 400)));
+
+        when(httpClient.queryPrometheusAsync(any())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return responses.get(key(invocation.getArgument(0)));
+        });
+
+        when(resourceCache.getPods(anyMap())).thenReturn(Collections.emptyList());
+
+        config.setQueryCacheTimeToLive(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    public void shouldAggregateMetricsOfIntegrationVersions() {
+        final IntegrationMetricsSummary summary = provider().getIntegrationMetricsSummary(INTEGRATION_1);
+
+        assertThat(queries).hasValue(8);
+        assertThat(summary.getMessages()).isEqualTo(15L);
+        assertThat(summary.getErrors()).isEqualTo(1L);
+        assertThat(summary.getStart()).contains(Instant.ofEpochSecond(100));
+        assertThat(summary.getLastProcessed()).contains(Instant.ofEpochSecond(400));
+
+        final List<IntegrationDeploymentMetrics> versions = summary.getIntegrationDeploymentMetrics().get();
+        assertThat(versions).extracting(IntegrationDeploymentMetrics::getVersion).containsExactly("1", "2");
+        assertThat(versions).extracting(IntegrationDeploymentMetrics::getMessages).containsExactly(10L, 5L);
+        assertThat(versions).extracting(IntegrationDeploymentMetrics::getErrors).containsExactly(1L, 0L);
+        assertThat(versions.get(0).getStart()).contains(Instant.ofEpochSecond(100));
+        assertThat(versions.get(1).getStart()).contains(Instant.ofEpochSecond(200));
+        // the later of the last completed and the last failed exchange
+        assertThat(versions.get(0).getLastProcessed()).contains(Instant.ofEpochSecond(400));
+        assertThat(versions.get(1).getLastProcessed()).contains(Instant.ofEpochSecond(250));
+    }
+
+    @Test
+    public void shouldAggregateMetricsOfAllIntegrations() {
+        final IntegrationMetricsSummary summary = provider().getTotalIntegrationMetricsSummary();
+
+        assertThat(summary.getMessages()).isEqualTo(22L);
+        assertThat(summary.getErrors()).isEqualTo(3L);
+        assertThat(summary.getLastProcessed()).contains(Instant.ofEpochSecond(400));
+        assertThat(summary.getTopIntegrations()).hasValueSatisfying(top ->
+            assertThat(top).containsExactly(entry(INTEGRATION_1, 15L), entry(INTEGRATION_2, 7L)));
+    }
+
+    @Test
+    public void shouldQueryOnceWithinTimeToLive() {
+        final PrometheusMetricsProviderImpl provider = provider();
+
+        provider.getIntegrationMetricsSummary(INTEGRATION_1);
+        provider.getIntegrationMetricsSummary(INTEGRATION_2);
+        provider.getTotalIntegrationMetricsSummary();
+
+        assertThat(queries).hasValue(8);
+    }
+
+    @Test
+    public void shouldQueryAgainAfterTimeToLive() {
+        config.setQueryCacheTimeToLive(0);
+        final PrometheusMetricsProviderImpl provider = provider();
+
+        provider.getIntegrationMetricsSummary(INTEGRATION_1);
+        assertThat(queries).hasValue(8);
+
+        provider.getIntegrationMetricsSummary(INTEGRATION_1);
+        assertThat(queries).hasValue(16);
+    }
+
+    @Test
+    public void shouldNotCacheFailedQueries() {
+        final CompletableFuture<QueryResult> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Prometheus is down"));
+        final CompletableFuture<QueryResult> succeeded = responses.put(key("org_apache_camel_ExchangesFailed", "sum", true), failed);
+
+        final PrometheusMetricsProviderImpl provider = provider();
+
+        assertThatExceptionOfType(IllegalStateException.class)
+            .isThrownBy(() -> provider.getIntegrationMetricsSummary(INTEGRATION_1))
+            .withMessage("Prometheus is down");
+        assertThat(queries).hasValue(8);
+
+        responses.put(key("org_apache_camel_ExchangesFailed", "sum", true), succeeded);
+
+        assertThat(provider.getIntegrationMetricsSummary(INTEGRATION_1).getMessages()).isEqualTo(15L);
+        assertThat(queries).hasValue(16);
+    }
+
+    @Test
+    public void shouldNotCacheErrorResponses() {
+        final CompletableFuture<QueryResult> succeeded = responses.put(key("io_syndesis_camel_StartTimestamp", "min", false),
+            CompletableFuture.completedFuture(new QueryResult.Builder().status("error").errorType("timeout").error("query timed out").build()));
+
+        final PrometheusMetricsProviderImpl provider = provider();
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+            .isThrownBy(() -> provider.getIntegrationMetricsSummary(INTEGRATION_1))
+            .withMessage("Error Type: timeout, Error: query timed out");
+
+        responses.put(key("io_syndesis_camel_StartTimestamp", "min", false), succeeded);
+
+        assertThat(provider.getIntegrationMetricsSummary(INTEGRATION_1).getMessages()).isEqualTo(15L);
+        assertThat(queries).hasValue(16);
+    }
+
+    @Test
+    public void shouldShareQueriesOfConcurrentCallers() throws Exception {
+        // hold back all responses until both callers are waiting
+        final CompletableFuture<Void> prometheus = new CompletableFuture<>();
+        responses.replaceAll((key, response) -> prometheus.thenCompose(v -> response));
+
+        final PrometheusMetricsProviderImpl provider = provider();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<IntegrationMetricsSummary> first = executor.submit(() -> provider.getIntegrationMetricsSummary(INTEGRATION_1));
+            awaitQueries(8);
+
+            final Future<IntegrationMetricsSummary> second = executor.submit(() -> provider.getIntegrationMetricsSummary(INTEGRATION_2));
+            Thread.sleep(100);
+            assertThat(first).isNotDone();
+            assertThat(second).isNotDone();
+
+            prometheus.complete(null);
+
+            assertThat(first.get(10, TimeUnit.SECONDS).getMessages()).isEqualTo(15L);
+            assertThat(second.get(10, TimeUnit.SECONDS).getMessages()).isEqualTo(7L);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(queries).hasValue(8);
+    }
+
+    private PrometheusMetricsProviderImpl provider() {
+        final PrometheusMetricsProviderImpl provider = new PrometheusMetricsProviderImpl(config, mock(NamespacedOpenShiftClient.class), httpClient);
+        provider.setResourceCache(resourceCache);
+        provider.init();
+        return provider;
+    }
+
+    private void awaitQueries(int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queries.get() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queries).hasValue(count);
+    }
+
+    private void respond(String metric, String aggregation, boolean byVersion, QueryResult result) {
+        responses.put(key(metric, aggregation, byVersion), CompletableFuture.completedFuture(result));
+    }
+
+    private static String key(HttpQuery query) {
+        return key(query.getMetric(), query.getAggregationOperator().orElse(null), query.getByLabels().contains(VERSION));
+    }
+
+    private static String key(String metric, String aggregation, boolean byVersion) {
+        return aggregation + "(" + metric + ")" + (byVersion ? " by version" : "");
+    }
+
+    private static QueryResult result(QueryResult.Data.Result... series) {
+        return new QueryResult.Builder()
+            .status("success")
+            .data(new QueryResult.Data.Builder()
+                .resultType("vector")
+                .addResult(series)
+                .build())
+            .build();
+    }
+
+    private static QueryResult.Data.Result series(String integrationId, String version, long value) {
+        final QueryResult.Data.Result.Builder series = new QueryResult.Data.Result.Builder();
+        if (integrationId != null) {
+            series.putMetric(INTEGRATION_ID, integrationId);
+        }
+        if (version != null) {
+            series.putMetric(VERSION, version);
+        }
+        return series
+            .addValue(1_534_509_528)
+            .addValue(Long.toString(value))
+            .build();
+    }
+}
@@ -16,6 +16,7 @@
 package io.syndesis.server.monitoring;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,7 @@ import org.springframework.stereotype.Service;
 
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
 import io.fabric8.kubernetes.api.model.PodStatus;
 import io.fabric8.kubernetes.api.model.ReplicationController;
 import io.fabric8.kubernetes.client.internal.readiness.Readiness;
@@ -36,6 +38,7 @@ import io.syndesis.common.model.monitoring.IntegrationDeploymentDetailedState;
 import io.syndesis.common.model.monitoring.IntegrationDeploymentStateDetails;
 import io.syndesis.common.model.monitoring.LinkType;
 import io.syndesis.server.dao.manager.DataManager;
+import io.syndesis.server.openshift.OpenShiftResourceCache;
 import io.syndesis.server.openshift.OpenShiftService;
 
 import static io.syndesis.common.model.integration.IntegrationDeploymentState.Pending;
@@ -58,6 +61,7 @@ public class PublishingStateMonitor implements StateHandler {
 
     private final NamespacedOpenShiftClient client;
     private final DataManager dataManager;
+    private OpenShiftResourceCache resourceCache;
 
     @Autowired
     public PublishingStateMonitor(DeploymentStateMonitor monitor, NamespacedOpenShiftClient client, DataManager dataManager) {
@@ -67,6 +71,11 @@ public class PublishingStateMonitor implements StateHandler {
         monitor.register(Pending, this);
     }
 
+    @Autowired(required = false)
+    public void setResourceCache(OpenShiftResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
     @Override
     public String getDescription() {
         return "Publishing state details";
@@ -215,10 +224,18 @@ public class PublishingStateMonitor implements StateHandler {
     }
 
     protected Pod getPod(String podName) {
+        if (resourceCache != null) {
+            return resourceCache.getPod(podName);
+        }
+
         return client.pods().withName(podName).get();
     }
 
     protected Optional<Build> getBuild(String integrationId, String version) {
+        if (resourceCache != null) {
+            return resourceCache.getDeploymentBuilds(integrationId, version).stream().findFirst();
+        }
+
         return client.builds()
                             .withLabel(OpenShiftService.INTEGRATION_ID_LABEL, integrationId)
                             .withLabel(OpenShiftService.DEPLOYMENT_VERSION_LABEL, version)
@@ -227,6 +244,14 @@ public class PublishingStateMonitor implements StateHandler {
     }
 
     protected PodList getDeploymentPodList(String integrationId, String version) {
+        if (resourceCache != null) {
+            return new PodListBuilder()
+                .withItems(resourceCache.getDeploymentPods(integrationId, version).stream()
+                    .filter(pod -> "integration".equals(pod.getMetadata().getLabels().get(OpenShiftService.COMPONENT_LABEL)))
+                    .collect(Collectors.toList()))
+                .build();
+        }
+
         return client.pods()
                         .withLabel(OpenShiftService.COMPONENT_LABEL, "integration")
                         .withLabel(OpenShiftService.DEPLOYMENT_VERSION_LABEL, version)
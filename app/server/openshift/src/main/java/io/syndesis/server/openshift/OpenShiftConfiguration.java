@@ -17,6 +17,9 @@ package io.syndesis.server.openshift;
 
 import io.fabric8.openshift.client.DefaultOpenShiftClient;
 import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -40,6 +43,14 @@ public class OpenShiftConfiguration {
         return new OpenShiftServiceImpl(openShiftClient, openShiftConfigurationProperties);
     }
 
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(value = "openshift.enabled", matchIfMissing = true, havingValue = "true")
+    public OpenShiftResourceCache openShiftResourceCache(NamespacedOpenShiftClient openShiftClient, OpenShiftConfigurationProperties openShiftConfigurationProperties,
+        ObjectProvider<MeterRegistry> meterRegistry) {
+        return new OpenShiftResourceCache(openShiftClient, openShiftConfigurationProperties.getCacheResyncPeriod(),
+            meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
     @Bean
     @ConditionalOnProperty(value = "openshift.enabled", havingValue = "false")
     public OpenShiftService openNoOpShiftService() {
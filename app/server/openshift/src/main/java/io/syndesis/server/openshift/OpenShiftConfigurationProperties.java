@@ -56,6 +56,7 @@ public class OpenShiftConfigurationProperties {
 
     private int maximumRetries = 3;
     private long pollingInterval = 5000;
+    private long cacheResyncPeriod = 600000;
 
     private Map<String, String> buildNodeSelector;
 
@@ -207,6 +208,14 @@ public class OpenShiftConfigurationProperties {
         this.pollingInterval = pollingInterval;
     }
 
+    public long getCacheResyncPeriod() {
+        return cacheResyncPeriod;
+    }
+
+    public void setCacheResyncPeriod(long cacheResyncPeriod) {
+        this.cacheResyncPeriod = cacheResyncPeriod;
+    }
+
     public Map<String, String> getBuildNodeSelector() {
         return buildNodeSelector;
     }
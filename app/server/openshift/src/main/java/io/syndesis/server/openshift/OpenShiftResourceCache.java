@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.openshift;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.dsl.base.OperationContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
+import io.fabric8.openshift.api.model.Build;
+import io.fabric8.openshift.api.model.BuildList;
+import io.fabric8.openshift.api.model.DeploymentConfig;
+import io.fabric8.openshift.api.model.DeploymentConfigList;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local cache of the pods, builds and deployment configs in the namespace,
+ * kept up to date by watching the API server. Resources are indexed by
+ * integration id, by integration id and deployment version and by labels.
+ * Until the initial listing of a resource type has been received, or if the
+ * cache is not started, lookups are performed against the API server.
+ */
+public class OpenShiftResourceCache implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpenShiftResourceCache.class);
+
+    static final String INTEGRATION_INDEX = "integration";
+
+    static final String DEPLOYMENT_INDEX = "deployment";
+
+    static final String LABEL_INDEX = "label";
+
+    private final NamespacedOpenShiftClient client;
+
+    private final long resyncPeriodMillis;
+
+    private final MeterRegistry registry;
+
+    private final List<Meter> meters = new ArrayList<>();
+
+    private final Cached<Pod> pods;
+
+    private final Cached<Build> builds;
+
+    private final Cached<DeploymentConfig> deploymentConfigs;
+
+    private SharedInformerFactory factory;
+
+    public OpenShiftResourceCache(NamespacedOpenShiftClient client, long resyncPeriodMillis, MeterRegistry registry) {
+        this.client = client;
+        this.resyncPeriodMillis = resyncPeriodMillis;
+        this.registry = registry;
+
+        pods = new Cached<>("pods",
+            labels -> client.pods().withLabels(labels).list().getItems(),
+            label -> client.pods().withLabel(label).list().getItems(),
+            name -> client.pods().withName(name).get());
+        builds = new Cached<>("builds",
+            labels -> client.builds().withLabels(labels).list().getItems(),
+            label -> client.builds().withLabel(label).list().getItems(),
+            name -> client.builds().withName(name).get());
+        deploymentConfigs = new Cached<>("deploymentconfigs",
+            labels -> client.deploymentConfigs().withLabels(labels).list().getItems(),
+            label -> client.deploymentConfigs().withLabel(label).list().getItems(),
+            name -> client.deploymentConfigs().withName(name).get());
+    }
+
+    /**
+     * Starts watching the resources, lookups are served from the cache as
+     * soon as the initial listing of the resource type is received.
+     */
+    public synchronized void start() {
+        if (factory != null) {
+            return;
+        }
+
+        LOG.info("Starting resource cache for namespace {} (resync period: {} ms)", client.getNamespace(), resyncPeriodMillis);
+
+        factory = client.informers();
+        final OperationContext context = new OperationContext().withNamespace(client.getNamespace());
+        pods.watch(factory.sharedIndexInformerFor(Pod.class, PodList.class, context, resyncPeriodMillis));
+        builds.watch(factory.sharedIndexInformerFor(Build.class, BuildList.class, context, resyncPeriodMillis));
+        deploymentConfigs.watch(factory.sharedIndexInformerFor(DeploymentConfig.class, DeploymentConfigList.class, context, resyncPeriodMillis));
+
+        factory.startAllRegisteredInformers();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (factory != null) {
+            factory.stopAllRegisteredInformers();
+            factory = null;
+        }
+
+        pods.unwatch();
+        builds.unwatch();
+        deploymentConfigs.unwatch();
+
+        for (Meter meter : meters) {
+            registry.remove(meter);
+        }
+        meters.clear();
+    }
+
+    public Pod getPod(String name) {
+        return pods.get(name);
+    }
+
+    /**
+     * Pods having all of the given labels.
+     */
+    public List<Pod> getPods(Map<String, String> labels) {
+        return pods.list(labels);
+    }
+
+    /**
+     * Pods having the given label, regardless of its value.
+     */
+    public List<Pod> getPodsWithLabel(String label) {
+        return pods.listWithLabel(label);
+    }
+
+    public List<Pod> getIntegrationPods(String integrationId) {
+        return pods.byIndex(INTEGRATION_INDEX, integrationId,
+            Collections.singletonMap(OpenShiftService.INTEGRATION_ID_LABEL, integrationId));
+    }
+
+    public List<Pod> getDeploymentPods(String integrationId, String version) {
+        return pods.byIndex(DEPLOYMENT_INDEX, deploymentKey(integrationId, version), deploymentLabels(integrationId, version));
+    }
+
+    public List<Build> getDeploymentBuilds(String integrationId, String version) {
+        return builds.byIndex(DEPLOYMENT_INDEX, deploymentKey(integrationId, version), deploymentLabels(integrationId, version));
+    }
+
+    public DeploymentConfig getDeploymentConfig(String name) {
+        return deploymentConfigs.get(name);
+    }
+
+    /**
+     * Deployment configs having all of the given labels.
+     */
+    public List<DeploymentConfig> getDeploymentConfigs(Map<String, String> labels) {
+        return deploymentConfigs.list(labels);
+    }
+
+    static String deploymentKey(String integrationId, String version) {
+        return integrationId + ":" + version;
+    }
+
+    private static Map<String, String> deploymentLabels(String integrationId, String version) {
+        final Map<String, String> labels = new HashMap<>();
+        labels.put(OpenShiftService.INTEGRATION_ID_LABEL, integrationId);
+        labels.put(OpenShiftService.DEPLOYMENT_VERSION_LABEL, version);
+
+        return labels;
+    }
+
+    static Map<String, Function<HasMetadata, List<String>>> indexers() {
+        final Map<String, Function<HasMetadata, List<String>>> indexers = new HashMap<>();
+
+        indexers.put(INTEGRATION_INDEX, resource -> {
+            final String integrationId = label(resource, OpenShiftService.INTEGRATION_ID_LABEL);
+            return integrationId == null ? Collections.emptyList() : Collections.singletonList(integrationId);
+        });
+
+        indexers.put(DEPLOYMENT_INDEX, resource -> {
+            final String integrationId = label(resource, OpenShiftService.INTEGRATION_ID_LABEL);
+            final String version = label(resource, OpenShiftService.DEPLOYMENT_VERSION_LABEL);
+            return integrationId == null || version == null ? Collections.emptyList() : Collections.singletonList(deploymentKey(integrationId, version));
+        });
+
+        // indexed by each label name, and by each label name and value
+        indexers.put(LABEL_INDEX, resource -> {
+            final Map<String, String> labels = labels(resource);
+            final List<String> keys = new ArrayList<>(labels.size() * 2);
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                keys.add(label.getKey());
+                keys.add(label.getKey() + "=" + label.getValue());
+            }
+
+            return keys;
+        });
+
+        return indexers;
+    }
+
+    static boolean hasLabels(HasMetadata resource, Map<String, String> labels) {
+        final Map<String, String> present = labels(resource);
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (!Objects.equals(label.getValue(), present.get(label.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String label(HasMetadata resource, String name) {
+        return labels(resource).get(name);
+    }
+
+    private static Map<String, String> labels(HasMetadata resource) {
+        final ObjectMeta metadata = resource.getMetadata();
+        if (metadata == null || metadata.getLabels() == null) {
+            return Collections.emptyMap();
+        }
+
+        return metadata.getLabels();
+    }
+
+    /**
+     * Resources of a single type, served from the informer once it has
+     * synced and from the API server otherwise.
+     */
+    private final class Cached<T extends HasMetadata> {
+        private final String type;
+        private final Function<Map<String, String>, List<T>> listByLabels;
+        private final Function<String, List<T>> listByLabel;
+        private final Function<String, T> getByName;
+
+        private volatile SharedIndexInformer<T> informer;
+
+        Cached(String type, Function<Map<String, String>, List<T>> listByLabels, Function<String, List<T>> listByLabel, Function<String, T> getByName) {
+            this.type = type;
+            this.listByLabels = listByLabels;
+            this.listByLabel = listByLabel;
+            this.getByName = getByName;
+        }
+
+        void watch(SharedIndexInformer<T> informer) {
+            final Map<String, Function<T, List<String>>> typed = new HashMap<>();
+            indexers().forEach((name, indexer) -> typed.put(name, indexer::apply));
+            informer.addIndexers(typed);
+
+            final Counter added = counter("add");
+            final Counter updated = counter("update");
+            final Counter resynced = counter("resync");
+            final Counter deleted = counter("delete");
+            informer.addEventHandler(new ResourceEventHandler<T>() {
+                @Override
+                public void onAdd(T resource) {
+                    added.increment();
+                }
+
+                @Override
+                public void onUpdate(T previous, T current) {
+                    if (Objects.equals(previous.getMetadata().getResourceVersion(), current.getMetadata().getResourceVersion())) {
+                        // periodic resync, nothing changed
+                        resynced.increment();
+                    } else {
+                        updated.increment();
+                    }
+                }
+
+                @Override
+                public void onDelete(T resource, boolean deletedFinalStateUnknown) {
+                    deleted.increment();
+                }
+            });
+
+            meters.add(Gauge.builder("syndesis.openshift.cache.size", informer, i -> i.getIndexer().list().size())
+                .description("Resources held in the OpenShift resource cache")
+                .tag("type", type)
+                .register(registry));
+            meters.add(Gauge.builder("syndesis.openshift.cache.synced", informer, i -> i.hasSynced() ? 1 : 0)
+                .description("If the OpenShift resource cache has received the initial listing")
+                .tag("type", type)
+                .register(registry));
+
+            this.informer = informer;
+        }
+
+        void unwatch() {
+            informer = null;
+        }
+
+        T get(String name) {
+            final SharedIndexInformer<T> current = synced();
+            if (current == null) {
+                return getByName.apply(name);
+            }
+
+            return current.getIndexer().getByKey(client.getNamespace() + "/" + name);
+        }
+
+        List<T> list(Map<String, String> labels) {
+            if (labels.isEmpty()) {
+                final SharedIndexInformer<T> current = synced();
+                return current == null ? listByLabels.apply(labels) : current.getIndexer().list();
+            }
+
+            final Map.Entry<String, String> first = labels.entrySet().iterator().next();
+            return byIndex(LABEL_INDEX, first.getKey() + "=" + first.getValue(), labels);
+        }
+
+        List<T> listWithLabel(String label) {
+            final SharedIndexInformer<T> current = synced();
+            if (current == null) {
+                return listByLabel.apply(label);
+            }
+
+            return current.getIndexer().byIndex(LABEL_INDEX, label);
+        }
+
+        /**
+         * Resources with the given key in the index, the labels are used to
+         * query the API server when the cache can't be used and to narrow
+         * down the resources found in the index.
+         */
+        List<T> byIndex(String index, String key, Map<String, String> labels) {
+            final SharedIndexInformer<T> current = synced();
+            if (current == null) {
+                return listByLabels.apply(labels);
+            }
+
+            final List<T> indexed = current.getIndexer().byIndex(index, key);
+            final List<T> matching = new ArrayList<>(indexed.size());
+            for (T resource : indexed) {
+                if (hasLabels(resource, labels)) {
+                    matching.add(resource);
+                }
+            }
+
+            return matching;
+        }
+
+        private SharedIndexInformer<T> synced() {
+            final SharedIndexInformer<T> current = informer;
+            if (current == null || !current.hasSynced()) {
+                return null;
+            }
+
+            return current;
+        }
+
+        private Counter counter(String event) {
+            final Counter counter = Counter.builder("syndesis.openshift.cache.events")
+                .description("Watch events received by the OpenShift resource cache")
+                .tag("type", type)
+                .tag("event", event)
+                .register(registry);
+            meters.add(counter);
+
+            return counter;
+        }
+    }
+}
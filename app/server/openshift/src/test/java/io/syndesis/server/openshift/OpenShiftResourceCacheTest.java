@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.openshift;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.fabric8.openshift.client.server.mock.OpenShiftMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpenShiftResourceCacheTest {
+
+    private final Pod integrationPod = new PodBuilder()
+        .withNewMetadata()
+            .withName("i-integration-1-abcde")
+            .addToLabels(OpenShiftService.COMPONENT_LABEL, "integration")
+            .addToLabels(OpenShiftService.INTEGRATION_ID_LABEL, "integration-id")
+            .addToLabels(OpenShiftService.DEPLOYMENT_VERSION_LABEL, "3")
+        .endMetadata()
+        .build();
+
+    private final Pod serverPod = new PodBuilder()
+        .withNewMetadata()
+            .withName("syndesis-server-1-abcde")
+            .addToLabels("app", "syndesis")
+            .addToLabels("component", "syndesis-server")
+        .endMetadata()
+        .build();
+
+    private OpenShiftMockServer server;
+
+    private NamespacedOpenShiftClient client;
+
+    @BeforeEach
+    public void setUp() {
+        server = new OpenShiftMockServer(true);
+        server.init();
+        client = server.createOpenShiftClient();
+
+        client.pods().create(integrationPod);
+        client.pods().create(serverPod);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void shouldIndexResourcesByIntegrationDeploymentAndLabels() {
+        final Map<String, Function<HasMetadata, List<String>>> indexers = OpenShiftResourceCache.indexers();
+
+        assertThat(indexers.get(OpenShiftResourceCache.INTEGRATION_INDEX).apply(integrationPod)).containsExactly("integration-id");
+        assertThat(indexers.get(OpenShiftResourceCache.DEPLOYMENT_INDEX).apply(integrationPod))
+            .containsExactly(OpenShiftResourceCache.deploymentKey("integration-id", "3"));
+        assertThat(indexers.get(OpenShiftResourceCache.LABEL_INDEX).apply(serverPod))
+            .containsOnly("app", "app=syndesis", "component", "component=syndesis-server");
+
+        assertThat(indexers.get(OpenShiftResourceCache.INTEGRATION_INDEX).apply(serverPod)).isEmpty();
+        assertThat(indexers.get(OpenShiftResourceCache.DEPLOYMENT_INDEX).apply(serverPod)).isEmpty();
+        assertThat(indexers.get(OpenShiftResourceCache.LABEL_INDEX).apply(new Pod())).isEmpty();
+    }
+
+    @Test
+    public void shouldMatchAllLabels() {
+        final Map<String, String> labels = new HashMap<>();
+        labels.put("app", "syndesis");
+        labels.put("component", "syndesis-server");
+
+        assertThat(OpenShiftResourceCache.hasLabels(serverPod, labels)).isTrue();
+        assertThat(OpenShiftResourceCache.hasLabels(integrationPod, labels)).isFalse();
+        assertThat(OpenShiftResourceCache.hasLabels(serverPod, Collections.singletonMap("app", "other"))).isFalse();
+        assertThat(OpenShiftResourceCache.hasLabels(new Pod(), Collections.emptyMap())).isTrue();
+    }
+
+    @Test
+    public void shouldQueryApiServerUntilStarted() {
+        final OpenShiftResourceCache cache = new OpenShiftResourceCache(client, 60000, new SimpleMeterRegistry());
+
+        final Map<String, String> labels = new HashMap<>();
+        labels.put("app", "syndesis");
+        labels.put("component", "syndesis-server");
+
+        assertThat(cache.getPods(labels)).extracting(p -> p.getMetadata().getName()).containsExactly("syndesis-server-1-abcde");
+        assertThat(cache.getDeploymentPods("integration-id", "3")).extracting(p -> p.getMetadata().getName()).containsExactly("i-integration-1-abcde");
+        assertThat(cache.getDeploymentPods("integration-id", "2")).isEmpty();
+        assertThat(cache.getPod("syndesis-server-1-abcde")).isNotNull();
+        assertThat(cache.getPod("missing")).isNull();
+    }
+}
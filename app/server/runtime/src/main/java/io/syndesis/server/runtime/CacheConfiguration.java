@@ -16,7 +16,10 @@
 package io.syndesis.server.runtime;
 
 import io.syndesis.common.util.cache.CacheManager;
+import io.syndesis.common.util.cache.ConcurrentCacheManager;
+import io.syndesis.common.util.cache.JsonWeigher;
 import io.syndesis.common.util.cache.LRUCacheManager;
+import io.syndesis.common.util.cache.Weigher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -28,9 +31,27 @@ public class CacheConfiguration {
     @Value("${cache.max.entries}")
     private int maxEntries;
 
+    /**
+     * Maximum approximate size in bytes of the entries of each cache, only
+     * used by the {@code concurrent} cache type, 0 for no limit.
+     */
+    @Value("${cache.max.weight:0}")
+    private long maxWeight;
+
+    /**
+     * Either {@code lru} or {@code concurrent}, the latter does not take locks
+     * on lookups and can be bounded by {@code cache.max.weight}.
+     */
+    @Value("${cache.type:lru}")
+    private String type;
+
     @Bean
     @ConditionalOnMissingBean
     public CacheManager syndesisCacheManager() {
+        if ("concurrent".equals(type)) {
+            return new ConcurrentCacheManager(maxEntries, maxWeight, maxWeight > 0 ? new JsonWeigher() : Weigher.singleton());
+        }
+
         return new LRUCacheManager(maxEntries);
     }
 }
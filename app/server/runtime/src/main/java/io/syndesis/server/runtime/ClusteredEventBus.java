@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.syndesis.common.util.EventBus;
+import io.syndesis.common.util.KeyGenerator;
+import io.syndesis.common.util.json.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Event bus spanning all servers of the cluster. Subscriptions are local to
+ * the server, events broadcast on any server are delivered to the local
+ * subscribers right away and, batched together, to the subscribers on the
+ * other servers through the {@link EventBusTransport}. Events of other
+ * servers are first handed to the {@link RemoteListener}s, so that cached
+ * state is invalidated before the subscribers see the event. Subscribers
+ * registered as local only, the controllers acting on the state shared by
+ * the whole cluster, are not given the events of other servers as the
+ * server that made the change already acted on it. Events sent to a single
+ * subscriber are not distributed.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ClusteredEventBus implements EventBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusteredEventBus.class);
+
+    private static final String HEADER = "{\"node\":";
+
+    private static final String EVENTS = ",\"events\":[";
+
+    private static final String FOOTER = "]}";
+
+    /**
+     * Invoked for the events broadcast by other servers before they are
+     * delivered to the local subscribers.
+     */
+    public interface RemoteListener {
+
+        void onRemoteEvent(String event, String data);
+
+        /**
+         * Invoked when events of other servers might have been missed.
+         */
+        void onResync();
+    }
+
+    private final String node = KeyGenerator.createKey();
+
+    private final EventBus local;
+
+    private final EventBusTransport transport;
+
+    private final long batchDelayMillis;
+
+    private final BlockingQueue<String[]> pending;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService publisher;
+
+    private final List<RemoteListener> listeners = new ArrayList<>();
+
+    private final Set<String> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> localOnlySubscribers;
+
+    ClusteredEventBus(EventBus local, EventBusTransport transport, long batchDelayMillis, int maxPending, Set<String> localOnlySubscribers) {
+        this.local = local;
+        this.localOnlySubscribers = new HashSet<>(localOnlySubscribers);
+        this.transport = transport;
+        this.batchDelayMillis = batchDelayMillis;
+        pending = new LinkedBlockingQueue<>(maxPending);
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("event-bus-publisher-");
+        threadFactory.setDaemon(true);
+        publisher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    public synchronized void addRemoteListener(RemoteListener listener) {
+        listeners.add(listener);
+    }
+
+    public void start() {
+        transport.listen(new EventBusTransport.Receiver() {
+            @Override
+            public void onPayload(String payload) {
+                receive(payload);
+            }
+
+            @Override
+            public void onReconnect() {
+                for (RemoteListener listener : listeners()) {
+                    listener.onResync();
+                }
+            }
+        });
+    }
+
+    public void close() {
+        publisher.shutdown();
+        try {
+            if (!publisher.awaitTermination(batchDelayMillis + 5000, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Events broadcast to other servers were not published in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        transport.close();
+    }
+
+    @Override
+    public Subscription subscribe(String subscriberId, Subscription handler) {
+        subscribers.add(subscriberId);
+        return local.subscribe(subscriberId, handler);
+    }
+
+    @Override
+    public Subscription unsubscribe(String subscriberId) {
+        subscribers.remove(subscriberId);
+        return local.unsubscribe(subscriberId);
+    }
+
+    @Override
+    public void broadcast(String event, String data) {
+        local.broadcast(event, data);
+
+        if (!pending.offer(new String[] {event, data})) {
+            LOG.warn("Too many events waiting to be published, event {} is not broadcast to other servers", event);
+            return;
+        }
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                publisher.schedule(this::flush, batchDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Event bus is closed, not publishing to other servers", e);
+            }
+        }
+    }
+
+    @Override
+    public void send(String subscriberId, String event, String data) {
+        local.send(subscriberId, event, data);
+    }
+
+    void flush() {
+        flushScheduled.set(false);
+
+        final List<String[]> events = new ArrayList<>();
+        pending.drainTo(events);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        final List<String> payloads = payloads(events);
+        try {
+            transport.publish(payloads);
+        } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") RuntimeException e) {
+            LOG.warn("Unable to publish {} events to other servers: {}", events.size(), e.getMessage());
+            LOG.debug("Unable to publish events to other servers", e);
+        }
+    }
+
+    /**
+     * Packs the events into as few payloads as fit the transport.
+     */
+    List<String> payloads(List<String[]> events) {
+        final String header = HEADER + JsonUtils.toString(node) + EVENTS;
+        final int overhead = header.length() + FOOTER.length();
+        final int max = transport.maxPayloadSize();
+
+        final List<String> payloads = new ArrayList<>();
+        final StringBuilder payload = new StringBuilder(header);
+        int size = overhead;
+        boolean empty = true;
+
+        for (String[] event : events) {
+            final String json = JsonUtils.toString(event);
+            final int length = json.getBytes(UTF_8).length;
+            if (overhead + length > max) {
+                LOG.warn("Event {} of {} bytes is too large to be broadcast to other servers", event[0], length);
+                continue;
+            }
+
+            if (!empty && size + 1 + length > max) {
+                payloads.add(payload.append(FOOTER).toString());
+                payload.setLength(0);
+                payload.append(header);
+                size = overhead;
+                empty = true;
+            }
+
+            if (!empty) {
+                payload.append(',');
+                size++;
+            }
+            payload.append(json);
+            size += length;
+            empty = false;
+        }
+
+        if (!empty) {
+            payloads.add(payload.append(FOOTER).toString());
+        }
+
+        return payloads;
+    }
+
+    void receive(String payload) {
+        final JsonNode json;
+        try {
+            json = JsonUtils.reader().readTree(payload);
+        } catch (IOException e) {
+            LOG.warn("Received malformed events from other servers: {}", e.getMessage());
+            return;
+        }
+
+        if (node.equals(json.path("node").asText())) {
+            // already delivered locally when broadcast
+            return;
+        }
+
+        final List<RemoteListener> remoteListeners = listeners();
+        for (JsonNode event : json.path("events")) {
+            final String type = event.path(0).asText();
+            final String data = event.path(1).isNull() ? null : event.path(1).asText();
+
+            // listeners first so that local subscribers see the changes
+            for (RemoteListener listener : remoteListeners) {
+                listener.onRemoteEvent(type, data);
+            }
+
+            for (String subscriberId : subscribers) {
+                if (!localOnlySubscribers.contains(subscriberId)) {
+                    local.send(subscriberId, type, data);
+                }
+            }
+        }
+    }
+
+    private synchronized List<RemoteListener> listeners() {
+        return new ArrayList<>(listeners);
+    }
+}
@@ -16,6 +16,7 @@
 package io.syndesis.server.runtime;
 
 import io.syndesis.common.util.IndexedProperty;
+import io.syndesis.server.jsondb.impl.DocumentSqlJsonDB;
 import io.syndesis.server.jsondb.impl.Index;
 import io.syndesis.server.jsondb.impl.SqlJsonDB;
 import io.syndesis.common.model.Kind;
@@ -24,11 +25,13 @@ import org.skife.jdbi.v2.DBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /**
@@ -41,7 +44,8 @@ public class DataStoreConfiguration {
     @Bean
     @Autowired
     @SuppressWarnings("PMD.EmptyCatchBlock")
-    public SqlJsonDB jsonDB(DBI dbi, Optional<List<Index>> beanIndexes) {
+    public SqlJsonDB jsonDB(DBI dbi, Optional<List<Index>> beanIndexes, @Value("${dao.jsondb.storage:records}") String storage,
+        @Value("${dao.jsondb.writes:replace}") String writes) {
 
         ArrayList<Index> indexes = new ArrayList<>();
         if(beanIndexes.isPresent()) {
@@ -66,7 +70,25 @@ public class DataStoreConfiguration {
             }
         }
 
+        if ("documents".equals(storage)) {
+            List<String> collections = new ArrayList<>();
+            for (Kind kind : Kind.values()) {
+                collections.add("/" + kind.getModelName() + "s");
+            }
+
+            DocumentSqlJsonDB jsondb = new DocumentSqlJsonDB(dbi, null, indexes, collections);
+            jsondb.setWriteMode(SqlJsonDB.WriteMode.valueOf(writes.toUpperCase(Locale.US)));
+            try {
+                jsondb.createTables();
+            } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") Exception ignore) {
+                LOG.debug("Could not create tables", ignore);
+            }
+            jsondb.migrateToDocuments();
+            return jsondb;
+        }
+
         SqlJsonDB jsondb = new SqlJsonDB(dbi, null, indexes);
+        jsondb.setWriteMode(SqlJsonDB.WriteMode.valueOf(writes.toUpperCase(Locale.US)));
         try {
             jsondb.createTables();
         } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") Exception ignore) {
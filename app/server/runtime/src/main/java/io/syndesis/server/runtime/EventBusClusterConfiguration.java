@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.runtime;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import javax.sql.DataSource;
+
+import io.syndesis.common.model.ChangeEvent;
+import io.syndesis.common.util.DurationConverter;
+import io.syndesis.common.util.EventBus;
+import io.syndesis.common.util.json.JsonUtils;
+import io.syndesis.server.dao.manager.DataManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Distributes the events broadcast on the event bus to all servers sharing
+ * the database, needed when running more than one server. Entities changed
+ * on other servers are evicted from the {@link DataManager} caches before
+ * the event is delivered to the UI clients and the resource update handlers.
+ */
+@Configuration
+@ConditionalOnProperty(value = "eventbus.cluster.enabled", havingValue = "true")
+public class EventBusClusterConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventBusClusterConfiguration.class);
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @Primary
+    public ClusteredEventBus clusteredEventBus(SimpleEventBus local, DataSource dataSource,
+            @Value("${eventbus.cluster.batchDelay:50ms}") String batchDelay,
+            @Value("${eventbus.cluster.pollInterval:500ms}") String pollInterval,
+            @Value("${eventbus.cluster.maxPending:10000}") int maxPending,
+            @Value("${eventbus.cluster.localOnlySubscribers:integration-deployment-controller,integration-endpoint-controller}") String[] localOnlySubscribers) {
+        final Duration poll = new DurationConverter().convert(pollInterval);
+        final PostgresEventBusTransport transport = new PostgresEventBusTransport(dataSource, (int) poll.toMillis());
+
+        // by default the integration deployment and endpoint controllers, they
+        // act on the state shared by all servers and the server that made the
+        // change already had them act on it
+        return new ClusteredEventBus(local, transport, new DurationConverter().convert(batchDelay).toMillis(), maxPending,
+            new HashSet<>(Arrays.asList(localOnlySubscribers)));
+    }
+
+    @Bean
+    public ClusteredEventBus.RemoteListener clusterCacheInvalidation(ClusteredEventBus bus, DataManager dataManager) {
+        final ClusteredEventBus.RemoteListener invalidation = new ClusteredEventBus.RemoteListener() {
+            @Override
+            public void onRemoteEvent(String event, String data) {
+                if (!EventBus.Type.CHANGE_EVENT.equals(event) || data == null) {
+                    return;
+                }
+
+                try {
+                    final ChangeEvent changeEvent = JsonUtils.reader().forType(ChangeEvent.class).readValue(data);
+                    if (changeEvent != null && changeEvent.getKind().isPresent() && changeEvent.getId().isPresent()) {
+                        dataManager.evict(changeEvent.getKind().get(), changeEvent.getId().get());
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Unable to parse change event {} of another server, clearing caches", data, e);
+                    dataManager.clearCache();
+                }
+            }
+
+            @Override
+            public void onResync() {
+                dataManager.clearCache();
+            }
+        };
+
+        bus.addRemoteListener(invalidation);
+
+        return invalidation;
+    }
+}
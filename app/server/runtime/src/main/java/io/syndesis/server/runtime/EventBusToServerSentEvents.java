@@ -69,7 +69,9 @@ public class EventBusToServerSentEvents implements UndertowDeploymentInfoCustomi
             LOG.debug("Principal is: {}", reservation.getPrincipal());
             connection.send("connected", "message", null, null);
             connection.setKeepAliveTime(25*1000);
-            bus.subscribe(subscriptionId, (type, data)->{
+            // free the subscription queue as soon as the client goes away
+            connection.addCloseTask(c -> bus.unsubscribe(subscriptionId));
+            bus.subscribe(subscriptionId, (ClientSubscription) (type, data) -> {
                 if( connection.isOpen() ) {
                     connection.send(data, type, null, null);
                 } else {
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.runtime;
+
+import java.util.List;
+
+/**
+ * Carries the events broadcast on one server to the other servers of the
+ * cluster.
+ */
+interface EventBusTransport extends AutoCloseable {
+
+    /**
+     * Receives the payloads published by any server, including this one.
+     */
+    interface Receiver {
+
+        void onPayload(String payload);
+
+        /**
+         * Invoked when the transport had to reconnect, payloads published in
+         * the meantime might have been missed.
+         */
+        void onReconnect();
+    }
+
+    /**
+     * Largest payload the transport can deliver, in bytes.
+     */
+    int maxPayloadSize();
+
+    /**
+     * Publishes the payloads, all or none of them are delivered.
+     */
+    void publish(List<String> payloads);
+
+    /**
+     * Starts delivering the published payloads to the receiver.
+     */
+    void listen(Receiver receiver);
+
+    @Override
+    void close();
+}
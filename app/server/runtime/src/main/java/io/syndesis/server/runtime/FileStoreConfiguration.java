@@ -16,6 +16,9 @@
 package io.syndesis.server.runtime;
 
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
 
 import io.syndesis.server.dao.file.FileDAO;
 import io.syndesis.server.dao.file.IconDao;
@@ -24,6 +27,7 @@ import io.syndesis.server.filestore.impl.SqlFileStore;
 
 import org.skife.jdbi.v2.DBI;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -39,8 +43,14 @@ public class FileStoreConfiguration {
 
     @Bean(initMethod = "init")
     @Autowired
-    public SqlFileStore sqlFileStore(final DBI dbi) {
-        return new SqlFileStore(dbi);
+    public SqlFileStore sqlFileStore(final DBI dbi,
+            @Value("${filestore.storage:blob}") final String storage,
+            @Value("${filestore.chunkSize:262144}") final int chunkSize,
+            @Value("${filestore.cache.directory:}") final String cacheDirectory,
+            @Value("${filestore.cache.maxSize:268435456}") final long cacheSize) {
+        final Path cache = cacheDirectory.isEmpty() ? null : Paths.get(cacheDirectory);
+
+        return new SqlFileStore(dbi, SqlFileStore.Storage.valueOf(storage.toUpperCase(Locale.ROOT)), chunkSize, cache, cacheSize);
     }
 
     @Bean()
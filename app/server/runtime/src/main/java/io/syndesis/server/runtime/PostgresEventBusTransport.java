@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.runtime;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import io.syndesis.common.util.SyndesisServerException;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Transports the events through PostgreSQL {@code NOTIFY} and
+ * {@code LISTEN}. Listening keeps one connection of the data source open for
+ * as long as the transport is in use.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class PostgresEventBusTransport implements EventBusTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PostgresEventBusTransport.class);
+
+    static final String CHANNEL = "syndesis_events";
+
+    // PostgreSQL limits the payload to 8000 bytes, leave room for the channel name
+    private static final int MAX_PAYLOAD_SIZE = 7900;
+
+    private static final long MAX_RECONNECT_DELAY = TimeUnit.SECONDS.toMillis(30);
+
+    private final DataSource dataSource;
+
+    private final int pollMillis;
+
+    private volatile boolean running = true;
+
+    private Thread listener;
+
+    PostgresEventBusTransport(DataSource dataSource, int pollMillis) {
+        this.dataSource = dataSource;
+        this.pollMillis = pollMillis;
+    }
+
+    @Override
+    public int maxPayloadSize() {
+        return MAX_PAYLOAD_SIZE;
+    }
+
+    @Override
+    public void publish(List<String> payloads) {
+        // a single round trip, notifications are sent when the statement commits
+        try (Connection connection = dataSource.getConnection();
+            PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, payload) FROM unnest(?) AS payload")) {
+            final Array array = connection.createArrayOf("text", payloads.toArray());
+            try {
+                notify.setString(1, CHANNEL);
+                notify.setArray(2, array);
+                try (ResultSet ignored = notify.executeQuery()) {
+                    // nothing to read
+                }
+            } finally {
+                array.free();
+            }
+        } catch (SQLException e) {
+            throw SyndesisServerException.launderThrowable(e);
+        }
+    }
+
+    @Override
+    public synchronized void listen(Receiver receiver) {
+        if (listener != null) {
+            throw new IllegalStateException("Already listening");
+        }
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("event-bus-listener-");
+        threadFactory.setDaemon(true);
+        listener = threadFactory.newThread(() -> receive(receiver));
+        listener.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+    }
+
+    private void receive(Receiver receiver) {
+        boolean reconnecting = false;
+        long delay = 0;
+
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement listen = connection.createStatement()) {
+                    listen.execute("LISTEN " + CHANNEL);
+                }
+                LOG.info("Listening for events of other servers on {}", CHANNEL);
+
+                if (reconnecting) {
+                    receiver.onReconnect();
+                }
+                reconnecting = true;
+                delay = 0;
+
+                final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    final PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+
+                    for (PGNotification notification : notifications) {
+                        deliver(receiver, notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+
+                delay = Math.min(MAX_RECONNECT_DELAY, Math.max(1000, delay * 2));
+                LOG.warn("Lost the connection listening for events of other servers, reconnecting in {} ms: {}", delay, e.getMessage());
+                LOG.debug("Lost the connection listening for events of other servers", e);
+
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        LOG.info("Stopped listening for events of other servers");
+    }
+
+    private static void deliver(Receiver receiver, String payload) {
+        try {
+            receiver.onPayload(payload);
+        } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") RuntimeException e) {
+            LOG.warn("Unable to process events of other servers: {}", e.getMessage());
+            LOG.debug("Unable to process events of other servers: {}", payload, e);
+        }
+    }
+}
@@ -15,44 +15,246 @@
  */
 package io.syndesis.server.runtime;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.syndesis.common.model.ChangeEvent;
 import io.syndesis.common.util.EventBus;
+import io.syndesis.common.util.json.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
 /**
  * A simple event bus to abstract registering/sending Server Sent Events to browser clients
  * which have a subscribed to events.  This could potentially be implemented using a messaging broker.
+ *
+ * Each subscription has its own queue, events are queued to the
+ * subscriptions by a small pool of dispatcher threads so a slow subscriber
+ * does not hold up the publisher nor the other subscribers. Change events for
+ * the same kind and id still waiting in a queue are coalesced into the latest
+ * one. If a UI client, subscribed with a {@link ClientSubscription}, does not
+ * keep up the oldest events are dropped, server side subscribers get every
+ * event.
  */
 @Component
+@SuppressWarnings("PMD.DoNotUseThreads")
 public class SimpleEventBus implements EventBus {
 
-    private final ConcurrentHashMap<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private static final Logger LOG = LoggerFactory.getLogger(SimpleEventBus.class);
+
+    private final ConcurrentHashMap<String, SubscriptionQueue> subscriptions = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor dispatcher;
+
+    private int queueCapacity = 1000;
+
+    private final List<Meter> meters = new ArrayList<>();
+    private MeterRegistry registry;
+    private Counter queued;
+    private Counter coalesced;
+    private Counter dropped;
+
+    public SimpleEventBus() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("event-bus-");
+        threadFactory.setDaemon(true);
+
+        dispatcher = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        dispatcher.allowCoreThreadTimeOut(true);
+    }
+
+    @Value("${eventbus.queueCapacity:1000}")
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Event bus queue capacity needs to be positive, given: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Value("${eventbus.dispatchers:2}")
+    public void setDispatchers(int dispatchers) {
+        if (dispatchers < 1) {
+            throw new IllegalArgumentException("At least one event bus dispatcher is needed, given: " + dispatchers);
+        }
+
+        // core size can't exceed the maximum size, so the order matters
+        if (dispatchers > dispatcher.getMaximumPoolSize()) {
+            dispatcher.setMaximumPoolSize(dispatchers);
+            dispatcher.setCorePoolSize(dispatchers);
+        } else {
+            dispatcher.setCorePoolSize(dispatchers);
+            dispatcher.setMaximumPoolSize(dispatchers);
+        }
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        this.registry = registry;
+
+        meters.add(Gauge.builder("syndesis.eventbus.subscribers", subscriptions, ConcurrentHashMap::size)
+            .description("Subscriptions to the event bus")
+            .register(registry));
+        meters.add(Gauge.builder("syndesis.eventbus.queue.depth", this, SimpleEventBus::totalDepth)
+            .description("Events waiting to be queued to subscribers")
+            .tag("statistic", "total")
+            .register(registry));
+        meters.add(Gauge.builder("syndesis.eventbus.queue.depth", this, SimpleEventBus::maxDepth)
+            .description("Events waiting to be queued to subscribers")
+            .tag("statistic", "max")
+            .register(registry));
+
+        queued = register(Counter.builder("syndesis.eventbus.events")
+            .description("Events handed to the subscriber queues")
+            .tag("outcome", "queued")
+            .register(registry));
+        coalesced = register(Counter.builder("syndesis.eventbus.events")
+            .description("Events handed to the subscriber queues")
+            .tag("outcome", "coalesced")
+            .register(registry));
+        dropped = register(Counter.builder("syndesis.eventbus.events")
+            .description("Events handed to the subscriber queues")
+            .tag("outcome", "dropped")
+            .register(registry));
+    }
+
+    @PreDestroy
+    public void close() {
+        dispatcher.shutdownNow();
+
+        if (registry != null) {
+            for (Meter meter : meters) {
+                registry.remove(meter);
+            }
+            meters.clear();
+        }
+    }
 
     @Override
     public Subscription subscribe(String subscriberId, Subscription handler) {
-        return subscriptions.put(subscriberId, handler);
+        final SubscriptionQueue previous = subscriptions.put(subscriberId, new SubscriptionQueue(subscriberId, handler, queueCapacity));
+        return previous == null ? null : previous.subscription();
     }
+
     @Override
     public Subscription unsubscribe(String subscriberId) {
-        return subscriptions.remove(subscriberId);
+        final SubscriptionQueue removed = subscriptions.remove(subscriberId);
+        return removed == null ? null : removed.subscription();
     }
 
     @Override
     public void broadcast(String event, String data) {
-        for (Map.Entry<String, Subscription> entry : subscriptions.entrySet()) {
-            entry.getValue().onEvent(event, data);
+        final String key = coalescingKey(event, data);
+        for (SubscriptionQueue queue : subscriptions.values()) {
+            dispatch(queue, event, data, key);
         }
     }
 
     @Override
     public void send(String subscriberId, String event, String data) {
-        Subscription sub = subscriptions.get(subscriberId);
-        if( sub!=null ) {
-            sub.onEvent(event, data);
+        SubscriptionQueue queue = subscriptions.get(subscriberId);
+        if (queue != null) {
+            dispatch(queue, event, data, coalescingKey(event, data));
         }
     }
 
+    int depth(String subscriberId) {
+        final SubscriptionQueue queue = subscriptions.get(subscriberId);
+        return queue == null ? 0 : queue.depth();
+    }
 
+    private void dispatch(SubscriptionQueue queue, String event, String data, String key) {
+        final SubscriptionQueue.Outcome outcome = queue.offer(event, data, key);
+        if (outcome == SubscriptionQueue.Outcome.COALESCED) {
+            increment(coalesced);
+            return;
+        }
+
+        increment(queued);
+        if (outcome == SubscriptionQueue.Outcome.DROPPED_OLDEST) {
+            increment(dropped);
+        }
+
+        if (queue.schedule()) {
+            submit(queue);
+        }
+    }
+
+    private void submit(SubscriptionQueue queue) {
+        try {
+            dispatcher.execute(() -> {
+                // resubmit instead of looping so that other subscribers get
+                // their turn on the dispatcher threads
+                if (queue.deliver()) {
+                    submit(queue);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Event bus is shut down, not delivering events", e);
+        }
+    }
+
+    /**
+     * Change events refer to the changed entity by kind and id, subscribers
+     * fetch the current state of the entity so only the latest pending change
+     * event for an entity needs to be queued. Returns {@code null} for
+     * events that must not be coalesced.
+     */
+    static String coalescingKey(String event, String data) {
+        if (!EventBus.Type.CHANGE_EVENT.equals(event) || data == null) {
+            return null;
+        }
+
+        try {
+            final ChangeEvent changeEvent = JsonUtils.reader().forType(ChangeEvent.class).readValue(data);
+            if (changeEvent != null && changeEvent.getKind().isPresent() && changeEvent.getId().isPresent()) {
+                return changeEvent.getKind().get() + "/" + changeEvent.getId().get();
+            }
+        } catch (IOException e) {
+            LOG.debug("Unable to parse change event {}, not coalescing", data, e);
+        }
+
+        return null;
+    }
+
+    private double totalDepth() {
+        long total = 0;
+        for (SubscriptionQueue queue : subscriptions.values()) {
+            total += queue.depth();
+        }
+        return total;
+    }
+
+    private double maxDepth() {
+        int max = 0;
+        for (SubscriptionQueue queue : subscriptions.values()) {
+            max = Math.max(max, queue.depth());
+        }
+        return max;
+    }
+
+    private <T extends Meter> T register(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
 }
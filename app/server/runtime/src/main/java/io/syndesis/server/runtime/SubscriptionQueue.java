@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.runtime;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import io.syndesis.common.util.EventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of the events pending delivery to a single subscription. Events with
+ * the same coalescing key that are still pending are merged into the first
+ * one, keeping its position in the queue and the latest data. The queues of
+ * {@link ClientSubscription}s are bounded, when full the oldest event is
+ * dropped. The queues of the other subscriptions, the server side handlers
+ * that must see every change, grow past the capacity instead.
+ */
+final class SubscriptionQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriptionQueue.class);
+
+    // maximum number of events delivered before yielding the dispatcher
+    private static final int DELIVERY_BATCH = 100;
+
+    private final String subscriberId;
+    private final EventBus.Subscription subscription;
+    private final int capacity;
+    private final boolean dropOldest;
+
+    // guarded by this
+    private final Queue<Event> events = new ArrayDeque<>();
+    private final Map<String, Event> pending = new HashMap<>();
+    private boolean scheduled;
+
+    static final class Event {
+        final String event;
+        final String key;
+        String data;
+
+        Event(String event, String data, String key) {
+            this.event = event;
+            this.data = data;
+            this.key = key;
+        }
+    }
+
+    enum Outcome {
+        QUEUED, COALESCED, DROPPED_OLDEST
+    }
+
+    SubscriptionQueue(String subscriberId, EventBus.Subscription subscription, int capacity) {
+        this.subscriberId = subscriberId;
+        this.subscription = subscription;
+        this.capacity = capacity;
+        dropOldest = subscription instanceof ClientSubscription;
+    }
+
+    EventBus.Subscription subscription() {
+        return subscription;
+    }
+
+    /**
+     * Queues the event.
+     *
+     * @param key coalescing key, or {@code null} if the event is not to be
+     *        merged with other events
+     */
+    synchronized Outcome offer(String event, String data, String key) {
+        if (key != null) {
+            final Event existing = pending.get(key);
+            if (existing != null) {
+                existing.data = data;
+                return Outcome.COALESCED;
+            }
+        }
+
+        Outcome outcome = Outcome.QUEUED;
+        if (dropOldest && events.size() >= capacity) {
+            final Event dropped = events.poll();
+            if (dropped != null && dropped.key != null) {
+                pending.remove(dropped.key);
+            }
+            outcome = Outcome.DROPPED_OLDEST;
+        }
+
+        final Event queued = new Event(event, data, key);
+        events.add(queued);
+        if (key != null) {
+            pending.put(key, queued);
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Marks the queue as scheduled for delivery, returns {@code false} if it
+     * already was or there is nothing to deliver.
+     */
+    synchronized boolean schedule() {
+        if (scheduled || events.isEmpty()) {
+            return false;
+        }
+
+        scheduled = true;
+        return true;
+    }
+
+    synchronized int depth() {
+        return events.size();
+    }
+
+    /**
+     * Delivers a batch of pending events to the subscription, returns
+     * {@code true} if there are more events to deliver.
+     */
+    boolean deliver() {
+        for (int i = 0; i < DELIVERY_BATCH; i++) {
+            final Event next;
+            synchronized (this) {
+                next = events.poll();
+                if (next == null) {
+                    scheduled = false;
+                    return false;
+                }
+                if (next.key != null) {
+                    pending.remove(next.key);
+                }
+            }
+
+            try {
+                subscription.onEvent(next.event, next.data);
+            } catch (@SuppressWarnings("PMD.AvoidCatchingGenericException") RuntimeException e) {
+                LOG.warn("Subscription {} failed to handle event {}: {}", subscriberId, next.event, e.getMessage());
+                LOG.debug("Subscription {} failed to handle event {}", subscriberId, next.event, e);
+            }
+        }
+
+        synchronized (this) {
+            if (events.isEmpty()) {
+                scheduled = false;
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.syndesis.server.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.syndesis.common.util.json.JsonUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClusteredEventBusTest {
+
+    private static final String CONTROLLER = "controller";
+
+    private final List<EventBusTransport.Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    private final List<List<String>> published = new CopyOnWriteArrayList<>();
+
+    private final List<SimpleEventBus> locals = new ArrayList<>();
+
+    private final List<ClusteredEventBus> buses = new ArrayList<>();
+
+    /**
+     * Stand-in for the database, delivers the payloads to all servers.
+     */
+    private class InMemoryTransport implements EventBusTransport {
+
+        private final int maxPayloadSize;
+
+        InMemoryTransport(int maxPayloadSize) {
+            this.maxPayloadSize = maxPayloadSize;
+        }
+
+        @Override
+        public int maxPayloadSize() {
+            return maxPayloadSize;
+        }
+
+        @Override
+        public void publish(List<String> payloads) {
+            published.add(payloads);
+            for (String payload : payloads) {
+                for (Receiver receiver : receivers) {
+                    receiver.onPayload(payload);
+                }
+            }
+        }
+
+        @Override
+        public void listen(Receiver receiver) {
+            receivers.add(receiver);
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    @AfterEach
+    public void close() {
+        buses.forEach(ClusteredEventBus::close);
+        locals.forEach(SimpleEventBus::close);
+    }
+
+    @Test
+    public void shouldDeliverEventsToSubscribersOnAllServers() throws InterruptedException {
+        final ClusteredEventBus server1 = createServer(7900);
+        final ClusteredEventBus server2 = createServer(7900);
+
+        final List<String> onServer1 = new CopyOnWriteArrayList<>();
+        final List<String> onServer2 = new CopyOnWriteArrayList<>();
+        final List<String> evicted = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(4);
+
+        server1.subscribe("a", (event, data) -> {
+            onServer1.add(data);
+            done.countDown();
+        });
+        server2.subscribe("b", (event, data) -> {
+            // remote listeners see the event before the subscribers
+            assertThat(evicted).contains(data);
+            onServer2.add(data);
+            done.countDown();
+        });
+        server2.addRemoteListener(new ClusteredEventBus.RemoteListener() {
+            @Override
+            public void onRemoteEvent(String event, String data) {
+                evicted.add(data);
+            }
+
+            @Override
+            public void onResync() {
+                // not expected
+            }
+        });
+
+        server1.broadcast("change-event", "1");
+        server1.broadcast("change-event", "2");
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(onServer1).containsExactly("1", "2");
+        assertThat(onServer2).containsExactly("1", "2");
+        assertThat(evicted).containsExactly("1", "2");
+
+        // both events were published in a single batch
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0)).hasSize(1);
+    }
+
+    @Test
+    public void shouldNotDeliverEventsOfOtherServersToLocalOnlySubscribers() throws InterruptedException {
+        final ClusteredEventBus server1 = createServer(7900);
+        final ClusteredEventBus server2 = createServer(7900);
+
+        final List<String> onController1 = new CopyOnWriteArrayList<>();
+        final List<String> onController2 = new CopyOnWriteArrayList<>();
+        final List<String> onUi2 = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(4);
+
+        server1.subscribe(CONTROLLER, (event, data) -> {
+            onController1.add(data);
+            done.countDown();
+        });
+        server2.subscribe(CONTROLLER, (event, data) -> {
+            onController2.add(data);
+            done.countDown();
+        });
+        server2.subscribe("ui", (event, data) -> {
+            onUi2.add(data);
+            done.countDown();
+        });
+
+        server1.broadcast("change-event", "1");
+        server2.broadcast("change-event", "2");
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertThat(onUi2).containsExactlyInAnyOrder("1", "2");
+        assertThat(onController1).containsExactly("1");
+        assertThat(onController2).containsExactly("2");
+    }
+
+    @Test
+    public void shouldSplitBatchesToFitTheTransport() throws IOException {
+        final ClusteredEventBus server = createServer(100);
+
+        final List<String[]> events = Arrays.asList(
+            new String[] {"e", "0123456789"},
+            new String[] {"e", "0123456789"},
+            new String[] {"e", new String(new char[100])},
+            new String[] {"e", "0123456789"});
+
+        final List<String> payloads = server.payloads(events);
+
+        assertThat(payloads).hasSize(2);
+        assertThat(payloads).allSatisfy(payload -> assertThat(payload.length()).isLessThanOrEqualTo(100));
+
+        int received = 0;
+        for (String payload : payloads) {
+            final JsonNode json = JsonUtils.reader().readTree(payload);
+            received += json.get("events").size();
+        }
+        assertThat(received).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldResyncAfterReconnecting() {
+        final ClusteredEventBus server = createServer(7900);
+
+        final CountDownLatch resynced = new CountDownLatch(1);
+        server.addRemoteListener(new ClusteredEventBus.RemoteListener() {
+            @Override
+            public void onRemoteEvent(String event, String data) {
+                // not expected
+            }
+
+            @Override
+            public void onResync() {
+                resynced.countDown();
+            }
+        });
+
+        receivers.forEach(EventBusTransport.Receiver::onReconnect);
+
+        assertThat(resynced.getCount()).isZero();
+    }
+
+    private ClusteredEventBus createServer(int maxPayloadSize) {
+        final SimpleEventBus local = new SimpleEventBus();
+        locals.add(local);
+
+        final ClusteredEventBus bus = new ClusteredEventBus(local, new InMemoryTransport(maxPayloadSize), 50, 100, Collections.singleton(CONTROLLER));
+        bus.start();
+        buses.add(bus);
+
+        return bus;
+    }
+}
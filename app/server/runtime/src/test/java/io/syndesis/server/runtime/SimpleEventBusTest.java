@@ -15,13 +15,19 @@
  */
 package io.syndesis.server.runtime;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.syndesis.common.util.EventBus;
 import org.junit.jupiter.api.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Used to test the SimpleEventBus
@@ -84,4 +90,171 @@ public class SimpleEventBusTest {
         assertEquals("data", sub2[1]);
     }
 
+    @Test
+    public void shouldCoalesceChangeEventsOfTheSameEntity() throws InterruptedException {
+        final SimpleEventBus eventBus = createEventBus();
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        eventBus.setMeterRegistry(registry);
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        try {
+            eventBus.subscribe("a", (event, data) -> {
+                if ("block".equals(event)) {
+                    blocked.countDown();
+                    await(release);
+                    return;
+                }
+                received.add(data);
+                done.countDown();
+            });
+
+            // keep the dispatcher busy so that the following events are queued
+            eventBus.send("a", "block", null);
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            eventBus.broadcast(EventBus.Type.CHANGE_EVENT, changeEvent("updated", "integration", "i-1"));
+            eventBus.broadcast(EventBus.Type.CHANGE_EVENT, changeEvent("updated", "integration", "i-2"));
+            eventBus.broadcast(EventBus.Type.CHANGE_EVENT, changeEvent("updated", "integration", "i-1"));
+            eventBus.broadcast(EventBus.Type.CHANGE_EVENT, changeEvent("deleted", "integration", "i-1"));
+            eventBus.broadcast("text", "data");
+            assertThat(eventBus.depth("a")).isEqualTo(3);
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+
+            assertThat(received).containsExactly(
+                changeEvent("deleted", "integration", "i-1"),
+                changeEvent("updated", "integration", "i-2"),
+                "data");
+            assertThat(registry.get("syndesis.eventbus.events").tag("outcome", "coalesced").counter().count()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            eventBus.close();
+        }
+
+        assertThat(registry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void shouldDropOldestEventsOfClientsThatDoNotKeepUp() throws InterruptedException {
+        final SimpleEventBus eventBus = createEventBus();
+        eventBus.setQueueCapacity(2);
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        eventBus.setMeterRegistry(registry);
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        try {
+            eventBus.subscribe("slow", (ClientSubscription) (event, data) -> {
+                if ("block".equals(event)) {
+                    blocked.countDown();
+                    await(release);
+                    return;
+                }
+                received.add(data);
+                done.countDown();
+            });
+
+            eventBus.send("slow", "block", null);
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            eventBus.broadcast("text", "1");
+            eventBus.broadcast("text", "2");
+            eventBus.broadcast("text", "3");
+            assertThat(eventBus.depth("slow")).isEqualTo(2);
+            assertThat(registry.get("syndesis.eventbus.queue.depth").tag("statistic", "max").gauge().value()).isEqualTo(2);
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+
+            assertThat(received).containsExactly("2", "3");
+            assertThat(registry.get("syndesis.eventbus.events").tag("outcome", "dropped").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            eventBus.close();
+        }
+    }
+
+    @Test
+    public void shouldDeliverAllEventsToServerSubscribersThatDoNotKeepUp() throws InterruptedException {
+        final SimpleEventBus eventBus = createEventBus();
+        eventBus.setQueueCapacity(10);
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        eventBus.setMeterRegistry(registry);
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1000);
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        try {
+            eventBus.subscribe("controller", (event, data) -> {
+                if ("block".equals(event)) {
+                    blocked.countDown();
+                    await(release);
+                    return;
+                }
+                received.add(data);
+                done.countDown();
+            });
+
+            eventBus.send("controller", "block", null);
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            // a burst a hundred times larger than the queue capacity
+            for (int i = 0; i < 1000; i++) {
+                eventBus.broadcast(EventBus.Type.CHANGE_EVENT, changeEvent("created", "integration", "i-" + i));
+            }
+            assertThat(eventBus.depth("controller")).isEqualTo(1000);
+
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            assertThat(received).hasSize(1000);
+            assertThat(received.get(999)).isEqualTo(changeEvent("created", "integration", "i-999"));
+            assertThat(registry.get("syndesis.eventbus.events").tag("outcome", "dropped").counter().count()).isZero();
+        } finally {
+            release.countDown();
+            eventBus.close();
+        }
+    }
+
+    @Test
+    public void slowSubscriberShouldNotHoldUpOthers() throws InterruptedException {
+        final SimpleEventBus eventBus = createEventBus();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch fast = new CountDownLatch(1);
+
+        try {
+            eventBus.subscribe("slow", (event, data) -> await(release));
+            eventBus.subscribe("fast", (event, data) -> fast.countDown());
+
+            // returns while the slow subscriber is still blocked
+            eventBus.broadcast("text", "data");
+
+            assertTrue(fast.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            eventBus.close();
+        }
+    }
+
+    private static String changeEvent(String action, String kind, String id) {
+        return "{\"action\":\"" + action + "\",\"kind\":\"" + kind + "\",\"id\":\"" + id + "\"}";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -62,6 +62,6 @@ public class ResourceUpdateAutoConfiguration {
             Arrays.<ResourceUpdateHandler>asList(
                 new ConnectionUpdateHandler(dataManager, encryptionComponent, validator),
                 new IntegrationUpdateHandler(dataManager, encryptionComponent, validator),
-                new UsageUpdateHandler(dataManager)));
+                new UsageUpdateHandler(dataManager, configuration.getUsage())));
     }
 }
@@ -27,6 +27,18 @@ public class ResourceUpdateConfiguration {
     // Interval between check
     private final Scheduler scheduler = new Scheduler();
 
+    // Usage counting of connections and extensions
+    private final Usage usage = new Usage();
+
+    // Time to collect change events of the same kind before processing them
+    private long coalesceWindow = 250;
+
+    // Time unit for coalesce window
+    private TimeUnit coalesceWindowUnit = TimeUnit.MILLISECONDS;
+
+    // Maximum number of handlers processing changes at the same time
+    private int parallelism = 3;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -39,6 +51,34 @@ public class ResourceUpdateConfiguration {
         return scheduler;
     }
 
+    public Usage getUsage() {
+        return usage;
+    }
+
+    public long getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    public TimeUnit getCoalesceWindowUnit() {
+        return coalesceWindowUnit;
+    }
+
+    public void setCoalesceWindowUnit(TimeUnit coalesceWindowUnit) {
+        this.coalesceWindowUnit = coalesceWindowUnit;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     public static class Scheduler {
         // Enable/Disable connector upgrades scheduler
         private boolean enabled = true;
@@ -73,4 +113,28 @@ public class ResourceUpdateConfiguration {
             this.intervalUnit = intervalUnit;
         }
     }
+
+    public static class Usage {
+        // Interval between full recounts of the usage
+        private long reconcileInterval = 10;
+
+        // Time unit for reconcile interval
+        private TimeUnit reconcileIntervalUnit = TimeUnit.MINUTES;
+
+        public long getReconcileInterval() {
+            return reconcileInterval;
+        }
+
+        public void setReconcileInterval(long reconcileInterval) {
+            this.reconcileInterval = reconcileInterval;
+        }
+
+        public TimeUnit getReconcileIntervalUnit() {
+            return reconcileIntervalUnit;
+        }
+
+        public void setReconcileIntervalUnit(TimeUnit reconcileIntervalUnit) {
+            this.reconcileIntervalUnit = reconcileIntervalUnit;
+        }
+    }
 }
@@ -17,14 +17,23 @@ package io.syndesis.server.update.controller;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import io.syndesis.common.model.ChangeEvent;
@@ -37,6 +46,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+/**
+ * Dispatches change events to the {@link ResourceUpdateHandler}s. Events of
+ * the same kind received within the coalesce window are collected, with
+ * repeated events for the same resource collapsed into one, and handed to the
+ * handlers as a single batch. Handlers run in parallel on a bounded pool,
+ * each handler processes its batches one at a time in the order received.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
 public class ResourceUpdateController {
     private static final Logger LOGGER = LoggerFactory.getLogger(ResourceUpdateController.class);
 
@@ -46,6 +63,8 @@ public class ResourceUpdateController {
 
     ScheduledExecutorService scheduler;
 
+    ExecutorService executor;
+
     private final List<ChangeEvent> allEvents;
 
     private final EventBus eventBus;
@@ -54,6 +73,16 @@ public class ResourceUpdateController {
 
     private final Supplier<ScheduledExecutorService> schedulerCreator;
 
+    private final Supplier<ExecutorService> executorCreator;
+
+    private final long coalesceWindowMillis;
+
+    // pending events by kind, guarded by itself
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    // last task of each handler, guarded by itself
+    private final List<CompletableFuture<Void>> lanes;
+
     @Autowired
     public ResourceUpdateController(final ResourceUpdateConfiguration configuration, final EventBus eventBus, final List<ResourceUpdateHandler> handlers) {
         this.eventBus = eventBus;
@@ -65,6 +94,16 @@ public class ResourceUpdateController {
             allEvents.add(new ChangeEvent.Builder().kind(kind.getModelName()).build());
         }
 
+        lanes = new ArrayList<>(handlers.size());
+        for (int i = 0; i < handlers.size(); i++) {
+            lanes.add(CompletableFuture.completedFuture(null));
+        }
+
+        coalesceWindowMillis = configuration.getCoalesceWindowUnit().toMillis(configuration.getCoalesceWindow());
+
+        executorCreator = executorConfiguredFrom(configuration);
+        executor = executorCreator.get();
+
         schedulerCreator = schedulerConfiguredFrom(configuration);
         scheduler = schedulerCreator.get();
     }
@@ -74,6 +113,10 @@ public class ResourceUpdateController {
             return;
         }
 
+        if (executor.isShutdown()) {
+            executor = executorCreator.get();
+        }
+
         if (scheduler.isShutdown()) {
             scheduler = schedulerCreator.get();
         }
@@ -90,6 +133,17 @@ public class ResourceUpdateController {
         eventBus.unsubscribe(getClass().getName());
 
         scheduler.shutdownNow();
+        executor.shutdownNow();
+
+        final List<Batch> discarded;
+        synchronized (batches) {
+            discarded = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+
+        for (final Batch batch : discarded) {
+            batch.complete(null);
+        }
     }
 
     // FutureReturnValueIgnored: there should not be any exceptions from logging
@@ -107,6 +161,7 @@ public class ResourceUpdateController {
             });
     }
 
+    @SuppressWarnings("FutureReturnValueIgnored")
     CompletableFuture<Void> onEventInternal(final String event, final String data) {
         if (!running.get()) {
             return CompletableFuture.completedFuture(null);
@@ -130,7 +185,18 @@ public class ResourceUpdateController {
 
         final CompletableFuture<Void> done = new CompletableFuture<>();
         if (changeEvent != null) {
-            scheduler.execute(() -> run(changeEvent, done));
+            final String kind = changeEvent.getKind().orElse("");
+
+            synchronized (batches) {
+                Batch batch = batches.get(kind);
+                if (batch == null) {
+                    batch = new Batch();
+                    batches.put(kind, batch);
+                    scheduler.schedule(() -> flush(kind), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+                }
+
+                batch.add(changeEvent, done);
+            }
         }
 
         return done;
@@ -171,6 +237,19 @@ public class ResourceUpdateController {
         };
     }
 
+    static Supplier<ExecutorService> executorConfiguredFrom(final ResourceUpdateConfiguration configuration) {
+        final int parallelism = Math.max(1, configuration.getParallelism());
+
+        return () -> {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final ThreadPoolExecutor configuredExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(null, r, "ResourceUpdateController (handler-" + threadCount.incrementAndGet() + ")"));
+            configuredExecutor.allowCoreThreadTimeOut(true);
+
+            return configuredExecutor;
+        };
+    }
+
     private void run() {
         for (int h = 0; h < handlers.size(); h++) {
             final ResourceUpdateHandler handler = handlers.get(h);
@@ -179,8 +258,14 @@ public class ResourceUpdateController {
                 final ChangeEvent event = allEvents.get(i);
 
                 if (handler.canHandle(event)) {
-                    LOGGER.debug("Trigger handler {}", handler);
-                    handler.process(event);
+                    if (isBusy(h)) {
+                        // the handler is still working on previous changes,
+                        // it'll be checked on the next run
+                        LOGGER.debug("Skipping busy handler {}", handler);
+                    } else {
+                        LOGGER.debug("Trigger handler {}", handler);
+                        dispatch(h, () -> handler.process(event));
+                    }
 
                     // At the moment, handlers are not selective but they scan
                     // resources every time process is invoked so we do not need
@@ -191,21 +276,91 @@ public class ResourceUpdateController {
         }
     }
 
-    private void run(final ChangeEvent event, final CompletableFuture<Void> done) {
+    @SuppressWarnings("FutureReturnValueIgnored")
+    private void flush(final String kind) {
+        final Batch batch;
+        synchronized (batches) {
+            batch = batches.remove(kind);
+        }
+
+        if (batch == null) {
+            return;
+        }
+
         if (!running.get()) {
-            done.complete(null);
+            batch.complete(null);
             return;
         }
 
+        final List<ChangeEvent> events = new ArrayList<>(batch.events.values());
+        final ChangeEvent first = events.get(0);
+
+        final List<CompletableFuture<Void>> processing = new ArrayList<>();
         for (int i = 0; i < handlers.size(); i++) {
             final ResourceUpdateHandler handler = handlers.get(i);
 
-            if (handler.canHandle(event)) {
-                LOGGER.debug("Trigger handler {} for event {}", handler, event);
-                handler.process(event);
+            if (handler.canHandle(first)) {
+                LOGGER.debug("Trigger handler {} for {} events of kind {}", handler, events.size(), kind);
+                processing.add(dispatch(i, () -> handler.process(events)));
+            }
+        }
+
+        CompletableFuture.allOf(processing.toArray(new CompletableFuture<?>[processing.size()]))
+            .whenComplete((x, t) -> batch.complete(t));
+    }
+
+    /**
+     * Runs the task after all tasks previously dispatched to the same
+     * handler, so that a handler never processes changes concurrently.
+     */
+    private CompletableFuture<Void> dispatch(final int handlerIndex, final Runnable task) {
+        synchronized (lanes) {
+            final CompletableFuture<Void> next;
+            try {
+                next = lanes.get(handlerIndex)
+                    .handle((x, t) -> (Void) null)
+                    .thenRunAsync(task, executor);
+            } catch (final RejectedExecutionException e) {
+                final CompletableFuture<Void> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(e);
+                return rejected;
             }
+
+            lanes.set(handlerIndex, next);
+            return next;
+        }
+    }
+
+    private boolean isBusy(final int handlerIndex) {
+        synchronized (lanes) {
+            return !lanes.get(handlerIndex).isDone();
         }
+    }
+
+    /**
+     * Change events of a single kind collected within the coalesce window,
+     * keeping the latest event for each resource.
+     */
+    private static final class Batch {
+        final Map<String, ChangeEvent> events = new LinkedHashMap<>();
+
+        final List<CompletableFuture<Void>> done = new ArrayList<>();
 
-        done.complete(null);
+        void add(final ChangeEvent event, final CompletableFuture<Void> eventDone) {
+            final String id = event.getId().orElse("");
+            // keep the position of the first event for the resource
+            events.put(id, event);
+            done.add(eventDone);
+        }
+
+        void complete(final Throwable failure) {
+            for (final CompletableFuture<Void> eventDone : done) {
+                if (failure == null) {
+                    eventDone.complete(null);
+                } else {
+                    eventDone.completeExceptionally(failure);
+                }
+            }
+        }
     }
 }
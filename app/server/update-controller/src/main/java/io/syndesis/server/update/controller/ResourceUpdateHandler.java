@@ -15,10 +15,24 @@
  */
 package io.syndesis.server.update.controller;
 
+import java.util.List;
+
 import io.syndesis.common.model.ChangeEvent;
 
 public interface ResourceUpdateHandler {
     boolean canHandle(ChangeEvent event);
 
     void process(ChangeEvent event);
+
+    /**
+     * Processes the events collected within the coalesce window, all of the
+     * same kind and each one for a different resource. Handlers that can
+     * limit the work to the changed resources should override this, by
+     * default each event is processed on its own.
+     */
+    default void process(List<ChangeEvent> events) {
+        for (int i = 0; i < events.size(); i++) {
+            process(events.get(i));
+        }
+    }
 }
@@ -17,9 +17,11 @@ package io.syndesis.server.update.controller.bulletin;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
@@ -30,6 +32,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import io.syndesis.common.model.ChangeEvent;
+import io.syndesis.common.model.Kind;
 import io.syndesis.common.model.WithId;
 import io.syndesis.common.model.bulletin.LeveledMessage;
 import io.syndesis.common.model.connection.ConfigurationProperty;
@@ -52,9 +55,14 @@ abstract class AbstractResourceUpdateHandler<T extends WithId<T>> implements Res
     }
     @Override
     public void process(ChangeEvent event) {
+        process(Collections.singletonList(event));
+    }
+
+    @Override
+    public void process(List<ChangeEvent> events) {
         if (running.compareAndSet(false, true)) {
             try {
-                compute(event).forEach(dataManager::set);
+                compute(events).forEach(dataManager::set);
             } finally {
                 running.lazySet(false);
             }
@@ -80,12 +88,49 @@ abstract class AbstractResourceUpdateHandler<T extends WithId<T>> implements Res
      */
     protected abstract List<T> compute(ChangeEvent event);
 
+    /**
+     * Compute the bulletin boards for the given changes, all of the same
+     * kind. By default the boards are computed as for a change of any
+     * resource of that kind.
+     * @param events the events.
+     * @return a list of boards or an empty collection.
+     */
+    protected List<T> compute(List<ChangeEvent> events) {
+        if (events.size() == 1) {
+            return compute(events.get(0));
+        }
+
+        final ChangeEvent first = events.get(0);
+        return compute(new ChangeEvent.Builder().kind(first.getKind()).build());
+    }
+
 
 
     // *********************
     // Helpers
     // *********************
 
+    protected static Optional<Kind> changedKind(List<ChangeEvent> events) {
+        return events.get(0).getKind().map(Kind::from);
+    }
+
+    /**
+     * Ids of the changed resources, or empty if any resource of the kind
+     * could have changed.
+     */
+    protected static Optional<Set<String>> changedIds(List<ChangeEvent> events) {
+        final Set<String> ids = new HashSet<>();
+        for (ChangeEvent event : events) {
+            if (!event.getId().isPresent()) {
+                return Optional.empty();
+            }
+
+            ids.add(event.getId().get());
+        }
+
+        return Optional.of(ids);
+    }
+
     protected int countMessagesWithLevel(LeveledMessage.Level level, List<LeveledMessage> messages) {
         int count = 0;
 
@@ -17,10 +17,13 @@ package io.syndesis.server.update.controller.bulletin;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 import javax.validation.Validator;
 
@@ -54,9 +57,33 @@ public class ConnectionUpdateHandler extends AbstractResourceUpdateHandler<Conne
 
     @Override
     protected List<ConnectionBulletinBoard> compute(ChangeEvent event) {
+        return compute(Collections.singletonList(event));
+    }
+
+    @Override
+    protected List<ConnectionBulletinBoard> compute(List<ChangeEvent> events) {
+        final Optional<Set<String>> ids = changedIds(events);
+        final Optional<Kind> kind = changedKind(events);
+
+        if (ids.isPresent() && kind.isPresent() && kind.get() == Kind.Connection) {
+            return computeForConnections(ids.get());
+        }
+
         final List<ConnectionBulletinBoard> boards = new ArrayList<>();
         final DataManager dataManager = getDataManager();
-        final List<Connector> connectors = dataManager.fetchAll(Connector.class).getItems();
+        final List<Connector> connectors;
+        if (ids.isPresent() && kind.isPresent() && kind.get() == Kind.Connector) {
+            // only the connections of the changed connectors
+            connectors = new ArrayList<>();
+            for (String id : ids.get()) {
+                final Connector connector = dataManager.fetch(Connector.class, id);
+                if (connector != null) {
+                    connectors.add(connector);
+                }
+            }
+        } else {
+            connectors = dataManager.fetchAll(Connector.class).getItems();
+        }
 
         for (int i = 0; i < connectors.size(); i++) {
             final Connector connector = connectors.get(i);
@@ -72,6 +99,30 @@ public class ConnectionUpdateHandler extends AbstractResourceUpdateHandler<Conne
         return boards;
     }
 
+    private List<ConnectionBulletinBoard> computeForConnections(Set<String> ids) {
+        final List<ConnectionBulletinBoard> boards = new ArrayList<>();
+        final DataManager dataManager = getDataManager();
+
+        for (String id : ids) {
+            final Connection connection = dataManager.fetch(Connection.class, id);
+            if (connection == null || !connection.getConnector().isPresent()) {
+                continue;
+            }
+
+            final Connector connector = dataManager.fetch(Connector.class, connection.getConnectorId());
+            if (connector == null) {
+                continue;
+            }
+
+            final ConnectionBulletinBoard board = computeBoard(connection, connection.getConnector().get(), connector);
+            if (board != null) {
+                boards.add(board);
+            }
+        }
+
+        return boards;
+    }
+
     ConnectionBulletinBoard computeBoard(Connection connection, Connector oldConnector, Connector newConnector) {
         final DataManager dataManager = getDataManager();
         final String id = connection.getId().get();
@@ -19,10 +19,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -48,6 +51,7 @@ import io.syndesis.common.model.validation.TargetWithDomain;
 import io.syndesis.common.model.validation.connection.ConnectionWithDomain;
 import io.syndesis.common.model.validation.integration.IntegrationWithDomain;
 import io.syndesis.common.util.CollectionsUtils;
+import io.syndesis.common.util.EventBus;
 import io.syndesis.common.util.KeyGenerator;
 import io.syndesis.server.dao.manager.DataManager;
 import io.syndesis.server.dao.manager.EncryptionComponent;
@@ -59,6 +63,10 @@ import io.syndesis.server.dao.manager.EncryptionComponent;
 public class IntegrationUpdateHandler extends AbstractResourceUpdateHandler<IntegrationBulletinBoard> {
     private final List<Kind> supportedKinds;
 
+    // names of the integrations as of the last computation, needed to find
+    // the integrations that shared the name of a renamed or deleted one
+    private volatile Map<String, String> previousNames = Collections.emptyMap();
+
     public IntegrationUpdateHandler(final DataManager dataManager, final EncryptionComponent encryptionComponent, final Validator validator) {
         super(dataManager, encryptionComponent, validator);
 
@@ -223,8 +231,20 @@ public class IntegrationUpdateHandler extends AbstractResourceUpdateHandler<Inte
      */
     @Override
     protected List<IntegrationBulletinBoard> compute(final ChangeEvent event) {
+        return compute(Collections.singletonList(event));
+    }
+
+    /**
+     * When resources are changed, recalculate and redeploy the integrations
+     * affected by the change
+     * @param events the events, all of the same kind.
+     * @return the list of integration bulletin boards
+     */
+    @Override
+    protected List<IntegrationBulletinBoard> compute(final List<ChangeEvent> events) {
         final List<IntegrationBulletinBoard> boards = new ArrayList<>();
         final DataManager dataManager = getDataManager();
+        final ChangeEvent event = events.get(0);
 
         /*
          * Assemble all the artifact collections that are going to be checked in
@@ -245,16 +265,89 @@ public class IntegrationUpdateHandler extends AbstractResourceUpdateHandler<Inte
         allIntegrations.addAll(integrations);
         allIntegrations.addAll(deployedIntegrations);
 
-        // Now iterate all existing integrations and update them if needed
+        // Now iterate the integrations affected by the change and update them if needed
+        final Predicate<Integration> affected = affectedBy(events, integrations);
         for (final Integration integration : integrations) {
-            updateIntegration(event, boards, dataManager, deployments,
-                                connections, allIntegrations,
-                                integration);
+            if (affected.test(integration)) {
+                updateIntegration(event, boards, dataManager, deployments,
+                                    connections, allIntegrations,
+                                    integration);
+            }
+        }
+
+        final Map<String, String> names = new HashMap<>();
+        for (final Integration integration : integrations) {
+            integration.getId().ifPresent(id -> names.put(id, integration.getName()));
         }
+        previousNames = names;
 
         return boards;
     }
 
+    /**
+     * Selects the integrations whose bulletin board could change because of
+     * the given changes, all integrations if the changed resources are not
+     * known.
+     * @param events the events, all of the same kind
+     * @param integrations all integrations
+     * @return predicate matching affected integrations
+     */
+    private Predicate<Integration> affectedBy(final List<ChangeEvent> events, final List<Integration> integrations) {
+        final Optional<Set<String>> maybeIds = changedIds(events);
+        final Optional<Kind> maybeKind = changedKind(events);
+        if (!maybeIds.isPresent() || !maybeKind.isPresent()) {
+            return integration -> true;
+        }
+
+        final Set<String> ids = maybeIds.get();
+        switch (maybeKind.get()) {
+        case Integration:
+            // integrations need to have unique names so integrations with
+            // the same name as the changed ones need to be validated again,
+            // also the ones sharing the name a changed integration had
+            // before it was renamed or deleted
+            final Map<String, String> previous = previousNames;
+            final Set<String> names = integrations.stream()
+                .filter(integration -> integration.getId().filter(ids::contains).isPresent())
+                .map(Integration::getName)
+                .collect(Collectors.toSet());
+            for (final ChangeEvent changed : events) {
+                final String id = changed.getId().get();
+                final String previousName = previous.get(id);
+                if (previousName != null) {
+                    names.add(previousName);
+                } else if (!changed.getAction().filter(EventBus.Action.CREATED::equals).isPresent()) {
+                    // the name it had is not known, can't tell which
+                    // integrations shared it
+                    return integration -> true;
+                }
+            }
+
+            return integration -> integration.getId().filter(ids::contains).isPresent() || names.contains(integration.getName());
+        case Connection:
+            return integration -> !Collections.disjoint(integration.getConnectionIds(), ids);
+        case Connector:
+            return integration -> !Collections.disjoint(integration.getUsedConnectorIds(), ids);
+        case Extension:
+            // integrations reference extensions by the extension id and not
+            // by the id of the (versioned) extension resource
+            final Set<String> extensionIds = new HashSet<>();
+            for (final String id : ids) {
+                final Extension extension = getDataManager().fetch(Extension.class, id);
+                if (extension == null) {
+                    // deleted, can't tell which integrations used it
+                    return integration -> true;
+                }
+
+                extensionIds.add(extension.getExtensionId());
+            }
+
+            return integration -> !Collections.disjoint(integration.getExtensionIds(), extensionIds);
+        default:
+            return integration -> true;
+        }
+    }
+
     /**
      * For each integration existing in the platform, checks the flow (steps) and update it.
      * The message boards {@see IntegrationBulletinBoard} will be updated with any info, warn or error.
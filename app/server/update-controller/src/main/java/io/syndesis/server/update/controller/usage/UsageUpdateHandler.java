@@ -15,11 +15,17 @@
  */
 package io.syndesis.server.update.controller.usage;
 
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -33,6 +39,7 @@ import io.syndesis.common.model.connection.Connection;
 import io.syndesis.common.model.extension.Extension;
 import io.syndesis.common.model.integration.Integration;
 import io.syndesis.server.dao.manager.DataManager;
+import io.syndesis.server.update.controller.ResourceUpdateConfiguration;
 import io.syndesis.server.update.controller.ResourceUpdateHandler;
 
 import org.slf4j.Logger;
@@ -40,6 +47,15 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Functions;
 
+/**
+ * Keeps the usage counts of connections and extensions up to date. The
+ * integrations using each connection and extension are kept in a reverse
+ * index, so that a change of an integration only updates the connections and
+ * extensions it started or stopped using. Change events are coalesced by the
+ * {@link io.syndesis.server.update.controller.ResourceUpdateController} and
+ * processed together, and the usage is recounted from all integrations on
+ * the first event and once per reconcile interval.
+ */
 public final class UsageUpdateHandler implements ResourceUpdateHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(UsageUpdateHandler.class);
@@ -48,8 +64,32 @@ public final class UsageUpdateHandler implements ResourceUpdateHandler {
 
     private final DataManager dataManager;
 
+    private final long reconcileIntervalNanos;
+
+    private final Set<String> pendingIntegrations = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> pendingExtensions = ConcurrentHashMap.newKeySet();
+
+    // guarded by this
+    private UsageIndex connections;
+
+    // guarded by this
+    private UsageIndex extensions;
+
+    // guarded by this
+    private long lastReconciled;
+
     public UsageUpdateHandler(final DataManager dataManager) {
+        this(dataManager, TimeUnit.MINUTES.toNanos(10));
+    }
+
+    public UsageUpdateHandler(final DataManager dataManager, final ResourceUpdateConfiguration.Usage configuration) {
+        this(dataManager, configuration.getReconcileIntervalUnit().toNanos(configuration.getReconcileInterval()));
+    }
+
+    UsageUpdateHandler(final DataManager dataManager, final long reconcileIntervalNanos) {
         this.dataManager = dataManager;
+        this.reconcileIntervalNanos = reconcileIntervalNanos;
     }
 
     @Override
@@ -66,27 +106,125 @@ public final class UsageUpdateHandler implements ResourceUpdateHandler {
     @Override
     public void process(final ChangeEvent event) {
         LOG.debug("Received event: {}", event);
-        processInternal(event);
+
+        final Optional<String> id = event.getId();
+        if (!id.isPresent()) {
+            // periodic check, recount everything if it's time to do so
+            synchronized (this) {
+                if (connections == null || System.nanoTime() - lastReconciled >= reconcileIntervalNanos) {
+                    processInternal(event);
+                    return;
+                }
+            }
+
+            drain();
+            return;
+        }
+
+        final Kind kind = Kind.from(event.getKind().get());
+        if (kind == Kind.Integration) {
+            pendingIntegrations.add(id.get());
+        } else {
+            pendingExtensions.add(id.get());
+        }
+
+        drain();
     }
 
-    void processInternal(final ChangeEvent event) {
+    /**
+     * The events were already coalesced by the caller, so the changes are
+     * processed right away.
+     */
+    @Override
+    public void process(final List<ChangeEvent> events) {
+        LOG.debug("Received {} events", events.size());
+
+        ChangeEvent periodic = null;
+        for (final ChangeEvent event : events) {
+            if (!event.getId().isPresent()) {
+                periodic = event;
+            } else if (Kind.from(event.getKind().get()) == Kind.Integration) {
+                pendingIntegrations.add(event.getId().get());
+            } else {
+                pendingExtensions.add(event.getId().get());
+            }
+        }
+
+        if (periodic == null) {
+            drain();
+        } else {
+            process(periodic);
+        }
+    }
+
+    synchronized void processInternal(final ChangeEvent event) {
         LOG.debug("Processing event: {}", event);
 
+        // the recount covers any changes that were waiting to be processed
+        pendingIntegrations.clear();
+        pendingExtensions.clear();
+
         final ListResult<Integration> integrationsResult = dataManager.fetchAll(Integration.class);
 
         final List<Integration> integrations = integrationsResult.getItems();
 
-        updateUsageFor(Connection.class, integrations, Integration::getConnectionIds, Functions.compose(Optional::get, Connection::getId),
+        connections = new UsageIndex(integrations, Integration::getConnectionIds);
+        extensions = new UsageIndex(integrations, Integration::getExtensionIds);
+        lastReconciled = System.nanoTime();
+
+        updateUsageFor(Connection.class, connections, Functions.compose(Optional::get, Connection::getId),
             UsageUpdateHandler::withUpdatedUsage);
 
-        updateUsageFor(Extension.class, integrations, Integration::getExtensionIds, Extension::getExtensionId,
+        updateUsageFor(Extension.class, extensions, Extension::getExtensionId,
             UsageUpdateHandler::withUpdatedUsage);
     }
 
-    private <T extends WithId<T> & WithUsage> void updateUsageFor(final Class<T> type, final List<Integration> integrations,
-        final Function<Integration, Set<String>> idsFunction, final Function<T, String> idFunction, final BiFunction<T, Integer, T> usageUpdater) {
-        final Map<String, Long> usage = computeUsage(integrations, idsFunction);
+    /**
+     * Processes all changes received so far, any change received while
+     * processing is picked up by the next drain.
+     */
+    synchronized void drain() {
+        if (connections == null) {
+            // nothing counted yet, a full recount covers the changes
+            processInternal(null);
+            return;
+        }
+
+        final Set<String> changedConnections = new HashSet<>();
+        final Set<String> changedExtensions = new HashSet<>();
+
+        for (final String integrationId : take(pendingIntegrations)) {
+            final Integration integration = dataManager.fetch(Integration.class, integrationId);
 
+            final Set<String> connectionIds = integration == null ? Collections.emptySet() : integration.getConnectionIds();
+            changedConnections.addAll(connections.update(integrationId, connectionIds));
+
+            final Set<String> extensionIds = integration == null ? Collections.emptySet() : integration.getExtensionIds();
+            changedExtensions.addAll(extensions.update(integrationId, extensionIds));
+        }
+
+        for (final String connectionId : changedConnections) {
+            final Connection connection = dataManager.fetch(Connection.class, connectionId);
+            if (connection != null) {
+                updateUsage(connection, connections.usage(connectionId), UsageUpdateHandler::withUpdatedUsage);
+            }
+        }
+
+        for (final String id : take(pendingExtensions)) {
+            final Extension extension = dataManager.fetch(Extension.class, id);
+            if (extension != null) {
+                changedExtensions.add(extension.getExtensionId());
+            }
+        }
+
+        for (final String extensionId : changedExtensions) {
+            dataManager.fetchAllByPropertyValue(Extension.class, "extensionId", extensionId)
+                .forEach(extension -> updateUsage(extension, extensions.usage(extensionId), UsageUpdateHandler::withUpdatedUsage));
+        }
+    }
+
+    private <T extends WithId<T> & WithUsage> void updateUsageFor(final Class<T> type, final UsageIndex index,
+        final Function<T, String> idFunction, final BiFunction<T, Integer, T> usageUpdater) {
         final ListResult<T> result = dataManager.fetchAll(type);
 
         final List<T> allItems = result.getItems();
@@ -94,13 +232,16 @@ public final class UsageUpdateHandler implements ResourceUpdateHandler {
         for (final T item : allItems) {
             final String id = idFunction.apply(item);
 
-            final int recordedUse = item.getUses();
-            final int currentUse = usage.getOrDefault(id, 0L).intValue();
+            updateUsage(item, index.usage(id), usageUpdater);
+        }
+    }
 
-            if (recordedUse != currentUse) {
-                LOG.debug("Updating usage from: {} to: {}", recordedUse, currentUse);
-                dataManager.update(usageUpdater.apply(item, currentUse));
-            }
+    private <T extends WithId<T> & WithUsage> void updateUsage(final T item, final int currentUse, final BiFunction<T, Integer, T> usageUpdater) {
+        final int recordedUse = item.getUses();
+
+        if (recordedUse != currentUse) {
+            LOG.debug("Updating usage from: {} to: {}", recordedUse, currentUse);
+            dataManager.update(usageUpdater.apply(item, currentUse));
         }
     }
 
@@ -112,10 +253,73 @@ public final class UsageUpdateHandler implements ResourceUpdateHandler {
         return new Extension.Builder().createFrom(extension).uses(currentUse).build();
     }
 
-    private static Map<String, Long> computeUsage(final List<Integration> integrations, final Function<Integration, Set<String>> idFunction) {
-        return integrations.stream()
-            .flatMap(i -> idFunction.apply(i).stream())
-            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    private static Set<String> take(final Set<String> pending) {
+        final Set<String> taken = new HashSet<>();
+        for (final Iterator<String> i = pending.iterator(); i.hasNext();) {
+            taken.add(i.next());
+            i.remove();
+        }
+
+        return taken;
     }
 
+    /**
+     * Integrations using a connection or an extension, by the id of the
+     * connection or extension.
+     */
+    static final class UsageIndex {
+
+        private final Map<String, Set<String>> usedByIntegration = new HashMap<>();
+
+        private final Map<String, Set<String>> integrationsUsing = new HashMap<>();
+
+        UsageIndex(final List<Integration> integrations, final Function<Integration, Set<String>> idsFunction) {
+            for (int i = 0; i < integrations.size(); i++) {
+                final Integration integration = integrations.get(i);
+
+                // integrations are always stored with an id, the index keeps
+                // them apart if that's not the case
+                final String integrationId = integration.getId().orElse("#" + i);
+
+                update(integrationId, idsFunction.apply(integration));
+            }
+        }
+
+        int usage(final String id) {
+            final Set<String> integrations = integrationsUsing.get(id);
+            return integrations == null ? 0 : integrations.size();
+        }
+
+        /**
+         * Records the ids used by the given integration, returns the ids
+         * whose usage changed.
+         */
+        Set<String> update(final String integrationId, final Set<String> ids) {
+            final Set<String> previous = usedByIntegration.getOrDefault(integrationId, Collections.emptySet());
+
+            final Set<String> added = ids.stream().filter(id -> !previous.contains(id)).collect(Collectors.toSet());
+            final Set<String> removed = previous.stream().filter(id -> !ids.contains(id)).collect(Collectors.toSet());
+
+            for (final String id : added) {
+                integrationsUsing.computeIfAbsent(id, x -> new HashSet<>()).add(integrationId);
+            }
+
+            for (final String id : removed) {
+                final Set<String> integrations = integrationsUsing.get(id);
+                integrations.remove(integrationId);
+                if (integrations.isEmpty()) {
+                    integrationsUsing.remove(id);
+                }
+            }
+
+            if (ids.isEmpty()) {
+                usedByIntegration.remove(integrationId);
+            } else {
+                usedByIntegration.put(integrationId, new HashSet<>(ids));
+            }
+
+            added.addAll(removed);
+            return added;
+        }
+    }
 }
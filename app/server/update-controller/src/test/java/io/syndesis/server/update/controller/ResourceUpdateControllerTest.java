@@ -30,9 +30,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -45,7 +48,9 @@ public class ResourceUpdateControllerTest {
 
     EventBus eventBus = mock(EventBus.class);
 
-    ResourceUpdateHandler[] handlers = {mock(ResourceUpdateHandler.class), mock(ResourceUpdateHandler.class)};
+    // calling real methods so the default batch processing delegates to
+    // processing of single events
+    ResourceUpdateHandler[] handlers = {mock(ResourceUpdateHandler.class, CALLS_REAL_METHODS), mock(ResourceUpdateHandler.class, CALLS_REAL_METHODS)};
 
     public ResourceUpdateControllerTest() {
         final ResourceUpdateConfiguration configuration = new ResourceUpdateConfiguration();
@@ -71,6 +76,32 @@ public class ResourceUpdateControllerTest {
         }
     }
 
+    @Test
+    public void shouldCoalesceEventsOfTheSameKind() throws InterruptedException, ExecutionException, TimeoutException {
+        reset(handlers);
+
+        final ChangeEvent another = ChangeEvent.of("action", "kind", "another");
+        final ChangeEvent repeated = ChangeEvent.of("updated", "kind", "id");
+
+        for (final ResourceUpdateHandler handler : handlers) {
+            when(handler.canHandle(any(ChangeEvent.class))).thenReturn(true);
+        }
+
+        final CompletableFuture<Void> processed = CompletableFuture.allOf(
+            controller.onEventInternal(EventBus.Type.CHANGE_EVENT, JsonUtils.toString(event)),
+            controller.onEventInternal(EventBus.Type.CHANGE_EVENT, JsonUtils.toString(another)),
+            controller.onEventInternal(EventBus.Type.CHANGE_EVENT, JsonUtils.toString(repeated)));
+
+        processed.get(1, TimeUnit.SECONDS);
+
+        for (final ResourceUpdateHandler handler : handlers) {
+            verify(handler).process(Arrays.asList(repeated, another));
+            verify(handler).process(repeated);
+            verify(handler).process(another);
+            verify(handler, never()).process(event);
+        }
+    }
+
     @BeforeEach
     public void startController() {
         controller.start();
@@ -23,12 +23,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.validation.Validator;
 import org.junit.jupiter.api.Test;
 import io.syndesis.common.model.ChangeEvent;
@@ -277,6 +279,22 @@ public class IntegrationUpdateHandlerTest implements StringConstants {
         assertTrue(messages.isEmpty());
     }
 
+    @Test
+    public void shouldNotComputeIntegrationsNotUsingChangedConnections() {
+        final IntegrationUpdateHandler updateHandler = new IntegrationUpdateHandler(dataManager, null, validator);
+
+        getEventFromChangedIntegration(false);
+
+        ChangeEvent event = new ChangeEvent.Builder()
+            .action("updated")
+            .id("not-used")
+            .kind("connection")
+            .build();
+
+        List<IntegrationBulletinBoard> boards = updateHandler.compute(event);
+        assertTrue(boards.isEmpty());
+    }
+
     private ChangeEvent getEventFromChangedIntegration(boolean isDynamic) {
         // integration
         String id = "MyTestIntegration-x123456";
@@ -513,4 +531,39 @@ public class IntegrationUpdateHandlerTest implements StringConstants {
         List<LeveledMessage> messages = board.getMessages();
         assertTrue(messages.isEmpty());
     }
+
+    /**
+     * Integrations sharing the name an integration had before it was renamed
+     * or deleted need their duplicate name messages to be recomputed
+     */
+    @Test
+    public void shouldRecomputeIntegrationsSharingTheNameOfRenamedOrDeletedIntegration() {
+        final IntegrationUpdateHandler updateHandler = new IntegrationUpdateHandler(dataManager, null, validator);
+
+        when(dataManager.fetchAll(Connection.class)).thenReturn(ListResult.empty());
+        when(dataManager.fetchAll(IntegrationDeployment.class)).thenReturn(ListResult.empty());
+
+        final Integration first = new Integration.Builder().id("first").name("same").build();
+        final Integration second = new Integration.Builder().id("second").name("same").build();
+        final Integration other = new Integration.Builder().id("other").name("other").build();
+
+        when(dataManager.fetchAll(Integration.class)).thenReturn(ListResult.complete(first, second, other));
+        assertEquals(Collections.singletonList("other"), boardTargets(updateHandler.compute(ChangeEvent.of("created", "integration", "other"))));
+
+        final Integration renamed = new Integration.Builder().createFrom(first).name("renamed").build();
+        when(dataManager.fetchAll(Integration.class)).thenReturn(ListResult.complete(renamed, second, other));
+        assertEquals(Arrays.asList("first", "second"), boardTargets(updateHandler.compute(ChangeEvent.of("updated", "integration", "first"))));
+
+        when(dataManager.fetchAll(Integration.class)).thenReturn(ListResult.complete(first, second, other));
+        assertEquals(Arrays.asList("first", "second"), boardTargets(updateHandler.compute(ChangeEvent.of("updated", "integration", "first"))));
+
+        when(dataManager.fetchAll(Integration.class)).thenReturn(ListResult.complete(second, other));
+        assertEquals(Collections.singletonList("second"), boardTargets(updateHandler.compute(ChangeEvent.of("deleted", "integration", "first"))));
+    }
+
+    private static List<String> boardTargets(List<IntegrationBulletinBoard> boards) {
+        return boards.stream()
+            .map(IntegrationBulletinBoard::getTargetResourceId)
+            .collect(Collectors.toList());
+    }
 }
@@ -15,6 +15,7 @@
  */
 package io.syndesis.server.update.controller.usage;
 
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -29,7 +30,9 @@ import io.syndesis.common.model.integration.Flow;
 import io.syndesis.common.model.integration.Integration;
 import io.syndesis.common.model.integration.Step;
 import io.syndesis.server.dao.manager.DataManager;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -195,6 +198,52 @@ public class UsageUpdateHandlerTest {
         verifyNoMoreInteractions(dataManager);
     }
 
+    @Test
+    public void shouldCoalesceBurstsOfChanges() {
+        when(dataManager.fetchAll(Integration.class)).thenReturn(ListResult.complete(testIntegration().withFlowConnections(c1).id("i1").build()));
+        handler.processInternal(NOT_USED);
+        clearInvocations(dataManager);
+
+        when(dataManager.fetch(Integration.class, "i1")).thenReturn(testIntegration().withFlowConnections(c1, c2).id("i1").build());
+        when(dataManager.fetch(Connection.class, "c2")).thenReturn(c2);
+
+        final List<ChangeEvent> burst = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            burst.add(ChangeEvent.of("updated", "integration", "i1"));
+        }
+
+        handler.process(burst);
+
+        verify(dataManager).update(UsageUpdateHandler.withUpdatedUsage(c2, 1));
+        verify(dataManager).fetch(Integration.class, "i1");
+        verify(dataManager).fetch(Connection.class, "c2");
+        verifyNoMoreInteractions(dataManager);
+    }
+
+    @Test
+    public void shouldUpdateOnlyUsageChangedByTheIntegration() {
+        final Integration usesC1 = testIntegration().withFlowConnections(c1).id("i1").build();
+        final Integration usesC1andC2 = testIntegration().withFlowConnections(c1, c2).id("i2").build();
+        when(dataManager.fetchAll(Integration.class)).thenReturn(ListResult.complete(usesC1, usesC1andC2));
+
+        handler.processInternal(NOT_USED);
+        clearInvocations(dataManager);
+
+        final Connection c2UsedOnce = UsageUpdateHandler.withUpdatedUsage(c2, 1);
+        when(dataManager.fetch(Integration.class, "i2")).thenReturn(testIntegration().withFlowConnections(c1, c3).id("i2").build());
+        when(dataManager.fetch(Connection.class, "c2")).thenReturn(c2UsedOnce);
+        when(dataManager.fetch(Connection.class, "c3")).thenReturn(c3);
+
+        handler.process(ChangeEvent.of("updated", "integration", "i2"));
+
+        verify(dataManager).fetch(Integration.class, "i2");
+        verify(dataManager).fetch(Connection.class, "c2");
+        verify(dataManager).fetch(Connection.class, "c3");
+        verify(dataManager).update(UsageUpdateHandler.withUpdatedUsage(c2UsedOnce, 0));
+        verify(dataManager).update(UsageUpdateHandler.withUpdatedUsage(c3, 1));
+        verifyNoMoreInteractions(dataManager);
+    }
+
     @Test
     public void someStepsDoNotUseConnectionsAndShouldNotBeConsidered() {
         final Step stepWithoutConnection = new Step.Builder().build();